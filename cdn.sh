@@ -0,0 +1,24 @@
+#!/usr/bin/env zsh
+
+## Sends a command to the shell daemon and prints its output as it is written, i.e.
+## ./cdn.sh ls --format json
+## Start the daemon first with: ./run-shell.sh daemon
+## Requires a netcat with Unix-domain socket support (nc -U)
+
+SOCKET="${KAPRESOFT_CDN_SOCKET:-${HOME}/.kapresoft-cdn-shell/shell.sock}"
+
+function _main() {
+  if [[ ! -S "$SOCKET" ]]; then
+    echo "[ERROR]: The shell daemon is not running: no socket at ${SOCKET}."
+    echo "Start it with:"
+    echo "$ ./run-shell.sh daemon"
+    return 2
+  fi
+  # The last line of the response is the exit code after an ASCII record separator
+  print -r -- "${(j: :)${(q-)@}}" | nc -U "$SOCKET" | awk -v rs=$'\x1e' '
+    index($0, rs) == 1 { code = substr($0, 2); next }
+    { print; fflush() }
+    END { exit (code == "" ? 1 : code) }'
+}
+
+_main "$@"
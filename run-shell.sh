@@ -4,6 +4,7 @@ M2_REPO=~/.m2/repository
 ## Build the project first
 ## ./mvnw clean install
 ## Then run this script
+## ./run-shell.sh daemon  starts a background daemon that ./cdn.sh sends commands to
 
 function _main() {
   local jarPath="${M2_REPO}/com/kapresoft/devops/shell/0.0.1-SNAPSHOT/shell-0.0.1-SNAPSHOT.jar"
@@ -15,9 +16,15 @@ function _main() {
     return 0
   fi
   local cmd
-  cmd="java -jar ${jarPath}"
+  if [[ "$1" == "daemon" ]]; then
+    local logFile=~/.kapresoft-cdn-shell/daemon.log
+    mkdir -p "${logFile:h}"
+    cmd="nohup java -Dspring.profiles.include=daemon -jar ${jarPath} > ${logFile} 2>&1 &"
+  else
+    cmd="java -jar ${jarPath}"
+  fi
   echo "Executing: ${cmd}"
   eval "${cmd}"
 }
 
-_main
+_main "$@"
@@ -1,8 +1,17 @@
 package com.kapresoft.devops.shell;
 
+import com.amazonaws.regions.Regions;
 import com.amazonaws.services.cloudfront.AmazonCloudFront;
 import com.amazonaws.services.cloudfront.AmazonCloudFrontClientBuilder;
+import com.kapresoft.devops.shell.config.ConcurrencyProperties;
+import com.kapresoft.devops.shell.config.ReplicationProperties;
 import com.kapresoft.devops.shell.util.aws.AmazonS3BeanFactory;
+import com.kapresoft.devops.shell.util.aws.AmazonS3ClientCache;
+import com.kapresoft.devops.shell.util.aws.AwsRequestLimits;
+import com.kapresoft.devops.shell.util.aws.ConcurrencyLimitingRequestHandler;
+import com.kapresoft.devops.shell.util.concurrent.AdaptiveLimiter;
+import com.kapresoft.devops.shell.util.trace.Tracer;
+import com.kapresoft.devops.shell.util.trace.TracingRequestHandler;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -10,17 +19,44 @@ import org.springframework.context.annotation.Configuration;
 @Configuration
 public class AWSConfig {
 
+    /**
+     * @param props The request limits
+     * @return AwsRequestLimits The S3 and CloudFront limiters shared by all clients
+     */
     @Bean
-    AmazonCloudFront cloudFront() {
-        return AmazonCloudFrontClientBuilder.defaultClient();
+    AwsRequestLimits awsRequestLimits(ConcurrencyProperties props) {
+        return new AwsRequestLimits(limiter("s3", props.getS3(), props.getLatencyTolerance()),
+                limiter("cloudfront", props.getCloudFront(), props.getLatencyTolerance()));
+    }
+
+    private static AdaptiveLimiter limiter(String name, ConcurrencyProperties.Limit limit, double latencyTolerance) {
+        return new AdaptiveLimiter(name, limit.initial(), limit.min(), limit.max(), latencyTolerance);
     }
 
     @Bean
-    AmazonS3BeanFactory s3() throws Exception {
-        AmazonS3BeanFactory f = new AmazonS3BeanFactory();
+    AmazonCloudFront cloudFront(Tracer tracer, AwsRequestLimits limits) {
+        return AmazonCloudFrontClientBuilder.standard()
+                .withRequestHandlers(new TracingRequestHandler(tracer),
+                        new ConcurrencyLimitingRequestHandler(limits.getCloudFront()))
+                .build();
+    }
+
+    @Bean
+    AmazonS3BeanFactory s3(ReplicationProperties replicationProperties, Tracer tracer, AwsRequestLimits limits) throws Exception {
+        AmazonS3BeanFactory f = new AmazonS3BeanFactory(Regions.fromName(replicationProperties.getPrimaryRegion()),
+                new TracingRequestHandler(tracer), new ConcurrencyLimitingRequestHandler(limits.getS3()));
         f.setSingleton(true);
         f.afterPropertiesSet();
         return f;
     }
 
+    /**
+     * @return AmazonS3ClientCache The clients of the replica bucket regions
+     */
+    @Bean(destroyMethod = "shutdown")
+    AmazonS3ClientCache s3ClientCache(Tracer tracer, AwsRequestLimits limits) {
+        return new AmazonS3ClientCache(new TracingRequestHandler(tracer),
+                new ConcurrencyLimitingRequestHandler(limits.getS3()));
+    }
+
 }
@@ -2,19 +2,39 @@ package com.kapresoft.devops.shell;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
+import com.kapresoft.devops.shell.config.HttpClientProperties;
+import com.kapresoft.devops.shell.config.KapresoftProjectProperties;
+import com.kapresoft.devops.shell.config.ProjectRegistry;
+import com.kapresoft.devops.shell.config.TraceProperties;
+import com.kapresoft.devops.shell.service.BuildIndexService;
+import com.kapresoft.devops.shell.service.JobService;
+import com.kapresoft.devops.shell.service.TraceService;
+import com.kapresoft.devops.shell.util.shell.CommandOutput;
+import com.kapresoft.devops.shell.util.trace.Tracer;
+import com.kapresoft.devops.shell.util.trace.TracingExchangeFilter;
+import io.netty.channel.ChannelOption;
 
+import org.jline.terminal.Terminal;
 import org.jline.utils.AttributedString;
 import org.jline.utils.AttributedStyle;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.info.BuildProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.support.ConversionServiceFactoryBean;
 import org.springframework.core.convert.converter.Converter;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.shell.jline.PromptProvider;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
 
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Instant;
+import java.util.List;
 import java.util.Properties;
 import java.util.Set;
+import java.util.stream.Stream;
 
 /**
  * @see <a href="https://docs.spring.io/spring-shell/docs/3.1.6/docs/">Spring Shell Reference Doc</a>
@@ -28,13 +48,66 @@ public class ShellConfig {
         return new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
     }
 
+    /**
+     * The prompt is rendered after each command, which marks the shell as in use for the background index refresh
+     * and ends the trace of the command. Background jobs that finished meanwhile are reported first.
+     * @param buildIndexService The background build index
+     * @param traceService      The command traces
+     * @param jobService        The background jobs
+     * @param terminal          The terminal the trace is printed to; looked up lazily as the terminal bean needs the prompt
+     * @return PromptProvider The shell prompt
+     */
+    @Bean
+    public PromptProvider promptProvider(BuildIndexService buildIndexService, TraceService traceService,
+                                         JobService jobService, ObjectProvider<Terminal> terminal) {
+        return () -> {
+            buildIndexService.touch();
+            final Instant now = Instant.now();
+            List<String> lines = Stream.concat(
+                    traceService.finish().stream(),
+                    jobService.reportFinished().stream().map(job -> job.describe(now))).toList();
+            if (!lines.isEmpty()) {
+                terminal.ifAvailable(t -> {
+                    lines.forEach(t.writer()::println);
+                    t.writer().flush();
+                });
+            }
+            // The next command runs on this thread once the user enters it
+            traceService.begin();
+            return new AttributedString("cdn:> ",
+                    AttributedStyle.DEFAULT
+                            .italic().bold()
+                            .foreground(AttributedStyle.GREEN)
+            );
+        };
+    }
+
+    /**
+     * @param props The trace settings
+     * @return Tracer Records the remote calls of each command while tracing is on
+     */
+    @Bean
+    Tracer tracer(TraceProperties props) {
+        return new Tracer(props.isEnabled());
+    }
+
+    /**
+     * @param terminal The shell terminal
+     * @return CommandOutput The output of commands, redirected to the client for daemon requests
+     */
+    @Bean
+    CommandOutput commandOutput(ObjectProvider<Terminal> terminal) {
+        return new CommandOutput(terminal);
+    }
+
+    /**
+     * Services that handle one project at a time get the default project.
+     * @param projectRegistry The configured projects
+     * @return KapresoftProjectProperties The default project
+     */
     @Bean
-    public PromptProvider promptProvider() {
-        return () -> new AttributedString("cdn:> ",
-                AttributedStyle.DEFAULT
-                        .italic().bold()
-                        .foreground(AttributedStyle.GREEN)
-        );
+    KapresoftProjectProperties defaultProject(ProjectRegistry projectRegistry) {
+        return projectRegistry.getDefault();
     }
 
     @Bean
@@ -48,9 +121,25 @@ public class ShellConfig {
         return new BuildProperties(p);
     }
 
+    /**
+     * Connections are pooled and kept alive between commands; a slow edge fails the request after the read timeout.
+     * @param props  The HTTP client settings
+     * @param tracer Records the requests of the command that makes them
+     * @return WebClient The client for requests through the CDN
+     */
     @Bean
-    RestTemplate restTemplate() {
-        return new RestTemplate();
+    WebClient webClient(HttpClientProperties props, Tracer tracer) {
+        ConnectionProvider connectionProvider = ConnectionProvider.builder("cdn")
+                .maxConnections(props.getMaxConnections())
+                .maxIdleTime(props.getMaxIdleTime())
+                .build();
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) props.getConnectTimeout().toMillis())
+                .responseTimeout(props.getReadTimeout());
+        return WebClient.builder()
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .filter(new TracingExchangeFilter(tracer))
+                .build();
     }
 
     /**
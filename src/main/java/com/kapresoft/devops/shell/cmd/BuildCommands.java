@@ -0,0 +1,388 @@
+package com.kapresoft.devops.shell.cmd;
+
+import jakarta.validation.ValidationException;
+import lombok.extern.log4j.Log4j2;
+
+import com.kapresoft.devops.shell.config.S3BucketProperties;
+import com.kapresoft.devops.shell.pojo.BuildDiffEntry;
+import com.kapresoft.devops.shell.pojo.BuildDiffSummary;
+import com.kapresoft.devops.shell.pojo.DeployOptions;
+import com.kapresoft.devops.shell.pojo.S3Bucket;
+import com.kapresoft.devops.shell.pojo.S3Location;
+import com.kapresoft.devops.shell.pojo.TransferReport;
+import com.kapresoft.devops.shell.pojo.VerificationIssue;
+import com.kapresoft.devops.shell.pojo.VerificationReport;
+import com.kapresoft.devops.shell.service.BuildDiffService;
+import com.kapresoft.devops.shell.service.BuildVerificationService;
+import com.kapresoft.devops.shell.service.CompressionService;
+import com.kapresoft.devops.shell.service.S3TransferService;
+import com.kapresoft.devops.shell.util.ByteUnits;
+import com.kapresoft.devops.shell.validator.CustomValidator;
+
+import org.springframework.boot.ansi.AnsiColor;
+import org.springframework.boot.ansi.AnsiOutput;
+import org.springframework.shell.standard.ShellComponent;
+import org.springframework.shell.standard.ShellMethod;
+import org.springframework.shell.standard.ShellOption;
+import org.springframework.util.StringUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static com.kapresoft.devops.shell.util.ByteUnits.format;
+
+@Log4j2
+@ShellComponent
+public class BuildCommands {
+
+    static final String DIST_HELP = """
+            The CloudFront distribution ID, i.e. 'E1OAOW8NPJ78SQ' (Optional).
+            Defaults to user env var AWS_CLOUDFRONT_DIST_ID.
+            """;
+    static final String PROJECT_HELP = """
+            The project key or name in spring.application.code-build-project (Optional).
+            Picks its build of the version, as a version may hold a build of each project.
+            Defaults to the default project.
+            """;
+    private static final String DIFF_VERSION_HELP = """
+            The build version in s3://{s3-bucket}/site/{version}, or 'live' for the build the CDN currently serves.
+            Example:
+            diff live 2e641ee8-9226-45d4-ab8c-7850e731d675
+            diff --from 76430603-5232-4722-ab25-74d975af8199 --to 2e641ee8-9226-45d4-ab8c-7850e731d675
+            """;
+    private static final String VERIFY_VERSION_HELP = """
+            The build version in s3://{s3-bucket}/site/{version}, or 'live'.
+            Example:
+            verify 2e641ee8-9226-45d4-ab8c-7850e731d675
+            verify --version 2e641ee8-9226-45d4-ab8c-7850e731d675 --concurrency 16 --failFast
+            """;
+    private static final String PROMOTE_VERSION_HELP = """
+            The build version in s3://{s3-bucket}/site/{version}, or 'live'.
+            Example:
+            promote 2e641ee8-9226-45d4-ab8c-7850e731d675 --to s3://kapresoft/
+            promote --version live --to s3://kapresoft-backup/site/latest/ --concurrency 32 --dryRun false
+            """;
+    private static final String PROMOTE_TO_HELP = """
+            The target in the form s3://{bucket}/{prefix}. Without a prefix, the build keeps its key path.
+            """;
+    private static final String DEPLOY_HELP = """
+            The local build output directory.
+            Example:
+            deploy ./public --version 2e641ee8-9226-45d4-ab8c-7850e731d675 --commit 31df8236bd2ee88ebad66601c48f7c895461af9a
+            deploy --localDir ./public --version 2e641ee8-9226-45d4-ab8c-7850e731d675 --partSize 32 --dryRun false
+            """;
+    private static final String RECOMPRESS_VERSION_HELP = """
+            The build version in s3://{s3-bucket}/site/{version}, or 'live'.
+            Served objects are replaced; invalidate the CDN afterwards for a live build.
+            Example:
+            recompress 2e641ee8-9226-45d4-ab8c-7850e731d675 --dryRun false
+            """;
+    private static final int MAX_PART_SIZE_MB = 1024;
+    private static final String ENTRY_FMT = "  %s %s";
+
+    private final BuildVersionResolver buildVersionResolver;
+    private final BuildDiffService buildDiffService;
+    private final BuildVerificationService buildVerificationService;
+    private final S3TransferService s3TransferService;
+    private final CompressionService compressionService;
+    private final CustomValidator validator;
+    private final S3Bucket s3Bucket;
+
+    public BuildCommands(BuildVersionResolver buildVersionResolver,
+                         BuildDiffService buildDiffService,
+                         BuildVerificationService buildVerificationService,
+                         S3TransferService s3TransferService,
+                         CompressionService compressionService,
+                         CustomValidator validator,
+                         S3BucketProperties s3BucketProperties) {
+        this.buildVersionResolver = buildVersionResolver;
+        this.buildDiffService = buildDiffService;
+        this.buildVerificationService = buildVerificationService;
+        this.s3TransferService = s3TransferService;
+        this.compressionService = compressionService;
+        this.validator = validator;
+        this.s3Bucket = s3BucketProperties.getS3Bucket();
+    }
+
+    /**
+     * <b>Usage:</b> diff {@code <versionA> <versionB>}
+     * <pre>{@code
+     * shell:> diff live 2e641ee8-9226-45d4-ab8c-7850e731d675
+     * shell:> diff --from live --to 2e641ee8-9226-45d4-ab8c-7850e731d675 --limit 0
+     * }</pre>
+     *
+     * @param fromVersion    The build version to compare from
+     * @param toVersion      The build version to compare to
+     * @param limit          The maximum number of changed files to print; totals always cover all files
+     * @param optionalDistID The CloudFront Distribution ID, used to resolve 'live'
+     * @param project        The project whose build of the version is used
+     * @return String The command status message; if any.
+     */
+    @ShellMethod(value = "Compare the files of two build versions", key = {"diff"})
+    public String diff(
+            @ShellOption(value = "from", help = DIFF_VERSION_HELP, valueProvider = BuildVersionValueProvider.class) String fromVersion,
+            @ShellOption(value = "to", help = DIFF_VERSION_HELP, valueProvider = BuildVersionValueProvider.class) String toVersion,
+            @ShellOption(value = "limit", help = "Max number of changed files to print", defaultValue = "50") int limit,
+            @ShellOption(value = "dist", help = DIST_HELP, defaultValue = "") String optionalDistID,
+            @ShellOption(value = "project", help = PROJECT_HELP, defaultValue = "") String project) {
+
+        final String fromPrefix = buildVersionResolver.resolveKeyPath(fromVersion, optionalDistID, project);
+        final String toPrefix = buildVersionResolver.resolveKeyPath(toVersion, optionalDistID, project);
+
+        final List<String> lines = new ArrayList<>();
+        final long start = System.nanoTime();
+        BuildDiffSummary summary = buildDiffService.diff(fromPrefix, toPrefix, e -> {
+            if (e.change() != BuildDiffEntry.Change.UNCHANGED && lines.size() < limit) {
+                lines.add(toLine(e));
+            }
+        });
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        final List<String> b = new ArrayList<>();
+        b.add("Diff: %s -> %s".formatted(fromPrefix, toPrefix));
+        b.add("");
+        if (!lines.isEmpty()) {
+            b.addAll(lines);
+            long total = summary.getAdded() + summary.getRemoved() + summary.getChanged();
+            if (total > lines.size()) {
+                b.add("  ... %d more".formatted(total - lines.size()));
+            }
+            b.add("");
+        }
+        b.add("  %-10s : %d files, %s".formatted("added", summary.getAdded(), format(summary.getAddedBytes())));
+        b.add("  %-10s : %d files, %s".formatted("removed", summary.getRemoved(), format(summary.getRemovedBytes())));
+        b.add("  %-10s : %d files, %s".formatted("changed", summary.getChanged(), format(summary.getChangedBytes())));
+        b.add("  %-10s : %d files".formatted("unchanged", summary.getUnchanged()));
+        b.add("  %-10s : %s -> %s".formatted("total", format(summary.getFromTotalBytes()), format(summary.getToTotalBytes())));
+        b.add("  %-10s : %d ms".formatted("elapsed", elapsed.toMillis()));
+        return StringUtils.collectionToDelimitedString(b, System.lineSeparator());
+    }
+
+    /**
+     * <b>Usage:</b> verify {@code <version>}
+     * <pre>{@code
+     * shell:> verify 2e641ee8-9226-45d4-ab8c-7850e731d675
+     * shell:> verify --version live --concurrency 16 --failFast
+     * }</pre>
+     *
+     * @param version        The build version, or 'live'
+     * @param concurrency    The maximum number of objects downloaded at once
+     * @param failFast       Stop at the first failure
+     * @param optionalDistID The CloudFront Distribution ID, used to resolve 'live'
+     * @param project        The project whose build of the version is used
+     * @return String The command status message; if any.
+     */
+    @ShellMethod(value = "Verify the uploaded files of a build against its manifest", key = {"verify"})
+    public String verify(
+            @ShellOption(value = "version", help = VERIFY_VERSION_HELP, valueProvider = BuildVersionValueProvider.class) String version,
+            @ShellOption(value = "concurrency", help = "Max objects downloaded at once", defaultValue = "8") int concurrency,
+            @ShellOption(value = "failFast", help = "Stop at the first failure") boolean failFast,
+            @ShellOption(value = "dist", help = DIST_HELP, defaultValue = "") String optionalDistID,
+            @ShellOption(value = "project", help = PROJECT_HELP, defaultValue = "") String project) {
+
+        String keyPath = buildVersionResolver.resolveKeyPath(version, optionalDistID, project);
+        VerificationReport report = buildVerificationService.verify(keyPath, concurrency, failFast);
+        return toReport(report);
+    }
+
+    /**
+     * <b>Usage:</b> promote {@code <version> --to s3://bucket/prefix}
+     * <pre>{@code
+     * shell:> promote 2e641ee8-9226-45d4-ab8c-7850e731d675 --to s3://kapresoft/
+     * shell:> promote --version live --to s3://kapresoft-backup/ --concurrency 32 --dryRun false
+     * }</pre>
+     *
+     * @param version        The build version, or 'live'
+     * @param to             The target bucket and optional prefix
+     * @param concurrency    The maximum number of objects copied at once
+     * @param isDryRun       Only report what would be copied
+     * @param optionalDistID The CloudFront Distribution ID, used to resolve 'live'
+     * @param project        The project whose build of the version is used
+     * @return String The command status message; if any.
+     */
+    @ShellMethod(value = "Copy a build server-side to another bucket or prefix", key = {"promote"})
+    public String promote(
+            @ShellOption(value = "version", help = PROMOTE_VERSION_HELP, valueProvider = BuildVersionValueProvider.class) String version,
+            @ShellOption(value = "to", help = PROMOTE_TO_HELP) String to,
+            @ShellOption(value = "concurrency", help = "Max objects copied at once", defaultValue = "16") int concurrency,
+            @ShellOption(value = "dryRun", help = "Dry Run, no executions", defaultValue = "true") boolean isDryRun,
+            @ShellOption(value = "dist", help = DIST_HELP, defaultValue = "") String optionalDistID,
+            @ShellOption(value = "project", help = PROJECT_HELP, defaultValue = "") String project) {
+
+        S3Location target = S3Location.parse(to);
+        if (target.bucket() == null) {
+            throw new ValidationException("The target is required, i.e. s3://{bucket}/{prefix}");
+        }
+        validator.validateOrThrow(target.bucket(), "target");
+
+        String keyPath = buildVersionResolver.resolveKeyPath(version, optionalDistID, project);
+        String sourcePrefix = keyPath.endsWith("/") ? keyPath : keyPath + "/";
+        if (target.bucket().name().equals(s3Bucket.name())
+                && (target.prefix().isEmpty() || target.prefix().equals(sourcePrefix))) {
+            throw new ValidationException("The target is the build itself: %s".formatted(target));
+        }
+        TransferReport report = s3TransferService.promote(keyPath, target, concurrency, isDryRun);
+        return toReport("Promote", report);
+    }
+
+    /**
+     * <b>Usage:</b> deploy {@code <localDir> --version <version>}
+     * <pre>{@code
+     * shell:> deploy ./public --version 2e641ee8-9226-45d4-ab8c-7850e731d675
+     * shell:> deploy ./public --version 2e641ee8-9226-45d4-ab8c-7850e731d675 --gzip --concurrency 16 --dryRun false
+     * }</pre>
+     *
+     * @param localDir    The local build output directory
+     * @param version     The build version, i.e. a UUID
+     * @param commitHash  The commit the build was made from
+     * @param concurrency The maximum number of files uploaded at once
+     * @param partSizeMB  The multipart upload part size in MB
+     * @param gzip        Pre-compress text assets
+     * @param isDryRun    Only report what would be uploaded
+     * @param project     The project the build is uploaded as, i.e. site/{version}/{project-name}
+     * @return String The command status message; if any.
+     */
+    @ShellMethod(value = "Upload a local build to s3://{s3-bucket}/site/{version}/{project-name}", key = {"deploy"})
+    public String deploy(
+            @ShellOption(value = "localDir", help = DEPLOY_HELP) String localDir,
+            @ShellOption(value = "version", help = "The build version, i.e. a UUID") String version,
+            @ShellOption(value = "commit", help = "The commit hash of the build", defaultValue = "unknown") String commitHash,
+            @ShellOption(value = "concurrency", help = "Max files uploaded at once", defaultValue = "8") int concurrency,
+            @ShellOption(value = "partSize", help = "Multipart upload part size in MB; larger files are uploaded in parts",
+                    defaultValue = "16") int partSizeMB,
+            @ShellOption(value = "gzip", help = "Pre-compress text assets (html, css, js, json, svg, ...) with gzip") boolean gzip,
+            @ShellOption(value = "dryRun", help = "Dry Run, no executions", defaultValue = "true") boolean isDryRun,
+            @ShellOption(value = "project", help = PROJECT_HELP, defaultValue = "") String project) {
+
+        Path dir = Path.of(localDir).toAbsolutePath().normalize();
+        if (!Files.isDirectory(dir)) {
+            throw new ValidationException("Not a directory: %s".formatted(dir));
+        }
+        if (!StringUtils.hasText(version) || version.contains("/")) {
+            throw new ValidationException("Invalid build version: %s".formatted(version));
+        }
+        long minPartSizeMB = DeployOptions.MIN_PART_SIZE / (1024 * 1024);
+        if (partSizeMB < minPartSizeMB || partSizeMB > MAX_PART_SIZE_MB) {
+            throw new ValidationException("The part size must be between %d and %d MB".formatted(minPartSizeMB, MAX_PART_SIZE_MB));
+        }
+        DeployOptions options = DeployOptions.builder()
+                .project(buildVersionResolver.resolveProject(project))
+                .version(version)
+                .commitHash(commitHash)
+                .concurrency(concurrency)
+                .partSize(partSizeMB * 1024L * 1024L)
+                .gzip(gzip)
+                .dryRun(isDryRun)
+                .build();
+        TransferReport report = s3TransferService.deploy(dir, options);
+        return toReport("Deploy", report);
+    }
+
+    /**
+     * <b>Usage:</b> recompress {@code <version>}
+     * <pre>{@code
+     * shell:> recompress 2e641ee8-9226-45d4-ab8c-7850e731d675
+     * shell:> recompress --version 2e641ee8-9226-45d4-ab8c-7850e731d675 --dryRun false
+     * }</pre>
+     *
+     * @param version        The build version, or 'live'
+     * @param concurrency    The maximum number of objects compressed at once
+     * @param isDryRun       Only report what would be compressed
+     * @param optionalDistID The CloudFront Distribution ID, used to resolve 'live'
+     * @param project        The project whose build of the version is used
+     * @return String The command status message; if any.
+     */
+    @ShellMethod(value = "Pre-compress the text assets of an uploaded build in place", key = {"recompress"})
+    public String recompress(
+            @ShellOption(value = "version", help = RECOMPRESS_VERSION_HELP, valueProvider = BuildVersionValueProvider.class) String version,
+            @ShellOption(value = "concurrency", help = "Max objects compressed at once", defaultValue = "8") int concurrency,
+            @ShellOption(value = "dryRun", help = "Dry Run, no executions", defaultValue = "true") boolean isDryRun,
+            @ShellOption(value = "dist", help = DIST_HELP, defaultValue = "") String optionalDistID,
+            @ShellOption(value = "project", help = PROJECT_HELP, defaultValue = "") String project) {
+
+        String keyPath = buildVersionResolver.resolveKeyPath(version, optionalDistID, project);
+        TransferReport report = compressionService.recompress(keyPath, concurrency, isDryRun);
+        return toReport("Recompress", report);
+    }
+
+    private static String toReport(String title, TransferReport report) {
+        final List<String> b = new ArrayList<>();
+        b.add("%s: %s -> %s".formatted(title, report.getSource(), report.getTarget()));
+        b.add("");
+        for (String failure : report.getFailureMessages()) {
+            b.add("  %s %s".formatted(AnsiOutput.toString(AnsiColor.RED, "%-10s".formatted("FAILED")), failure));
+        }
+        if (report.getFailed() > 0) {
+            b.add("");
+        }
+        Duration elapsed = report.getElapsed();
+        String status;
+        if (report.isDryRun()) {
+            status = AnsiOutput.toString(AnsiColor.YELLOW, "DRY RUN");
+        } else if (report.isSuccessful()) {
+            status = AnsiOutput.toString(AnsiColor.BRIGHT_GREEN, "COMPLETE");
+        } else {
+            status = AnsiOutput.toString(AnsiColor.RED, "INCOMPLETE (run again to resume)");
+        }
+        b.add("  %-10s : %s".formatted("status", status));
+        b.add("  %-10s : %d files, %s".formatted(report.isDryRun() ? "pending" : "sent",
+                report.getTransferred(), format(report.getTransferredBytes())));
+        b.add("  %-10s : %d files, %s".formatted("up-to-date", report.getSkipped(), format(report.getSkippedBytes())));
+        b.add("  %-10s : %d".formatted("failed", report.getFailed()));
+        if (report.getSavedBytes() > 0) {
+            b.add("  %-10s : %s compressed".formatted("saved", format(report.getSavedBytes())));
+        }
+        b.add("  %-10s : %d ms (%.1f files/s, %s)".formatted("elapsed", elapsed.toMillis(),
+                ByteUnits.rate(report.getTransferred(), elapsed), ByteUnits.throughput(report.getTransferredBytes(), elapsed)));
+        return StringUtils.collectionToDelimitedString(b, System.lineSeparator());
+    }
+
+    private static String toReport(VerificationReport report) {
+        final List<String> b = new ArrayList<>();
+        b.add("Verify: %s".formatted(report.getKeyPath()));
+        b.add("");
+        if (!report.isManifestFound()) {
+            b.add(AnsiOutput.toString(AnsiColor.RED, "  Manifest not found; the build cannot be verified"));
+            return StringUtils.collectionToDelimitedString(b, System.lineSeparator());
+        }
+        for (VerificationIssue issue : report.getIssues()) {
+            AnsiColor color = issue.isFailure() ? AnsiColor.RED : AnsiColor.YELLOW;
+            b.add("  %s %s (%s)".formatted(AnsiOutput.toString(color, "%-10s".formatted(issue.type())),
+                    issue.relativeKey(), issue.detail()));
+        }
+        if (!report.getIssues().isEmpty()) {
+            b.add("");
+        }
+        Duration elapsed = report.getElapsed();
+        b.add("  %-10s : %s".formatted("status", report.isValid()
+                ? AnsiOutput.toString(AnsiColor.BRIGHT_GREEN, "VALID")
+                : AnsiOutput.toString(AnsiColor.RED, report.isAborted() ? "INVALID (stopped at first failure)" : "INVALID")));
+        b.add("  %-10s : %d files, %s".formatted("verified", report.getChecked(), format(report.getCheckedBytes())));
+        for (VerificationIssue.Type type : VerificationIssue.Type.values()) {
+            b.add("  %-10s : %d".formatted(type.name().toLowerCase(Locale.ROOT), report.count(type)));
+        }
+        if (report.getSkipped() > 0) {
+            b.add("  %-10s : %d".formatted("skipped", report.getSkipped()));
+        }
+        b.add("  %-10s : %s downloaded".formatted("md5", format(report.getDownloadedBytes())));
+        b.add("  %-10s : %d ms (%.1f files/s, %s)".formatted("elapsed", elapsed.toMillis(),
+                ByteUnits.rate(report.getChecked(), elapsed), ByteUnits.throughput(report.getCheckedBytes(), elapsed)));
+        return StringUtils.collectionToDelimitedString(b, System.lineSeparator());
+    }
+
+    private static String toLine(BuildDiffEntry e) {
+        return switch (e.change()) {
+            case ADDED -> ENTRY_FMT.formatted(AnsiOutput.toString(AnsiColor.GREEN, "+"),
+                    "%s (%s)".formatted(e.relativeKey(), format(e.toSize())));
+            case REMOVED -> ENTRY_FMT.formatted(AnsiOutput.toString(AnsiColor.RED, "-"),
+                    "%s (%s)".formatted(e.relativeKey(), format(e.fromSize())));
+            default -> ENTRY_FMT.formatted(AnsiOutput.toString(AnsiColor.YELLOW, "~"),
+                    "%s (%s -> %s)".formatted(e.relativeKey(), format(e.fromSize()), format(e.toSize())));
+        };
+    }
+
+}
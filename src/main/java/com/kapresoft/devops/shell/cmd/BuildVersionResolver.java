@@ -0,0 +1,69 @@
+package com.kapresoft.devops.shell.cmd;
+
+import jakarta.validation.ValidationException;
+
+import com.kapresoft.devops.shell.config.KapresoftProjectProperties;
+import com.kapresoft.devops.shell.config.ProjectRegistry;
+import com.kapresoft.devops.shell.pojo.BuildInfoDetails;
+import com.kapresoft.devops.shell.service.BuildCompletionService;
+import com.kapresoft.devops.shell.service.CDNService;
+import com.kapresoft.devops.shell.service.S3RepositoryService;
+
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+/**
+ * Resolves the build version arguments of commands to S3 key paths.
+ */
+@Component
+class BuildVersionResolver {
+
+    static final String LIVE_VERSION = "live";
+
+    private final S3RepositoryService s3RepositoryService;
+    private final CDNService cdnService;
+    private final BuildCompletionService buildCompletionService;
+    private final ProjectRegistry projectRegistry;
+
+    BuildVersionResolver(S3RepositoryService s3RepositoryService, CDNService cdnService,
+                         BuildCompletionService buildCompletionService, ProjectRegistry projectRegistry) {
+        this.s3RepositoryService = s3RepositoryService;
+        this.cdnService = cdnService;
+        this.buildCompletionService = buildCompletionService;
+        this.projectRegistry = projectRegistry;
+    }
+
+    /**
+     * @param version        The build version or a unique prefix of it, or 'live' for the build the CDN currently serves
+     * @param optionalDistID The CloudFront Distribution ID, used to resolve 'live'; the distribution of the project if empty
+     * @param project        The project key or name; the default project if empty
+     * @return String The key path, i.e. site/{build-version}/{project-name}
+     */
+    @NonNull
+    String resolveKeyPath(@NonNull String version, String optionalDistID, String project) {
+        final KapresoftProjectProperties selected = projectRegistry.get(project);
+        if (LIVE_VERSION.equalsIgnoreCase(version)) {
+            String distID = StringUtils.hasLength(optionalDistID) ? optionalDistID : selected.getDistributionId();
+            return cdnService.getDistributionConfig(distID).getS3Key()
+                    .filter(StringUtils::hasLength)
+                    .orElseThrow(() -> new ValidationException("The CDN origin path is not set"));
+        }
+        // A version directory holds a build of each project, so the project picks one of them
+        return s3RepositoryService.findBuild(buildCompletionService.resolveVersion(version), selected)
+                .map(BuildInfoDetails::getKeyPath)
+                .orElseThrow(() -> new ValidationException(projectRegistry.isMultiProject()
+                        ? "Invalid build version: %s; no build of project %s".formatted(version, selected.getName())
+                        : "Invalid build version: %s".formatted(version)));
+    }
+
+    /**
+     * @param project The project key or name; the default project if empty
+     * @return KapresoftProjectProperties The project
+     */
+    @NonNull
+    KapresoftProjectProperties resolveProject(String project) {
+        return projectRegistry.get(project);
+    }
+
+}
@@ -0,0 +1,45 @@
+package com.kapresoft.devops.shell.cmd;
+
+import com.kapresoft.devops.shell.service.BuildCompletionService;
+
+import org.springframework.shell.CompletionContext;
+import org.springframework.shell.CompletionProposal;
+import org.springframework.shell.standard.ValueProvider;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.kapresoft.devops.shell.cmd.BuildVersionResolver.LIVE_VERSION;
+
+/**
+ * Completes {@code --version} options with the cached build versions and 'live'.
+ */
+@Component
+class BuildVersionValueProvider implements ValueProvider {
+
+    private final BuildCompletionService buildCompletionService;
+
+    BuildVersionValueProvider(BuildCompletionService buildCompletionService) {
+        this.buildCompletionService = buildCompletionService;
+    }
+
+    @Override
+    public List<CompletionProposal> complete(CompletionContext completionContext) {
+        String prefix = currentWord(completionContext);
+        List<CompletionProposal> proposals = new ArrayList<>();
+        if (LIVE_VERSION.startsWith(prefix)) {
+            proposals.add(new CompletionProposal(LIVE_VERSION));
+        }
+        for (String version : buildCompletionService.completeVersions(prefix)) {
+            proposals.add(new CompletionProposal(version));
+        }
+        return proposals;
+    }
+
+    static String currentWord(CompletionContext completionContext) {
+        String word = completionContext.currentWordUpToCursor();
+        return word == null ? "" : word;
+    }
+
+}
@@ -5,26 +5,48 @@ import lombok.SneakyThrows;
 import lombok.extern.log4j.Log4j2;
 
 import com.amazonaws.services.cloudfront.AmazonCloudFront;
-import com.amazonaws.services.cloudfront.model.CreateInvalidationRequest;
 import com.amazonaws.services.cloudfront.model.DistributionConfig;
 import com.amazonaws.services.cloudfront.model.GetDistributionConfigRequest;
 import com.amazonaws.services.cloudfront.model.GetDistributionConfigResult;
-import com.amazonaws.services.cloudfront.model.InvalidationBatch;
+import com.amazonaws.services.cloudfront.model.NoSuchDistributionException;
 import com.amazonaws.services.cloudfront.model.Origin;
-import com.amazonaws.services.cloudfront.model.Paths;
+import com.amazonaws.services.cloudfront.model.PreconditionFailedException;
 import com.amazonaws.services.cloudfront.model.UpdateDistributionRequest;
 import com.amazonaws.services.cloudfront.model.UpdateDistributionResult;
-import com.amazonaws.services.s3.model.ListObjectsV2Request;
 import com.amazonaws.services.s3.model.S3ObjectSummary;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.kapresoft.devops.shell.config.KapresoftProjectProperties;
-import com.kapresoft.devops.shell.decorator.BuildInfoCLIOutputDecorator;
+import com.kapresoft.devops.shell.config.ProjectRegistry;
+import com.kapresoft.devops.shell.decorator.BuildInfoRenderer;
+import com.kapresoft.devops.shell.decorator.StructuredOutputWriter;
 import com.kapresoft.devops.shell.opt.DefaultSettings;
+import com.kapresoft.devops.shell.opt.InvalidationMode;
+import com.kapresoft.devops.shell.opt.OutputFormat;
+import com.kapresoft.devops.shell.pojo.BuildDiffSummary;
+import com.kapresoft.devops.shell.pojo.BuildIndexSnapshot;
 import com.kapresoft.devops.shell.pojo.BuildInfoDetails;
 import com.kapresoft.devops.shell.pojo.DistributionConfigData;
+import com.kapresoft.devops.shell.pojo.ReleaseJournalEntry;
 import com.kapresoft.devops.shell.pojo.S3Bucket;
+import com.kapresoft.devops.shell.pojo.S3Query;
+import com.kapresoft.devops.shell.pojo.VerificationIssue;
+import com.kapresoft.devops.shell.pojo.VerificationReport;
+import com.kapresoft.devops.shell.pojo.WarmOptions;
+import com.kapresoft.devops.shell.pojo.WarmResult;
+import com.kapresoft.devops.shell.pojo.WatchOptions;
+import com.kapresoft.devops.shell.service.BuildCompletionService;
+import com.kapresoft.devops.shell.service.BuildDiffService;
+import com.kapresoft.devops.shell.service.BuildIndexService;
+import com.kapresoft.devops.shell.service.BuildVerificationService;
+import com.kapresoft.devops.shell.service.BuildWatchService;
 import com.kapresoft.devops.shell.service.CDNService;
+import com.kapresoft.devops.shell.service.CDNWarmService;
+import com.kapresoft.devops.shell.service.ReleaseJournalService;
 import com.kapresoft.devops.shell.service.S3RepositoryService;
+import com.kapresoft.devops.shell.util.ByteUnits;
+import com.kapresoft.devops.shell.util.aws.InvalidationPathCollapser;
+import com.kapresoft.devops.shell.util.concurrent.TaskScope;
+import com.kapresoft.devops.shell.util.shell.CommandOutput;
 
 import org.springframework.boot.ansi.AnsiColor;
 import org.springframework.boot.ansi.AnsiOutput;
@@ -33,12 +55,32 @@ import org.springframework.shell.standard.ShellMethod;
 import org.springframework.shell.standard.ShellOption;
 import org.springframework.util.StringUtils;
 
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
-import java.util.Calendar;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 import static java.lang.String.format;
+import static java.util.Optional.ofNullable;
 import static org.springframework.util.StringUtils.hasLength;
 
 @Log4j2
@@ -53,7 +95,8 @@ public class CDNCommands {
                s3://kapresoft/site/76430603-5232-4722-ab25-74d975af8199/63b48b9203e1482acfeb7bb5df1c4791ba58b522
             or SubPaths:
                site/76430603-5232-4722-ab25-74d975af8199/63b48b9203e1482acfeb7bb5df1c4791ba58b522 or\s
-               site/build-2024-Jan-16""";
+               site/build-2024-Jan-16
+            A unique prefix of a build path is expanded, i.e. site/7643""";
     private static final String INVALIDATE_PATH_HELP = "The CDN web path to invalidate, i.e. '/docs/*' or '/images/*', or '/*', etc...";
     private static final String DIST_HELP = """
             The CloudFront distribution ID, i.e. 'E1OAOW8NPJ78SQ' (Optional).
@@ -64,7 +107,43 @@ public class CDNCommands {
             Example:
             release 2e641ee8-9226-45d4-ab8c-7850e731d675
             release --version 2e641ee8-9226-45d4-ab8c-7850e731d675
+            release 2e641e (a unique prefix)
             """;
+    private static final String RELEASE_INVALIDATE_HELP = """
+            The CDN cache invalidation to submit after the release: none, all or changed.
+              none    : Nothing is invalidated
+              all     : Invalidates '/*'
+              changed : Invalidates only the paths that differ from the outgoing build. Falls back
+                        to '/*' if they don't fit within the CloudFront invalidation limits.
+            """;
+    private static final String FORMAT_HELP = """
+            The output format: text, json, ndjson or tsv.
+              ndjson : One JSON object per line, written as each record is produced
+              tsv    : Tab-separated values with a header line
+            """;
+    private static final String PROJECT_HELP = """
+            The project key or name in spring.application.code-build-project (Optional).
+            Its distribution is used unless --dist is given. Defaults to the default project.
+            """;
+    private static final List<String> BUILD_COLUMNS = List.of("version", "key-path", "s3-uri", "cdn-path",
+            "commit-hash", "build-number", "build-date", "last-modified", "manual-build", "live");
+    private static final List<String> CONFIG_COLUMNS = List.of("dist-id", "cdn-path", "s3", "domain-aliases",
+            "cdn-link", "s3-link");
+    private static final String WARM_FILE_HELP = """
+            A file of web paths, i.e. '/docs/index.html', or absolute URLs; one per line. For CSV files,
+            such as an exported popular objects report, the first column is used.
+            """;
+    private static final String WARM_VERSION_HELP = """
+            The build version whose objects are warmed, or 'live'. Pages are fetched first, then
+            stylesheets and scripts, shallow paths first. Defaults to 'live' if no file is given.
+            """;
+    private static final String WARM_HEADERS_HELP = "Request headers separated by ';', i.e. 'Accept-Encoding: gzip; User-Agent: cdn-warm'";
+    private static final String WARM_RESULT_FMT = "  %3s  %-10s %6d ms  %10s  %s";
+    private static final int WARM_DEFAULT_LIMIT = 500;
+    private static final int WARM_DEFAULT_CONCURRENCY = 8;
+    private static final int VERIFY_DEFAULT_CONCURRENCY = 8;
+    private static final Duration WARM_REQUEST_TIMEOUT = Duration.ofSeconds(30);
+    private static final Duration DEPLOYMENT_TIMEOUT = Duration.ofMinutes(20);
     private static final String SITE_PATH_NAME = "site";
     private static final String INVALIDATE_MESSAGE = "Don't forget to invalidate-path on /*";
     private static final String CDN_ORIGINS_URL_FORMAT = "https://us-east-1.console.aws.amazon.com/cloudfront/v4/home?region=us-east-1#/distributions/%s/origins";
@@ -74,24 +153,52 @@ public class CDNCommands {
     private final DefaultSettings defaultSettings;
     private final S3RepositoryService s3RepositoryService;
     private final CDNService cdnService;
+    private final BuildDiffService buildDiffService;
+    private final CDNWarmService cdnWarmService;
+    private final BuildVerificationService buildVerificationService;
+    private final BuildVersionResolver buildVersionResolver;
     private final AmazonCloudFront cloudFrontClient;
+    private final CommandOutput commandOutput;
+    private final BuildIndexService buildIndexService;
+    private final BuildCompletionService buildCompletionService;
+    private final BuildWatchService buildWatchService;
+    private final ReleaseJournalService releaseJournalService;
 
     private final S3Bucket s3Bucket;
-    private final String buildInfoFile;
+    private final ProjectRegistry projectRegistry;
 
     public CDNCommands(ObjectMapper objectMapper,
                        DefaultSettings defaultSettings,
                        S3RepositoryService s3RepositoryService,
                        CDNService cdnService,
+                       BuildDiffService buildDiffService,
+                       CDNWarmService cdnWarmService,
+                       BuildVerificationService buildVerificationService,
+                       BuildVersionResolver buildVersionResolver,
                        AmazonCloudFront cloudFrontClient,
+                       CommandOutput commandOutput,
+                       BuildIndexService buildIndexService,
+                       BuildCompletionService buildCompletionService,
+                       BuildWatchService buildWatchService,
+                       ReleaseJournalService releaseJournalService,
+                       ProjectRegistry projectRegistry,
                        KapresoftProjectProperties projectConf) {
         this.objectMapper = objectMapper;
         this.defaultSettings = defaultSettings;
         this.s3RepositoryService = s3RepositoryService;
         this.cdnService = cdnService;
+        this.buildDiffService = buildDiffService;
+        this.cdnWarmService = cdnWarmService;
+        this.buildVerificationService = buildVerificationService;
+        this.buildVersionResolver = buildVersionResolver;
         this.cloudFrontClient = cloudFrontClient;
+        this.commandOutput = commandOutput;
+        this.buildIndexService = buildIndexService;
+        this.buildCompletionService = buildCompletionService;
+        this.buildWatchService = buildWatchService;
+        this.releaseJournalService = releaseJournalService;
         this.s3Bucket = projectConf.getS3Bucket();
-        this.buildInfoFile = projectConf.getBuildInfoFile();
+        this.projectRegistry = projectRegistry;
         log.info("S3 Bucket is: {}", this.s3Bucket);
     }
 
@@ -105,14 +212,28 @@ public class CDNCommands {
         return resolvedDistID;
     }
 
+    /**
+     * @param distID  The CloudFront Distribution-ID
+     * @param project The project key or name
+     * @return String {@code distID} if set, otherwise the distribution of the project; empty for the default distribution
+     */
+    private String projectDistID(String distID, String project) {
+        return hasLength(distID) ? distID : projectRegistry.get(project).getDistributionId();
+    }
+
     /**
      * @param distID The CloudFront Distribution-ID
      * @return DistributionConfig
+     * @throws ValidationException If there is no such distribution
      */
     private GetDistributionConfigResult getDistributionConfig(String distID) {
         final GetDistributionConfigRequest request = new GetDistributionConfigRequest()
                 .withId(distID);
-        return cloudFrontClient.getDistributionConfig(request);
+        try {
+            return cloudFrontClient.getDistributionConfig(request);
+        } catch (NoSuchDistributionException e) {
+            throw new ValidationException("Invalid distribution ID: %s".formatted(distID));
+        }
     }
 
 
@@ -121,33 +242,46 @@ public class CDNCommands {
      * <pre>{@code
      * shell:> get E1ODOX7NPJ77SQ
      * shell:> get --dist E1ODOX7NPJ77SQ
+     * shell:> get --format json
      * }</pre>
      *
      * @param optionalDistID The CloudFront Distribution ID
+     * @param entireConfig   Print the full distribution config as JSON
+     * @param format         The output format of the summary: text, json, ndjson or tsv
+     * @param project        The project whose distribution is read, unless {@code optionalDistID} is given
      * @return String The command status message; if any.
      */
     @SneakyThrows
     @ShellMethod(value = "Get CloudFront Distribution Config", key = { "config", "conf", "c" })
     public String getConfig(
             @ShellOption(value = "dist", help = DIST_HELP, defaultValue = "") String optionalDistID,
-            @ShellOption(value = "json", help = "Option to print full JSON config") boolean entireConfig) {
+            @ShellOption(value = "json", help = "Option to print full JSON config") boolean entireConfig,
+            @ShellOption(value = "format", help = FORMAT_HELP, defaultValue = "text") String format,
+            @ShellOption(value = "project", help = PROJECT_HELP, defaultValue = "") String project) {
 
-        DistributionConfigData configData = cdnService.getDistributionConfig(optionalDistID);
+        OutputFormat outputFormat = OutputFormat.of(format);
+        DistributionConfigData configData = cdnService.getDistributionConfig(projectDistID(optionalDistID, project));
         Optional<Origin> firstOrigin = configData.getFirstOrigin();
         if (entireConfig || firstOrigin.isEmpty()) {
             return objectMapper.writeValueAsString(configData.getDistConfig());
         }
 
         final Origin origin = firstOrigin.get();
+        String distID = configData.getDistID();
+        String cdnUrl = CDN_ORIGINS_URL_FORMAT.formatted(distID);
+        String s3Url = S3_URL_FORMAT.formatted(origin.getOriginPath());
+        if (outputFormat.isStructured()) {
+            try (StructuredOutputWriter out = structuredOutput(outputFormat, CONFIG_COLUMNS)) {
+                out.write(distID, origin.getOriginPath(), origin.getDomainName(), configData.getAliases(), cdnUrl, s3Url);
+            }
+            return null;
+        }
 
         var b = new ArrayList<String>();
         b.add("  %-15s : %s".formatted("cdn-path", origin.getOriginPath()));
         b.add("  %-15s : %s".formatted("s3", origin.getDomainName()));
         b.add("  %-15s : %s".formatted("domain-aliases", configData.getAliases()));
 
-        String distID = configData.getDistID();
-        String cdnUrl = CDN_ORIGINS_URL_FORMAT.formatted(distID);
-        String s3Url = S3_URL_FORMAT.formatted(origin.getOriginPath());
         b.add("  %-15s : %s".formatted("dist-id", distID));
         b.add("  %-15s : %s".formatted("cdn-link", cdnUrl));
         b.add("  %-15s : %s".formatted("s3-link", s3Url));
@@ -158,53 +292,280 @@ public class CDNCommands {
     /**
      * @param buildVersion   The build version
      * @param optionalDistID The CloudFront Distribution ID. Usually stored in env.
+     * @param invalidate     The cache invalidation to submit after the release: none, all or changed
+     * @param warm           Warm the edge cache with the build's objects once the release is deployed
+     * @param verify         Verify the build against its manifest first; the release is refused if it fails
+     * @param project        The project of the build; its distribution is used unless {@code optionalDistID} is given
      * @return String The command status message; if any.
      */
     @SneakyThrows
     @ShellMethod(value = "Release a build version", key = {"release", "rel"})
     public String releaseVersion(
-            @ShellOption(value = "version", help = RELEASE_VERSION_HELP) String buildVersion,
+            @ShellOption(value = "version", help = RELEASE_VERSION_HELP, valueProvider = BuildVersionValueProvider.class) String buildVersion,
             @ShellOption(value = "dist", help = DIST_HELP, defaultValue = "") String optionalDistID,
-            @ShellOption(value = "dryRun", help = "Dry Run, no executions", defaultValue = "true") boolean isDryRun) {
+            @ShellOption(value = "dryRun", help = "Dry Run, no executions", defaultValue = "true") boolean isDryRun,
+            @ShellOption(value = "invalidate", help = RELEASE_INVALIDATE_HELP, defaultValue = "none") String invalidate,
+            @ShellOption(value = "warm", help = "Warm the edge cache once the release is deployed") boolean warm,
+            @ShellOption(value = "verify", help = "Verify the build against its manifest before releasing") boolean verify,
+            @ShellOption(value = "project", help = PROJECT_HELP, defaultValue = "") String project) {
 
-        final BuildInfoDetails buildInfo = findBuildInfoOrThrow(buildVersion);
+        final InvalidationMode invalidationMode = InvalidationMode.of(invalidate);
+        final BuildInfoDetails buildInfo;
+        final String distID;
+        final GetDistributionConfigResult distConfigResult;
+        final String liveS3Key;
+        // The bucket lookup and the distribution config do not depend on each other; the first of them to fail
+        // cancels the other and is reported
+        try (TaskScope scope = new TaskScope("release")) {
+            TaskScope.Subtask<BuildInfoDetails> build = scope.fork(() -> findBuildInfoOrThrow(buildVersion, project, true));
+            TaskScope.Subtask<String> dist = scope.fork(() -> {
+                String projectDistID = projectDistID(optionalDistID, project);
+                return isDryRun ? projectDistID : resolveDistID(projectDistID);
+            });
+            TaskScope.Subtask<GetDistributionConfigResult> config = isDryRun ? null
+                    : scope.fork(() -> getDistributionConfig(dist.get()));
+            TaskScope.Subtask<String> live = isDryRun && invalidationMode == InvalidationMode.CHANGED
+                    ? scope.fork(() -> cdnService.getDistributionConfig(dist.get()).getS3Key().orElse(""))
+                    : null;
+            scope.join();
+            buildInfo = build.get();
+            distID = dist.get();
+            distConfigResult = config == null ? null : config.get();
+            liveS3Key = live == null ? null : live.get();
+        }
+        echoResolved(buildVersion, buildInfo.getKeyPath());
         String pathPrefix = buildInfo.getCdnPath();
+        if (verify) {
+            verifyOrThrow(buildInfo);
+        }
         log.info("CDN Path found: {}. Version is a valid candidate for release.", pathPrefix);
 
         if (isDryRun) {
             log.info("PathPrefix to deploy: {}", pathPrefix);
+            if (invalidationMode == InvalidationMode.CHANGED) {
+                List<String> paths = planInvalidation(liveS3Key, buildInfo.getKeyPath());
+                return "Success; DryRun=true; cache-to-invalidate=%s".formatted(describePaths(paths));
+            }
             return "Success; DryRun=true";
         }
 
-        var distID = resolveDistID(optionalDistID);
-
-        GetDistributionConfigResult distConfigResult = getDistributionConfig(distID);
-
         DistributionConfig distConfig = distConfigResult.getDistributionConfig();
         Optional<Origin> origin = distConfig.getOrigins().getItems().stream().findFirst();
         if (origin.isEmpty()) {
             return format(INVALID_CLOUD_FRONT_DISTRIBUTION_CONFIG_MSG,
                     objectMapper.writeValueAsString(distConfig));
         }
+
+        // Planned before the switch so that the invalidation follows the update without delay
+        final List<String> invalidationPaths = switch (invalidationMode) {
+            case NONE -> Collections.emptyList();
+            case ALL -> List.of(InvalidationPathCollapser.ALL_PATHS);
+            case CHANGED -> planInvalidation(toS3Key(origin.get().getOriginPath()), buildInfo.getKeyPath());
+        };
+
+        final String oldPath = origin.get().getOriginPath();
         origin.get().setOriginPath(pathPrefix);
         UpdateDistributionRequest request = new UpdateDistributionRequest()
                 .withId(distID)
                 .withIfMatch(distConfigResult.getETag())
                 .withDistributionConfig(distConfig);
         UpdateDistributionResult result = cloudFrontClient.updateDistribution(request);
+        journal("release", distID, oldPath, distConfig, result.getETag());
+
+        final String status;
+        String invalidationID = null;
+        if (invalidationMode == InvalidationMode.NONE) {
+            status = "Success; etag=%s %s".formatted(result.getETag(), INVALIDATE_MESSAGE);
+        } else if (invalidationPaths.isEmpty()) {
+            status = "Success; etag=%s; cache-invalidated=none (no changes)".formatted(result.getETag());
+        } else {
+            invalidationID = cdnService.createInvalidation(distID, invalidationPaths);
+            status = "Success; etag=%s; invalidation=%s; cache-invalidated=%s".formatted(
+                    result.getETag(), invalidationID, describePaths(invalidationPaths));
+        }
+        if (!warm) {
+            return status;
+        }
+
+        log.info(status);
+        log.info("Waiting for the release to deploy before warming the edge cache...");
+        if (!cdnService.awaitDeployment(distID, invalidationID, DEPLOYMENT_TIMEOUT)) {
+            return "%s%nWarm skipped; the release did not deploy within %d minutes".formatted(status, DEPLOYMENT_TIMEOUT.toMinutes());
+        }
+        List<URI> urls = cdnWarmService.toBuildURLs(buildInfo.getKeyPath(), WARM_DEFAULT_LIMIT, buildInfo.getProjectConfig());
+        List<WarmResult> results = cdnWarmService.warm(urls, WarmOptions.builder()
+                .concurrency(WARM_DEFAULT_CONCURRENCY)
+                .headers(WarmOptions.parseHeaders(WarmOptions.DEFAULT_HEADERS))
+                .timeout(WARM_REQUEST_TIMEOUT)
+                .build());
+        return "%s%n%s".formatted(status, toWarmReport(results, false));
+    }
+
+    /**
+     * <b>Usage:</b> warm {@code [--file <path>] [--version <version>]}
+     * <pre>{@code
+     * shell:> warm
+     * shell:> warm --version 2e641ee8-9226-45d4-ab8c-7850e731d675 --limit 100 --concurrency 16 --rate 50
+     * shell:> warm --file popular-paths.txt --headers "Accept-Encoding: gzip; User-Agent: cdn-warm"
+     * }</pre>
+     *
+     * @param file           A file of web paths or URLs
+     * @param version        The build version whose objects are warmed, or 'live'
+     * @param limit          The maximum number of URLs derived from the build
+     * @param concurrency    The maximum number of requests in flight
+     * @param rate           The maximum number of requests started per second; 0 for no limit
+     * @param headers        The request headers
+     * @param optionalDistID The CloudFront Distribution ID, used to resolve 'live'
+     * @param quiet          Print the summary only
+     * @param project        The project whose build and CDN are warmed
+     * @return String The command status message; if any.
+     */
+    @SneakyThrows
+    @ShellMethod(value = "Warm the CDN edge cache by fetching URLs through the CDN", key = {"warm"})
+    public String warm(
+            @ShellOption(value = "file", help = WARM_FILE_HELP, defaultValue = "") String file,
+            @ShellOption(value = "version", help = WARM_VERSION_HELP, defaultValue = "", valueProvider = BuildVersionValueProvider.class) String version,
+            @ShellOption(value = "limit", help = "Max number of URLs derived from the build", defaultValue = "500") int limit,
+            @ShellOption(value = "concurrency", help = "Max requests in flight", defaultValue = "8") int concurrency,
+            @ShellOption(value = "rate", help = "Max requests per second; 0 for no limit", defaultValue = "0") int rate,
+            @ShellOption(value = "headers", help = WARM_HEADERS_HELP, defaultValue = WarmOptions.DEFAULT_HEADERS) String headers,
+            @ShellOption(value = "dist", help = DIST_HELP, defaultValue = "") String optionalDistID,
+            @ShellOption(value = "quiet", help = "Print the summary only") boolean quiet,
+            @ShellOption(value = "project", help = PROJECT_HELP, defaultValue = "") String project) {
+
+        final KapresoftProjectProperties selected = projectRegistry.get(project);
+        final List<URI> urls;
+        if (hasLength(file)) {
+            urls = cdnWarmService.toURLs(Files.readAllLines(Path.of(file)), selected);
+        } else {
+            String keyPath = buildVersionResolver.resolveKeyPath(
+                    hasLength(version) ? version : BuildVersionResolver.LIVE_VERSION, optionalDistID, project);
+            urls = cdnWarmService.toBuildURLs(keyPath, limit, selected);
+        }
+        List<WarmResult> results = cdnWarmService.warm(urls, WarmOptions.builder()
+                .concurrency(concurrency)
+                .ratePerSecond(rate)
+                .headers(WarmOptions.parseHeaders(headers))
+                .timeout(WARM_REQUEST_TIMEOUT)
+                .build());
+        return toWarmReport(results, !quiet);
+    }
 
-        return "Success; etag=%s %s".formatted(result.getETag(), INVALIDATE_MESSAGE);
+    private static String toWarmReport(List<WarmResult> results, boolean verbose) {
+        var b = new ArrayList<String>();
+        long hits = 0, misses = 0, failed = 0, bytes = 0;
+        long[] latencies = new long[results.size()];
+        for (int i = 0; i < results.size(); i++) {
+            WarmResult r = results.get(i);
+            hits += r.isHit() ? 1 : 0;
+            misses += r.isMiss() ? 1 : 0;
+            failed += r.isFailed() ? 1 : 0;
+            bytes += r.bytes();
+            latencies[i] = r.latencyMillis();
+            if (verbose) {
+                String status = r.error() == null ? String.valueOf(r.status()) : "ERR";
+                String target = r.error() == null ? r.uri().toString() : "%s (%s)".formatted(r.uri(), r.error());
+                b.add(WARM_RESULT_FMT.formatted(status, r.cacheStatus(), r.latencyMillis(), ByteUnits.format(r.bytes()), target));
+            }
+        }
+        Arrays.sort(latencies);
+        b.add("  %-15s : %d (hit=%d miss=%d failed=%d)".formatted("urls", results.size(), hits, misses, failed));
+        b.add("  %-15s : p50=%d ms p95=%d ms".formatted("latency", percentile(latencies, 50), percentile(latencies, 95)));
+        b.add("  %-15s : %s".formatted("bytes", ByteUnits.format(bytes)));
+        return StringUtils.collectionToDelimitedString(b, System.lineSeparator());
+    }
+
+    private static long percentile(long[] sorted, int percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int idx = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(idx, 0)];
     }
 
     /**
-     * @param buildVersion The build version generated by CodeBuild, i.e. "2c2eba60-7f8f-40df-b99c-95db50e7b3a7"
+     * Records a change that is already live; a failure to record it must not stop the command, i.e. before
+     * the invalidation that follows.
+     */
+    private void journal(String command, String distID, String oldPath, DistributionConfig distConfig, String eTag) {
+        try {
+            releaseJournalService.record(command, distID, oldPath, distConfig, eTag);
+        } catch (RuntimeException e) {
+            log.warn("Failed to record the {} of {} in the release journal {}: {}", command, distID,
+                    releaseJournalService.getFile(), e.getMessage());
+        }
+    }
+
+    private void verifyOrThrow(BuildInfoDetails buildInfo) {
+        VerificationReport report = buildVerificationService.verify(buildInfo.getKeyPath(), VERIFY_DEFAULT_CONCURRENCY, true);
+        if (!report.isManifestFound()) {
+            throw new ValidationException("Build verification failed: manifest not found for %s".formatted(buildInfo.getKeyPath()));
+        }
+        if (!report.isValid()) {
+            throw new ValidationException("Build verification failed: missing=%d truncated=%d mismatched=%d. Run 'verify %s' for details."
+                    .formatted(report.count(VerificationIssue.Type.MISSING), report.count(VerificationIssue.Type.TRUNCATED),
+                            report.count(VerificationIssue.Type.MISMATCHED), buildInfo.getVersion()));
+        }
+        log.info("Build verified: {} files in {} ms", report.getChecked(), report.getElapsed().toMillis());
+    }
+
+    /**
+     * @param liveS3Key The key path the CDN serves before the release, i.e. site/{build-version}/{project-name}
+     * @param newS3Key  The key path of the build being released
+     * @return List<String> The CDN paths that differ between both builds, collapsed to fit the CloudFront limits
+     */
+    private List<String> planInvalidation(String liveS3Key, String newS3Key) {
+        if (!hasLength(liveS3Key)) {
+            log.info("No live build found; invalidating all paths");
+            return List.of(InvalidationPathCollapser.ALL_PATHS);
+        }
+        final InvalidationPathCollapser collapser = new InvalidationPathCollapser();
+        BuildDiffSummary summary = buildDiffService.diff(liveS3Key, newS3Key, collapser);
+        List<String> paths = collapser.collapse();
+        log.info("Changes from {}: added={} removed={} changed={}; Paths to invalidate: {}", liveS3Key,
+                summary.getAdded(), summary.getRemoved(), summary.getChanged(), paths.size());
+        log.debug("Paths to invalidate: {}", paths);
+        return paths;
+    }
+
+    private static String describePaths(List<String> paths) {
+        if (paths.size() == 1) {
+            return paths.get(0);
+        }
+        return "%d paths".formatted(paths.size());
+    }
+
+    /**
+     * Shows what an abbreviated version or path was expanded to, before a command acts on it.
+     */
+    private void echoResolved(String typed, String keyPath) {
+        if (!keyPath.equals(typed) && !keyPath.startsWith("site/%s/".formatted(typed))) {
+            commandOutput.writer().println("  %-10s : %s".formatted("resolved", keyPath));
+        }
+    }
+
+    private static String toS3Key(String originPath) {
+        return StringUtils.trimLeadingCharacter(Optional.ofNullable(originPath).orElse(""), '/');
+    }
+
+    /**
+     * @param versionOrPrefix The build version generated by CodeBuild, i.e. "2c2eba60-7f8f-40df-b99c-95db50e7b3a7",
+     *                        or a unique prefix of it
+     * @param project         The project key or name; any project if empty
+     * @param fresh           Expand the prefix against a listing of the bucket rather than the completion index
      * @return String site/{build-version}/{project-name}
      */
-    private BuildInfoDetails findBuildInfoOrThrow(String buildVersion) {
+    private BuildInfoDetails findBuildInfoOrThrow(String versionOrPrefix, String project, boolean fresh) {
+        String buildVersion = buildCompletionService.resolveVersion(versionOrPrefix, fresh);
         String basePath = "site/%s/".formatted(buildVersion);
-        Optional<S3ObjectSummary> found = s3RepositoryService.find(
-                s3o -> s3o.getKey().startsWith(basePath) && s3o.getKey().endsWith(buildInfoFile),
-                () -> new ListObjectsV2Request().withBucketName(s3Bucket.name()).withPrefix(SITE_PATH_NAME));
+        KapresoftProjectProperties selected = hasLength(project) ? projectRegistry.get(project) : null;
+        Predicate<String> buildInfoKey = selected == null
+                ? projectRegistry::isBuildInfoKey
+                : key -> key.endsWith("/" + selected.getBuildInfoFile()) && projectRegistry.forKey(key) == selected;
+        Optional<S3ObjectSummary> found = s3RepositoryService.find(S3Query.builder()
+                .prefix(basePath)
+                .filter(s3o -> buildInfoKey.test(s3o.getKey()))
+                .build());
         return found.flatMap(s3RepositoryService::toBuildInfo)
                 .orElseThrow(() -> new ValidationException("Invalid build version: %s".formatted(buildVersion)));
     }
@@ -212,17 +573,39 @@ public class CDNCommands {
     /**
      * @param newPath        The new path to set, i.e. '/new-path'
      * @param optionalDistID The CloudFront Distribution ID. Usually stored in env.
+     * @param project        The project whose distribution is updated, unless {@code optionalDistID} is given
      * @return String The command status message; if any.
      */
     @SneakyThrows
     @ShellMethod(value = "Update the CloudFront distribution origin path", key = {"update-path", "up"})
     public String updatePath(
-            @ShellOption(value = "path", help = UPDATE_PATH_HELP) String newPath,
+            @ShellOption(value = "path", help = UPDATE_PATH_HELP, valueProvider = SitePathValueProvider.class) String newPath,
             @ShellOption(value = "dist", help = DIST_HELP, defaultValue = "") String optionalDistID,
-            @ShellOption(value = "dryRun", help = "Dry Run, no executions", defaultValue = "true") boolean isDryRun) {
+            @ShellOption(value = "dryRun", help = "Dry Run, no executions", defaultValue = "true") boolean isDryRun,
+            @ShellOption(value = "project", help = PROJECT_HELP, defaultValue = "") String project) {
 
-        var distID = resolveDistID(optionalDistID);
-        GetDistributionConfigResult distConfigResult = getDistributionConfig(distID);
+        var distID = resolveDistID(projectDistID(optionalDistID, project));
+        final GetDistributionConfigResult distConfigResult;
+        final Supplier<String> resolvedPath;
+        // The path is resolved and validated while the distribution config is read; a failure of the path is
+        // returned rather than thrown, so it is reported after the config checks, as when they ran one after the other
+        try (TaskScope scope = new TaskScope("update-path")) {
+            TaskScope.Subtask<GetDistributionConfigResult> config = scope.fork(() -> getDistributionConfig(distID));
+            TaskScope.Subtask<Supplier<String>> path = scope.fork(() -> {
+                try {
+                    String keyPath = buildCompletionService.resolveKeyPath(resolvePath(newPath), true);
+                    validatePath(keyPath);
+                    return () -> keyPath;
+                } catch (RuntimeException e) {
+                    return () -> {
+                        throw e;
+                    };
+                }
+            });
+            scope.join();
+            distConfigResult = config.get();
+            resolvedPath = path.get();
+        }
 
         DistributionConfig distConfig = distConfigResult.getDistributionConfig();
         Optional<Origin> origin = distConfig.getOrigins().getItems().stream().findFirst();
@@ -230,14 +613,14 @@ public class CDNCommands {
             return format(INVALID_CLOUD_FRONT_DISTRIBUTION_CONFIG_MSG,
                     objectMapper.writeValueAsString(distConfig));
         }
-
-        String actualPath = resolvePath(newPath);
-        validatePath(actualPath);
+        final String actualPath = resolvedPath.get();
+        echoResolved(resolvePath(newPath), actualPath);
         log.info("Path resolved is: {}", actualPath);
         if (isDryRun) {
             return "Success; etag=none; dryRun=true";
         }
 
+        final String oldPath = origin.get().getOriginPath();
         origin.get().setOriginPath(actualPath);
 
         UpdateDistributionRequest request = new UpdateDistributionRequest()
@@ -245,39 +628,430 @@ public class CDNCommands {
                 .withIfMatch(distConfigResult.getETag())
                 .withDistributionConfig(distConfig);
         UpdateDistributionResult result = cloudFrontClient.updateDistribution(request);
+        journal("update-path", distID, oldPath, distConfig, result.getETag());
 
         return "Success; etag=%s".formatted(result.getETag());
     }
 
+    /**
+     * <b>Usage:</b> rollback
+     * <pre>{@code
+     * shell:> rollback --dryRun false
+     * shell:> rollback --steps 2 --dryRun false
+     * }</pre>
+     * Restores the origin path from before the last {@code steps} changes of the release journal. The
+     * distribution config recorded with the last change is sent back with the new path and the recorded ETag,
+     * so the rollback takes a single update. Only if the distribution changed outside this shell since, which
+     * fails that update, is the live config read and its origin path changed. A rollback is journaled too, so
+     * rolling back twice returns to where it started.
+     *
+     * @param steps          The number of journaled changes to undo
+     * @param optionalDistID The CloudFront Distribution ID. Usually stored in env.
+     * @param isDryRun       Only show the origin path that would be restored
+     * @param project        The project whose distribution is rolled back, unless {@code optionalDistID} is given
+     * @return String The command status message; if any.
+     */
+    @SneakyThrows
+    @ShellMethod(value = "Restore the origin path from before the last release", key = {"rollback"})
+    public String rollback(
+            @ShellOption(value = "steps", help = "The number of journaled releases to undo", defaultValue = "1") int steps,
+            @ShellOption(value = "dist", help = DIST_HELP, defaultValue = "") String optionalDistID,
+            @ShellOption(value = "dryRun", help = "Dry Run, no executions", defaultValue = "true") boolean isDryRun,
+            @ShellOption(value = "project", help = PROJECT_HELP, defaultValue = "") String project) {
+        if (steps < 1) {
+            throw new ValidationException("--steps must be at least 1");
+        }
+        var distID = resolveDistID(projectDistID(optionalDistID, project));
+        List<ReleaseJournalEntry> history = releaseJournalService.history(distID, steps);
+        if (history.size() < steps) {
+            throw new ValidationException("The release journal %s has %d entries for %s; cannot roll back %d"
+                    .formatted(releaseJournalService.getFile(), history.size(), distID, steps));
+        }
+        final ReleaseJournalEntry latest = history.get(0);
+        final String targetPath = history.get(steps - 1).oldOriginPath();
+        if (isDryRun) {
+            return "Success; dryRun=true; origin-path=%s -> %s".formatted(latest.newOriginPath(), targetPath);
+        }
+
+        UpdateDistributionResult result = null;
+        String oldPath = latest.newOriginPath();
+        DistributionConfig distConfig = releaseJournalService.getDistributionConfig(latest)
+                .filter(c -> !c.getOrigins().getItems().isEmpty())
+                .orElse(null);
+        int roundTrips = 1;
+        if (distConfig != null) {
+            // The journaled ETag only matches while the journaled config is still the live one
+            distConfig.getOrigins().getItems().get(0).setOriginPath(targetPath);
+            try {
+                result = cloudFrontClient.updateDistribution(new UpdateDistributionRequest()
+                        .withId(distID)
+                        .withIfMatch(latest.eTag())
+                        .withDistributionConfig(distConfig));
+            } catch (PreconditionFailedException e) {
+                log.info("Distribution {} changed since the journal entry of {}; reading its config", distID, latest.timestamp());
+            }
+        }
+        if (result == null) {
+            // Only the origin path is changed; the rest of the config is the live one
+            roundTrips = 2;
+            GetDistributionConfigResult distConfigResult = getDistributionConfig(distID);
+            distConfig = distConfigResult.getDistributionConfig();
+            Optional<Origin> origin = distConfig.getOrigins().getItems().stream().findFirst();
+            if (origin.isEmpty()) {
+                return format(INVALID_CLOUD_FRONT_DISTRIBUTION_CONFIG_MSG,
+                        objectMapper.writeValueAsString(distConfig));
+            }
+            oldPath = origin.get().getOriginPath();
+            if (!oldPath.equals(latest.newOriginPath())) {
+                log.warn("Origin path of {} is {}, but the journal entry of {} set {}", distID, oldPath,
+                        latest.timestamp(), latest.newOriginPath());
+            }
+            origin.get().setOriginPath(targetPath);
+            result = cloudFrontClient.updateDistribution(new UpdateDistributionRequest()
+                    .withId(distID)
+                    .withIfMatch(distConfigResult.getETag())
+                    .withDistributionConfig(distConfig));
+        }
+        journal("rollback", distID, oldPath, distConfig, result.getETag());
+        return "Success; etag=%s; origin-path=%s -> %s; round-trips=%d %s".formatted(
+                result.getETag(), oldPath, targetPath, roundTrips, INVALIDATE_MESSAGE);
+    }
+
+    /**
+     * <b>Usage:</b> journal
+     * <pre>{@code
+     * shell:> journal
+     * shell:> journal --limit 20 --dist E1ODOX7NPJ77SQ
+     * }</pre>
+     *
+     * @param limit          The maximum number of entries
+     * @param optionalDistID The CloudFront Distribution ID. Usually stored in env.
+     * @param project        The project whose distribution is shown, unless {@code optionalDistID} is given
+     * @return String The journaled origin path changes, newest first
+     */
+    @ShellMethod(value = "Show the release journal of a distribution", key = {"journal"})
+    public String journal(
+            @ShellOption(value = "limit", help = "Max number of entries", defaultValue = "10") int limit,
+            @ShellOption(value = "dist", help = DIST_HELP, defaultValue = "") String optionalDistID,
+            @ShellOption(value = "project", help = PROJECT_HELP, defaultValue = "") String project) {
+        var distID = resolveDistID(projectDistID(optionalDistID, project));
+        List<ReleaseJournalEntry> history = releaseJournalService.history(distID, limit);
+        if (history.isEmpty()) {
+            return "No releases of %s in %s".formatted(distID, releaseJournalService.getFile());
+        }
+        var b = new ArrayList<String>();
+        for (int i = 0; i < history.size(); i++) {
+            ReleaseJournalEntry e = history.get(i);
+            b.add("  %2d  %-24s %-11s %-10s %s -> %s".formatted(i + 1, e.timestamp(), e.command(), e.user(),
+                    e.oldOriginPath(), e.newOriginPath()));
+        }
+        return StringUtils.collectionToDelimitedString(b, System.lineSeparator());
+    }
+
+    /**
+     * <b>Usage:</b> ls
+     * <pre>{@code
+     * shell:> ls
+     * shell:> ls --table
+     * shell:> ls --format ndjson
+     * shell:> ls --project kapresoft-articles
+     * }</pre>
+     * A single listing of {@code site/} serves all projects; the builds are split by project afterwards.
+     * Structured formats stream the builds in listing order as they are read, instead of sorting them
+     * by date once all are read. The text format uses the background index snapshot when there is a current one,
+     * and lists the bucket once the snapshot has aged past the refresh interval, i.e. while refreshing is paused.
+     *
+     * @param format  The output format: text, json, ndjson or tsv
+     * @param table   Print one line per build; text format only
+     * @param fresh   Ignore the background index snapshot; text format only
+     * @param project The project key or name; all projects if empty
+     * @return String The command status message; if any.
+     */
     @SneakyThrows
     @ShellMethod(value = "List valid sites", key = {"ls", "list"})
-    public String listSites() {
-        List<BuildInfoCLIOutputDecorator> output = new ArrayList<>();
+    public String listSites(@ShellOption(value = "format", help = FORMAT_HELP, defaultValue = "text") String format,
+                            @ShellOption(value = "table", help = "Print one line per build") boolean table,
+                            @ShellOption(value = "fresh", help = "List the bucket even if the background index has a snapshot") boolean fresh,
+                            @ShellOption(value = "project", help = "The project key or name; all projects if not set", defaultValue = "") String project) {
+        OutputFormat outputFormat = OutputFormat.of(format);
+        final List<KapresoftProjectProperties> projects = hasLength(project)
+                ? List.of(projectRegistry.get(project))
+                : List.copyOf(projectRegistry.getProjects());
+        if (outputFormat.isStructured()) {
+            // The first listing page is read while the distribution configs are
+            try (TaskScope scope = new TaskScope("ls");
+                 Stream<BuildInfoDetails> builds = s3RepositoryService.streamBuilds();
+                 StructuredOutputWriter out = structuredOutput(outputFormat, BUILD_COLUMNS)) {
+                TaskScope.Subtask<Map<String, String>> liveS3Keys = scope.fork(() -> fetchLiveS3Keys(projects));
+                Iterator<BuildInfoDetails> it = builds.iterator();
+                while (it.hasNext()) {
+                    BuildInfoDetails b = it.next();
+                    if (projects.contains(b.getProjectConfig())) {
+                        writeBuild(out, b, liveS3Keys.get().get(b.getProjectConfig().getId()));
+                    }
+                }
+                scope.join();
+            }
+            return null;
+        }
+        // The CDN requests run while S3 is listed
+        final Map<KapresoftProjectProperties, CompletableFuture<Optional<BuildInfoDetails>>> cdnLiveBuilds = new LinkedHashMap<>();
+        for (KapresoftProjectProperties p : projects) {
+            cdnLiveBuilds.put(p, s3RepositoryService.fetchLiveBuildInfo(p));
+        }
+        final List<BuildInfoDetails> all;
+        final Map<String, String> liveS3Keys;
+        final Optional<BuildIndexSnapshot> snapshot = fresh ? Optional.empty() : buildIndexService.getCurrentSnapshot();
+        if (snapshot.isPresent()) {
+            all = snapshot.get().builds();
+            liveS3Keys = snapshot.get().liveS3Keys();
+        } else {
+            // The distribution configs are read while the bucket is listed
+            try (TaskScope scope = new TaskScope("ls")) {
+                TaskScope.Subtask<Map<String, String>> keys = scope.fork(() -> fetchLiveS3Keys(projects));
+                TaskScope.Subtask<List<BuildInfoDetails>> builds = scope.fork(() -> {
+                    List<BuildInfoDetails> found = new ArrayList<>();
+                    s3RepositoryService.findAllBuildsAsDecorators(b -> found.add(b.getBuildInfo()));
+                    return found;
+                });
+                scope.join();
+                liveS3Keys = keys.get();
+                all = builds.get();
+            }
+        }
+        final Map<KapresoftProjectProperties, List<BuildInfoDetails>> byProject = new LinkedHashMap<>();
+        projects.forEach(p -> byProject.put(p, new ArrayList<>()));
+        for (BuildInfoDetails b : all) {
+            List<BuildInfoDetails> builds = byProject.get(b.getProjectConfig());
+            if (builds != null) {
+                builds.add(b);
+            }
+        }
 
-        DistributionConfigData cdnConfig = cdnService.getDistributionConfig();
-        String deployedCDNS3Key = cdnConfig.getS3Key().orElse("");
+        // Rendered straight to the terminal with the labels and colors computed once
+        final BuildInfoRenderer renderer = BuildInfoRenderer.current();
+        final PrintWriter out = commandOutput.writer();
+        out.append(renderer.getListingStart());
+        for (Map.Entry<KapresoftProjectProperties, List<BuildInfoDetails>> entry : byProject.entrySet()) {
+            final KapresoftProjectProperties p = entry.getKey();
+            final List<BuildInfoDetails> output = entry.getValue();
+            final String deployedCDNS3Key = liveS3Keys.getOrDefault(p.getId(), "");
+            if (!output.isEmpty()) {
+                out.append(System.lineSeparator());
+                if (projectRegistry.isMultiProject()) {
+                    out.append("Project: ").append(p.getName()).append(" (").append(p.getId()).append(")").append(System.lineSeparator());
+                }
+                out.append("CDN: ").append(String.valueOf(p.getCdnURI())).append(System.lineSeparator());
+                out.append("CDN-Live: ").append(describeCdnLiveBuild(cdnLiveBuilds.get(p), deployedCDNS3Key)).append(System.lineSeparator());
+                snapshot.ifPresent(sn -> out.append("Index: as of %ss ago (ls --fresh to list the bucket)"
+                        .formatted(sn.getAge().toSeconds())).append(System.lineSeparator()));
+                out.append(System.lineSeparator());
+            }
+            if (table) {
+                renderer.renderTable(output, b -> s3RepositoryService.isLive(b, deployedCDNS3Key), out);
+            } else {
+                for (int i = 0; i < output.size(); i++) {
+                    if (i > 0) {
+                        out.append(System.lineSeparator());
+                    }
+                    BuildInfoDetails b = output.get(i);
+                    renderer.render(b, s3RepositoryService.isLive(b, deployedCDNS3Key), out);
+                }
+            }
+        }
+        out.append(renderer.getListingEnd()).append(System.lineSeparator());
+        out.flush();
+        return null;
+    }
 
-        s3RepositoryService.findAllBuildsAsDecorators(b -> {
-            boolean isLive = s3RepositoryService.isLive(b.getBuildInfo(), deployedCDNS3Key);
-            b.setLive(isLive);
-            output.add(b);
+    /**
+     * @param projects The projects
+     * @return Map<String, String> The origin path of each project distribution by project key; projects sharing
+     * a distribution cost a single request
+     */
+    private Map<String, String> fetchLiveS3Keys(List<KapresoftProjectProperties> projects) {
+        final Map<String, String> liveS3KeysByDist = new HashMap<>();
+        final Map<String, String> liveS3Keys = new HashMap<>();
+        for (KapresoftProjectProperties p : projects) {
+            liveS3Keys.put(p.getId(), liveS3KeysByDist.computeIfAbsent(p.getDistributionId(),
+                    id -> cdnService.getDistributionConfig(id).getS3Key().orElse("")));
+        }
+        return liveS3Keys;
+    }
+
+    /**
+     * <b>Usage:</b> watch-builds
+     * <pre>{@code
+     * shell:> watch-builds
+     * shell:> watch-builds --count 1 --validate
+     * shell:> watch-builds --timeout 30 --format ndjson
+     * }</pre>
+     * Blocks until interrupted with Ctrl-C, or until the timeout or count is reached.
+     *
+     * @param interval       The poll interval in seconds while an upload is in progress
+     * @param maxInterval    The poll interval in seconds grows up to this while nothing changes
+     * @param timeout        Stop after this many minutes; 0 to watch until interrupted
+     * @param count          Stop after this many builds; 0 for no limit
+     * @param format         The output format: text, ndjson or tsv
+     * @param validate       Run the release dry run on each new build; text format only
+     * @param optionalDistID The CloudFront Distribution ID, used by the release dry run
+     * @return String The command status message; if any.
+     */
+    @SneakyThrows
+    @ShellMethod(value = "Print new builds as they land", key = {"watch-builds", "watch"})
+    public String watchBuilds(
+            @ShellOption(value = "interval", help = "Poll interval in seconds while uploads are in progress", defaultValue = "5") int interval,
+            @ShellOption(value = "maxInterval", help = "Max poll interval in seconds while idle", defaultValue = "60") int maxInterval,
+            @ShellOption(value = "timeout", help = "Stop after this many minutes; 0 to watch until interrupted", defaultValue = "0") int timeout,
+            @ShellOption(value = "count", help = "Stop after this many builds; 0 for no limit", defaultValue = "0") int count,
+            @ShellOption(value = "format", help = "The output format: text, ndjson or tsv", defaultValue = "text") String format,
+            @ShellOption(value = "validate", help = "Run 'release --dryRun' on each new build") boolean validate,
+            @ShellOption(value = "dist", help = DIST_HELP, defaultValue = "") String optionalDistID) {
+        final OutputFormat outputFormat = OutputFormat.of(format);
+        if (outputFormat == OutputFormat.JSON) {
+            throw new ValidationException("The json format cannot be streamed; use ndjson");
+        }
+        if (validate && outputFormat.isStructured()) {
+            throw new ValidationException("--validate is only supported with the text format");
+        }
+        final WatchOptions options = WatchOptions.builder()
+                .minInterval(Duration.ofSeconds(interval))
+                .maxInterval(Duration.ofSeconds(maxInterval))
+                .timeout(Duration.ofMinutes(Math.max(timeout, 0)))
+                .maxBuilds(count)
+                .build();
+        if (outputFormat.isStructured()) {
+            try (StructuredOutputWriter writer = structuredOutput(outputFormat, BUILD_COLUMNS)) {
+                watch(options, b -> {
+                    try {
+                        writeBuild(writer, b, "");
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+            return null;
+        }
+        final BuildInfoRenderer renderer = BuildInfoRenderer.current();
+        final PrintWriter out = commandOutput.writer();
+        out.append("Watching for new builds (Ctrl-C to stop)").append(System.lineSeparator());
+        out.flush();
+        int reported = watch(options, b -> {
+            out.append(System.lineSeparator());
+            renderer.render(b, false, out);
+            if (validate) {
+                String result;
+                try {
+                    result = releaseVersion(b.getVersion(), optionalDistID, true, InvalidationMode.CHANGED.name(), false, false,
+                            b.getProjectConfig().getId());
+                } catch (Exception e) {
+                    // Includes the checked exceptions of the sneaky-throwing release command
+                    result = AnsiOutput.toString(AnsiColor.RED, "FAILED: %s".formatted(e.getMessage()));
+                }
+                out.append("  %-15s : %s".formatted("release --dryRun", result)).append(System.lineSeparator());
+            }
+            out.flush();
         });
+        return "Watch ended; %d new builds".formatted(reported);
+    }
+
+    /**
+     * @return int The number of builds reported; as far as it got if the watch was interrupted
+     */
+    private int watch(WatchOptions options, Consumer<BuildInfoDetails> consumer) {
+        final int[] reported = {0};
+        try {
+            return buildWatchService.watch(options, b -> {
+                reported[0]++;
+                consumer.accept(b);
+                if (commandOutput.isClosed()) {
+                    throw new CancellationException("Output closed");
+                }
+            });
+        } catch (InterruptedException | CancellationException e) {
+            log.debug("Watch interrupted");
+            return reported[0];
+        }
+    }
+
+    /**
+     * <b>Usage:</b> find {@code <version>}
+     * <pre>{@code
+     * shell:> find 2e641ee8-9226-45d4-ab8c-7850e731d675
+     * shell:> find --version 2e641ee8-9226-45d4-ab8c-7850e731d675 --format json
+     * }</pre>
+     *
+     * @param buildVersion   The build version
+     * @param format         The output format: text, json, ndjson or tsv
+     * @param optionalDistID The CloudFront Distribution ID the live state is read from
+     * @param project        The project of the build; the project the build belongs to if not set
+     * @return String The command status message; if any.
+     */
+    @SneakyThrows
+    @ShellMethod(value = "Find a build version", key = {"find"})
+    public String findBuild(
+            @ShellOption(value = "version", help = "The build version in s3://{s3-bucket}/site/{version}", valueProvider = BuildVersionValueProvider.class) String buildVersion,
+            @ShellOption(value = "format", help = FORMAT_HELP, defaultValue = "text") String format,
+            @ShellOption(value = "dist", help = DIST_HELP, defaultValue = "") String optionalDistID,
+            @ShellOption(value = "project", help = PROJECT_HELP, defaultValue = "") String project) {
+        OutputFormat outputFormat = OutputFormat.of(format);
+        BuildInfoDetails build = findBuildInfoOrThrow(buildVersion, project, false);
+        String buildProject = hasLength(project) ? project : build.getProjectConfig().getId();
+        String distID = resolveDistID(projectDistID(optionalDistID, buildProject));
+        String deployedCDNS3Key = cdnService.getDistributionConfig(distID).getS3Key().orElse("");
+        if (outputFormat.isStructured()) {
+            try (StructuredOutputWriter out = structuredOutput(outputFormat, BUILD_COLUMNS)) {
+                writeBuild(out, build, deployedCDNS3Key);
+            }
+            return null;
+        }
+        boolean live = s3RepositoryService.isLive(build, deployedCDNS3Key);
+        var b = new ArrayList<String>();
+        b.add("  %-15s : %s%s".formatted("version", build.getVersion(),
+                live ? AnsiOutput.toString(AnsiColor.BRIGHT_GREEN, " [LIVE]") : ""));
+        b.add("  %-15s : %s".formatted("s3-uri", build.getS3URI()));
+        b.add("  %-15s : %s".formatted("commit-hash", build.getCommitHash()));
+        b.add("  %-15s : %s".formatted("build-number", build.getBuildNumber()));
+        b.add("  %-15s : %s".formatted("build-date", ofNullable(build.getBuildDate()).map(Object::toString).orElse("Undetermined")));
+        return StringUtils.collectionToDelimitedString(b, System.lineSeparator());
+    }
+
+    private StructuredOutputWriter structuredOutput(OutputFormat format, List<String> columns) throws IOException {
+        return new StructuredOutputWriter(format, commandOutput.writer(), objectMapper.getFactory(), columns);
+    }
 
-        final StringBuilder response = new StringBuilder();
-        if (!output.isEmpty()) {
-            response.append(System.lineSeparator());
-            response.append("CDN: %s%s".formatted(s3RepositoryService.getCdnURI(), System.lineSeparator()));
-            response.append(System.lineSeparator());
+    private void writeBuild(StructuredOutputWriter out, BuildInfoDetails b, String deployedCDNS3Key) throws IOException {
+        out.write(b.getVersion(), b.getKeyPath(), b.getS3URI(), b.getCdnPath(), b.getCommitHash(), b.getBuildNumber(),
+                b.getBuildDate(), b.getLastModified(), b.getBuildInfo().isManualBuild(),
+                s3RepositoryService.isLive(b, deployedCDNS3Key));
+    }
+
+    /**
+     * @param cdnLiveBuild     The build info fetched through the CDN
+     * @param deployedCDNS3Key The origin path of the distribution
+     * @return String The build the CDN serves, and whether it matches the origin path
+     */
+    private static String describeCdnLiveBuild(CompletableFuture<Optional<BuildInfoDetails>> cdnLiveBuild, String deployedCDNS3Key) {
+        try {
+            return cdnLiveBuild.join()
+                    .map(b -> b.getKeyPath().equals(deployedCDNS3Key)
+                            ? "%s (matches origin path)".formatted(b.getVersion())
+                            : "%s (origin path is %s; edge caches may be stale)".formatted(b.getKeyPath(), deployedCDNS3Key))
+                    .orElse("unknown (empty build info)");
+        } catch (CompletionException e) {
+            log.debug("Failed to fetch the live build info from the CDN", e);
+            return "unavailable (%s)".formatted(e.getCause().getMessage());
         }
-        response.append(StringUtils.collectionToDelimitedString(output, System.lineSeparator()));
-        return AnsiOutput.toString(AnsiColor.BRIGHT_WHITE, response.toString());
     }
 
     private void validatePath(String path) {
         String comparePath = "%s/build.yml".formatted(path);
-        Optional<S3ObjectSummary> found = s3RepositoryService.find(
-                s3o -> s3o.getKey().equalsIgnoreCase(comparePath),
-                () -> new ListObjectsV2Request().withBucketName(s3Bucket.name()).withPrefix(SITE_PATH_NAME));
+        // A HEAD request on the exact key; the case-insensitive scan is only needed when it is not found
+        Optional<S3ObjectSummary> found = s3RepositoryService.find(S3Query.builder().key(comparePath).build())
+                .or(() -> s3RepositoryService.find(S3Query.builder()
+                        .prefix(SITE_PATH_NAME)
+                        .filter(s3o -> s3o.getKey().equalsIgnoreCase(comparePath))
+                        .build()));
         found.ifPresent(s3ObjectSummary -> log.debug("Found match: {}", s3ObjectSummary));
 
         if (found.isEmpty()) {
@@ -343,18 +1117,8 @@ public class CDNCommands {
                     objectMapper.writeValueAsString(distConfig));
         }
 
-        String callerReference = "spring-shell-aws-" + Calendar.getInstance().getTimeInMillis();
-        log.debug("Caller Reference: {}", callerReference);
-        InvalidationBatch batch = new InvalidationBatch()
-                .withPaths(new Paths().withItems(path)
-                        .withQuantity(1))
-                .withCallerReference(callerReference);
-        CreateInvalidationRequest request = new CreateInvalidationRequest()
-                .withDistributionId(distID)
-                .withInvalidationBatch(batch);
-        cloudFrontClient.createInvalidation(request);
-
-        return "Success; cache-invalidated=%s".formatted(path);
+        String invalidationID = cdnService.createInvalidation(distID, List.of(path));
+        return "Success; invalidation=%s; cache-invalidated=%s".formatted(invalidationID, path);
     }
 
 }
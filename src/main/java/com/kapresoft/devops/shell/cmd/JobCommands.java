@@ -0,0 +1,106 @@
+package com.kapresoft.devops.shell.cmd;
+
+import jakarta.validation.ValidationException;
+
+import com.kapresoft.devops.shell.pojo.JobInfo;
+import com.kapresoft.devops.shell.service.JobService;
+import com.kapresoft.devops.shell.util.shell.CommandOutput;
+
+import org.springframework.shell.standard.ShellComponent;
+import org.springframework.shell.standard.ShellMethod;
+import org.springframework.shell.standard.ShellOption;
+
+import java.io.PrintWriter;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+@ShellComponent
+public class JobCommands {
+
+    private static final String JOB_ID_HELP = "The job id, as listed by 'jobs'";
+    private static final Duration FG_POLL_INTERVAL = Duration.ofMillis(200);
+
+    private final JobService jobService;
+    private final CommandOutput commandOutput;
+
+    public JobCommands(JobService jobService, CommandOutput commandOutput) {
+        this.jobService = jobService;
+        this.commandOutput = commandOutput;
+    }
+
+    /**
+     * <b>Usage:</b> bg
+     * <pre>{@code
+     * shell:> bg ls
+     * shell:> bg "ls --fresh --format ndjson"
+     * }</pre>
+     * A command with options is quoted, so that its options are not taken for options of {@code bg}.
+     *
+     * @param command The command line to run in the background
+     * @return String The job id and state
+     */
+    @ShellMethod(value = "Run a command in the background", key = {"bg"})
+    public String bg(@ShellOption(value = "command", help = "The command to run; quote it if it has options",
+            arity = Integer.MAX_VALUE) String[] command) {
+        String commandLine = String.join(" ", command).strip();
+        if (commandLine.isEmpty()) {
+            throw new ValidationException("Missing command, i.e. bg \"ls --fresh\"");
+        }
+        JobInfo job = jobService.submit(commandLine);
+        return "[%d] %s: %s".formatted(job.getId(), job.getState(), job.getCommandLine());
+    }
+
+    @ShellMethod(value = "List the background jobs and their progress", key = {"jobs"})
+    public String jobs() {
+        List<JobInfo> jobs = jobService.list();
+        if (jobs.isEmpty()) {
+            return "No jobs";
+        }
+        final Instant now = Instant.now();
+        final StringBuilder out = new StringBuilder();
+        for (JobInfo job : jobs) {
+            if (!out.isEmpty()) {
+                out.append(System.lineSeparator());
+            }
+            out.append("[%d] %-9s %6ss  %s".formatted(job.getId(), job.getState(),
+                    job.getElapsed(now).toSeconds(), job.getCommandLine()));
+            if (job.getOutputLines() > 0) {
+                out.append(System.lineSeparator())
+                        .append("  %-10s : %d lines, last: %s".formatted("output", job.getOutputLines(), job.getLastLine()));
+            }
+        }
+        return out.toString();
+    }
+
+    /**
+     * Prints the output of the job so far, then as it is written, until the job finishes.
+     *
+     * @param id The job id
+     * @return String The outcome of the job
+     * @throws InterruptedException If interrupted while waiting; the job keeps running
+     */
+    @ShellMethod(value = "Follow the output of a background job until it finishes", key = {"fg"})
+    public String fg(@ShellOption(value = "id", help = JOB_ID_HELP) int id) throws InterruptedException {
+        final PrintWriter out = commandOutput.writer();
+        long offset = 0;
+        JobInfo job;
+        do {
+            job = jobService.await(id, FG_POLL_INTERVAL);
+            offset = jobService.readOutput(id, offset, out);
+            out.flush();
+        } while (!job.getState().isFinished());
+        jobService.forget(id);
+        return job.describe(Instant.now());
+    }
+
+    @ShellMethod(value = "Cancel a background job, or forget a finished one", key = {"cancel"})
+    public String cancel(@ShellOption(value = "id", help = JOB_ID_HELP) int id) {
+        JobInfo job = jobService.cancel(id);
+        if (job.getState() == JobInfo.State.CANCELLED || job.getState() == JobInfo.State.RUNNING) {
+            return "[%d] Cancelling: %s".formatted(job.getId(), job.getCommandLine());
+        }
+        return job.describe(Instant.now());
+    }
+
+}
@@ -0,0 +1,180 @@
+package com.kapresoft.devops.shell.cmd;
+
+import lombok.extern.log4j.Log4j2;
+
+import com.kapresoft.devops.shell.pojo.BucketQueryResult;
+import com.kapresoft.devops.shell.service.ReplicaService;
+
+import org.springframework.boot.ansi.AnsiColor;
+import org.springframework.boot.ansi.AnsiOutput;
+import org.springframework.shell.standard.ShellComponent;
+import org.springframework.shell.standard.ShellMethod;
+import org.springframework.shell.standard.ShellOption;
+import org.springframework.util.StringUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static com.kapresoft.devops.shell.cmd.BuildCommands.DIST_HELP;
+import static com.kapresoft.devops.shell.cmd.BuildCommands.PROJECT_HELP;
+
+@Log4j2
+@ShellComponent
+public class ReplicaCommands {
+
+    private static final String REPLICAS_VERSION_HELP = """
+            The build version in s3://{s3-bucket}/site/{version}, or 'live'.
+            Example:
+            verify-replicas 2e641ee8-9226-45d4-ab8c-7850e731d675
+            """;
+
+    private final ReplicaService replicaService;
+    private final BuildVersionResolver buildVersionResolver;
+
+    public ReplicaCommands(ReplicaService replicaService, BuildVersionResolver buildVersionResolver) {
+        this.replicaService = replicaService;
+        this.buildVersionResolver = buildVersionResolver;
+    }
+
+    /**
+     * <b>Usage:</b> replicas
+     * <pre>{@code
+     * shell:> replicas
+     * shell:> replicas --lagging
+     * }</pre>
+     * Lag is the time between the build info file landing in the primary bucket and in the replica.
+     *
+     * @param lagging Only print the builds missing from a replica
+     * @return String The builds with their presence and lag per replica bucket
+     */
+    @ShellMethod(value = "List the builds of the primary and replica buckets", key = {"replicas"})
+    public String listReplicas(@ShellOption(value = "lagging", help = "Only print builds missing from a replica") boolean lagging) {
+        final List<BucketQueryResult<Map<String, Date>>> results = replicaService.listBuilds();
+        final List<String> b = new ArrayList<>();
+        b.add("Buckets:");
+        b.add("");
+        for (BucketQueryResult<Map<String, Date>> r : results) {
+            b.add("  %-45s : %s".formatted(r.bucket(), r.isOk()
+                    ? "%d builds, %d ms".formatted(r.value().size(), r.elapsed().toMillis())
+                    : toStatus(r)));
+        }
+        if (results.size() < 2) {
+            b.add("");
+            b.add("No replica buckets in spring.application.replication.replicas");
+            return StringUtils.collectionToDelimitedString(b, System.lineSeparator());
+        }
+
+        // All key paths, oldest first by their date in the primary bucket
+        final Map<String, Date> primary = results.get(0).isOk() ? results.get(0).value() : Map.of();
+        final Map<String, Date> keyPaths = new TreeMap<>();
+        for (BucketQueryResult<Map<String, Date>> r : results) {
+            if (r.isOk()) {
+                r.value().forEach(keyPaths::putIfAbsent);
+            }
+        }
+        keyPaths.putAll(primary);
+        final List<String> sorted = new ArrayList<>(keyPaths.keySet());
+        sorted.sort(Comparator.comparing(keyPaths::get, Comparator.nullsFirst(Comparator.naturalOrder())));
+
+        b.add("");
+        b.add("Builds:");
+        b.add("");
+        int printed = 0;
+        for (String keyPath : sorted) {
+            final Date primaryDate = primary.get(keyPath);
+            final StringBuilder line = new StringBuilder("  %-70s".formatted(keyPath));
+            boolean missing = primaryDate == null;
+            for (BucketQueryResult<Map<String, Date>> r : results) {
+                if (r.bucket().primary()) {
+                    continue;
+                }
+                line.append(" | ").append(r.bucket().region()).append(": ");
+                if (!r.isOk()) {
+                    line.append(AnsiOutput.toString(AnsiColor.YELLOW, "?"));
+                    continue;
+                }
+                Date replicaDate = r.value().get(keyPath);
+                if (replicaDate == null) {
+                    missing = true;
+                    line.append(AnsiOutput.toString(AnsiColor.RED, "MISSING"));
+                } else if (primaryDate == null) {
+                    line.append(AnsiOutput.toString(AnsiColor.YELLOW, "not in primary"));
+                } else {
+                    Duration lag = Duration.ofMillis(replicaDate.getTime() - primaryDate.getTime());
+                    line.append(AnsiOutput.toString(AnsiColor.GREEN, "+%ds".formatted(Math.max(lag.toSeconds(), 0))));
+                }
+            }
+            if (!lagging || missing) {
+                b.add(line.toString());
+                printed++;
+            }
+        }
+        if (printed == 0) {
+            b.add("  All builds are replicated");
+        }
+        return StringUtils.collectionToDelimitedString(b, System.lineSeparator());
+    }
+
+    /**
+     * <b>Usage:</b> verify-replicas {@code <version>}
+     * <pre>{@code
+     * shell:> verify-replicas 2e641ee8-9226-45d4-ab8c-7850e731d675
+     * shell:> verify-replicas --version live
+     * }</pre>
+     *
+     * @param version        The build version, or 'live'
+     * @param optionalDistID The CloudFront Distribution ID, used to resolve 'live'
+     * @param project        The project whose build of the version is compared
+     * @return String The missing, mismatched and extra objects per replica bucket
+     */
+    @ShellMethod(value = "Compare a build in the replica buckets with the primary bucket", key = {"verify-replicas"})
+    public String verifyReplicas(
+            @ShellOption(value = "version", help = REPLICAS_VERSION_HELP, valueProvider = BuildVersionValueProvider.class) String version,
+            @ShellOption(value = "dist", help = DIST_HELP, defaultValue = "") String optionalDistID,
+            @ShellOption(value = "project", help = PROJECT_HELP, defaultValue = "") String project) {
+        final String keyPath = buildVersionResolver.resolveKeyPath(version, optionalDistID, project);
+        final List<String> b = new ArrayList<>();
+        b.add("Replicas: %s".formatted(keyPath));
+        for (BucketQueryResult<ReplicaService.Comparison> r : replicaService.verify(keyPath)) {
+            b.add("");
+            b.add("  %s".formatted(r.bucket()));
+            if (!r.isOk()) {
+                b.add("  %-10s : %s".formatted("status", toStatus(r)));
+                continue;
+            }
+            ReplicaService.Comparison c = r.value();
+            String status;
+            if (!r.bucket().primary() && !c.compared()) {
+                status = AnsiOutput.toString(AnsiColor.YELLOW, "UNKNOWN (the primary bucket could not be listed)");
+            } else if (r.bucket().primary() || c.isInSync()) {
+                status = AnsiOutput.toString(AnsiColor.BRIGHT_GREEN, "IN SYNC");
+            } else {
+                status = AnsiOutput.toString(AnsiColor.RED, "OUT OF SYNC");
+            }
+            b.add("  %-10s : %s".formatted("status", r.bucket().primary() ? "PRIMARY" : status));
+            b.add("  %-10s : %d".formatted("objects", c.objects()));
+            b.add("  %-10s : %d ms".formatted("elapsed", r.elapsed().toMillis()));
+            addKeys(b, "MISSING", c.missing());
+            addKeys(b, "MISMATCHED", c.mismatched());
+            addKeys(b, "EXTRA", c.extra());
+        }
+        return StringUtils.collectionToDelimitedString(b, System.lineSeparator());
+    }
+
+    private static void addKeys(List<String> b, String label, List<String> keys) {
+        for (String key : keys) {
+            b.add("    %s %s".formatted(AnsiOutput.toString(AnsiColor.RED, "%-10s".formatted(label)), key));
+        }
+    }
+
+    private static String toStatus(BucketQueryResult<?> r) {
+        return AnsiOutput.toString(r.status() == BucketQueryResult.Status.TIMEOUT ? AnsiColor.YELLOW : AnsiColor.RED,
+                "%s (%s)".formatted(r.status(), r.error()));
+    }
+
+}
@@ -0,0 +1,39 @@
+package com.kapresoft.devops.shell.cmd;
+
+import com.kapresoft.devops.shell.service.BuildCompletionService;
+
+import org.springframework.shell.CompletionContext;
+import org.springframework.shell.CompletionProposal;
+import org.springframework.shell.standard.ValueProvider;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.kapresoft.devops.shell.cmd.BuildVersionValueProvider.currentWord;
+
+/**
+ * Completes {@code site/...} paths one level at a time; a leading slash is kept.
+ */
+@Component
+class SitePathValueProvider implements ValueProvider {
+
+    private final BuildCompletionService buildCompletionService;
+
+    SitePathValueProvider(BuildCompletionService buildCompletionService) {
+        this.buildCompletionService = buildCompletionService;
+    }
+
+    @Override
+    public List<CompletionProposal> complete(CompletionContext completionContext) {
+        String word = currentWord(completionContext);
+        String slash = word.startsWith("/") ? "/" : "";
+        List<CompletionProposal> proposals = new ArrayList<>();
+        for (String path : buildCompletionService.completePaths(word.substring(slash.length()))) {
+            // A directory is not a complete value, so that completing it does not add a space
+            proposals.add(new CompletionProposal(slash + path).complete(!path.endsWith("/")));
+        }
+        return proposals;
+    }
+
+}
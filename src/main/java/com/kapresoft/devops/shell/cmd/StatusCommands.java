@@ -0,0 +1,122 @@
+package com.kapresoft.devops.shell.cmd;
+
+import lombok.extern.log4j.Log4j2;
+
+import com.kapresoft.devops.shell.pojo.BuildIndexSnapshot;
+import com.kapresoft.devops.shell.service.BuildIndexService;
+import com.kapresoft.devops.shell.service.S3ReadService;
+import com.kapresoft.devops.shell.util.ByteUnits;
+import com.kapresoft.devops.shell.util.aws.AwsRequestLimits;
+import com.kapresoft.devops.shell.util.concurrent.AdaptiveLimiter;
+
+import org.springframework.boot.ansi.AnsiColor;
+import org.springframework.boot.ansi.AnsiOutput;
+import org.springframework.shell.standard.ShellComponent;
+import org.springframework.shell.standard.ShellMethod;
+import org.springframework.shell.standard.ShellOption;
+import org.springframework.util.StringUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+@Log4j2
+@ShellComponent
+public class StatusCommands {
+
+    private final BuildIndexService buildIndexService;
+    private final AwsRequestLimits awsRequestLimits;
+    private final S3ReadService s3ReadService;
+
+    public StatusCommands(BuildIndexService buildIndexService, AwsRequestLimits awsRequestLimits, S3ReadService s3ReadService) {
+        this.buildIndexService = buildIndexService;
+        this.awsRequestLimits = awsRequestLimits;
+        this.s3ReadService = s3ReadService;
+    }
+
+    /**
+     * <b>Usage:</b> status
+     * <pre>{@code
+     * shell:> status
+     * shell:> status --refresh
+     * }</pre>
+     *
+     * @param refresh Refresh the build index now; refused if the background refresh is disabled
+     * @return String The state of the background build index
+     */
+    @ShellMethod(value = "Show the state of the background build index", key = {"status"})
+    public String status(@ShellOption(value = "refresh", help = "Refresh the build index now") boolean refresh) {
+        if (refresh) {
+            buildIndexService.refresh();
+        }
+        final List<String> b = new ArrayList<>();
+        b.add("Build Index:");
+        b.add("");
+        String state;
+        if (!buildIndexService.isEnabled()) {
+            state = AnsiOutput.toString(AnsiColor.YELLOW, "DISABLED (spring.application.index-refresh.enabled)");
+        } else if (buildIndexService.isPaused()) {
+            state = AnsiOutput.toString(AnsiColor.YELLOW, "PAUSED (idle %s)".formatted(toSeconds(buildIndexService.getIdleTime())));
+        } else {
+            state = AnsiOutput.toString(AnsiColor.BRIGHT_GREEN, "ACTIVE");
+        }
+        b.add("  %-10s : %s".formatted("state", state));
+
+        Optional<BuildIndexSnapshot> snapshot = buildIndexService.getSnapshot();
+        if (snapshot.isEmpty()) {
+            b.add("  %-10s : %s".formatted("snapshot", "none"));
+        } else {
+            BuildIndexSnapshot s = snapshot.get();
+            b.add("  %-10s : %s old (%s)%s".formatted("snapshot", toSeconds(s.getAge()), s.refreshedAt(),
+                    buildIndexService.getCurrentSnapshot().isPresent() ? "" : AnsiOutput.toString(AnsiColor.YELLOW, ", stale")));
+            b.add("  %-10s : %d, %s in memory".formatted("builds", s.catalog().size(),
+                    ByteUnits.format(s.catalog().estimatedBytes())));
+            s.liveS3Keys().forEach((project, liveS3Key) -> b.add("  %-10s : %s%s".formatted("live",
+                    StringUtils.hasLength(liveS3Key) ? liveS3Key : "none", s.liveS3Keys().size() > 1 ? " (%s)".formatted(project) : "")));
+            b.add("  %-10s : %d ms, %d fetched".formatted("refresh", s.duration().toMillis(), s.fetched()));
+        }
+        Instant next = buildIndexService.getNextRefresh();
+        if (next != null && !buildIndexService.isPaused()) {
+            b.add("  %-10s : in %s".formatted("next", toSeconds(Duration.between(Instant.now(), next))));
+        }
+        String lastError = buildIndexService.getLastError();
+        if (lastError != null) {
+            b.add("  %-10s : %s".formatted("error", AnsiOutput.toString(AnsiColor.RED, lastError)));
+        }
+        return StringUtils.collectionToDelimitedString(b, System.lineSeparator());
+    }
+
+    /**
+     * <b>Usage:</b> limits
+     * <pre>{@code
+     * shell:> limits
+     * }</pre>
+     *
+     * @return String The current AWS request limits, how often each service throttled and the hedged GETs
+     */
+    @ShellMethod(value = "Show the adaptive AWS request limits, throttle counts and hedged GETs", key = {"limits"})
+    public String limits() {
+        final List<String> b = new ArrayList<>();
+        b.add("Request Limits:");
+        b.add("");
+        for (AdaptiveLimiter.Snapshot s : awsRequestLimits.snapshots()) {
+            String throttles = "%d throttled".formatted(s.throttles());
+            b.add("  %-10s : limit %d, %d in flight (peak %d), %d waiting, %d requests, %s, %d ms avg".formatted(
+                    s.name(), s.limit(), s.inFlight(), s.peakInFlight(), s.waiting(), s.requests(),
+                    s.throttles() > 0 ? AnsiOutput.toString(AnsiColor.YELLOW, throttles) : throttles,
+                    s.latency().toMillis()));
+        }
+        b.add("  %-10s : %s".formatted("hedging", s3ReadService.getHedgeStats()
+                .map(h -> "%d GETs, %.1f%% hedged, %.1f%% won by the hedge, %d over budget, after %d ms".formatted(
+                        h.calls(), h.hedgeRate() * 100, h.winRate() * 100, h.denied(), h.delay().toMillis()))
+                .orElse(AnsiOutput.toString(AnsiColor.YELLOW, "DISABLED (spring.application.hedging.enabled)"))));
+        return StringUtils.collectionToDelimitedString(b, System.lineSeparator());
+    }
+
+    private static String toSeconds(Duration d) {
+        return "%ds".formatted(Math.max(0, d.toSeconds()));
+    }
+
+}
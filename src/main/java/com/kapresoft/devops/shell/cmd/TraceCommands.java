@@ -0,0 +1,56 @@
+package com.kapresoft.devops.shell.cmd;
+
+import com.kapresoft.devops.shell.service.TraceService;
+
+import org.springframework.shell.standard.ShellComponent;
+import org.springframework.shell.standard.ShellMethod;
+import org.springframework.shell.standard.ShellOption;
+import org.springframework.util.StringUtils;
+
+import java.nio.file.Path;
+import java.util.List;
+
+@ShellComponent
+public class TraceCommands {
+
+    private final TraceService traceService;
+
+    public TraceCommands(TraceService traceService) {
+        this.traceService = traceService;
+    }
+
+    /**
+     * <b>Usage:</b> trace on
+     * <pre>{@code
+     * shell:> trace on
+     * shell:> trace on --file traces.jsonl
+     * }</pre>
+     *
+     * @param file Also append traces to this file as OTLP/JSON
+     * @return String The trace settings
+     */
+    @ShellMethod(value = "Print the remote calls of each following command as a span tree", key = {"trace on"})
+    public String traceOn(@ShellOption(value = "file", help = "Also append traces to this file as OTLP/JSON, one per line",
+            defaultValue = "") String file) {
+        traceService.enable(StringUtils.hasLength(file) ? Path.of(file) : null);
+        return traceService.getOtlpFile()
+                .map(f -> "Tracing on, writing to %s".formatted(f.toAbsolutePath()))
+                .orElse("Tracing on");
+    }
+
+    @ShellMethod(value = "Stop tracing commands", key = {"trace off"})
+    public String traceOff() {
+        traceService.disable();
+        return "Tracing off";
+    }
+
+    @ShellMethod(value = "Print the span tree of the last traced command", key = {"trace show"})
+    public String traceShow() {
+        List<String> lines = traceService.getLast();
+        if (lines.isEmpty()) {
+            return "No command traced yet";
+        }
+        return StringUtils.collectionToDelimitedString(lines, System.lineSeparator());
+    }
+
+}
@@ -0,0 +1,41 @@
+package com.kapresoft.devops.shell.config;
+
+import lombok.Getter;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Settings of the gzip pre-compression of text assets.
+ */
+@Getter
+@ConfigurationProperties(prefix = "spring.application.compression")
+public class CompressionProperties {
+
+    /**
+     * Smaller objects are stored as-is; the gzip overhead outweighs the savings
+     */
+    private final int minSize;
+    /**
+     * The compressed content is kept only when it is at least this much smaller, in percent
+     */
+    private final int minSavingsPercent;
+    /**
+     * The deflate level, 1 (fastest) to 9 (smallest)
+     */
+    private final int level;
+    /**
+     * The Cache-Control of compressed objects; empty keeps the existing one
+     */
+    private final String cacheControl;
+
+    public CompressionProperties(@DefaultValue("1024") int minSize,
+                                 @DefaultValue("10") int minSavingsPercent,
+                                 @DefaultValue("9") int level,
+                                 @DefaultValue("") String cacheControl) {
+        this.minSize = minSize;
+        this.minSavingsPercent = minSavingsPercent;
+        this.level = level;
+        this.cacheControl = cacheControl;
+    }
+}
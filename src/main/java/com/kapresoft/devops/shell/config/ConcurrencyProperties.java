@@ -0,0 +1,51 @@
+package com.kapresoft.devops.shell.config;
+
+import lombok.Getter;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.lang.NonNull;
+
+/**
+ * Limits of the AWS requests in flight. Each limit adapts between its min and max to the throttling
+ * and latency of the service.
+ */
+@Getter
+@ConfigurationProperties(prefix = "spring.application.concurrency")
+public class ConcurrencyProperties {
+
+    /**
+     * S3 object and listing requests, on all buckets
+     */
+    @NonNull
+    private final Limit s3;
+    /**
+     * CloudFront API requests, which are throttled at a few requests per second
+     */
+    @NonNull
+    private final Limit cloudFront;
+    /**
+     * A request this many times slower than usual lowers the limit; 0 only reacts to throttling
+     */
+    private final double latencyTolerance;
+
+    /**
+     * Settings left at 0 take the default of the service.
+     */
+    public record Limit(@DefaultValue("0") int initial, @DefaultValue("0") int min, @DefaultValue("0") int max) {
+
+        Limit withDefaults(int initial, int min, int max) {
+            return new Limit(this.initial > 0 ? this.initial : initial,
+                    this.min > 0 ? this.min : min,
+                    this.max > 0 ? this.max : max);
+        }
+    }
+
+    public ConcurrencyProperties(@DefaultValue Limit s3,
+                                 @DefaultValue Limit cloudFront,
+                                 @DefaultValue("4") double latencyTolerance) {
+        this.s3 = s3.withDefaults(16, 1, 128);
+        this.cloudFront = cloudFront.withDefaults(2, 1, 8);
+        this.latencyTolerance = latencyTolerance;
+    }
+}
@@ -0,0 +1,43 @@
+package com.kapresoft.devops.shell.config;
+
+import lombok.Getter;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.lang.NonNull;
+
+import java.time.Duration;
+
+/**
+ * Settings of the daemon mode, where one warm shell serves commands sent over a local Unix-domain socket.
+ */
+@Getter
+@ConfigurationProperties(prefix = "spring.application.daemon")
+public class DaemonProperties {
+
+    private final boolean enabled;
+    /**
+     * The socket file; only the owner may connect
+     */
+    @NonNull
+    private final String socket;
+    /**
+     * The daemon exits once no command has been received for this long; zero to keep it running
+     */
+    @NonNull
+    private final Duration idleTimeout;
+    /**
+     * The maximum number of commands run at once; further clients wait for a free slot
+     */
+    private final int maxClients;
+
+    public DaemonProperties(@DefaultValue("false") boolean enabled,
+                            @DefaultValue("shell.sock") String socket,
+                            @DefaultValue("30m") Duration idleTimeout,
+                            @DefaultValue("8") int maxClients) {
+        this.enabled = enabled;
+        this.socket = socket;
+        this.idleTimeout = idleTimeout;
+        this.maxClients = Math.max(maxClients, 1);
+    }
+}
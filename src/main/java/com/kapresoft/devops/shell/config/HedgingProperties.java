@@ -0,0 +1,49 @@
+package com.kapresoft.devops.shell.config;
+
+import lombok.Getter;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.lang.NonNull;
+
+import java.time.Duration;
+
+/**
+ * Settings of the hedged GETs of build info files: a GET still running after the given percentile of the
+ * recent latencies is duplicated, and the first response is used.
+ */
+@Getter
+@ConfigurationProperties(prefix = "spring.application.hedging")
+public class HedgingProperties {
+
+    private final boolean enabled;
+    /**
+     * The latency percentile after which a GET is duplicated
+     */
+    private final double percentile;
+    /**
+     * A GET is never duplicated sooner than this
+     */
+    @NonNull
+    private final Duration minDelay;
+    /**
+     * The share of GETs that may be duplicated, in percent
+     */
+    private final double budgetPercent;
+    /**
+     * The number of recent latencies the percentile is taken from
+     */
+    private final int window;
+
+    public HedgingProperties(@DefaultValue("false") boolean enabled,
+                             @DefaultValue("95") double percentile,
+                             @DefaultValue("50ms") Duration minDelay,
+                             @DefaultValue("5") double budgetPercent,
+                             @DefaultValue("200") int window) {
+        this.enabled = enabled;
+        this.percentile = percentile;
+        this.minDelay = minDelay;
+        this.budgetPercent = budgetPercent;
+        this.window = window;
+    }
+}
@@ -0,0 +1,41 @@
+package com.kapresoft.devops.shell.config;
+
+import lombok.Getter;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.lang.NonNull;
+
+import java.time.Duration;
+
+/**
+ * Settings of the HTTP client used for requests through the CDN.
+ */
+@Getter
+@ConfigurationProperties(prefix = "spring.application.http-client")
+public class HttpClientProperties {
+
+    @NonNull
+    private final Duration connectTimeout;
+    /**
+     * The maximum time to wait for a response once the request is sent
+     */
+    @NonNull
+    private final Duration readTimeout;
+    /**
+     * Pooled connections are closed after being idle this long
+     */
+    @NonNull
+    private final Duration maxIdleTime;
+    private final int maxConnections;
+
+    public HttpClientProperties(@DefaultValue("5s") Duration connectTimeout,
+                                @DefaultValue("10s") Duration readTimeout,
+                                @DefaultValue("30s") Duration maxIdleTime,
+                                @DefaultValue("64") int maxConnections) {
+        this.connectTimeout = connectTimeout;
+        this.readTimeout = readTimeout;
+        this.maxIdleTime = maxIdleTime;
+        this.maxConnections = maxConnections;
+    }
+}
@@ -0,0 +1,42 @@
+package com.kapresoft.devops.shell.config;
+
+import lombok.Getter;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.lang.NonNull;
+
+import java.time.Duration;
+
+/**
+ * Settings of the background refresh of the build index.
+ */
+@Getter
+@ConfigurationProperties(prefix = "spring.application.index-refresh")
+public class IndexRefreshProperties {
+
+    private final boolean enabled;
+    @NonNull
+    private final Duration interval;
+    /**
+     * A random delay of up to this much is added to each interval, so that shells started together
+     * do not list the bucket at the same time
+     */
+    @NonNull
+    private final Duration jitter;
+    /**
+     * Refreshing pauses once the shell has been idle this long, and resumes with the next command
+     */
+    @NonNull
+    private final Duration idleTimeout;
+
+    public IndexRefreshProperties(@DefaultValue("false") boolean enabled,
+                                  @DefaultValue("60s") Duration interval,
+                                  @DefaultValue("10s") Duration jitter,
+                                  @DefaultValue("15m") Duration idleTimeout) {
+        this.enabled = enabled;
+        this.interval = interval;
+        this.jitter = jitter;
+        this.idleTimeout = idleTimeout;
+    }
+}
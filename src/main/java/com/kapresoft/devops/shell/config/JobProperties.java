@@ -0,0 +1,29 @@
+package com.kapresoft.devops.shell.config;
+
+import lombok.Getter;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Settings of background jobs, started with {@code bg}.
+ */
+@Getter
+@ConfigurationProperties(prefix = "spring.application.jobs")
+public class JobProperties {
+
+    /**
+     * The number of jobs run at once, shared by all jobs; further jobs are queued
+     */
+    private final int maxConcurrent;
+    /**
+     * The output kept per job; older output is dropped first
+     */
+    private final int maxOutputChars;
+
+    public JobProperties(@DefaultValue("2") int maxConcurrent,
+                         @DefaultValue("1000000") int maxOutputChars) {
+        this.maxConcurrent = Math.max(maxConcurrent, 1);
+        this.maxOutputChars = Math.max(maxOutputChars, 1024);
+    }
+}
@@ -0,0 +1,33 @@
+package com.kapresoft.devops.shell.config;
+
+import lombok.Getter;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.lang.NonNull;
+
+/**
+ * Where the release journal is kept. Every change of a distribution origin path is appended to it, which is
+ * what {@code rollback} reads.
+ */
+@Getter
+@ConfigurationProperties(prefix = "spring.application.journal")
+public class JournalProperties {
+
+    /**
+     * The local NDJSON file
+     */
+    @NonNull
+    private final String file;
+    /**
+     * The journal is also copied to this key in the bucket after each entry; empty keeps it local
+     */
+    @NonNull
+    private final String s3Key;
+
+    public JournalProperties(@DefaultValue("release-journal.ndjson") String file,
+                             @DefaultValue("") String s3Key) {
+        this.file = file;
+        this.s3Key = s3Key;
+    }
+}
@@ -1,46 +1,61 @@
 package com.kapresoft.devops.shell.config;
 
-import jakarta.annotation.PostConstruct;
 import lombok.Getter;
 
 import com.kapresoft.devops.shell.pojo.S3Bucket;
 
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.boot.context.properties.ConfigurationProperties;
-import org.springframework.context.ApplicationContext;
 import org.springframework.lang.NonNull;
 
 import java.net.URI;
 
-@ConfigurationProperties(prefix = "spring.application.code-build-project.kapresoft-articles")
+/**
+ * A project published into the bucket; see {@link ProjectRegistry}.
+ */
+@Getter
 public class KapresoftProjectProperties {
 
+    /**
+     * The configuration key, i.e. kapresoft-articles
+     */
+    @NonNull
+    private final String id;
     @NonNull
-    @Getter
     private final String name;
     @NonNull
-    @Getter
     private final String buildInfoFile;
     @NonNull
-    @Getter
     private final URI cdnURI;
-    @Getter
-    private S3Bucket s3Bucket;
-
-    @Autowired
-    private ApplicationContext ctx;
-
-    @PostConstruct
-    void after() {
-        // late-binding to avoid circular reference
-        s3Bucket = ctx.getBean(S3BucketProperties.class).getS3Bucket();
-    }
+    /**
+     * The list of expected files shipped with each build, next to the build info file
+     */
+    @NonNull
+    private final String manifestFile;
+    /**
+     * The CloudFront distribution of the project; empty for the default distribution
+     */
+    @NonNull
+    private final String distributionId;
+    @NonNull
+    private final S3Bucket s3Bucket;
 
-    public KapresoftProjectProperties(@NonNull String name,
+    public KapresoftProjectProperties(@NonNull String id,
+                                      @NonNull String name,
                                       @NonNull String buildInfoFile,
-                                      @NonNull URI cdn) {
+                                      @NonNull URI cdn,
+                                      @NonNull String manifestFile,
+                                      @NonNull String distributionId,
+                                      @NonNull S3Bucket s3Bucket) {
+        this.id = id;
         this.name = name;
         this.buildInfoFile = buildInfoFile;
         this.cdnURI = cdn;
+        this.manifestFile = manifestFile;
+        this.distributionId = distributionId;
+        this.s3Bucket = s3Bucket;
+    }
+
+    @Override
+    public String toString() {
+        return id;
     }
 }
@@ -0,0 +1,131 @@
+package com.kapresoft.devops.shell.config;
+
+import jakarta.validation.ValidationException;
+
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.net.URI;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * The configured projects. Builds are uploaded to {@code site/{build-version}/{project-name}}, so a single
+ * listing of {@code site/} covers all projects and each build info key is mapped back to its project by name.
+ */
+@Component
+public class ProjectRegistry {
+
+    private static final String SITE_PREFIX = "site/";
+
+    private final Map<String, KapresoftProjectProperties> projects = new LinkedHashMap<>();
+    private final KapresoftProjectProperties defaultProject;
+    private final Set<String> buildInfoFileSuffixes = new LinkedHashSet<>();
+
+    public ProjectRegistry(ProjectsProperties props, S3BucketProperties s3BucketProperties) {
+        props.getCodeBuildProject().forEach((id, p) -> projects.put(id, new KapresoftProjectProperties(id, p.name(),
+                p.buildInfoFile(), p.cdn(), p.manifestFile(), p.distributionId(), s3BucketProperties.getS3Bucket())));
+        if (projects.isEmpty()) {
+            throw new IllegalStateException("No project configured in spring.application.code-build-project");
+        }
+        projects.values().forEach(p -> buildInfoFileSuffixes.add("/" + p.getBuildInfoFile()));
+        this.defaultProject = StringUtils.hasLength(props.getDefaultProject())
+                ? Objects.requireNonNull(projects.get(props.getDefaultProject()),
+                        () -> "Unknown default-project: %s".formatted(props.getDefaultProject()))
+                : projects.values().iterator().next();
+    }
+
+    @NonNull
+    public KapresoftProjectProperties getDefault() {
+        return defaultProject;
+    }
+
+    @NonNull
+    public Collection<KapresoftProjectProperties> getProjects() {
+        return Collections.unmodifiableCollection(projects.values());
+    }
+
+    public boolean isMultiProject() {
+        return projects.size() > 1;
+    }
+
+    /**
+     * @param project The project key or name; the default project if empty
+     * @return KapresoftProjectProperties The project
+     * @throws ValidationException If there is no such project
+     */
+    @NonNull
+    public KapresoftProjectProperties get(@Nullable String project) {
+        if (!StringUtils.hasLength(project)) {
+            return defaultProject;
+        }
+        KapresoftProjectProperties found = projects.get(project);
+        if (found != null) {
+            return found;
+        }
+        return projects.values().stream()
+                .filter(p -> p.getName().equalsIgnoreCase(project))
+                .findFirst()
+                .orElseThrow(() -> new ValidationException("Invalid project: %s. Valid values are: %s"
+                        .formatted(project, projects.keySet())));
+    }
+
+    /**
+     * @param key An S3 key, i.e. site/{build-version}/{project-name}/build.yml
+     * @return KapresoftProjectProperties The project whose name is the third path segment; the default project
+     * if none matches, since builds are not always uploaded under their project name
+     */
+    @NonNull
+    public KapresoftProjectProperties forKey(@NonNull String key) {
+        if (!isMultiProject() || !key.startsWith(SITE_PREFIX)) {
+            return defaultProject;
+        }
+        int versionEnd = key.indexOf('/', SITE_PREFIX.length());
+        if (versionEnd < 0) {
+            return defaultProject;
+        }
+        int projectEnd = key.indexOf('/', versionEnd + 1);
+        String segment = key.substring(versionEnd + 1, projectEnd < 0 ? key.length() : projectEnd);
+        for (KapresoftProjectProperties p : projects.values()) {
+            if (p.getName().equalsIgnoreCase(segment)) {
+                return p;
+            }
+        }
+        return defaultProject;
+    }
+
+    /**
+     * @param uri A URL served by one of the project CDNs
+     * @return KapresoftProjectProperties The project with the same CDN host; the default project if none matches
+     */
+    @NonNull
+    public KapresoftProjectProperties forCdnURI(@NonNull URI uri) {
+        for (KapresoftProjectProperties p : projects.values()) {
+            if (Objects.equals(p.getCdnURI().getHost(), uri.getHost())) {
+                return p;
+            }
+        }
+        return defaultProject;
+    }
+
+    /**
+     * @param key An S3 key
+     * @return boolean True if the key is the build info file of any project
+     */
+    public boolean isBuildInfoKey(@NonNull String key) {
+        for (String suffix : buildInfoFileSuffixes) {
+            if (key.endsWith(suffix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
@@ -0,0 +1,46 @@
+package com.kapresoft.devops.shell.config;
+
+import lombok.Getter;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.lang.NonNull;
+
+import java.net.URI;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The projects published into the bucket, keyed by their configuration key.
+ */
+@Getter
+@ConfigurationProperties(prefix = "spring.application")
+public class ProjectsProperties {
+
+    @NonNull
+    private final Map<String, Project> codeBuildProject;
+    /**
+     * The key of the project used when no {@code --project} is given; defaults to the first project
+     */
+    @NonNull
+    private final String defaultProject;
+
+    /**
+     * @param name           The project name; builds are uploaded to site/{build-version}/{name}
+     * @param buildInfoFile  The build info file name
+     * @param cdn            The CDN that serves the project
+     * @param manifestFile   The list of expected files shipped with each build
+     * @param distributionId The CloudFront distribution of the project; defaults to AWS_CLOUDFRONT_DIST_ID if empty
+     */
+    public record Project(@NonNull String name,
+                          @DefaultValue("build.yml") String buildInfoFile,
+                          @NonNull URI cdn,
+                          @DefaultValue("build-manifest.txt") String manifestFile,
+                          @DefaultValue("") String distributionId) {
+    }
+
+    public ProjectsProperties(Map<String, Project> codeBuildProject, @DefaultValue("") String defaultProject) {
+        this.codeBuildProject = codeBuildProject == null ? Map.of() : new LinkedHashMap<>(codeBuildProject);
+        this.defaultProject = defaultProject;
+    }
+}
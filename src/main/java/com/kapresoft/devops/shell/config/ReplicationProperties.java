@@ -0,0 +1,45 @@
+package com.kapresoft.devops.shell.config;
+
+import lombok.Getter;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * The region of the primary bucket and the buckets the builds are replicated to.
+ */
+@Getter
+@ConfigurationProperties(prefix = "spring.application.replication")
+public class ReplicationProperties {
+
+    @NonNull
+    private final String primaryRegion;
+    /**
+     * The time allowed to each bucket to answer a query; a bucket that takes longer is reported as timed out
+     */
+    @NonNull
+    private final Duration timeout;
+    @NonNull
+    private final List<Replica> replicas;
+
+    /**
+     * @param bucket  The bucket URI, i.e. s3://kapresoft-eu/
+     * @param region  The bucket region, i.e. eu-west-1
+     * @param timeout Overrides the default timeout for this bucket
+     */
+    public record Replica(@NonNull String bucket, @NonNull String region, @Nullable Duration timeout) {
+    }
+
+    public ReplicationProperties(@DefaultValue("us-east-1") String primaryRegion,
+                                 @DefaultValue("15s") Duration timeout,
+                                 @DefaultValue List<Replica> replicas) {
+        this.primaryRegion = primaryRegion;
+        this.timeout = timeout;
+        this.replicas = replicas == null ? List.of() : List.copyOf(replicas);
+    }
+}
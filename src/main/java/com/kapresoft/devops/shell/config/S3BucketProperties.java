@@ -33,7 +33,11 @@ public class S3BucketProperties {
         this.s3Bucket = createBucket(s3Bucket).orElse(null);
     }
 
-    private Optional<S3Bucket> createBucket(String bucketUri) {
+    /**
+     * @param bucketUri The bucket URI, i.e. s3://kapresoft/
+     * @return Optional<S3Bucket> The bucket, or empty if the URI is empty; not validated
+     */
+    public static Optional<S3Bucket> createBucket(String bucketUri) {
         String uri = ofNullable(bucketUri).orElse("");
         if (uri.isEmpty()) {
             return empty();
@@ -0,0 +1,31 @@
+package com.kapresoft.devops.shell.config;
+
+import lombok.Getter;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.lang.NonNull;
+
+/**
+ * Settings of command tracing, which records the remote calls made by each command.
+ */
+@Getter
+@ConfigurationProperties(prefix = "spring.application.trace")
+public class TraceProperties {
+
+    /**
+     * Trace from startup, as with {@code trace on}
+     */
+    private final boolean enabled;
+    /**
+     * Traces are also appended to this file as OTLP/JSON, one per line; empty writes no file
+     */
+    @NonNull
+    private final String otlpFile;
+
+    public TraceProperties(@DefaultValue("false") boolean enabled,
+                           @DefaultValue("") String otlpFile) {
+        this.enabled = enabled;
+        this.otlpFile = otlpFile;
+    }
+}
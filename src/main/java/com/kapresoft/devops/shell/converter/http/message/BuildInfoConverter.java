@@ -72,6 +72,7 @@ public interface BuildInfoConverter<S, T> extends Converter<S, T> {
         }
 
         return of(BuildInfoDetails.builder()
+                .projectConfig(projectConfig)
                 .buildInfo(b)
                 .version(version)
                 .keyPath(keyPath)
@@ -0,0 +1,66 @@
+package com.kapresoft.devops.shell.converter.http.message;
+
+import com.kapresoft.devops.shell.pojo.BuildInfo;
+
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.lang.NonNull;
+import org.yaml.snakeyaml.DumperOptions;
+import org.yaml.snakeyaml.Yaml;
+
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Writes the build info file read by {@link YamlTextToBuildInfoConverter}.
+ */
+public class BuildInfoToYamlTextConverter implements Converter<BuildInfo, String> {
+
+    /**
+     * i.e. Thu Jan 4 14:12:02 PST 2024, the format of the date command
+     */
+    private static final DateTimeFormatter DATE_FORMATTER =
+            DateTimeFormatter.ofPattern("EEE MMM d HH:mm:ss zzz yyyy", Locale.US);
+
+    /**
+     * The time zone build dates are written and shown in, as by the CI builds
+     */
+    public static final ZoneId BUILD_ZONE = ZoneId.of("America/Los_Angeles");
+
+    @Override
+    public String convert(@NonNull BuildInfo buildInfo) {
+        return toText(buildInfo);
+    }
+
+    public static String toText(@NonNull BuildInfo buildInfo) {
+        final DumperOptions options = new DumperOptions();
+        options.setDefaultFlowStyle(DumperOptions.FlowStyle.BLOCK);
+        return new Yaml(options).dump(toMap(buildInfo));
+    }
+
+    public static Map<String, Object> toMap(@NonNull BuildInfo buildInfo) {
+        final Map<String, Object> map = new LinkedHashMap<>();
+        map.put("date", buildInfo.getDate());
+        if (buildInfo.getBuildDate() != null) {
+            map.put("date-long", buildInfo.getBuildDate().getTime() / 1000L);
+        }
+        map.put("id", buildInfo.getId());
+        map.put("commit-hash", buildInfo.getCommitHash());
+        map.put("build-number", buildInfo.getBuildNumber());
+        map.put("deploy-key", buildInfo.getDeployKey());
+        return map;
+    }
+
+    /**
+     * @param date The build date
+     * @param zone The time zone, appended as in "Thu Jan 4 14:12:02 PST 2024 America/Los_Angeles"
+     * @return String The display date
+     */
+    public static String formatDate(@NonNull Date date, @NonNull ZoneId zone) {
+        return "%s %s".formatted(DATE_FORMATTER.format(date.toInstant().atZone(zone)), zone.getId());
+    }
+
+}
@@ -2,34 +2,30 @@ package com.kapresoft.devops.shell.converter.http.message;
 
 import lombok.extern.log4j.Log4j2;
 
-import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.model.AmazonS3Exception;
-import com.amazonaws.services.s3.model.S3ObjectInputStream;
 import com.amazonaws.services.s3.model.S3ObjectSummary;
 import com.kapresoft.devops.shell.pojo.BuildInfo;
+import com.kapresoft.devops.shell.service.S3ReadService;
 
-import org.apache.commons.io.IOUtils;
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Component;
 
-import java.io.BufferedInputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
 
 @Log4j2
 @Component
 public class S3ObjectSummaryToBuildInfoConverter implements BuildInfoConverter<S3ObjectSummary, BuildInfo> {
 
-    private final AmazonS3 amazonS3;
+    private final S3ReadService s3ReadService;
 
-    public S3ObjectSummaryToBuildInfoConverter(AmazonS3 amazonS3) {
-        this.amazonS3 = amazonS3;
+    public S3ObjectSummaryToBuildInfoConverter(S3ReadService s3ReadService) {
+        this.s3ReadService = s3ReadService;
     }
 
     @Override
     public BuildInfo convert(@NonNull S3ObjectSummary s3o) {
-        try (S3ObjectInputStream is = amazonS3.getObject(s3o.getBucketName(), s3o.getKey()).getObjectContent()) {
-            String yamlText = IOUtils.toString(new InputStreamReader(new BufferedInputStream(is)));
+        try {
+            String yamlText = s3ReadService.readText(s3o.getBucketName(), s3o.getKey());
             return toBuildInfo(yamlText, s3o.getLastModified()).orElse(null);
         } catch (AmazonS3Exception | IOException e) {
             log.error("Failed to read {}", s3o.getKey(), e);
@@ -2,39 +2,36 @@ package com.kapresoft.devops.shell.converter.http.message;
 
 import lombok.extern.log4j.Log4j2;
 
-import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.model.AmazonS3Exception;
-import com.amazonaws.services.s3.model.S3ObjectInputStream;
 import com.amazonaws.services.s3.model.S3ObjectSummary;
 import com.kapresoft.devops.shell.config.KapresoftProjectProperties;
+import com.kapresoft.devops.shell.config.ProjectRegistry;
 import com.kapresoft.devops.shell.pojo.BuildInfoDetails;
+import com.kapresoft.devops.shell.service.S3ReadService;
 
-import org.apache.commons.io.IOUtils;
 import org.springframework.context.ApplicationContext;
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Component;
 
-import java.io.BufferedInputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
 
 @Log4j2
 @Component
 public class S3ObjectSummaryToBuildInfoDetailsConverter implements BuildInfoConverter<S3ObjectSummary, BuildInfoDetails> {
 
     private final ApplicationContext ctx;
-    private final AmazonS3 amazonS3;
+    private final S3ReadService s3ReadService;
 
-    public S3ObjectSummaryToBuildInfoDetailsConverter(ApplicationContext ctx, AmazonS3 amazonS3) {
+    public S3ObjectSummaryToBuildInfoDetailsConverter(ApplicationContext ctx, S3ReadService s3ReadService) {
         this.ctx = ctx;
-        this.amazonS3 = amazonS3;
+        this.s3ReadService = s3ReadService;
     }
 
     @Override
     public BuildInfoDetails convert(@NonNull S3ObjectSummary s3o) {
-        KapresoftProjectProperties projConf = ctx.getBean(KapresoftProjectProperties.class);
-        try (S3ObjectInputStream is = amazonS3.getObject(s3o.getBucketName(), s3o.getKey()).getObjectContent()) {
-            String yamlText = IOUtils.toString(new InputStreamReader(new BufferedInputStream(is)));
+        KapresoftProjectProperties projConf = ctx.getBean(ProjectRegistry.class).forKey(s3o.getKey());
+        try {
+            String yamlText = s3ReadService.readText(s3o.getBucketName(), s3o.getKey());
             return toBuildInfoDetails(yamlText, s3o, projConf).orElse(null);
         } catch (AmazonS3Exception | IOException e) {
             log.error("Failed to read {}", s3o.getKey(), e);
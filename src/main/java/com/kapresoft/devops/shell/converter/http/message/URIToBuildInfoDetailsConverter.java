@@ -1,21 +1,35 @@
 package com.kapresoft.devops.shell.converter.http.message;
 
+import lombok.extern.log4j.Log4j2;
+
 import com.kapresoft.devops.shell.config.KapresoftProjectProperties;
+import com.kapresoft.devops.shell.config.ProjectRegistry;
 import com.kapresoft.devops.shell.pojo.BuildInfoDetails;
 
 import org.springframework.context.ApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
 
-import java.net.URI;
+import reactor.core.publisher.Mono;
 
-import static java.util.Optional.ofNullable;
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Fetches the build info file through the CDN. The last response per URI is kept so that subsequent
+ * fetches are conditional GETs; an unchanged file costs a 304 without a body.
+ */
+@Log4j2
 @Component
 public class URIToBuildInfoDetailsConverter implements BuildInfoConverter<URI, BuildInfoDetails> {
 
     private final ApplicationContext ctx;
+    private final Map<URI, CachedResponse> lastResponses = new ConcurrentHashMap<>();
 
     public URIToBuildInfoDetailsConverter(ApplicationContext ctx) {
         this.ctx = ctx;
@@ -23,12 +37,48 @@ public class URIToBuildInfoDetailsConverter implements BuildInfoConverter<URI, B
 
     @Override
     public BuildInfoDetails convert(@NonNull URI buildInfoUri) {
-        final RestTemplate restTemplate = ctx.getBean(RestTemplate.class);
-        final KapresoftProjectProperties projConf = ctx.getBean(KapresoftProjectProperties.class);
+        return fetch(buildInfoUri).block();
+    }
+
+    /**
+     * @param buildInfoUri The build info file URL, i.e. https://{cdn}/build.yml
+     * @return Mono<BuildInfoDetails> Empty if the file is empty; an error if the request fails or times out
+     */
+    @NonNull
+    public Mono<BuildInfoDetails> fetch(@NonNull URI buildInfoUri) {
+        final WebClient webClient = ctx.getBean(WebClient.class);
+        final KapresoftProjectProperties projConf = ctx.getBean(ProjectRegistry.class).forCdnURI(buildInfoUri);
+        final CachedResponse cached = lastResponses.get(buildInfoUri);
+
+        return webClient.get().uri(buildInfoUri)
+                .headers(h -> {
+                    if (cached == null) {
+                        return;
+                    }
+                    if (cached.eTag() != null) {
+                        h.setIfNoneMatch(cached.eTag());
+                    }
+                    if (cached.lastModified() != null) {
+                        h.set(HttpHeaders.IF_MODIFIED_SINCE, cached.lastModified());
+                    }
+                })
+                .exchangeToMono(response -> {
+                    if (response.statusCode().isSameCodeAs(HttpStatus.NOT_MODIFIED) && cached != null) {
+                        log.debug("Not modified: {}", buildInfoUri);
+                        return response.releaseBody().thenReturn(cached.body());
+                    }
+                    if (response.statusCode().is2xxSuccessful()) {
+                        HttpHeaders headers = response.headers().asHttpHeaders();
+                        return response.bodyToMono(String.class)
+                                .doOnNext(body -> lastResponses.put(buildInfoUri, new CachedResponse(
+                                        headers.getETag(), headers.getFirst(HttpHeaders.LAST_MODIFIED), body)));
+                    }
+                    return response.createException().flatMap(Mono::error);
+                })
+                .flatMap(yamlText -> Mono.justOrEmpty(toBuildInfoDetails(yamlText, null, projConf)));
+    }
 
-        return ofNullable(restTemplate.getForObject(buildInfoUri, String.class))
-                .flatMap(s -> toBuildInfoDetails(s, null, projConf))
-                .orElse(null);
+    private record CachedResponse(@Nullable String eTag, @Nullable String lastModified, @NonNull String body) {
     }
 
 }
@@ -0,0 +1,358 @@
+package com.kapresoft.devops.shell.daemon;
+
+import lombok.extern.log4j.Log4j2;
+
+import com.kapresoft.devops.shell.config.DaemonProperties;
+import com.kapresoft.devops.shell.service.CommandDispatcher;
+
+import jdk.net.ExtendedSocketOptions;
+import jdk.net.UnixDomainPrincipal;
+
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.annotation.Order;
+import org.springframework.lang.NonNull;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousCloseException;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.UserPrincipal;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps one warm shell, with its caches, connection pools and JIT-compiled code, and runs the commands local
+ * clients send over a Unix-domain socket. A client sends one command line and reads the output as the command
+ * writes it, followed by a last line holding {@link #EXIT_MARKER} and the exit code; the connection is then
+ * closed. Each client is served on its own thread with its own output, so a failing or slow command does not
+ * affect the others. A client keeps its end of the connection open until it has read the last line; if it
+ * closes it earlier, the command is cancelled. Only clients of the user running the daemon are served: the
+ * socket directory is created private to the user, and each client's user is checked with {@code SO_PEERCRED}
+ * where the platform supports it. The daemon exits once it has been idle for the configured timeout.
+ * <pre>{@code
+ * printf 'ls --format json\n' | nc -U ~/.kapresoft-cdn-shell/shell.sock
+ * }</pre>
+ */
+@Log4j2
+@Order(1)
+@Component
+@ConditionalOnProperty(prefix = "spring.application.daemon", name = "enabled", havingValue = "true")
+public class ShellDaemon implements ApplicationRunner {
+
+    /**
+     * Starts the last line of a response; the ASCII record separator, which commands do not print
+     */
+    public static final char EXIT_MARKER = '\u001e';
+
+    private final DaemonProperties props;
+    private final CommandDispatcher dispatcher;
+    private final ApplicationContext context;
+
+    private final AtomicInteger active = new AtomicInteger();
+    private volatile long lastActivityNanos;
+
+    public ShellDaemon(DaemonProperties props, CommandDispatcher dispatcher, ApplicationContext context) {
+        this.props = props;
+        this.dispatcher = dispatcher;
+        this.context = context;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws IOException {
+        serve(Path.of(props.getSocket()));
+        System.exit(SpringApplication.exit(context));
+    }
+
+    /**
+     * Accepts clients until the daemon has been idle for the configured timeout.
+     * @param socket The socket file
+     * @throws IOException If the socket cannot be bound
+     */
+    public void serve(@NonNull Path socket) throws IOException {
+        final Semaphore slots = new Semaphore(props.getMaxClients());
+        final ExecutorService clients = Executors.newCachedThreadPool(daemonThreads("daemon-client-"));
+        final ScheduledExecutorService idleCheck = Executors.newSingleThreadScheduledExecutor(daemonThreads("daemon-idle-"));
+        try (ServerSocketChannel server = bind(socket)) {
+            final UserPrincipal owner = Files.getOwner(socket);
+            lastActivityNanos = System.nanoTime();
+            log.info("Listening on {}; max clients: {}, idle timeout: {}", socket, props.getMaxClients(), props.getIdleTimeout());
+            Duration idleTimeout = props.getIdleTimeout();
+            if (!idleTimeout.isZero()) {
+                long period = Math.max(idleTimeout.toMillis() / 10, 10);
+                idleCheck.scheduleWithFixedDelay(() -> closeIfIdle(server, idleTimeout), period, period, TimeUnit.MILLISECONDS);
+            }
+            while (server.isOpen()) {
+                final SocketChannel client;
+                try {
+                    client = server.accept();
+                } catch (AsynchronousCloseException e) {
+                    break;
+                }
+                active.incrementAndGet();
+                clients.execute(() -> {
+                    try (client) {
+                        if (!isOwner(client, owner)) {
+                            return;
+                        }
+                        slots.acquire();
+                        try {
+                            handle(client, clients);
+                        } finally {
+                            slots.release();
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } catch (IOException e) {
+                        log.debug("Client connection failed", e);
+                    } finally {
+                        lastActivityNanos = System.nanoTime();
+                        active.decrementAndGet();
+                    }
+                });
+            }
+            log.info("Idle for {}; exiting", idleTimeout);
+        } finally {
+            idleCheck.shutdownNow();
+            clients.shutdown();
+            Files.deleteIfExists(socket);
+        }
+    }
+
+    private void handle(SocketChannel client, ExecutorService hangupChecks) throws IOException {
+        BufferedReader in = new BufferedReader(new InputStreamReader(Channels.newInputStream(client), StandardCharsets.UTF_8));
+        ClientWriter out = new ClientWriter(new OutputStreamWriter(Channels.newOutputStream(client), StandardCharsets.UTF_8));
+        String line = in.readLine();
+        if (line == null) {
+            return;
+        }
+        log.debug("Command: {}", line);
+        final Thread commandThread = Thread.currentThread();
+        final AtomicBoolean running = new AtomicBoolean(true);
+        out.onError(() -> cancel(commandThread, running, line));
+        hangupChecks.execute(() -> cancelOnHangup(client, out, commandThread, running, line));
+        final int exitCode;
+        try {
+            exitCode = dispatcher.dispatch(line.strip(), out);
+        } finally {
+            synchronized (running) {
+                running.set(false);
+            }
+            // A hangup at the very end of the command must not cancel the next one on this thread
+            Thread.interrupted();
+        }
+        out.print(EXIT_MARKER);
+        out.println(exitCode);
+        out.flush();
+    }
+
+    /**
+     * Waits for the client to reset the connection, which ends the read with an error. An EOF only means that the
+     * client has sent all its input, like nc does once its stdin ends, so the command keeps running; a client
+     * that then goes away is noticed by the next failed write. Returns without effect once the connection is
+     * closed by the daemon after the command. Reads the channel directly, as the channel streams share a lock
+     * that would block the command output while the read waits.
+     */
+    private static void cancelOnHangup(SocketChannel client, ClientWriter out, Thread commandThread,
+                                       AtomicBoolean running, String line) {
+        final ByteBuffer discard = ByteBuffer.allocate(256);
+        try {
+            while (client.read(discard) != -1) {
+                // Nothing more is expected from the client
+                discard.clear();
+            }
+        } catch (IOException e) {
+            // Reset by the client, or closed by the daemon
+            out.hangup();
+        }
+    }
+
+    private static void cancel(Thread commandThread, AtomicBoolean running, String line) {
+        synchronized (running) {
+            if (running.get()) {
+                log.info("Client disconnected; cancelling: {}", line);
+                commandThread.interrupt();
+            }
+        }
+    }
+
+    /**
+     * @return boolean True if the client runs as the user who owns the socket, or the platform cannot tell
+     */
+    private static boolean isOwner(SocketChannel client, UserPrincipal owner) throws IOException {
+        try {
+            UnixDomainPrincipal peer = client.getOption(ExtendedSocketOptions.SO_PEERCRED);
+            if (peer.user().equals(owner)) {
+                return true;
+            }
+            log.warn("Refused a client of user {}; the daemon serves {} only", peer.user(), owner);
+            return false;
+        } catch (UnsupportedOperationException e) {
+            // The private socket directory keeps other users out
+            return true;
+        }
+    }
+
+    private void closeIfIdle(ServerSocketChannel server, Duration idleTimeout) {
+        if (active.get() == 0 && System.nanoTime() - lastActivityNanos >= idleTimeout.toNanos()) {
+            try {
+                server.close();
+            } catch (IOException e) {
+                log.debug("Failed to close {}", server, e);
+            }
+        }
+    }
+
+    private static ServerSocketChannel bind(Path socket) throws IOException {
+        UnixDomainSocketAddress address = UnixDomainSocketAddress.of(socket);
+        if (Files.exists(socket)) {
+            // Left over by a daemon that did not exit cleanly, unless one is still listening
+            try (SocketChannel probe = SocketChannel.open(address)) {
+                throw new IllegalStateException("A daemon is already listening on %s".formatted(socket));
+            } catch (IOException e) {
+                Files.delete(socket);
+            }
+        }
+        Path parent = socket.toAbsolutePath().getParent();
+        if (parent != null && Files.notExists(parent)) {
+            // Private before the socket is bound in it; the socket itself is chmod-ed only after the bind
+            try {
+                Files.createDirectories(parent, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+            } catch (UnsupportedOperationException e) {
+                Files.createDirectories(parent);
+            }
+        }
+        ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        server.bind(address);
+        try {
+            Files.setPosixFilePermissions(socket, PosixFilePermissions.fromString("rw-------"));
+        } catch (UnsupportedOperationException e) {
+            log.debug("Socket permissions not supported on {}", socket);
+        }
+        return server;
+    }
+
+    /**
+     * The output of a command; PrintWriter swallows write errors, so {@link #checkError()} is how commands
+     * that stream output learn that the client is gone.
+     */
+    static class ClientWriter extends PrintWriter {
+
+        private final FailureWriter failures;
+
+        ClientWriter(Writer out) {
+            this(new FailureWriter(out));
+        }
+
+        private ClientWriter(FailureWriter out) {
+            super(out, true);
+            this.failures = out;
+        }
+
+        /**
+         * Runs the action once, on the first failed write or hangup
+         */
+        void onError(Runnable onError) {
+            failures.onError = onError;
+        }
+
+        /**
+         * Marks the output as failed once the client has reset the connection, even before a write fails.
+         */
+        void hangup() {
+            setError();
+            failures.failed();
+        }
+    }
+
+    /**
+     * Reports the first failed write, which PrintWriter only records.
+     */
+    private static class FailureWriter extends FilterWriter {
+
+        private final AtomicBoolean failed = new AtomicBoolean();
+        private volatile Runnable onError = () -> {
+        };
+
+        FailureWriter(Writer out) {
+            super(out);
+        }
+
+        void failed() {
+            if (failed.compareAndSet(false, true)) {
+                onError.run();
+            }
+        }
+
+        @Override
+        public void write(int c) throws IOException {
+            try {
+                super.write(c);
+            } catch (IOException e) {
+                failed();
+                throw e;
+            }
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            try {
+                super.write(cbuf, off, len);
+            } catch (IOException e) {
+                failed();
+                throw e;
+            }
+        }
+
+        @Override
+        public void write(String str, int off, int len) throws IOException {
+            try {
+                super.write(str, off, len);
+            } catch (IOException e) {
+                failed();
+                throw e;
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            try {
+                super.flush();
+            } catch (IOException e) {
+                failed();
+                throw e;
+            }
+        }
+    }
+
+    private static CustomizableThreadFactory daemonThreads(String prefix) {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory(prefix);
+        threadFactory.setDaemon(true);
+        return threadFactory;
+    }
+}
@@ -0,0 +1,187 @@
+package com.kapresoft.devops.shell.decorator;
+
+import com.kapresoft.devops.shell.converter.http.message.BuildInfoToYamlTextConverter;
+import com.kapresoft.devops.shell.pojo.BuildInfoDetails;
+
+import org.springframework.boot.ansi.AnsiColor;
+import org.springframework.boot.ansi.AnsiOutput;
+import org.springframework.lang.NonNull;
+import org.springframework.shell.style.FigureSettings;
+
+import java.io.IOException;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Predicate;
+
+/**
+ * Renders builds for the terminal. The colored labels and figures are computed once per ANSI
+ * capability and rows are appended straight to the output, so that rendering tens of thousands
+ * of builds creates few objects besides the values themselves.
+ */
+public final class BuildInfoRenderer {
+
+    private static final FigureSettings FIGURES = FigureSettings.defaults();
+    private static final String ESC = "\u001B[";
+    private static final String RESET = ESC + "0;39m";
+    private static final int COMMIT_WIDTH = 12;
+    private static final String UNDETERMINED = "Undetermined";
+    /**
+     * Dates are shown in the zone the build info files are written in, whatever the zone of the shell
+     */
+    private static final DateTimeFormatter TABLE_DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm z", Locale.US)
+            .withZone(BuildInfoToYamlTextConverter.BUILD_ZONE);
+    private static final BuildInfoRenderer ANSI = new BuildInfoRenderer(true);
+    private static final BuildInfoRenderer PLAIN = new BuildInfoRenderer(false);
+
+    private final boolean ansi;
+    private final String header;
+    private final String gitHashLabel;
+    private final String buildDateLabel;
+    private final String s3URILabel;
+    private final String liveText;
+    private final String liveMarker;
+    private final String tableHeaderStart;
+    private final String tableHeaderEnd;
+    private final String listingStart;
+    private final String listingEnd;
+
+    private BuildInfoRenderer(boolean ansi) {
+        this.ansi = ansi;
+        String bullet = FIGURES.rightPointingQuotation() + FIGURES.rightPointingQuotation();
+        header = color(AnsiColor.BRIGHT_BLUE, bullet + " Build-Version") + ": ";
+        gitHashLabel = label("Git-Hash", true);
+        buildDateLabel = label("Build-Date", false);
+        s3URILabel = label("S3-URI", true);
+        liveText = color(AnsiColor.BRIGHT_GREEN, color(AnsiColor.BRIGHT_GREEN, " %s [LIVE]".formatted(FIGURES.tick())));
+        liveMarker = color(AnsiColor.BRIGHT_GREEN, FIGURES.tick());
+        tableHeaderStart = ansi ? ESC + AnsiColor.BRIGHT_BLUE + "m" : "";
+        tableHeaderEnd = ansi ? RESET : "";
+        listingStart = ansi ? ESC + AnsiColor.BRIGHT_WHITE + "m" : "";
+        listingEnd = tableHeaderEnd;
+    }
+
+    /**
+     * @return BuildInfoRenderer The renderer for the current {@link AnsiOutput} setting
+     */
+    @NonNull
+    public static BuildInfoRenderer current() {
+        return isAnsiEnabled() ? ANSI : PLAIN;
+    }
+
+    private static boolean isAnsiEnabled() {
+        return !"x".equals(AnsiOutput.toString(AnsiColor.RED, "x"));
+    }
+
+    /**
+     * @return FigureSettings The figures shared by all renderers and decorators
+     */
+    @NonNull
+    public static FigureSettings figures() {
+        return FIGURES;
+    }
+
+    /**
+     * Same output as {@link AnsiOutput#toString(Object...)} for a single color, without its global state.
+     */
+    private String color(AnsiColor color, String text) {
+        return ansi ? ESC + color + "m" + text + RESET : text;
+    }
+
+    private String label(String label, boolean withBullet) {
+        String formattedLabel = color(AnsiColor.YELLOW, label);
+        if (withBullet) {
+            formattedLabel = FIGURES.righwardsArror() + " " + formattedLabel;
+        }
+        return "  %-23s: ".formatted(formattedLabel);
+    }
+
+    /**
+     * @return String The start of the bright white text that surrounds the listing; empty without ANSI
+     */
+    @NonNull
+    public String getListingStart() {
+        return listingStart;
+    }
+
+    /**
+     * @return String The end of the listing color; empty without ANSI
+     */
+    @NonNull
+    public String getListingEnd() {
+        return listingEnd;
+    }
+
+    /**
+     * Renders a build in the layout of {@link BuildInfoCLIOutputDecorator}, three lines per build.
+     * @param b    The build
+     * @param live Whether the CDN serves the build
+     * @param out  The output
+     * @throws IOException If the output cannot be written
+     */
+    public void render(@NonNull BuildInfoDetails b, boolean live, @NonNull Appendable out) throws IOException {
+        out.append(header).append(b.getVersion());
+        if (b.getBuildInfo().isManualBuild()) {
+            out.append(" (Local Build)");
+        }
+        if (live) {
+            out.append(liveText);
+        }
+        out.append('\n');
+        Date buildDate = b.getBuildDate();
+        out.append(gitHashLabel).append(b.getCommitHash()).append(' ')
+                .append(buildDateLabel).append(buildDate == null ? UNDETERMINED : buildDate.toString()).append('\n');
+        out.append(s3URILabel).append(String.valueOf(b.getS3URI())).append('\n');
+    }
+
+    /**
+     * Renders one line per build. Column widths are computed in a single pass over the builds first.
+     * @param builds The builds, in display order
+     * @param isLive Whether the CDN serves a build
+     * @param out    The output
+     * @throws IOException If the output cannot be written
+     */
+    public void renderTable(@NonNull List<BuildInfoDetails> builds, @NonNull Predicate<BuildInfoDetails> isLive,
+                            @NonNull Appendable out) throws IOException {
+        final String[] dates = new String[builds.size()];
+        int versionWidth = "VERSION".length();
+        int dateWidth = "BUILD-DATE".length();
+        for (int i = 0; i < dates.length; i++) {
+            BuildInfoDetails b = builds.get(i);
+            Date buildDate = b.getBuildDate();
+            dates[i] = buildDate == null ? UNDETERMINED
+                    : TABLE_DATE_FORMATTER.format(buildDate.toInstant());
+            versionWidth = Math.max(versionWidth, b.getVersion().length());
+            dateWidth = Math.max(dateWidth, dates[i].length());
+        }
+
+        out.append(tableHeaderStart).append("   ");
+        pad(out, "VERSION", versionWidth).append("  ");
+        pad(out, "BUILD-DATE", dateWidth).append("  ");
+        out.append("COMMIT").append(tableHeaderEnd).append('\n');
+        for (int i = 0; i < dates.length; i++) {
+            BuildInfoDetails b = builds.get(i);
+            out.append(' ').append(isLive.test(b) ? liveMarker : " ").append(' ');
+            pad(out, b.getVersion(), versionWidth).append("  ");
+            pad(out, dates[i], dateWidth).append("  ");
+            String commitHash = b.getCommitHash();
+            if (commitHash != null) {
+                out.append(commitHash, 0, Math.min(COMMIT_WIDTH, commitHash.length()));
+            }
+            if (b.getBuildInfo().isManualBuild()) {
+                out.append(" (Local Build)");
+            }
+            out.append('\n');
+        }
+    }
+
+    private static Appendable pad(Appendable out, String value, int width) throws IOException {
+        out.append(value);
+        for (int i = value.length(); i < width; i++) {
+            out.append(' ');
+        }
+        return out;
+    }
+
+}
@@ -0,0 +1,132 @@
+package com.kapresoft.devops.shell.decorator;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.kapresoft.devops.shell.opt.OutputFormat;
+
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Writes records of named fields as JSON, NDJSON or TSV, one record at a time, so that nothing
+ * is buffered beyond the current record. NDJSON and TSV are flushed after each record for
+ * consumers reading the output incrementally. The target writer is flushed but not closed.
+ */
+public class StructuredOutputWriter implements Closeable {
+
+    private final OutputFormat format;
+    private final Writer out;
+    private final List<String> columns;
+    @Nullable
+    private final JsonGenerator generator;
+
+    public StructuredOutputWriter(@NonNull OutputFormat format, @NonNull Writer out, @NonNull JsonFactory jsonFactory,
+                                  @NonNull List<String> columns) throws IOException {
+        if (!format.isStructured()) {
+            throw new IllegalArgumentException("Not a structured format: %s".formatted(format));
+        }
+        this.format = format;
+        this.out = out;
+        this.columns = columns;
+        if (format == OutputFormat.TSV) {
+            this.generator = null;
+            out.write(String.join("\t", columns));
+            out.write('\n');
+        } else {
+            this.generator = jsonFactory.createGenerator(out)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            this.generator.setRootValueSeparator(null);
+            if (format == OutputFormat.JSON) {
+                this.generator.writeStartArray();
+            }
+        }
+    }
+
+    /**
+     * @param values The values in column order; dates are written in ISO-8601, and collections as JSON arrays,
+     *               or comma separated in TSV
+     * @throws IOException If the output cannot be written
+     */
+    public void write(@NonNull Object... values) throws IOException {
+        if (values.length != columns.size()) {
+            throw new IllegalArgumentException("Expected %d values but got %d".formatted(columns.size(), values.length));
+        }
+        if (generator == null) {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    out.write('\t');
+                }
+                out.write(toTsvValue(values[i]));
+            }
+            out.write('\n');
+            out.flush();
+            return;
+        }
+        generator.writeStartObject();
+        for (int i = 0; i < values.length; i++) {
+            generator.writeFieldName(columns.get(i));
+            writeValue(values[i]);
+        }
+        generator.writeEndObject();
+        if (format == OutputFormat.NDJSON) {
+            generator.writeRaw('\n');
+            generator.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (generator != null) {
+            if (format == OutputFormat.JSON) {
+                generator.writeEndArray();
+                generator.writeRaw('\n');
+            }
+            generator.close();
+        }
+        out.flush();
+    }
+
+    private void writeValue(@Nullable Object value) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else if (value instanceof Boolean b) {
+            generator.writeBoolean(b);
+        } else if (value instanceof Integer || value instanceof Long) {
+            generator.writeNumber(((Number) value).longValue());
+        } else if (value instanceof Date d) {
+            generator.writeString(d.toInstant().toString());
+        } else if (value instanceof Collection<?> c) {
+            generator.writeStartArray();
+            for (Object item : c) {
+                writeValue(item);
+            }
+            generator.writeEndArray();
+        } else {
+            generator.writeString(value.toString());
+        }
+    }
+
+    private static String toTsvValue(@Nullable Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text;
+        if (value instanceof Date d) {
+            text = d.toInstant().toString();
+        } else if (value instanceof Collection<?> c) {
+            text = c.stream().map(StructuredOutputWriter::toTsvValue).collect(Collectors.joining(","));
+        } else {
+            text = value.toString();
+        }
+        return text.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ');
+    }
+
+}
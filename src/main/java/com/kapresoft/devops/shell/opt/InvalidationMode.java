@@ -0,0 +1,35 @@
+package com.kapresoft.devops.shell.opt;
+
+import jakarta.validation.ValidationException;
+
+import org.springframework.lang.NonNull;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * The CDN cache invalidation to submit after a release.
+ */
+public enum InvalidationMode {
+    /**
+     * Nothing is invalidated; a reminder is printed instead
+     */
+    NONE,
+    /**
+     * Invalidates '/*'
+     */
+    ALL,
+    /**
+     * Invalidates only the paths that differ between the outgoing and the released build
+     */
+    CHANGED;
+
+    @NonNull
+    public static InvalidationMode of(@NonNull String value) {
+        return Arrays.stream(values())
+                .filter(m -> m.name().equalsIgnoreCase(value.trim()))
+                .findFirst()
+                .orElseThrow(() -> new ValidationException("Invalid invalidate option: %s. Valid values are: %s"
+                        .formatted(value, Arrays.toString(values()).toLowerCase(Locale.ROOT))));
+    }
+}
@@ -0,0 +1,43 @@
+package com.kapresoft.devops.shell.opt;
+
+import jakarta.validation.ValidationException;
+
+import org.springframework.lang.NonNull;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * The output of the listing and lookup commands.
+ */
+public enum OutputFormat {
+    /**
+     * Human-readable, colored text
+     */
+    TEXT,
+    /**
+     * A single JSON array
+     */
+    JSON,
+    /**
+     * One JSON object per line, written as each record is produced
+     */
+    NDJSON,
+    /**
+     * Tab-separated values with a header line
+     */
+    TSV;
+
+    public boolean isStructured() {
+        return this != TEXT;
+    }
+
+    @NonNull
+    public static OutputFormat of(@NonNull String value) {
+        return Arrays.stream(values())
+                .filter(f -> f.name().equalsIgnoreCase(value.trim()))
+                .findFirst()
+                .orElseThrow(() -> new ValidationException("Invalid format option: %s. Valid values are: %s"
+                        .formatted(value, Arrays.toString(values()).toLowerCase(Locale.ROOT))));
+    }
+}
@@ -0,0 +1,29 @@
+package com.kapresoft.devops.shell.pojo;
+
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+import java.time.Duration;
+
+/**
+ * The answer of one bucket to a query sent to all buckets.
+ * @param bucket  The bucket
+ * @param status  Whether the bucket answered in time
+ * @param error   The failure or timeout message
+ * @param elapsed How long the bucket took to answer, or the timeout
+ * @param value   The answer; null unless the status is OK
+ * @param <T>     The answer type
+ */
+public record BucketQueryResult<T>(@NonNull ReplicaBucket bucket, @NonNull Status status, @Nullable String error,
+                                   @NonNull Duration elapsed, @Nullable T value) {
+
+    public enum Status {
+        OK,
+        TIMEOUT,
+        FAILED
+    }
+
+    public boolean isOk() {
+        return status == Status.OK;
+    }
+}
@@ -0,0 +1,359 @@
+package com.kapresoft.devops.shell.pojo;
+
+import com.kapresoft.devops.shell.config.KapresoftProjectProperties;
+
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.net.URI;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Holds builds in columns of primitives rather than one {@link BuildInfoDetails} each: versions as two longs,
+ * dates as epoch millis, commit hashes as 20 bytes, and the project, ID prefix and deploy key as indexes into
+ * shared tables. Key paths and URIs are derived from the version and project when a build is read, which is
+ * what {@link #get(int)} does. This keeps a build to around 150 bytes, so the index can hold a million builds.
+ * <p>
+ * A build whose values cannot be derived this way, i.e. a manual build with a non-UUID version, is kept
+ * as is; there are few of those.
+ * <p>
+ * Not thread-safe while builds are added; publish it once filled.
+ */
+public final class BuildCatalog {
+
+    private static final long NONE = Long.MIN_VALUE;
+    private static final int NO_STRING = -1;
+    private static final String SITE_PREFIX = "site/";
+    private static final Pattern COMMIT_HASH = Pattern.compile("[0-9a-f]{40}");
+    private static final Pattern BUILD_NUMBER = Pattern.compile("0|[1-9][0-9]{0,17}");
+    private static final int INITIAL_CAPACITY = 64;
+    private static final byte HAS_COMMIT = 1;
+    /**
+     * Bytes per row of the columns: 7 longs, 3 ints, a short, a byte and the reference to the date string
+     */
+    private static final int ROW_BYTES = 7 * Long.BYTES + 3 * Integer.BYTES + Short.BYTES + 1 + 4;
+    /**
+     * A String header and its byte array header, with compressed oops
+     */
+    private static final int STRING_OVERHEAD = 24 + 16;
+    /**
+     * A rough size of a build kept as is, with its URIs, dates and strings
+     */
+    private static final int IRREGULAR_BYTES = 2048;
+
+    private final List<KapresoftProjectProperties> projects = new ArrayList<>();
+    private final List<URI> buildInfoFileURIs = new ArrayList<>();
+    private final StringTable strings = new StringTable();
+    private final Map<Integer, BuildInfoDetails> irregular = new HashMap<>();
+
+    private int size;
+    private long[] versionMsb = new long[INITIAL_CAPACITY];
+    private long[] versionLsb = new long[INITIAL_CAPACITY];
+    private long[] lastModified = new long[INITIAL_CAPACITY];
+    private long[] buildDate = new long[INITIAL_CAPACITY];
+    private long[] commitHi = new long[INITIAL_CAPACITY];
+    private long[] commitMid = new long[INITIAL_CAPACITY];
+    private int[] commitLo = new int[INITIAL_CAPACITY];
+    /**
+     * The build number if numeric, otherwise {@code -1 - string index}
+     */
+    private long[] buildNumber = new long[INITIAL_CAPACITY];
+    private short[] project = new short[INITIAL_CAPACITY];
+    private byte[] flags = new byte[INITIAL_CAPACITY];
+    private int[] idPrefix = new int[INITIAL_CAPACITY];
+    private int[] deployKey = new int[INITIAL_CAPACITY];
+    private String[] date = new String[INITIAL_CAPACITY];
+    private long bytesOfDates;
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param build The build
+     * @return int The row of the build
+     */
+    public int add(@NonNull BuildInfoDetails build) {
+        ensureCapacity();
+        int row = size++;
+        if (!encode(row, build)) {
+            irregular.put(row, build);
+            lastModified[row] = toMillis(build.getLastModified());
+        }
+        return row;
+    }
+
+    /**
+     * Copies a build from another catalog without materializing it.
+     * @param from The catalog
+     * @param row  The row of the build in {@code from}
+     * @return int The row of the build in this catalog
+     */
+    public int add(@NonNull BuildCatalog from, int row) {
+        BuildInfoDetails irregularBuild = from.irregular.get(row);
+        if (irregularBuild != null) {
+            return add(irregularBuild);
+        }
+        ensureCapacity();
+        int to = size++;
+        versionMsb[to] = from.versionMsb[row];
+        versionLsb[to] = from.versionLsb[row];
+        lastModified[to] = from.lastModified[row];
+        buildDate[to] = from.buildDate[row];
+        commitHi[to] = from.commitHi[row];
+        commitMid[to] = from.commitMid[row];
+        commitLo[to] = from.commitLo[row];
+        flags[to] = from.flags[row];
+        long number = from.buildNumber[row];
+        buildNumber[to] = number < 0 && number != NONE ? -1 - strings.indexOf(from.strings.get((int) (-1 - number))) : number;
+        project[to] = (short) projectIndex(from.projects.get(from.project[row]));
+        idPrefix[to] = strings.indexOf(from.strings.get(from.idPrefix[row]));
+        deployKey[to] = strings.indexOf(from.strings.get(from.deployKey[row]));
+        setDate(to, from.date[row]);
+        return to;
+    }
+
+    /**
+     * @param row The row
+     * @return BuildInfoDetails The build, created on each call
+     */
+    @NonNull
+    public BuildInfoDetails get(int row) {
+        Objects.checkIndex(row, size);
+        BuildInfoDetails irregularBuild = irregular.get(row);
+        if (irregularBuild != null) {
+            return irregularBuild;
+        }
+        String version = getVersion(row);
+        KapresoftProjectProperties projectConfig = projects.get(project[row]);
+        String keyPath = keyPath(version, projectConfig);
+        long number = buildNumber[row];
+        BuildInfo buildInfo = BuildInfo.builder()
+                .id(strings.get(idPrefix[row]) + ":" + version)
+                .date(date[row])
+                .buildDate(toDate(buildDate[row]))
+                .lastModified(toDate(lastModified[row]))
+                .commitHash((flags[row] & HAS_COMMIT) == 0 ? null
+                        : "%016x%016x%08x".formatted(commitHi[row], commitMid[row], commitLo[row]))
+                .buildNumber(number == NONE ? null : number < 0 ? strings.get((int) (-1 - number)) : Long.toString(number))
+                .deployKey(strings.get(deployKey[row]))
+                .build();
+        return BuildInfoDetails.builder()
+                .projectConfig(projectConfig)
+                .buildInfo(buildInfo)
+                .version(version)
+                .keyPath(keyPath)
+                .cdnPath("/" + keyPath)
+                .s3URI(s3URI(projectConfig, keyPath))
+                .buildInfoFileURI(buildInfoFileURIs.get(project[row]))
+                .build();
+    }
+
+    @NonNull
+    public String getVersion(int row) {
+        Objects.checkIndex(row, size);
+        BuildInfoDetails irregularBuild = irregular.get(row);
+        return irregularBuild != null ? irregularBuild.getVersion() : new UUID(versionMsb[row], versionLsb[row]).toString();
+    }
+
+    /**
+     * @param row The row
+     * @return String The key path, i.e. site/{build-version}/{project-name}
+     */
+    @NonNull
+    public String getKeyPath(int row) {
+        Objects.checkIndex(row, size);
+        BuildInfoDetails irregularBuild = irregular.get(row);
+        return irregularBuild != null ? irregularBuild.getKeyPath() : keyPath(getVersion(row), projects.get(project[row]));
+    }
+
+    /**
+     * @param row The row
+     * @return long The last modified time in epoch millis; {@link Long#MIN_VALUE} if unknown
+     */
+    public long getLastModified(int row) {
+        Objects.checkIndex(row, size);
+        return lastModified[row];
+    }
+
+    /**
+     * @return List<BuildInfoDetails> A read-only view of the builds, each created when read
+     */
+    @NonNull
+    public List<BuildInfoDetails> asList() {
+        return new BuildList();
+    }
+
+    /**
+     * @return long An estimate of the memory held, in bytes, assuming compressed object pointers
+     */
+    public long estimatedBytes() {
+        return (long) versionMsb.length * ROW_BYTES + bytesOfDates + strings.estimatedBytes()
+                + (long) irregular.size() * IRREGULAR_BYTES;
+    }
+
+    private boolean encode(int row, BuildInfoDetails build) {
+        BuildInfo info = build.getBuildInfo();
+        String version = build.getVersion();
+        KapresoftProjectProperties projectConfig = build.getProjectConfig();
+        UUID uuid;
+        try {
+            uuid = UUID.fromString(version);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        String keyPath = keyPath(version, projectConfig);
+        String id = info.getId();
+        String commitHash = info.getCommitHash();
+        String number = info.getBuildNumber();
+        if (info.isManualBuild()
+                || !uuid.toString().equals(version)
+                || !keyPath.equals(build.getKeyPath())
+                || !("/" + keyPath).equals(build.getCdnPath())
+                || id == null || !id.endsWith(":" + version)
+                || (commitHash != null && !COMMIT_HASH.matcher(commitHash).matches())
+                || !s3URI(projectConfig, keyPath).equals(build.getS3URI())) {
+            return false;
+        }
+        int projectIndex = projectIndex(projectConfig);
+        if (!buildInfoFileURIs.get(projectIndex).equals(build.getBuildInfoFileURI())) {
+            return false;
+        }
+        versionMsb[row] = uuid.getMostSignificantBits();
+        versionLsb[row] = uuid.getLeastSignificantBits();
+        lastModified[row] = toMillis(info.getLastModified());
+        buildDate[row] = toMillis(info.getBuildDate());
+        if (commitHash != null) {
+            flags[row] |= HAS_COMMIT;
+            commitHi[row] = Long.parseUnsignedLong(commitHash.substring(0, 16), 16);
+            commitMid[row] = Long.parseUnsignedLong(commitHash.substring(16, 32), 16);
+            commitLo[row] = Integer.parseUnsignedInt(commitHash.substring(32), 16);
+        }
+        if (number == null) {
+            buildNumber[row] = NONE;
+        } else if (BUILD_NUMBER.matcher(number).matches()) {
+            buildNumber[row] = Long.parseLong(number);
+        } else {
+            buildNumber[row] = -1 - strings.indexOf(number);
+        }
+        project[row] = (short) projectIndex;
+        idPrefix[row] = strings.indexOf(id.substring(0, id.length() - version.length() - 1));
+        deployKey[row] = strings.indexOf(info.getDeployKey());
+        setDate(row, info.getDate());
+        return true;
+    }
+
+    private int projectIndex(KapresoftProjectProperties projectConfig) {
+        int index = projects.indexOf(projectConfig);
+        if (index < 0) {
+            if (projects.size() == Short.MAX_VALUE) {
+                throw new IllegalStateException("Too many projects in the catalog");
+            }
+            projects.add(projectConfig);
+            buildInfoFileURIs.add(UriComponentsBuilder.fromUri(projectConfig.getCdnURI())
+                    .path(projectConfig.getBuildInfoFile()).build()
+                    .toUri());
+            index = projects.size() - 1;
+        }
+        return index;
+    }
+
+    private void setDate(int row, @Nullable String value) {
+        date[row] = value;
+        if (value != null) {
+            bytesOfDates += STRING_OVERHEAD + value.length();
+        }
+    }
+
+    private void ensureCapacity() {
+        if (size < versionMsb.length) {
+            return;
+        }
+        int capacity = versionMsb.length + (versionMsb.length >> 1);
+        versionMsb = Arrays.copyOf(versionMsb, capacity);
+        versionLsb = Arrays.copyOf(versionLsb, capacity);
+        lastModified = Arrays.copyOf(lastModified, capacity);
+        buildDate = Arrays.copyOf(buildDate, capacity);
+        commitHi = Arrays.copyOf(commitHi, capacity);
+        commitMid = Arrays.copyOf(commitMid, capacity);
+        commitLo = Arrays.copyOf(commitLo, capacity);
+        buildNumber = Arrays.copyOf(buildNumber, capacity);
+        project = Arrays.copyOf(project, capacity);
+        flags = Arrays.copyOf(flags, capacity);
+        idPrefix = Arrays.copyOf(idPrefix, capacity);
+        deployKey = Arrays.copyOf(deployKey, capacity);
+        date = Arrays.copyOf(date, capacity);
+    }
+
+    private static String keyPath(String version, KapresoftProjectProperties projectConfig) {
+        return SITE_PREFIX + version + "/" + projectConfig.getName();
+    }
+
+    private static URI s3URI(KapresoftProjectProperties projectConfig, String keyPath) {
+        return URI.create("s3://%s/%s".formatted(projectConfig.getS3Bucket().name(), keyPath));
+    }
+
+    private static long toMillis(@Nullable Date date) {
+        return date == null ? NONE : date.getTime();
+    }
+
+    @Nullable
+    private static Date toDate(long millis) {
+        return millis == NONE ? null : new Date(millis);
+    }
+
+    private class BuildList extends AbstractList<BuildInfoDetails> implements RandomAccess {
+
+        @Override
+        public BuildInfoDetails get(int index) {
+            return BuildCatalog.this.get(index);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    /**
+     * Strings shared by many builds, such as the ID prefix and the deploy key, stored once.
+     */
+    private static class StringTable {
+
+        private final List<String> values = new ArrayList<>();
+        private final Map<String, Integer> indexes = new HashMap<>();
+        private long bytes;
+
+        int indexOf(@Nullable String value) {
+            if (value == null) {
+                return NO_STRING;
+            }
+            return indexes.computeIfAbsent(value, v -> {
+                values.add(v);
+                // the string, plus a hash map entry and its boxed index
+                bytes += STRING_OVERHEAD + v.length() + 32 + 16;
+                return values.size() - 1;
+            });
+        }
+
+        @Nullable
+        String get(int index) {
+            return index == NO_STRING ? null : values.get(index);
+        }
+
+        long estimatedBytes() {
+            return bytes;
+        }
+    }
+}
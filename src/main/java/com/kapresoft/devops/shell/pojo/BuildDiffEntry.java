@@ -0,0 +1,31 @@
+package com.kapresoft.devops.shell.pojo;
+
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+/**
+ * A single key compared between two build listings.
+ *
+ * @param change      The kind of change
+ * @param relativeKey The key relative to the build prefix, i.e. {@code docs/index.html}
+ * @param from        The object in the first build; {@code null} when {@link Change#ADDED}
+ * @param to          The object in the second build; {@code null} when {@link Change#REMOVED}
+ */
+public record BuildDiffEntry(@NonNull Change change,
+                             @NonNull String relativeKey,
+                             @Nullable S3ObjectSummary from,
+                             @Nullable S3ObjectSummary to) {
+
+    public enum Change {ADDED, REMOVED, CHANGED, UNCHANGED}
+
+    public long fromSize() {
+        return from == null ? 0 : from.getSize();
+    }
+
+    public long toSize() {
+        return to == null ? 0 : to.getSize();
+    }
+
+}
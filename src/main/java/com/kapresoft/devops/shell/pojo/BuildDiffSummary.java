@@ -0,0 +1,60 @@
+package com.kapresoft.devops.shell.pojo;
+
+import lombok.Getter;
+
+import org.springframework.lang.NonNull;
+
+/**
+ * Running totals of a build comparison. Only counters are kept so that the summary stays
+ * constant in size regardless of the number of objects compared.
+ */
+@Getter
+public class BuildDiffSummary {
+
+    private final String fromPrefix;
+    private final String toPrefix;
+
+    private long added;
+    private long removed;
+    private long changed;
+    private long unchanged;
+
+    private long addedBytes;
+    private long removedBytes;
+    /**
+     * The size of the changed objects in the second build
+     */
+    private long changedBytes;
+    private long fromTotalBytes;
+    private long toTotalBytes;
+
+    public BuildDiffSummary(@NonNull String fromPrefix, @NonNull String toPrefix) {
+        this.fromPrefix = fromPrefix;
+        this.toPrefix = toPrefix;
+    }
+
+    public void add(@NonNull BuildDiffEntry entry) {
+        fromTotalBytes += entry.fromSize();
+        toTotalBytes += entry.toSize();
+        switch (entry.change()) {
+            case ADDED -> {
+                added++;
+                addedBytes += entry.toSize();
+            }
+            case REMOVED -> {
+                removed++;
+                removedBytes += entry.fromSize();
+            }
+            case CHANGED -> {
+                changed++;
+                changedBytes += entry.toSize();
+            }
+            case UNCHANGED -> unchanged++;
+        }
+    }
+
+    public boolean hasChanges() {
+        return added + removed + changed > 0;
+    }
+
+}
@@ -0,0 +1,43 @@
+package com.kapresoft.devops.shell.pojo;
+
+import org.springframework.lang.NonNull;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The builds and the live origin paths as of a refresh.
+ * @param catalog     The builds of all projects, oldest first
+ * @param liveS3Keys  The origin path of each project distribution by project key, i.e. site/{build-version}/{project-name};
+ *                    empty if unset
+ * @param refreshedAt When the refresh completed
+ * @param duration    How long the refresh took
+ * @param fetched     The number of build info files fetched; the others were unchanged since the previous refresh
+ */
+public record BuildIndexSnapshot(BuildCatalog catalog, Map<String, String> liveS3Keys, Instant refreshedAt,
+                                 Duration duration, int fetched) {
+
+    /**
+     * @return List<BuildInfoDetails> The builds, oldest first; each is created when read
+     */
+    @NonNull
+    public List<BuildInfoDetails> builds() {
+        return catalog.asList();
+    }
+
+    @NonNull
+    public Duration getAge() {
+        return Duration.between(refreshedAt, Instant.now());
+    }
+
+    /**
+     * @param projectId The project key
+     * @return String The origin path of the project distribution; empty if unset
+     */
+    @NonNull
+    public String getLiveS3Key(@NonNull String projectId) {
+        return liveS3Keys.getOrDefault(projectId, "");
+    }
+}
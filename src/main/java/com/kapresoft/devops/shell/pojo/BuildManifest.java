@@ -0,0 +1,84 @@
+package com.kapresoft.devops.shell.pojo;
+
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The expected files of a build, shipped next to its build info file.
+ * <p>
+ * One file per line, in the form {@code <md5> <size> <relative-path>}, i.e.
+ * <pre>{@code
+ * # Kapresoft-Articles:2e641ee8-9226-45d4-ab8c-7850e731d675
+ * 9e107d9d372bb6826bd81d3542a419d6 5120 index.html
+ * - 1048576 img/cover.png
+ * }</pre>
+ * The MD5 is '-' when unknown. Blank lines and lines starting with '#' are ignored.
+ */
+public final class BuildManifest {
+
+    public static final String UNKNOWN_MD5 = "-";
+
+    private BuildManifest() {
+    }
+
+    /**
+     * @param md5          The hex MD5 of the content, or {@code null} if unknown
+     * @param size         The content length
+     * @param relativePath The key relative to the build prefix
+     */
+    public record Entry(@Nullable String md5, long size, @NonNull String relativePath) {
+
+        @NonNull
+        public String toLine() {
+            return "%s %d %s".formatted(md5 == null ? UNKNOWN_MD5 : md5, size, relativePath);
+        }
+    }
+
+    /**
+     * @param header  The comment line, i.e. "Kapresoft-Articles:2e641ee8-9226-45d4-ab8c-7850e731d675"
+     * @param entries The entries, in the order to write them
+     * @return String The manifest content
+     */
+    @NonNull
+    public static String format(@NonNull String header, @NonNull Collection<Entry> entries) {
+        final StringBuilder b = new StringBuilder("# ").append(header).append('\n');
+        entries.forEach(e -> b.append(e.toLine()).append('\n'));
+        return b.toString();
+    }
+
+    /**
+     * @param reader The manifest content
+     * @return Map<String, Entry> The entries by relative path
+     * @throws IOException If reading fails or a line is malformed
+     */
+    @NonNull
+    public static Map<String, Entry> parse(@NonNull BufferedReader reader) throws IOException {
+        final Map<String, Entry> entries = new HashMap<>();
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank() || line.startsWith("#")) {
+                continue;
+            }
+            String[] parts = line.split(" ", 3);
+            if (parts.length != 3) {
+                throw new IOException("Malformed manifest line %d: %s".formatted(lineNumber, line));
+            }
+            try {
+                String md5 = UNKNOWN_MD5.equals(parts[0]) ? null : parts[0];
+                entries.put(parts[2], new Entry(md5, Long.parseLong(parts[1]), parts[2]));
+            } catch (NumberFormatException e) {
+                throw new IOException("Malformed manifest size on line %d: %s".formatted(lineNumber, line), e);
+            }
+        }
+        return entries;
+    }
+
+}
@@ -0,0 +1,48 @@
+package com.kapresoft.devops.shell.pojo;
+
+import lombok.Builder;
+import lombok.Value;
+
+import com.kapresoft.devops.shell.config.KapresoftProjectProperties;
+
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+@Value
+public class DeployOptions {
+
+    public static final long MIN_PART_SIZE = 5L * 1024 * 1024;
+
+    /**
+     * The project the build is uploaded as; the configured project if null
+     */
+    @Nullable
+    KapresoftProjectProperties project;
+    String version;
+    String commitHash;
+    /**
+     * The maximum number of files uploaded at once
+     */
+    int concurrency;
+    /**
+     * The multipart upload part size; larger files are uploaded in parts
+     */
+    long partSize;
+    /**
+     * Pre-compress text assets with gzip
+     */
+    boolean gzip;
+    boolean dryRun;
+
+    @Builder
+    public DeployOptions(@Nullable KapresoftProjectProperties project, @NonNull String version, @NonNull String commitHash,
+                         int concurrency, long partSize, boolean gzip, boolean dryRun) {
+        this.project = project;
+        this.version = version;
+        this.commitHash = commitHash;
+        this.concurrency = Math.max(concurrency, 1);
+        this.partSize = Math.max(partSize, MIN_PART_SIZE);
+        this.gzip = gzip;
+        this.dryRun = dryRun;
+    }
+}
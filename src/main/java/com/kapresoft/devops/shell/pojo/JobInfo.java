@@ -0,0 +1,61 @@
+package com.kapresoft.devops.shell.pojo;
+
+import lombok.Builder;
+import lombok.Value;
+
+import org.springframework.lang.Nullable;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * The state of a background job at one point in time.
+ */
+@Value
+@Builder
+public class JobInfo {
+
+    public enum State {
+        QUEUED, RUNNING, DONE, FAILED, CANCELLED;
+
+        public boolean isFinished() {
+            return this != QUEUED && this != RUNNING;
+        }
+    }
+
+    int id;
+    String commandLine;
+    State state;
+    Instant submittedAt;
+    @Nullable
+    Instant startedAt;
+    @Nullable
+    Instant finishedAt;
+    /**
+     * The lines of output written so far
+     */
+    long outputLines;
+    /**
+     * The last line of output written so far; empty if none
+     */
+    String lastLine;
+
+    /**
+     * @param now The current time
+     * @return Duration How long the job has been running, or ran
+     */
+    public Duration getElapsed(Instant now) {
+        if (startedAt == null) {
+            return Duration.ZERO;
+        }
+        return Duration.between(startedAt, finishedAt != null ? finishedAt : now);
+    }
+
+    /**
+     * @param now The current time
+     * @return String i.e. [1] DONE after 42s: ls --fresh
+     */
+    public String describe(Instant now) {
+        return "[%d] %s after %ss: %s".formatted(id, state, getElapsed(now).toSeconds(), commandLine);
+    }
+}
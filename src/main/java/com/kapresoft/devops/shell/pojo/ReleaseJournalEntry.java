@@ -0,0 +1,20 @@
+package com.kapresoft.devops.shell.pojo;
+
+import lombok.Builder;
+
+/**
+ * A change of a distribution origin path, as one line of the release journal.
+ * @param timestamp          When the change was made, in ISO-8601
+ * @param user               The OS user who made it
+ * @param command            The command that made it: release, update-path or rollback
+ * @param distributionId     The CloudFront distribution ID
+ * @param oldOriginPath      The origin path before the change, i.e. /site/{build-version}/{project-name}
+ * @param newOriginPath      The origin path after the change
+ * @param eTag               The ETag of the distribution config after the change
+ * @param distributionConfig The distribution config after the change, as JSON; lets a rollback update the
+ *                           distribution without reading its config first
+ */
+@Builder
+public record ReleaseJournalEntry(String timestamp, String user, String command, String distributionId,
+                                  String oldOriginPath, String newOriginPath, String eTag, String distributionConfig) {
+}
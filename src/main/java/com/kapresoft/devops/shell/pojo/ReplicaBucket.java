@@ -0,0 +1,17 @@
+package com.kapresoft.devops.shell.pojo;
+
+import java.time.Duration;
+
+/**
+ * @param bucket  The bucket
+ * @param region  The bucket region
+ * @param timeout The time allowed to the bucket to answer a query
+ * @param primary True for the bucket the builds are deployed to
+ */
+public record ReplicaBucket(S3Bucket bucket, String region, Duration timeout, boolean primary) {
+
+    @Override
+    public String toString() {
+        return "%s (%s%s)".formatted(bucket.uri(), region, primary ? ", primary" : "");
+    }
+}
@@ -0,0 +1,42 @@
+package com.kapresoft.devops.shell.pojo;
+
+import com.kapresoft.devops.shell.config.S3BucketProperties;
+
+import org.springframework.lang.NonNull;
+
+/**
+ * A bucket and a key prefix within it, i.e. s3://kapresoft/site/{version}/
+ * @param bucket The bucket
+ * @param prefix The key prefix; empty or ends with '/'
+ */
+public record S3Location(S3Bucket bucket, String prefix) {
+
+    private static final String S3_SCHEME = "s3://";
+
+    /**
+     * The bucket part is created with {@link S3BucketProperties#createBucket(String)} so that it can
+     * be validated the same way as the configured bucket.
+     * @param uri i.e. s3://kapresoft/site/ or s3://kapresoft
+     * @return S3Location The location; the bucket is null if the URI is empty
+     */
+    @NonNull
+    public static S3Location parse(@NonNull String uri) {
+        String location = uri.trim();
+        String bucketUri = location;
+        String prefix = "";
+        int slash = location.startsWith(S3_SCHEME) ? location.indexOf('/', S3_SCHEME.length()) : -1;
+        if (slash > 0) {
+            bucketUri = location.substring(0, slash);
+            prefix = location.substring(slash + 1);
+        }
+        if (!prefix.isEmpty() && !prefix.endsWith("/")) {
+            prefix = prefix + "/";
+        }
+        return new S3Location(S3BucketProperties.createBucket(bucketUri).orElse(null), prefix);
+    }
+
+    @Override
+    public String toString() {
+        return "s3://%s/%s".formatted(bucket == null ? "" : bucket.name(), prefix);
+    }
+}
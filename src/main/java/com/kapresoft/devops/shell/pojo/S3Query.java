@@ -0,0 +1,132 @@
+package com.kapresoft.devops.shell.pojo;
+
+import lombok.Builder;
+import lombok.Value;
+
+import com.amazonaws.services.s3.model.ListObjectsV2Request;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.kapresoft.devops.shell.util.aws.S3KeyComparator;
+
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+import java.time.Instant;
+import java.util.function.Predicate;
+
+/**
+ * A query over the keys of a bucket. The repository lists only what the query can match: the exact key is
+ * read with a single HEAD request, and otherwise the listing starts at the longest known prefix, after
+ * {@code startAfter}, and stops paging once {@code limit} objects are found. The suffix, the LastModified
+ * bounds and the filter cannot be sent to S3 and are applied to each listed object.
+ */
+@Value
+public class S3Query {
+
+    private static final int MAX_KEYS = 1000;
+
+    /**
+     * The key prefix, i.e. site/{build-version}/
+     */
+    String prefix;
+    /**
+     * The key suffix, i.e. /build.yml
+     */
+    String suffix;
+    /**
+     * The exact key; takes the place of the prefix
+     */
+    String key;
+    /**
+     * List the keys after this one only, in the order S3 lists them; see {@link S3KeyComparator}
+     */
+    String startAfter;
+    /**
+     * Objects modified at or after this instant only
+     */
+    Instant modifiedFrom;
+    /**
+     * Objects modified before this instant only
+     */
+    Instant modifiedBefore;
+    /**
+     * Any other condition on the objects
+     */
+    Predicate<S3ObjectSummary> filter;
+    /**
+     * Stop after this many objects; zero for no limit
+     */
+    int limit;
+
+    @Builder
+    public S3Query(@Nullable String prefix, @Nullable String suffix, @Nullable String key, @Nullable String startAfter,
+                   @Nullable Instant modifiedFrom, @Nullable Instant modifiedBefore,
+                   @Nullable Predicate<S3ObjectSummary> filter, int limit) {
+        this.prefix = prefix == null ? "" : prefix;
+        this.suffix = suffix;
+        this.key = key;
+        this.startAfter = startAfter;
+        this.modifiedFrom = modifiedFrom;
+        this.modifiedBefore = modifiedBefore;
+        this.filter = filter;
+        this.limit = Math.max(limit, 0);
+    }
+
+    /**
+     * @return boolean True if the query is answered by a HEAD request on {@link #getKey()}
+     */
+    public boolean isExactKey() {
+        return key != null;
+    }
+
+    /**
+     * @param bucket The bucket name
+     * @return ListObjectsV2Request The narrowest listing that holds every match
+     */
+    @NonNull
+    public ListObjectsV2Request toRequest(@NonNull String bucket) {
+        ListObjectsV2Request request = new ListObjectsV2Request().withBucketName(bucket).withPrefix(prefix);
+        // Keys before the prefix are not listed anyway
+        if (startAfter != null && S3KeyComparator.INSTANCE.compare(startAfter, prefix) > 0) {
+            request.withStartAfter(startAfter);
+        }
+        // Without client-side conditions, every listed object is a match
+        if (limit > 0 && !hasClientSideConditions()) {
+            request.withMaxKeys(Math.min(limit, MAX_KEYS));
+        }
+        return request;
+    }
+
+    /**
+     * @param s3o A listed object
+     * @return boolean True if the object satisfies all conditions of the query
+     */
+    public boolean matches(@NonNull S3ObjectSummary s3o) {
+        String k = s3o.getKey();
+        if (key != null ? !key.equals(k) : !k.startsWith(prefix)) {
+            return false;
+        }
+        if (suffix != null && !k.endsWith(suffix)) {
+            return false;
+        }
+        if (startAfter != null && S3KeyComparator.INSTANCE.compare(k, startAfter) <= 0) {
+            return false;
+        }
+        if (modifiedFrom != null || modifiedBefore != null) {
+            if (s3o.getLastModified() == null) {
+                return false;
+            }
+            Instant modified = s3o.getLastModified().toInstant();
+            if (modifiedFrom != null && modified.isBefore(modifiedFrom)) {
+                return false;
+            }
+            if (modifiedBefore != null && !modified.isBefore(modifiedBefore)) {
+                return false;
+            }
+        }
+        return filter == null || filter.test(s3o);
+    }
+
+    private boolean hasClientSideConditions() {
+        return suffix != null || modifiedFrom != null || modifiedBefore != null || filter != null;
+    }
+}
@@ -0,0 +1,89 @@
+package com.kapresoft.devops.shell.pojo;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import org.springframework.lang.NonNull;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The outcome of copying a build between S3 locations. Updated concurrently by the transfer tasks.
+ */
+@Getter
+public class TransferReport {
+
+    /**
+     * Only this many failures are kept for display; all of them are counted
+     */
+    public static final int MAX_FAILURES = 100;
+
+    private final String source;
+    private final String target;
+    private final boolean dryRun;
+    private final List<String> failureMessages = new ArrayList<>();
+
+    /**
+     * Whether the transfer was interrupted before all objects were processed
+     */
+    @Setter
+    private boolean aborted;
+    @Setter
+    private Duration elapsed = Duration.ZERO;
+    private long transferred;
+    private long transferredBytes;
+    /**
+     * Objects already present at the target with the same content
+     */
+    private long skipped;
+    private long skippedBytes;
+    private long failed;
+    /**
+     * Bytes saved by compressing the transferred objects
+     */
+    private long savedBytes;
+
+    public TransferReport(@NonNull String source, @NonNull String target, boolean dryRun) {
+        this.source = source;
+        this.target = target;
+        this.dryRun = dryRun;
+    }
+
+    public synchronized void addTransferred(long bytes) {
+        transferred++;
+        transferredBytes += bytes;
+    }
+
+    public synchronized void addSkipped(long bytes) {
+        skipped++;
+        skippedBytes += bytes;
+    }
+
+    public synchronized void addSaved(long bytes) {
+        savedBytes += bytes;
+    }
+
+    public synchronized void addFailure(@NonNull String relativeKey, String message) {
+        failed++;
+        if (failureMessages.size() < MAX_FAILURES) {
+            failureMessages.add("%s: %s".formatted(relativeKey, message));
+        }
+    }
+
+    public synchronized List<String> getFailureMessages() {
+        return Collections.unmodifiableList(new ArrayList<>(failureMessages));
+    }
+
+    public synchronized boolean isSuccessful() {
+        return !aborted && failed == 0;
+    }
+
+    @NonNull
+    public synchronized String toProgress() {
+        return "%d transferred, %d skipped, %d failed".formatted(transferred, skipped, failed);
+    }
+
+}
@@ -0,0 +1,35 @@
+package com.kapresoft.devops.shell.pojo;
+
+import org.springframework.lang.NonNull;
+
+/**
+ * @param type        The kind of problem
+ * @param relativeKey The key relative to the build prefix, i.e. {@code docs/index.html}
+ * @param detail      The expected and actual values
+ */
+public record VerificationIssue(@NonNull Type type, @NonNull String relativeKey, @NonNull String detail) {
+
+    public enum Type {
+        /**
+         * Listed in the manifest but not uploaded
+         */
+        MISSING,
+        /**
+         * Smaller than listed in the manifest
+         */
+        TRUNCATED,
+        /**
+         * The size or MD5 differs from the manifest
+         */
+        MISMATCHED,
+        /**
+         * Uploaded but not listed in the manifest; reported, but not a failure
+         */
+        UNEXPECTED
+    }
+
+    public boolean isFailure() {
+        return type != Type.UNEXPECTED;
+    }
+
+}
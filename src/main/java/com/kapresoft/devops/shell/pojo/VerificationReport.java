@@ -0,0 +1,91 @@
+package com.kapresoft.devops.shell.pojo;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import org.springframework.lang.NonNull;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The outcome of verifying a build against its manifest. Updated concurrently by the verification tasks.
+ */
+@Getter
+public class VerificationReport {
+
+    /**
+     * Only this many issues are kept for display; all of them are counted
+     */
+    public static final int MAX_ISSUES = 1000;
+
+    private final String keyPath;
+    private final Map<VerificationIssue.Type, Long> counts = new EnumMap<>(VerificationIssue.Type.class);
+    private final List<VerificationIssue> issues = new ArrayList<>();
+
+    @Setter
+    private boolean manifestFound;
+    /**
+     * Whether the verification stopped at the first failure
+     */
+    @Setter
+    private boolean aborted;
+    @Setter
+    private Duration elapsed = Duration.ZERO;
+    private long checked;
+    private long checkedBytes;
+    /**
+     * Bytes downloaded to compute the MD5 of multipart objects
+     */
+    private long downloadedBytes;
+    /**
+     * Objects whose download was cancelled by {@code failFast}; neither checked nor failed
+     */
+    private long skipped;
+
+    public VerificationReport(@NonNull String keyPath) {
+        this.keyPath = keyPath;
+    }
+
+    public synchronized void addChecked(long bytes) {
+        checked++;
+        checkedBytes += bytes;
+    }
+
+    public synchronized void addDownloaded(long bytes) {
+        downloadedBytes += bytes;
+    }
+
+    public synchronized void addSkipped() {
+        skipped++;
+    }
+
+    public synchronized void addIssue(@NonNull VerificationIssue issue) {
+        counts.merge(issue.type(), 1L, Long::sum);
+        if (issues.size() < MAX_ISSUES) {
+            issues.add(issue);
+        }
+    }
+
+    public synchronized long count(@NonNull VerificationIssue.Type type) {
+        return counts.getOrDefault(type, 0L);
+    }
+
+    public synchronized List<VerificationIssue> getIssues() {
+        return Collections.unmodifiableList(new ArrayList<>(issues));
+    }
+
+    public synchronized boolean isValid() {
+        return manifestFound && !aborted && getFailures() == 0;
+    }
+
+    public synchronized long getFailures() {
+        return count(VerificationIssue.Type.MISSING) + count(VerificationIssue.Type.TRUNCATED)
+                + count(VerificationIssue.Type.MISMATCHED);
+    }
+
+}
@@ -0,0 +1,54 @@
+package com.kapresoft.devops.shell.pojo;
+
+import lombok.Builder;
+import lombok.Value;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.lang.NonNull;
+
+import java.time.Duration;
+
+@Value
+public class WarmOptions {
+
+    /**
+     * CloudFront caches a separate copy per normalized Accept-Encoding; browsers ask for compressed content.
+     */
+    public static final String DEFAULT_HEADERS = "Accept-Encoding: gzip, deflate, br";
+
+    int concurrency;
+    /**
+     * The maximum number of requests started per second; 0 for no limit
+     */
+    int ratePerSecond;
+    HttpHeaders headers;
+    Duration timeout;
+
+    @Builder
+    public WarmOptions(int concurrency, int ratePerSecond, @NonNull HttpHeaders headers, @NonNull Duration timeout) {
+        this.concurrency = Math.max(concurrency, 1);
+        this.ratePerSecond = Math.max(ratePerSecond, 0);
+        this.headers = headers;
+        this.timeout = timeout;
+    }
+
+    /**
+     * @param headers Semicolon separated headers, i.e. "Accept-Encoding: gzip; User-Agent: cdn-warm"
+     * @return HttpHeaders The parsed headers
+     */
+    @NonNull
+    public static HttpHeaders parseHeaders(String headers) {
+        final HttpHeaders httpHeaders = new HttpHeaders();
+        if (headers == null) {
+            return httpHeaders;
+        }
+        for (String h : headers.split(";")) {
+            String header = h.trim();
+            int idx = header.indexOf(':');
+            if (idx > 0) {
+                httpHeaders.add(header.substring(0, idx).trim(), header.substring(idx + 1).trim());
+            }
+        }
+        return httpHeaders;
+    }
+}
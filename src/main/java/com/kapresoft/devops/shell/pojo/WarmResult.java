@@ -0,0 +1,49 @@
+package com.kapresoft.devops.shell.pojo;
+
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+import java.net.URI;
+import java.util.Locale;
+
+/**
+ * The outcome of fetching a single URL through the CDN.
+ *
+ * @param uri           The fetched URL
+ * @param status        The HTTP status code; 0 if the request failed
+ * @param latencyMillis The time until the body was fully read
+ * @param bytes         The body size
+ * @param xCache        The CloudFront {@code X-Cache} response header, i.e. "Miss from cloudfront"
+ * @param error         The failure message, if the request failed
+ */
+public record WarmResult(@NonNull URI uri,
+                         int status,
+                         long latencyMillis,
+                         long bytes,
+                         @Nullable String xCache,
+                         @Nullable String error) {
+
+    public boolean isHit() {
+        return xCache != null && xCache.toLowerCase(Locale.ROOT).contains("hit");
+    }
+
+    public boolean isMiss() {
+        return xCache != null && xCache.toLowerCase(Locale.ROOT).contains("miss");
+    }
+
+    public boolean isFailed() {
+        return error != null || status >= 400;
+    }
+
+    /**
+     * @return String i.e. "Hit", "Miss", "RefreshHit"; or "-" when the header is absent
+     */
+    @NonNull
+    public String cacheStatus() {
+        if (xCache == null) {
+            return "-";
+        }
+        int idx = xCache.indexOf(' ');
+        return idx < 0 ? xCache : xCache.substring(0, idx);
+    }
+}
@@ -0,0 +1,37 @@
+package com.kapresoft.devops.shell.pojo;
+
+import lombok.Builder;
+import lombok.Value;
+
+import org.springframework.lang.NonNull;
+
+import java.time.Duration;
+
+@Value
+public class WatchOptions {
+
+    /**
+     * The poll interval while uploads are in progress, and after a build lands
+     */
+    Duration minInterval;
+    /**
+     * The poll interval grows up to this while nothing changes
+     */
+    Duration maxInterval;
+    /**
+     * Stop watching after this long; zero to watch until interrupted
+     */
+    Duration timeout;
+    /**
+     * Stop watching after this many builds; zero for no limit
+     */
+    int maxBuilds;
+
+    @Builder
+    public WatchOptions(@NonNull Duration minInterval, @NonNull Duration maxInterval, @NonNull Duration timeout, int maxBuilds) {
+        this.minInterval = minInterval.isNegative() || minInterval.isZero() ? Duration.ofSeconds(1) : minInterval;
+        this.maxInterval = maxInterval.compareTo(this.minInterval) < 0 ? this.minInterval : maxInterval;
+        this.timeout = timeout;
+        this.maxBuilds = Math.max(maxBuilds, 0);
+    }
+}
@@ -0,0 +1,72 @@
+package com.kapresoft.devops.shell.service;
+
+import org.springframework.lang.NonNull;
+
+import java.util.List;
+
+/**
+ * Completes and resolves build versions and {@code site/...} paths from an in-memory index. Completion only
+ * reads the index and never waits for S3; a stale or missing index is reloaded in the background, so
+ * new entries show up on the next keypress.
+ */
+public interface BuildCompletionService {
+
+    /**
+     * @param prefix The version typed so far
+     * @return List<String> The cached build versions starting with {@code prefix}
+     */
+    @NonNull
+    List<String> completeVersions(@NonNull String prefix);
+
+    /**
+     * Proposes the next path level, like a file system shell. Levels below a build are listed on first use.
+     * @param prefix The path typed so far, i.e. site/2e6
+     * @return List<String> The cached paths one level below the typed directory, starting with {@code prefix}
+     */
+    @NonNull
+    List<String> completePaths(@NonNull String prefix);
+
+    /**
+     * Expands a unique abbreviation of a build version, git-style. Unlike completion, this loads the index if
+     * there is none yet.
+     * @param versionOrPrefix The build version or a prefix of it
+     * @return String The build version; {@code versionOrPrefix} as-is if no build matches
+     * @throws jakarta.validation.ValidationException If several builds match
+     */
+    @NonNull
+    default String resolveVersion(@NonNull String versionOrPrefix) {
+        return resolveVersion(versionOrPrefix, false);
+    }
+
+    /**
+     * @param versionOrPrefix The build version or a prefix of it
+     * @param fresh           Resolve against a listing of the bucket rather than the index, which may be minutes
+     *                        old; for commands that change what is served
+     * @return String The build version; {@code versionOrPrefix} as-is if no build matches
+     * @throws jakarta.validation.ValidationException If several builds match
+     */
+    @NonNull
+    String resolveVersion(@NonNull String versionOrPrefix, boolean fresh);
+
+    /**
+     * Expands a unique abbreviation of a build key path, i.e. site/2e64 to site/{build-version}/{project-name}.
+     * @param keyPathOrPrefix The build key path or a prefix of it
+     * @return String The key path; {@code keyPathOrPrefix} as-is if no build matches
+     * @throws jakarta.validation.ValidationException If several builds match
+     */
+    @NonNull
+    default String resolveKeyPath(@NonNull String keyPathOrPrefix) {
+        return resolveKeyPath(keyPathOrPrefix, false);
+    }
+
+    /**
+     * @param keyPathOrPrefix The build key path or a prefix of it
+     * @param fresh           Resolve against a listing of the bucket rather than the index, which may be minutes
+     *                        old; for commands that change what is served
+     * @return String The key path; {@code keyPathOrPrefix} as-is if no build matches
+     * @throws jakarta.validation.ValidationException If several builds match
+     */
+    @NonNull
+    String resolveKeyPath(@NonNull String keyPathOrPrefix, boolean fresh);
+
+}
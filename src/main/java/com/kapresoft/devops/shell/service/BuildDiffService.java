@@ -0,0 +1,24 @@
+package com.kapresoft.devops.shell.service;
+
+import com.kapresoft.devops.shell.pojo.BuildDiffEntry;
+import com.kapresoft.devops.shell.pojo.BuildDiffSummary;
+
+import org.springframework.lang.NonNull;
+
+import java.util.function.Consumer;
+
+public interface BuildDiffService {
+
+    /**
+     * Compares two builds by streaming both listings side by side; memory use does not grow with the
+     * number of objects.
+     *
+     * @param fromPrefix The key prefix of the first build, i.e. {@code site/{version}/{project}}
+     * @param toPrefix   The key prefix of the second build
+     * @param consumer   Receives every compared key, in listing order
+     * @return BuildDiffSummary The totals of the comparison
+     */
+    @NonNull
+    BuildDiffSummary diff(@NonNull String fromPrefix, @NonNull String toPrefix, @NonNull Consumer<BuildDiffEntry> consumer);
+
+}
@@ -0,0 +1,63 @@
+package com.kapresoft.devops.shell.service;
+
+import com.kapresoft.devops.shell.pojo.BuildIndexSnapshot;
+
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Keeps an in-memory snapshot of the builds and the live origin path, refreshed in the background
+ * while the shell is in use, so that commands can answer without listing the bucket.
+ */
+public interface BuildIndexService {
+
+    /**
+     * @return Optional<BuildIndexSnapshot> The latest snapshot; empty if the refresh is disabled or has not completed yet
+     */
+    @NonNull
+    Optional<BuildIndexSnapshot> getSnapshot();
+
+    /**
+     * @return Optional<BuildIndexSnapshot> The latest snapshot if it is no older than the refresh interval and its jitter;
+     * empty otherwise, i.e. once refreshing has paused while the shell was idle
+     */
+    @NonNull
+    Optional<BuildIndexSnapshot> getCurrentSnapshot();
+
+    /**
+     * Lists the build info files and fetches only those that are new or changed since the previous refresh.
+     * @return BuildIndexSnapshot The new snapshot
+     * @throws jakarta.validation.ValidationException If the refresh is disabled
+     */
+    @NonNull
+    BuildIndexSnapshot refresh();
+
+    /**
+     * Records user activity; refreshing pauses after a period without any.
+     */
+    void touch();
+
+    boolean isEnabled();
+
+    boolean isPaused();
+
+    /**
+     * @return Instant When the next background refresh is due; null if none is scheduled
+     */
+    @Nullable
+    Instant getNextRefresh();
+
+    /**
+     * @return String The error of the last failed refresh, if the last refresh failed
+     */
+    @Nullable
+    String getLastError();
+
+    @NonNull
+    Duration getIdleTime();
+
+}
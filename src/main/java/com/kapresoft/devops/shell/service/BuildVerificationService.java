@@ -0,0 +1,21 @@
+package com.kapresoft.devops.shell.service;
+
+import com.kapresoft.devops.shell.pojo.VerificationReport;
+
+import org.springframework.lang.NonNull;
+
+public interface BuildVerificationService {
+
+    /**
+     * Checks the uploaded objects of a build against the manifest shipped with it. Sizes and the ETags of
+     * single-part objects are checked from the listing; multipart objects are downloaded to compute their MD5.
+     *
+     * @param keyPath     The build key path, i.e. site/{build-version}/{project-name}
+     * @param concurrency The maximum number of objects downloaded at once
+     * @param failFast    Stop at the first failure
+     * @return VerificationReport The missing, truncated and mismatched objects
+     */
+    @NonNull
+    VerificationReport verify(@NonNull String keyPath, int concurrency, boolean failFast);
+
+}
@@ -0,0 +1,25 @@
+package com.kapresoft.devops.shell.service;
+
+import com.kapresoft.devops.shell.pojo.BuildInfoDetails;
+import com.kapresoft.devops.shell.pojo.WatchOptions;
+
+import org.springframework.lang.NonNull;
+
+import java.util.function.Consumer;
+
+public interface BuildWatchService {
+
+    /**
+     * Polls the bucket for new builds until interrupted, or until the timeout or build limit of {@code options}
+     * is reached. Each poll lists the version directories under {@code site/} with a delimiter, and only the
+     * directories with an upload in progress or a recent build are looked into. A build is reported as soon as its
+     * build info file lands, which the deploy uploads last; each project of a version directory is reported once.
+     *
+     * @param options  The poll intervals and limits
+     * @param consumer Receives each new build, on the calling thread
+     * @return int The number of builds reported
+     * @throws InterruptedException If the calling thread is interrupted while waiting for the next poll
+     */
+    int watch(@NonNull WatchOptions options, @NonNull Consumer<BuildInfoDetails> consumer) throws InterruptedException;
+
+}
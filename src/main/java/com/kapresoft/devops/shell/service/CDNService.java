@@ -3,6 +3,9 @@ package com.kapresoft.devops.shell.service;
 import com.kapresoft.devops.shell.exception.service.AmazonServiceCallException;
 import com.kapresoft.devops.shell.pojo.DistributionConfigData;
 
+import java.time.Duration;
+import java.util.Collection;
+
 public interface CDNService {
 
     /**
@@ -15,4 +18,20 @@ public interface CDNService {
      */
     DistributionConfigData getDistributionConfig() throws AmazonServiceCallException;
 
+    /**
+     * @param id    The distribution ID; defaults to the one in default settings if empty
+     * @param paths The CDN web paths to invalidate, i.e. '/docs/*' or '/index.html'
+     * @return String The invalidation ID
+     */
+    String createInvalidation(String id, Collection<String> paths) throws AmazonServiceCallException;
+
+    /**
+     * Polls until the distribution is deployed to all edge locations and the invalidation, if any, has completed.
+     * @param id             The distribution ID; defaults to the one in default settings if empty
+     * @param invalidationID The invalidation ID (Optional)
+     * @param timeout        The maximum time to wait
+     * @return boolean false if the timeout elapsed first
+     */
+    boolean awaitDeployment(String id, String invalidationID, Duration timeout) throws AmazonServiceCallException;
+
 }
@@ -0,0 +1,43 @@
+package com.kapresoft.devops.shell.service;
+
+import com.kapresoft.devops.shell.config.KapresoftProjectProperties;
+import com.kapresoft.devops.shell.pojo.WarmOptions;
+import com.kapresoft.devops.shell.pojo.WarmResult;
+
+import org.springframework.lang.NonNull;
+
+import java.net.URI;
+import java.util.List;
+
+public interface CDNWarmService {
+
+    /**
+     * @param keyPath The build key path, i.e. site/{build-version}/{project-name}
+     * @param limit   The maximum number of URLs
+     * @param project The project whose CDN serves the build
+     * @return List<URI> The CDN URLs of the build objects, each index document also by its directory URL; pages first,
+     * then stylesheets and scripts, shallow paths first
+     */
+    @NonNull
+    List<URI> toBuildURLs(@NonNull String keyPath, int limit, @NonNull KapresoftProjectProperties project);
+
+    /**
+     * @param lines Web paths, i.e. '/docs/index.html', or absolute URLs. For CSV lines, the first column is used.
+     *              Blank lines and lines starting with '#' are skipped.
+     * @param project The project whose CDN serves the web paths
+     * @return List<URI> The CDN URLs
+     */
+    @NonNull
+    List<URI> toURLs(@NonNull List<String> lines, @NonNull KapresoftProjectProperties project);
+
+    /**
+     * Fetches the URLs through the CDN concurrently and reads every response body fully so that the edge caches it.
+     *
+     * @param urls    The URLs to fetch
+     * @param options Concurrency, rate and request headers
+     * @return List<WarmResult> The results in completion order
+     */
+    @NonNull
+    List<WarmResult> warm(@NonNull List<URI> urls, @NonNull WarmOptions options);
+
+}
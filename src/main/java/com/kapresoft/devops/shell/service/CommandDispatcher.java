@@ -0,0 +1,21 @@
+package com.kapresoft.devops.shell.service;
+
+import org.springframework.lang.NonNull;
+
+import java.io.PrintWriter;
+
+public interface CommandDispatcher {
+
+    int EXIT_OK = 0;
+    int EXIT_ERROR = 1;
+
+    /**
+     * Runs a shell command as if it was typed at the prompt. The output the command streams, its result or
+     * its error, and its trace if tracing is on, are written to {@code out} instead of the terminal.
+     * @param line The command line, i.e. {@code ls --format json}
+     * @param out  The output of the command
+     * @return int {@link #EXIT_OK}, or {@link #EXIT_ERROR} if the command failed
+     */
+    int dispatch(@NonNull String line, @NonNull PrintWriter out);
+
+}
@@ -0,0 +1,45 @@
+package com.kapresoft.devops.shell.service;
+
+import com.kapresoft.devops.shell.pojo.TransferReport;
+
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+import java.util.Optional;
+
+public interface CompressionService {
+
+    /**
+     * @param key The object key or file name, used when the content type is unknown
+     * @return String The content type of text assets, i.e. "text/html; charset=utf-8"; null for other files
+     */
+    @Nullable
+    String getCompressibleContentType(@NonNull String key);
+
+    /**
+     * @param content The uncompressed content
+     * @return Optional<byte[]> The gzip content, if the content is large enough and shrinks enough
+     */
+    @NonNull
+    Optional<byte[]> compress(@NonNull byte[] content);
+
+    /**
+     * @param existing The Cache-Control of the uncompressed object; if any
+     * @return String The Cache-Control of the compressed object
+     */
+    @NonNull
+    String toCacheControl(@Nullable String existing);
+
+    /**
+     * Compresses the text assets of an uploaded build in place. Objects already encoded are skipped;
+     * the manifest is updated so that {@code verify} accepts the compressed objects.
+     *
+     * @param keyPath     The build key path, i.e. site/{build-version}/{project-name}
+     * @param concurrency The maximum number of objects compressed at once
+     * @param dryRun      Only report what would be compressed
+     * @return TransferReport The compressed, skipped and failed objects, and the bytes saved
+     */
+    @NonNull
+    TransferReport recompress(@NonNull String keyPath, int concurrency, boolean dryRun);
+
+}
@@ -0,0 +1,311 @@
+package com.kapresoft.devops.shell.service;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ValidationException;
+import lombok.extern.log4j.Log4j2;
+
+import com.amazonaws.SdkClientException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.ListObjectsV2Request;
+import com.amazonaws.services.s3.model.ListObjectsV2Result;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.kapresoft.devops.shell.config.ProjectRegistry;
+import com.kapresoft.devops.shell.config.S3BucketProperties;
+import com.kapresoft.devops.shell.pojo.BuildCatalog;
+import com.kapresoft.devops.shell.pojo.BuildIndexSnapshot;
+import com.kapresoft.devops.shell.pojo.S3Bucket;
+import com.kapresoft.devops.shell.util.PrefixTrie;
+
+import org.springframework.lang.NonNull;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+@Log4j2
+@Service
+public class DefaultBuildCompletionService implements BuildCompletionService {
+
+    private static final String SITE_PATH_NAME = "site";
+    private static final String DELIMITER = "/";
+    private static final Duration CACHE_TTL = Duration.ofMinutes(5);
+    private static final int MAX_PROPOSALS = 100;
+    /**
+     * Directories this deep, i.e. site/{build-version}/{project-name}/, are below the builds and listed on first use
+     */
+    private static final int LAZY_LISTING_DEPTH = 3;
+
+    private final AmazonS3 amazonS3;
+    private final S3RepositoryService s3RepositoryService;
+    private final BuildIndexService buildIndexService;
+    private final S3Bucket s3Bucket;
+    private final ProjectRegistry projectRegistry;
+    private final ExecutorService loader;
+    private final AtomicBoolean loading = new AtomicBoolean();
+
+    /**
+     * Guarded by {@code this}
+     */
+    private final PrefixTrie versions = new PrefixTrie();
+    private final PrefixTrie keyPaths = new PrefixTrie();
+    private final PrefixTrie paths = new PrefixTrie();
+    private final Set<String> listedDirs = new HashSet<>();
+    private Instant loadedAt;
+
+    public DefaultBuildCompletionService(AmazonS3 amazonS3,
+                                         S3RepositoryService s3RepositoryService,
+                                         BuildIndexService buildIndexService,
+                                         S3BucketProperties s3BucketProperties,
+                                         ProjectRegistry projectRegistry) {
+        this.amazonS3 = amazonS3;
+        this.s3RepositoryService = s3RepositoryService;
+        this.buildIndexService = buildIndexService;
+        this.s3Bucket = s3BucketProperties.getS3Bucket();
+        this.projectRegistry = projectRegistry;
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("completion-");
+        threadFactory.setDaemon(true);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                threadFactory);
+        // Started now rather than while a command is typed, so that its listings are not traced as the command's
+        executor.prestartAllCoreThreads();
+        this.loader = executor;
+    }
+
+    @PreDestroy
+    void stop() {
+        loader.shutdownNow();
+    }
+
+    @NonNull
+    @Override
+    public List<String> completeVersions(@NonNull String prefix) {
+        refreshInBackground();
+        synchronized (this) {
+            return versions.complete(prefix, MAX_PROPOSALS);
+        }
+    }
+
+    @NonNull
+    @Override
+    public List<String> completePaths(@NonNull String prefix) {
+        refreshInBackground();
+        final String dir = prefix.substring(0, prefix.lastIndexOf(DELIMITER) + 1);
+        final List<String> proposals = new ArrayList<>();
+        synchronized (this) {
+            if (depth(dir) >= LAZY_LISTING_DEPTH && !listedDirs.contains(dir)) {
+                listedDirs.add(dir);
+                loader.execute(() -> listDir(dir));
+            }
+            // The entries of the next level only; deeper entries are proposed once their directory is typed
+            for (String path : paths.complete(prefix, Integer.MAX_VALUE)) {
+                int next = path.indexOf(DELIMITER, dir.length());
+                if (next < 0 || next == path.length() - 1) {
+                    proposals.add(path);
+                    if (proposals.size() >= MAX_PROPOSALS) {
+                        break;
+                    }
+                }
+            }
+        }
+        return proposals;
+    }
+
+    @NonNull
+    @Override
+    public String resolveVersion(@NonNull String versionOrPrefix, boolean fresh) {
+        if (fresh) {
+            final PrefixTrie listed = new PrefixTrie();
+            for (String dir : listDirs(SITE_PATH_NAME + DELIMITER + versionOrPrefix)) {
+                // site/{build-version}/
+                listed.add(dir.substring(SITE_PATH_NAME.length() + 1, dir.length() - 1));
+            }
+            return resolve(listed, versionOrPrefix, "build version");
+        }
+        loadIfEmpty();
+        synchronized (this) {
+            return resolve(versions, versionOrPrefix, "build version");
+        }
+    }
+
+    @NonNull
+    @Override
+    public String resolveKeyPath(@NonNull String keyPathOrPrefix, boolean fresh) {
+        if (fresh) {
+            return resolve(listKeyPaths(keyPathOrPrefix), keyPathOrPrefix, "site path");
+        }
+        loadIfEmpty();
+        synchronized (this) {
+            return resolve(keyPaths, keyPathOrPrefix, "site path");
+        }
+    }
+
+    /**
+     * Lists the directories matching the prefix down to site/{build-version}/{project-name}. Only a single
+     * matching directory is listed further, as several are ambiguous already, and not once it is the typed path
+     * itself or holds a build info file, i.e. site/build-2024-Jan-16 is a build rather than its subdirectories.
+     * Unlike the index, a directory counts before its build info file is uploaded.
+     */
+    private PrefixTrie listKeyPaths(String prefix) {
+        List<String> dirs = listDirs(prefix);
+        while (dirs.size() == 1 && depth(dirs.get(0)) < LAZY_LISTING_DEPTH && !dirs.get(0).equals(prefix + DELIMITER)) {
+            ListObjectsV2Result content = list(dirs.get(0));
+            if (content.getObjectSummaries().stream().map(S3ObjectSummary::getKey).anyMatch(projectRegistry::isBuildInfoKey)) {
+                break;
+            }
+            dirs = content.getCommonPrefixes();
+        }
+        final PrefixTrie listed = new PrefixTrie();
+        dirs.forEach(dir -> listed.add(dir.substring(0, dir.length() - 1)));
+        return listed;
+    }
+
+    private List<String> listDirs(String prefix) {
+        return list(prefix).getCommonPrefixes();
+    }
+
+    private ListObjectsV2Result list(String prefix) {
+        return amazonS3.listObjectsV2(new ListObjectsV2Request()
+                .withBucketName(s3Bucket.name()).withPrefix(prefix).withDelimiter(DELIMITER));
+    }
+
+    private static String resolve(PrefixTrie trie, String prefix, String name) {
+        Optional<String> resolved = trie.resolve(prefix);
+        if (resolved.isPresent()) {
+            return resolved.get();
+        }
+        int count = trie.count(prefix);
+        if (count > 1) {
+            throw new ValidationException("Ambiguous %s '%s' matches %d builds: %s".formatted(name, prefix, count,
+                    String.join(", ", trie.complete(prefix, 5)) + (count > 5 ? ", ..." : "")));
+        }
+        return prefix;
+    }
+
+    private void loadIfEmpty() {
+        if (!useSnapshot() && loadedAt() == null) {
+            load();
+        }
+    }
+
+    private void refreshInBackground() {
+        if (useSnapshot()) {
+            return;
+        }
+        Instant loaded = loadedAt();
+        if ((loaded == null || loaded.plus(CACHE_TTL).isBefore(Instant.now())) && loading.compareAndSet(false, true)) {
+            loader.execute(() -> {
+                try {
+                    load();
+                } finally {
+                    loading.set(false);
+                }
+            });
+        }
+    }
+
+    private synchronized Instant loadedAt() {
+        return loadedAt;
+    }
+
+    /**
+     * @return boolean True if the background index has a snapshot at least as recent as the cache, which is then
+     * rebuilt from it without listing the bucket
+     */
+    private boolean useSnapshot() {
+        Optional<BuildIndexSnapshot> snapshot = buildIndexService.getCurrentSnapshot();
+        if (snapshot.isEmpty()) {
+            return false;
+        }
+        synchronized (this) {
+            if (loadedAt == null || loadedAt.isBefore(snapshot.get().refreshedAt())) {
+                BuildCatalog catalog = snapshot.get().catalog();
+                List<String> builds = new ArrayList<>(catalog.size());
+                for (int row = 0; row < catalog.size(); row++) {
+                    builds.add(catalog.getKeyPath(row));
+                }
+                replace(builds, snapshot.get().refreshedAt());
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Lists the build info files only; their content is not needed to know the versions and key paths.
+     */
+    private void load() {
+        final List<String> builds = new ArrayList<>();
+        final Instant start = Instant.now();
+        try (Stream<S3ObjectSummary> objects = s3RepositoryService.stream(() -> new ListObjectsV2Request()
+                .withBucketName(s3Bucket.name()).withPrefix(SITE_PATH_NAME + DELIMITER))) {
+            objects.map(S3ObjectSummary::getKey)
+                    .filter(projectRegistry::isBuildInfoKey)
+                    .map(key -> key.substring(0, key.lastIndexOf(DELIMITER)))
+                    .forEach(builds::add);
+        } catch (SdkClientException e) {
+            log.debug("Failed to load the completion index", e);
+            return;
+        }
+        synchronized (this) {
+            replace(builds, start);
+        }
+        log.debug("Completion index loaded: {} builds in {}", builds.size(), Duration.between(start, Instant.now()));
+    }
+
+    private void replace(List<String> builds, Instant asOf) {
+        versions.clear();
+        keyPaths.clear();
+        paths.clear();
+        listedDirs.clear();
+        for (String keyPath : builds) {
+            // site/{build-version}/{project-name}
+            String[] parts = keyPath.split(DELIMITER);
+            if (parts.length < 3) {
+                continue;
+            }
+            versions.add(parts[1]);
+            keyPaths.add(keyPath);
+            paths.add(parts[0] + DELIMITER + parts[1] + DELIMITER);
+            paths.add(keyPath);
+        }
+        loadedAt = asOf;
+    }
+
+    private void listDir(String dir) {
+        try {
+            ListObjectsV2Result result = amazonS3.listObjectsV2(new ListObjectsV2Request()
+                    .withBucketName(s3Bucket.name()).withPrefix(dir).withDelimiter(DELIMITER));
+            synchronized (this) {
+                result.getCommonPrefixes().forEach(paths::add);
+                result.getObjectSummaries().forEach(s3o -> paths.add(s3o.getKey()));
+            }
+        } catch (SdkClientException e) {
+            log.debug("Failed to list {}", dir, e);
+            synchronized (this) {
+                listedDirs.remove(dir);
+            }
+        }
+    }
+
+    private static int depth(String dir) {
+        int depth = 0;
+        for (int i = 0; i < dir.length(); i++) {
+            if (dir.charAt(i) == '/') {
+                depth++;
+            }
+        }
+        return depth;
+    }
+
+}
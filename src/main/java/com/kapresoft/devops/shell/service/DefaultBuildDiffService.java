@@ -0,0 +1,59 @@
+package com.kapresoft.devops.shell.service;
+
+import lombok.extern.log4j.Log4j2;
+
+import com.amazonaws.services.s3.model.ListObjectsV2Request;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.kapresoft.devops.shell.config.S3BucketProperties;
+import com.kapresoft.devops.shell.pojo.BuildDiffEntry;
+import com.kapresoft.devops.shell.pojo.BuildDiffSummary;
+import com.kapresoft.devops.shell.pojo.S3Bucket;
+import com.kapresoft.devops.shell.util.aws.S3ListingMergeJoin;
+
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Service;
+
+import java.util.Iterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+@Log4j2
+@Service
+public class DefaultBuildDiffService implements BuildDiffService {
+
+    private final S3RepositoryService s3RepositoryService;
+    private final S3Bucket s3Bucket;
+
+    public DefaultBuildDiffService(S3RepositoryService s3RepositoryService, S3BucketProperties s3BucketProperties) {
+        this.s3RepositoryService = s3RepositoryService;
+        this.s3Bucket = s3BucketProperties.getS3Bucket();
+    }
+
+    @NonNull
+    @Override
+    public BuildDiffSummary diff(@NonNull String fromPrefix, @NonNull String toPrefix, @NonNull Consumer<BuildDiffEntry> consumer) {
+        final String from = toDirectoryPrefix(fromPrefix);
+        final String to = toDirectoryPrefix(toPrefix);
+        log.info("Comparing s3://{}/{} with s3://{}/{}", s3Bucket.name(), from, s3Bucket.name(), to);
+
+        try (Stream<S3ObjectSummary> fromStream = list(from); Stream<S3ObjectSummary> toStream = list(to)) {
+            Iterator<S3ObjectSummary> fromIt = fromStream.iterator();
+            Iterator<S3ObjectSummary> toIt = toStream.iterator();
+            return S3ListingMergeJoin.join(from, fromIt, to, toIt, consumer);
+        }
+    }
+
+    private Stream<S3ObjectSummary> list(String prefix) {
+        return s3RepositoryService.stream(() -> new ListObjectsV2Request()
+                .withBucketName(s3Bucket.name()).withPrefix(prefix));
+    }
+
+    /**
+     * Without the trailing slash, {@code site/abc} would also match {@code site/abcd/}.
+     */
+    private static String toDirectoryPrefix(String prefix) {
+        String p = prefix.startsWith("/") ? prefix.substring(1) : prefix;
+        return p.endsWith("/") ? p : p + "/";
+    }
+
+}
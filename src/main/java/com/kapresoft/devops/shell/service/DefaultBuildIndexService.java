@@ -0,0 +1,233 @@
+package com.kapresoft.devops.shell.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ValidationException;
+import lombok.extern.log4j.Log4j2;
+
+import com.amazonaws.SdkClientException;
+import com.amazonaws.services.s3.model.ListObjectsV2Request;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.kapresoft.devops.shell.config.IndexRefreshProperties;
+import com.kapresoft.devops.shell.config.KapresoftProjectProperties;
+import com.kapresoft.devops.shell.config.ProjectRegistry;
+import com.kapresoft.devops.shell.config.S3BucketProperties;
+import com.kapresoft.devops.shell.exception.service.AmazonServiceCallException;
+import com.kapresoft.devops.shell.pojo.BuildCatalog;
+import com.kapresoft.devops.shell.pojo.BuildIndexSnapshot;
+import com.kapresoft.devops.shell.pojo.BuildInfoDetails;
+import com.kapresoft.devops.shell.pojo.S3Bucket;
+
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+@Log4j2
+@Service
+public class DefaultBuildIndexService implements BuildIndexService {
+
+    private static final String SITE_PATH_NAME = "site";
+
+    private final S3RepositoryService s3RepositoryService;
+    private final CDNService cdnService;
+    private final IndexRefreshProperties props;
+    private final S3Bucket s3Bucket;
+    private final ProjectRegistry projectRegistry;
+
+    /**
+     * The rows of the builds in the snapshot catalog by key, with the ETag of their build info file
+     */
+    private final Map<String, CachedBuild> cache = new HashMap<>();
+    private volatile BuildIndexSnapshot snapshot;
+    private volatile long lastActivityNanos = System.nanoTime();
+    private volatile boolean paused;
+    private volatile Instant nextRefresh;
+    private volatile String lastError;
+    private ScheduledExecutorService scheduler;
+
+    private record CachedBuild(String eTag, int row) {
+    }
+
+    /**
+     * A build of the refresh: fetched, or unchanged in the previous catalog
+     */
+    private record ListedBuild(String key, String eTag, @Nullable BuildInfoDetails fetched, int previousRow, long lastModified) {
+    }
+
+    public DefaultBuildIndexService(S3RepositoryService s3RepositoryService,
+                                    CDNService cdnService,
+                                    IndexRefreshProperties props,
+                                    S3BucketProperties s3BucketProperties,
+                                    ProjectRegistry projectRegistry) {
+        this.s3RepositoryService = s3RepositoryService;
+        this.cdnService = cdnService;
+        this.props = props;
+        this.s3Bucket = s3BucketProperties.getS3Bucket();
+        this.projectRegistry = projectRegistry;
+    }
+
+    @PostConstruct
+    void start() {
+        if (!props.isEnabled()) {
+            return;
+        }
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("index-refresh-");
+        threadFactory.setDaemon(true);
+        threadFactory.setThreadPriority(Thread.MIN_PRIORITY);
+        scheduler = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        schedule(Duration.ZERO);
+        log.info("Index refresh every {} (+ up to {} jitter), pausing after {} idle",
+                props.getInterval(), props.getJitter(), props.getIdleTimeout());
+    }
+
+    @PreDestroy
+    void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    private void schedule(Duration delay) {
+        long jitterMillis = props.getJitter().toMillis();
+        long delayMillis = delay.toMillis() + (jitterMillis > 0 ? ThreadLocalRandom.current().nextLong(jitterMillis) : 0);
+        nextRefresh = Instant.now().plusMillis(delayMillis);
+        scheduler.schedule(this::backgroundRefresh, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void backgroundRefresh() {
+        try {
+            paused = getIdleTime().compareTo(props.getIdleTimeout()) > 0;
+            if (!paused) {
+                refresh();
+            }
+        } catch (RuntimeException e) {
+            // The previous snapshot is kept
+            log.debug("Index refresh failed", e);
+        } finally {
+            if (!scheduler.isShutdown()) {
+                schedule(props.getInterval());
+            }
+        }
+    }
+
+    @NonNull
+    @Override
+    public Optional<BuildIndexSnapshot> getSnapshot() {
+        return Optional.ofNullable(snapshot);
+    }
+
+    @NonNull
+    @Override
+    public Optional<BuildIndexSnapshot> getCurrentSnapshot() {
+        final BuildIndexSnapshot s = snapshot;
+        if (s == null) {
+            return Optional.empty();
+        }
+        // The next refresh is due this long after the previous one completed, and takes about as long to complete
+        Duration maxAge = props.getInterval().plus(props.getJitter()).plus(s.duration());
+        return s.getAge().compareTo(maxAge) > 0 ? Optional.empty() : Optional.of(s);
+    }
+
+    @NonNull
+    @Override
+    public synchronized BuildIndexSnapshot refresh() {
+        if (!props.isEnabled()) {
+            throw new ValidationException("The build index is disabled; see spring.application.index-refresh.enabled");
+        }
+        final long start = System.nanoTime();
+        try {
+            // Projects sharing a distribution cost a single request
+            final Map<String, String> liveS3KeysByDist = new HashMap<>();
+            final Map<String, String> liveS3Keys = new LinkedHashMap<>();
+            for (KapresoftProjectProperties project : projectRegistry.getProjects()) {
+                liveS3Keys.put(project.getId(), liveS3KeysByDist.computeIfAbsent(project.getDistributionId(),
+                        id -> cdnService.getDistributionConfig(id).getS3Key().orElse("")));
+            }
+            final BuildCatalog previous = snapshot == null ? null : snapshot.catalog();
+            final List<ListedBuild> listed = new ArrayList<>();
+            int fetched = 0;
+            try (Stream<S3ObjectSummary> objects = s3RepositoryService.stream(() -> new ListObjectsV2Request()
+                    .withBucketName(s3Bucket.name()).withPrefix(SITE_PATH_NAME))) {
+                for (S3ObjectSummary s3o : (Iterable<S3ObjectSummary>) objects.filter(o -> projectRegistry.isBuildInfoKey(o.getKey()))::iterator) {
+                    CachedBuild cached = previous == null ? null : cache.get(s3o.getKey());
+                    if (cached != null && cached.eTag().equals(s3o.getETag())) {
+                        listed.add(new ListedBuild(s3o.getKey(), cached.eTag(), null, cached.row(), previous.getLastModified(cached.row())));
+                        continue;
+                    }
+                    Optional<BuildInfoDetails> build = s3RepositoryService.toBuildInfo(s3o);
+                    fetched++;
+                    build.ifPresent(b -> listed.add(new ListedBuild(s3o.getKey(), s3o.getETag(), b, -1,
+                            Optional.ofNullable(b.getLastModified()).map(Date::getTime).orElse(Long.MIN_VALUE))));
+                }
+            }
+            // Oldest first, unknown dates first
+            listed.sort(Comparator.comparingLong(ListedBuild::lastModified));
+            final BuildCatalog catalog = new BuildCatalog();
+            cache.clear();
+            for (ListedBuild b : listed) {
+                int row = b.fetched() != null ? catalog.add(b.fetched()) : catalog.add(previous, b.previousRow());
+                cache.put(b.key(), new CachedBuild(b.eTag(), row));
+            }
+            snapshot = new BuildIndexSnapshot(catalog, Map.copyOf(liveS3Keys), Instant.now(),
+                    Duration.ofNanos(System.nanoTime() - start), fetched);
+            lastError = null;
+            log.debug("Index refreshed: {} builds, {} fetched", catalog.size(), fetched);
+            return snapshot;
+        } catch (SdkClientException | AmazonServiceCallException e) {
+            lastError = e.getMessage();
+            throw e;
+        }
+    }
+
+    @Override
+    public void touch() {
+        lastActivityNanos = System.nanoTime();
+        paused = false;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return props.isEnabled();
+    }
+
+    @Override
+    public boolean isPaused() {
+        return paused;
+    }
+
+    @Nullable
+    @Override
+    public Instant getNextRefresh() {
+        return scheduler == null ? null : nextRefresh;
+    }
+
+    @Nullable
+    @Override
+    public String getLastError() {
+        return lastError;
+    }
+
+    @NonNull
+    @Override
+    public Duration getIdleTime() {
+        return Duration.ofNanos(System.nanoTime() - lastActivityNanos);
+    }
+
+}
@@ -0,0 +1,203 @@
+package com.kapresoft.devops.shell.service;
+
+import lombok.extern.log4j.Log4j2;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.amazonaws.services.s3.model.ListObjectsV2Request;
+import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.model.S3ObjectInputStream;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.kapresoft.devops.shell.config.KapresoftProjectProperties;
+import com.kapresoft.devops.shell.config.S3BucketProperties;
+import com.kapresoft.devops.shell.pojo.BuildManifest;
+import com.kapresoft.devops.shell.pojo.S3Bucket;
+import com.kapresoft.devops.shell.pojo.VerificationIssue;
+import com.kapresoft.devops.shell.pojo.VerificationIssue.Type;
+import com.kapresoft.devops.shell.pojo.VerificationReport;
+import com.kapresoft.devops.shell.util.aws.S3ListingMergeJoin;
+import com.kapresoft.devops.shell.util.concurrent.BoundedExecutor;
+
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.stream.Stream;
+
+@Log4j2
+@Service
+public class DefaultBuildVerificationService implements BuildVerificationService {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final AmazonS3 amazonS3;
+    private final S3RepositoryService s3RepositoryService;
+    private final S3Bucket s3Bucket;
+    private final String manifestFile;
+
+    public DefaultBuildVerificationService(AmazonS3 amazonS3,
+                                           S3RepositoryService s3RepositoryService,
+                                           S3BucketProperties s3BucketProperties,
+                                           KapresoftProjectProperties projectConf) {
+        this.amazonS3 = amazonS3;
+        this.s3RepositoryService = s3RepositoryService;
+        this.s3Bucket = s3BucketProperties.getS3Bucket();
+        this.manifestFile = projectConf.getManifestFile();
+    }
+
+    @NonNull
+    @Override
+    public VerificationReport verify(@NonNull String keyPath, int concurrency, boolean failFast) {
+        final String prefix = keyPath.endsWith("/") ? keyPath : keyPath + "/";
+        final VerificationReport report = new VerificationReport(keyPath);
+        final long start = System.nanoTime();
+
+        final Map<String, BuildManifest.Entry> expected;
+        try {
+            expected = readManifest(prefix + manifestFile);
+        } catch (AmazonS3Exception e) {
+            if (e.getStatusCode() != 404) {
+                throw e;
+            }
+            log.warn("Manifest not found: s3://{}/{}{}", s3Bucket.name(), prefix, manifestFile);
+            report.setManifestFound(false);
+            report.setElapsed(Duration.ofNanos(System.nanoTime() - start));
+            return report;
+        }
+        report.setManifestFound(true);
+        log.info("Verifying {} objects in s3://{}/{}", expected.size(), s3Bucket.name(), prefix);
+
+        try (BoundedExecutor executor = new BoundedExecutor("verify", concurrency);
+             Stream<S3ObjectSummary> objects = s3RepositoryService.stream(() -> new ListObjectsV2Request()
+                     .withBucketName(s3Bucket.name()).withPrefix(prefix))) {
+            Iterator<S3ObjectSummary> it = objects.iterator();
+            while (it.hasNext()) {
+                if (failFast && report.getFailures() > 0) {
+                    report.setAborted(true);
+                    break;
+                }
+                final S3ObjectSummary s3o = it.next();
+                final String relativeKey = S3ListingMergeJoin.relativeKey(s3o, prefix);
+                if (relativeKey.equals(manifestFile)) {
+                    continue;
+                }
+                final BuildManifest.Entry entry = expected.remove(relativeKey);
+                if (entry == null) {
+                    report.addIssue(new VerificationIssue(Type.UNEXPECTED, relativeKey, "size=%d".formatted(s3o.getSize())));
+                    continue;
+                }
+                if (!isSizeValid(entry, s3o, report)) {
+                    continue;
+                }
+                String eTag = S3ListingMergeJoin.normalizeETag(s3o.getETag());
+                if (entry.md5() == null) {
+                    report.addChecked(s3o.getSize());
+                } else if (eTag != null && !eTag.contains("-")) {
+                    // The ETag of a single-part upload is the MD5 of its content
+                    checkMd5(entry, eTag, report);
+                } else {
+                    boolean accepted = executor.execute(() -> {
+                        try {
+                            checkMd5(entry, download(s3o, report), report);
+                            if (failFast && report.getFailures() > 0) {
+                                executor.cancel();
+                            }
+                        } catch (IOException | RuntimeException e) {
+                            if (executor.isCancelled() || Thread.currentThread().isInterrupted()) {
+                                // Stopped by an earlier failure or by the command; not a failure of its own
+                                report.addSkipped();
+                                return;
+                            }
+                            log.error("Failed to read {}", s3o.getKey(), e);
+                            report.addIssue(new VerificationIssue(Type.MISMATCHED, relativeKey, "unreadable: " + e.getMessage()));
+                        }
+                    });
+                    if (!accepted) {
+                        report.setAborted(true);
+                        break;
+                    }
+                }
+            }
+            if (!report.isAborted()) {
+                expected.keySet().stream().sorted().forEach(k -> report.addIssue(
+                        new VerificationIssue(Type.MISSING, k, "size=%d".formatted(expected.get(k).size()))));
+            }
+            executor.awaitCompletion();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            report.setAborted(true);
+        }
+        if (failFast && report.getFailures() > 0) {
+            report.setAborted(true);
+        }
+        report.setElapsed(Duration.ofNanos(System.nanoTime() - start));
+        return report;
+    }
+
+    private Map<String, BuildManifest.Entry> readManifest(String key) {
+        try (S3Object s3Object = amazonS3.getObject(s3Bucket.name(), key);
+             BufferedReader reader = new BufferedReader(new InputStreamReader(s3Object.getObjectContent(), StandardCharsets.UTF_8))) {
+            return BuildManifest.parse(reader);
+        } catch (IOException e) {
+            throw new IllegalStateException("Exception while reading manifest[%s]: %s".formatted(key, e.getMessage()), e);
+        }
+    }
+
+    private static boolean isSizeValid(BuildManifest.Entry entry, S3ObjectSummary s3o, VerificationReport report) {
+        if (s3o.getSize() == entry.size()) {
+            return true;
+        }
+        Type type = s3o.getSize() < entry.size() ? Type.TRUNCATED : Type.MISMATCHED;
+        report.addIssue(new VerificationIssue(type, entry.relativePath(),
+                "size=%d expected=%d".formatted(s3o.getSize(), entry.size())));
+        return false;
+    }
+
+    private static void checkMd5(BuildManifest.Entry entry, String actualMd5, VerificationReport report) {
+        if (entry.md5() != null && !entry.md5().equalsIgnoreCase(actualMd5)) {
+            report.addIssue(new VerificationIssue(Type.MISMATCHED, entry.relativePath(),
+                    "md5=%s expected=%s".formatted(actualMd5, entry.md5())));
+            return;
+        }
+        report.addChecked(entry.size());
+    }
+
+    /**
+     * @return String The hex MD5 of the object content
+     */
+    private String download(S3ObjectSummary s3o, VerificationReport report) throws IOException {
+        final MessageDigest md5 = newMd5();
+        try (S3Object s3Object = amazonS3.getObject(s3o.getBucketName(), s3o.getKey())) {
+            S3ObjectInputStream is = s3Object.getObjectContent();
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int n;
+            while ((n = is.read(buffer)) != -1) {
+                if (Thread.currentThread().isInterrupted()) {
+                    is.abort();
+                    throw new IOException("Interrupted");
+                }
+                md5.update(buffer, 0, n);
+                report.addDownloaded(n);
+            }
+        }
+        return HexFormat.of().formatHex(md5.digest());
+    }
+
+    private static MessageDigest newMd5() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
@@ -0,0 +1,190 @@
+package com.kapresoft.devops.shell.service;
+
+import lombok.extern.log4j.Log4j2;
+
+import com.amazonaws.services.s3.model.ListObjectsV2Request;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.kapresoft.devops.shell.config.ProjectRegistry;
+import com.kapresoft.devops.shell.config.S3BucketProperties;
+import com.kapresoft.devops.shell.pojo.BuildInfoDetails;
+import com.kapresoft.devops.shell.pojo.S3Bucket;
+import com.kapresoft.devops.shell.pojo.S3Query;
+import com.kapresoft.devops.shell.pojo.WatchOptions;
+
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+@Log4j2
+@Service
+public class DefaultBuildWatchService implements BuildWatchService {
+
+    private static final String SITE_PREFIX = "site/";
+    private static final String DELIMITER = "/";
+    /**
+     * A version directory is looked into until this long has passed without a new build or upload in it; by then
+     * an upload without a build info file is taken for abandoned
+     */
+    private static final Duration PENDING_TTL = Duration.ofHours(1);
+
+    private final S3RepositoryService s3RepositoryService;
+    private final S3Bucket s3Bucket;
+    private final ProjectRegistry projectRegistry;
+
+    public DefaultBuildWatchService(S3RepositoryService s3RepositoryService,
+                                    S3BucketProperties s3BucketProperties,
+                                    ProjectRegistry projectRegistry) {
+        this.s3RepositoryService = s3RepositoryService;
+        this.s3Bucket = s3BucketProperties.getS3Bucket();
+        this.projectRegistry = projectRegistry;
+    }
+
+    /**
+     * A version directory looked into on each poll
+     */
+    private static class Upload {
+
+        /**
+         * The project directories whose build was reported, or was there before the watch
+         */
+        final Set<String> builds = new HashSet<>();
+        Instant lastChange;
+
+        Upload(Instant lastChange) {
+            this.lastChange = lastChange;
+        }
+    }
+
+    /**
+     * Build versions are random UUIDs, so keys of new builds do not sort after the previous ones and
+     * {@code StartAfter} cannot serve as a high-water mark. The set of version directories seen so far
+     * serves as one instead; a poll costs one delimiter listing of {@code site/} plus one listing per
+     * recent version directory. Projects of a multi-project deploy share the version directory, and their
+     * build info files land one after the other, so a directory is looked into until it has been quiet for
+     * {@link #PENDING_TTL}, not only until its first build lands.
+     */
+    @Override
+    public int watch(@NonNull WatchOptions options, @NonNull Consumer<BuildInfoDetails> consumer) throws InterruptedException {
+        final Instant start = Instant.now();
+        final Instant deadline = options.getTimeout().isZero() ? null : start.plus(options.getTimeout());
+
+        // The baseline: project directories with a build info file are complete, the others are uploads in progress
+        final Map<String, Upload> pending = new LinkedHashMap<>();
+        final Set<String> complete = new HashSet<>();
+        try (Stream<S3ObjectSummary> objects = s3RepositoryService.stream(() -> new ListObjectsV2Request()
+                .withBucketName(s3Bucket.name()).withPrefix(SITE_PREFIX))) {
+            objects.filter(s3o -> projectRegistry.isBuildInfoKey(s3o.getKey())).forEach(s3o -> {
+                String key = s3o.getKey();
+                int versionEnd = key.indexOf(DELIMITER, SITE_PREFIX.length());
+                String versionDir = key.substring(0, versionEnd + 1);
+                complete.add(versionDir);
+                Instant modified = s3o.getLastModified() == null ? start : s3o.getLastModified().toInstant();
+                if (modified.plus(PENDING_TTL).isAfter(start)) {
+                    // A recent deploy may have more projects to come
+                    Upload upload = pending.computeIfAbsent(versionDir, d -> new Upload(modified));
+                    upload.builds.add(key.substring(0, key.indexOf(DELIMITER, versionEnd + 1) + 1));
+                    upload.lastChange = max(upload.lastChange, modified);
+                }
+            });
+        }
+        final Set<String> known = new HashSet<>(listCommonPrefixes(SITE_PREFIX));
+        for (String dir : known) {
+            if (!complete.contains(dir)) {
+                pending.put(dir, new Upload(start));
+            }
+        }
+        log.info("Watching {}{}: {} builds, {} uploads pending", s3Bucket.uri(), SITE_PREFIX, complete.size(), pending.size());
+
+        Duration interval = options.getMinInterval();
+        int reported = 0;
+        while (true) {
+            if (deadline != null) {
+                Duration remaining = Duration.between(Instant.now(), deadline);
+                if (remaining.isNegative() || remaining.isZero()) {
+                    return reported;
+                }
+                if (remaining.compareTo(interval) < 0) {
+                    interval = remaining;
+                }
+            }
+            Thread.sleep(interval.toMillis());
+
+            final Instant now = Instant.now();
+            boolean changed = false;
+            for (String dir : listCommonPrefixes(SITE_PREFIX)) {
+                if (known.add(dir)) {
+                    log.debug("New upload: {}", dir);
+                    pending.put(dir, new Upload(now));
+                    changed = true;
+                }
+            }
+            boolean uploading = false;
+            for (Iterator<Map.Entry<String, Upload>> it = pending.entrySet().iterator(); it.hasNext(); ) {
+                Map.Entry<String, Upload> entry = it.next();
+                Upload upload = entry.getValue();
+                boolean waiting = upload.builds.isEmpty();
+                for (String projectDir : listCommonPrefixes(entry.getKey())) {
+                    if (upload.builds.contains(projectDir)) {
+                        continue;
+                    }
+                    Optional<BuildInfoDetails> build = findBuild(projectDir);
+                    if (build.isEmpty()) {
+                        waiting = true;
+                        continue;
+                    }
+                    upload.builds.add(projectDir);
+                    upload.lastChange = now;
+                    changed = true;
+                    consumer.accept(build.get());
+                    if (++reported == options.getMaxBuilds()) {
+                        return reported;
+                    }
+                }
+                if (upload.lastChange.plus(PENDING_TTL).isBefore(now)) {
+                    log.debug("No new build after {}: {}", PENDING_TTL, entry.getKey());
+                    it.remove();
+                } else if (waiting && upload.lastChange.isAfter(start)) {
+                    uploading = true;
+                }
+            }
+            // Poll fast while an upload started during the watch is in progress; back off while idle
+            interval = changed || uploading ? options.getMinInterval() : min(interval.multipliedBy(2), options.getMaxInterval());
+        }
+    }
+
+    /**
+     * @param projectDir The project directory, i.e. site/{build-version}/{project-name}/
+     * @return Optional<BuildInfoDetails> The build, if its build info file has landed
+     */
+    private Optional<BuildInfoDetails> findBuild(String projectDir) {
+        String key = projectDir + projectRegistry.forKey(projectDir).getBuildInfoFile();
+        return s3RepositoryService.find(S3Query.builder().key(key).build())
+                .flatMap(s3RepositoryService::toBuildInfo);
+    }
+
+    private List<String> listCommonPrefixes(String prefix) {
+        try (Stream<String> dirs = s3RepositoryService.streamDirectories(prefix)) {
+            return dirs.toList();
+        }
+    }
+
+    private static Duration min(Duration a, Duration b) {
+        return a.compareTo(b) <= 0 ? a : b;
+    }
+
+    private static Instant max(Instant a, Instant b) {
+        return a.isAfter(b) ? a : b;
+    }
+
+}
@@ -4,8 +4,14 @@ import lombok.extern.log4j.Log4j2;
 
 import com.amazonaws.AmazonServiceException;
 import com.amazonaws.services.cloudfront.AmazonCloudFront;
+import com.amazonaws.services.cloudfront.model.CreateInvalidationRequest;
+import com.amazonaws.services.cloudfront.model.CreateInvalidationResult;
+import com.amazonaws.services.cloudfront.model.GetDistributionRequest;
 import com.amazonaws.services.cloudfront.model.GetDistributionConfigRequest;
 import com.amazonaws.services.cloudfront.model.GetDistributionConfigResult;
+import com.amazonaws.services.cloudfront.model.GetInvalidationRequest;
+import com.amazonaws.services.cloudfront.model.InvalidationBatch;
+import com.amazonaws.services.cloudfront.model.Paths;
 import com.kapresoft.devops.shell.exception.service.AmazonServiceCallException;
 import com.kapresoft.devops.shell.opt.DefaultSettings;
 import com.kapresoft.devops.shell.pojo.DistributionConfigData;
@@ -13,6 +19,10 @@ import com.kapresoft.devops.shell.pojo.DistributionConfigData;
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.util.Calendar;
+import java.util.Collection;
+
 import static java.lang.String.format;
 import static java.util.Optional.ofNullable;
 
@@ -21,6 +31,9 @@ import static java.util.Optional.ofNullable;
 public class DefaultCDNService implements CDNService {
 
     private static final String INVALID_DIST_ID_MSG = "CDN with distID[%s] failed with: %s%n  code=[%s] status=[%s]";
+    private static final String DEPLOYED_STATUS = "Deployed";
+    private static final String COMPLETED_STATUS = "Completed";
+    private static final Duration POLL_INTERVAL = Duration.ofSeconds(10);
 
     private final AmazonCloudFront cloudFront;
     private final DefaultSettings defaultSettings;
@@ -55,6 +68,58 @@ public class DefaultCDNService implements CDNService {
         return getDistributionConfig(null);
     }
 
+    @Override
+    public String createInvalidation(String id, Collection<String> paths) throws AmazonServiceCallException {
+        String distID = resolveDistID(id);
+        String callerReference = "spring-shell-aws-" + Calendar.getInstance().getTimeInMillis();
+        log.debug("Caller Reference: {} Paths: {}", callerReference, paths.size());
+        InvalidationBatch batch = new InvalidationBatch()
+                .withPaths(new Paths().withItems(paths)
+                        .withQuantity(paths.size()))
+                .withCallerReference(callerReference);
+        CreateInvalidationRequest request = new CreateInvalidationRequest()
+                .withDistributionId(distID)
+                .withInvalidationBatch(batch);
+        try {
+            CreateInvalidationResult result = cloudFront.createInvalidation(request);
+            return result.getInvalidation().getId();
+        } catch (AmazonServiceException e) {
+            String msg = format(INVALID_DIST_ID_MSG,
+                    distID, e.getErrorMessage(), e.getErrorCode(), e.getStatusCode());
+            throw (new AmazonServiceCallException(msg, e));
+        }
+    }
+
+    @Override
+    public boolean awaitDeployment(String id, String invalidationID, Duration timeout) throws AmazonServiceCallException {
+        String distID = resolveDistID(id);
+        final long deadline = System.nanoTime() + timeout.toNanos();
+        try {
+            while (true) {
+                String distStatus = cloudFront.getDistribution(new GetDistributionRequest(distID))
+                        .getDistribution().getStatus();
+                String invalidationStatus = invalidationID == null ? COMPLETED_STATUS
+                        : cloudFront.getInvalidation(new GetInvalidationRequest(distID, invalidationID))
+                        .getInvalidation().getStatus();
+                log.info("Distribution status={} Invalidation status={}", distStatus, invalidationStatus);
+                if (DEPLOYED_STATUS.equals(distStatus) && COMPLETED_STATUS.equals(invalidationStatus)) {
+                    return true;
+                }
+                if (System.nanoTime() + POLL_INTERVAL.toNanos() > deadline) {
+                    return false;
+                }
+                Thread.sleep(POLL_INTERVAL.toMillis());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (AmazonServiceException e) {
+            String msg = format(INVALID_DIST_ID_MSG,
+                    distID, e.getErrorMessage(), e.getErrorCode(), e.getStatusCode());
+            throw (new AmazonServiceCallException(msg, e));
+        }
+    }
+
     /**
      * @param distID The CloudFront Distribution-ID
      * @return String Resolves to the DefaultSettings Distribution-ID if {@code distID} is empty.
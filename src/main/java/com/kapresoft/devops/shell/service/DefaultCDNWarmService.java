@@ -0,0 +1,158 @@
+package com.kapresoft.devops.shell.service;
+
+import lombok.extern.log4j.Log4j2;
+
+import com.amazonaws.services.s3.model.ListObjectsV2Request;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.kapresoft.devops.shell.config.KapresoftProjectProperties;
+import com.kapresoft.devops.shell.config.S3BucketProperties;
+import com.kapresoft.devops.shell.pojo.S3Bucket;
+import com.kapresoft.devops.shell.pojo.WarmOptions;
+import com.kapresoft.devops.shell.pojo.WarmResult;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+@Log4j2
+@Service
+public class DefaultCDNWarmService implements CDNWarmService {
+
+    private static final String X_CACHE_HEADER = "X-Cache";
+    private static final String INDEX_DOCUMENT = "index.html";
+
+    private final WebClient webClient;
+    private final S3RepositoryService s3RepositoryService;
+    private final S3Bucket s3Bucket;
+
+    public DefaultCDNWarmService(WebClient webClient,
+                                 S3RepositoryService s3RepositoryService,
+                                 S3BucketProperties s3BucketProperties) {
+        this.webClient = webClient;
+        this.s3RepositoryService = s3RepositoryService;
+        this.s3Bucket = s3BucketProperties.getS3Bucket();
+    }
+
+    @NonNull
+    @Override
+    public List<URI> toBuildURLs(@NonNull String keyPath, int limit, @NonNull KapresoftProjectProperties project) {
+        final String prefix = keyPath.endsWith("/") ? keyPath : keyPath + "/";
+        final List<String> paths = new ArrayList<>();
+        try (Stream<S3ObjectSummary> objects = s3RepositoryService.stream(() -> new ListObjectsV2Request()
+                .withBucketName(s3Bucket.name()).withPrefix(prefix))) {
+            objects.map(s3o -> s3o.getKey().substring(prefix.length()))
+                    .filter(StringUtils::hasLength)
+                    .forEach(relativeKey -> {
+                        paths.add("/" + relativeKey);
+                        // The directory URL serves the same index document, as in InvalidationPathCollapser
+                        if (relativeKey.equals(INDEX_DOCUMENT) || relativeKey.endsWith("/" + INDEX_DOCUMENT)) {
+                            paths.add("/" + relativeKey.substring(0, relativeKey.length() - INDEX_DOCUMENT.length()));
+                        }
+                    });
+        }
+        return paths.stream()
+                .sorted(Comparator.comparingInt(DefaultCDNWarmService::priority)
+                        .thenComparingInt(DefaultCDNWarmService::depth)
+                        .thenComparing(Comparator.naturalOrder()))
+                .limit(limit)
+                .map(path -> toURL(project.getCdnURI(), path))
+                .toList();
+    }
+
+    @NonNull
+    @Override
+    public List<URI> toURLs(@NonNull List<String> lines, @NonNull KapresoftProjectProperties project) {
+        return lines.stream()
+                .map(String::trim)
+                .filter(l -> !l.isEmpty() && !l.startsWith("#"))
+                .map(l -> l.split(",")[0].trim())
+                .map(l -> l.startsWith("http://") || l.startsWith("https://") ? URI.create(l) : toURL(project.getCdnURI(), l))
+                .toList();
+    }
+
+    @NonNull
+    @Override
+    public List<WarmResult> warm(@NonNull List<URI> urls, @NonNull WarmOptions options) {
+        log.info("Warming {} URLs: concurrency={} rate={}/s", urls.size(), options.getConcurrency(), options.getRatePerSecond());
+        Flux<URI> source = Flux.fromIterable(urls);
+        if (options.getRatePerSecond() > 0) {
+            source = source.delayElements(Duration.ofNanos(1_000_000_000L / options.getRatePerSecond()));
+        }
+        return source.flatMap(uri -> fetch(uri, options), options.getConcurrency())
+                .collectList()
+                .blockOptional()
+                .orElse(List.of());
+    }
+
+    private Mono<WarmResult> fetch(URI uri, WarmOptions options) {
+        return Mono.defer(() -> {
+            final long start = System.nanoTime();
+            return webClient.get().uri(uri)
+                    .headers(h -> h.addAll(options.getHeaders()))
+                    .exchangeToMono(response -> response.bodyToFlux(DataBuffer.class)
+                            .map(buffer -> {
+                                long n = buffer.readableByteCount();
+                                DataBufferUtils.release(buffer);
+                                return n;
+                            })
+                            .reduce(0L, Long::sum)
+                            .map(bytes -> new WarmResult(uri, response.statusCode().value(), elapsedMillis(start), bytes,
+                                    response.headers().asHttpHeaders().getFirst(X_CACHE_HEADER), null)))
+                    .timeout(options.getTimeout())
+                    .onErrorResume(e -> {
+                        log.debug("Failed to fetch {}", uri, e);
+                        return Mono.just(new WarmResult(uri, 0, elapsedMillis(start), 0, null,
+                                e.getClass().getSimpleName() + ": " + e.getMessage()));
+                    });
+        });
+    }
+
+    private static URI toURL(URI cdnURI, String path) {
+        return UriComponentsBuilder.fromUri(cdnURI)
+                .path(path)
+                .encode()
+                .build()
+                .toUri();
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return Duration.ofNanos(System.nanoTime() - startNanos).toMillis();
+    }
+
+    private static int priority(String path) {
+        String p = path.toLowerCase(Locale.ROOT);
+        if (p.endsWith("/") || p.endsWith(".html") || p.endsWith(".htm")) {
+            return 0;
+        }
+        if (p.endsWith(".css") || p.endsWith(".js")) {
+            return 1;
+        }
+        return 2;
+    }
+
+    private static int depth(String path) {
+        int depth = 0;
+        for (int i = 0; i < path.length(); i++) {
+            if (path.charAt(i) == '/') {
+                depth++;
+            }
+        }
+        return depth;
+    }
+
+}
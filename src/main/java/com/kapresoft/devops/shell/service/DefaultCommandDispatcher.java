@@ -0,0 +1,83 @@
+package com.kapresoft.devops.shell.service;
+
+import lombok.extern.log4j.Log4j2;
+
+import com.kapresoft.devops.shell.util.shell.CommandOutput;
+
+import org.jline.reader.Parser;
+import org.jline.reader.impl.DefaultParser;
+import org.jline.terminal.Terminal;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.lang.NonNull;
+import org.springframework.shell.command.CommandCatalog;
+import org.springframework.shell.command.CommandExecution;
+import org.springframework.shell.command.CommandExecutionHandlerMethodArgumentResolvers;
+import org.springframework.stereotype.Service;
+
+import java.io.PrintWriter;
+import java.util.List;
+
+/**
+ * Commands are run through Spring Shell's own {@link CommandExecution}, with the same argument parsing,
+ * conversion and value resolution as at the prompt.
+ */
+@Log4j2
+@Service
+public class DefaultCommandDispatcher implements CommandDispatcher {
+
+    private final CommandCatalog commandCatalog;
+    private final CommandExecutionHandlerMethodArgumentResolvers argumentResolvers;
+    private final ConversionService conversionService;
+    private final ObjectProvider<Terminal> terminal;
+    private final CommandOutput commandOutput;
+    private final TraceService traceService;
+    private final BuildIndexService buildIndexService;
+    private final Parser parser = new DefaultParser();
+
+    public DefaultCommandDispatcher(CommandCatalog commandCatalog,
+                                    CommandExecutionHandlerMethodArgumentResolvers argumentResolvers,
+                                    ConversionService conversionService,
+                                    ObjectProvider<Terminal> terminal,
+                                    CommandOutput commandOutput,
+                                    TraceService traceService,
+                                    BuildIndexService buildIndexService) {
+        this.commandCatalog = commandCatalog;
+        this.argumentResolvers = argumentResolvers;
+        this.conversionService = conversionService;
+        this.terminal = terminal;
+        this.commandOutput = commandOutput;
+        this.traceService = traceService;
+        this.buildIndexService = buildIndexService;
+    }
+
+    @Override
+    public int dispatch(@NonNull String line, @NonNull PrintWriter out) {
+        List<String> words = parser.parse(line, line.length()).words().stream()
+                .filter(w -> !w.isEmpty())
+                .toList();
+        if (words.isEmpty()) {
+            return EXIT_OK;
+        }
+        buildIndexService.touch();
+        CommandExecution execution = CommandExecution.of(argumentResolvers.getResolvers(), null,
+                terminal.getObject(), conversionService, commandCatalog);
+        traceService.begin();
+        try {
+            Object result = commandOutput.redirect(out, () -> execution.evaluate(words.toArray(String[]::new)));
+            if (result != null) {
+                out.println(result);
+            }
+            return EXIT_OK;
+        } catch (Exception e) {
+            log.debug("Command failed: {}", line, e);
+            Throwable cause = NestedExceptionUtils.getMostSpecificCause(e);
+            out.println("Error: " + (cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName()));
+            return EXIT_ERROR;
+        } finally {
+            traceService.finish().forEach(out::println);
+            out.flush();
+        }
+    }
+}
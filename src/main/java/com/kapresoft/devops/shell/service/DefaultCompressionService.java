@@ -0,0 +1,271 @@
+package com.kapresoft.devops.shell.service;
+
+import lombok.extern.log4j.Log4j2;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.ListObjectsV2Request;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.kapresoft.devops.shell.config.CompressionProperties;
+import com.kapresoft.devops.shell.config.KapresoftProjectProperties;
+import com.kapresoft.devops.shell.config.S3BucketProperties;
+import com.kapresoft.devops.shell.pojo.BuildManifest;
+import com.kapresoft.devops.shell.pojo.S3Bucket;
+import com.kapresoft.devops.shell.pojo.TransferReport;
+import com.kapresoft.devops.shell.util.Gzip;
+import com.kapresoft.devops.shell.util.aws.S3KeyComparator;
+import com.kapresoft.devops.shell.util.aws.S3ListingMergeJoin;
+import com.kapresoft.devops.shell.util.concurrent.BoundedExecutor;
+
+import org.apache.commons.io.IOUtils;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+@Log4j2
+@Service
+public class DefaultCompressionService implements CompressionService {
+
+    private static final Map<String, String> CONTENT_TYPES = Map.ofEntries(
+            Map.entry("html", "text/html; charset=utf-8"),
+            Map.entry("htm", "text/html; charset=utf-8"),
+            Map.entry("css", "text/css; charset=utf-8"),
+            Map.entry("js", "text/javascript; charset=utf-8"),
+            Map.entry("mjs", "text/javascript; charset=utf-8"),
+            Map.entry("json", "application/json"),
+            Map.entry("map", "application/json"),
+            Map.entry("webmanifest", "application/manifest+json"),
+            Map.entry("xml", "application/xml"),
+            Map.entry("rss", "application/rss+xml"),
+            Map.entry("svg", "image/svg+xml"),
+            Map.entry("txt", "text/plain; charset=utf-8"));
+    private static final Set<String> GENERIC_CONTENT_TYPES = Set.of("binary/octet-stream", "application/octet-stream");
+    private static final String NO_TRANSFORM = "no-transform";
+
+    private final AmazonS3 amazonS3;
+    private final S3RepositoryService s3RepositoryService;
+    private final CompressionProperties props;
+    private final S3Bucket s3Bucket;
+    /**
+     * Read by the shell itself, which expects them uncompressed
+     */
+    private final Set<String> excludedFiles;
+    private final String manifestFile;
+
+    public DefaultCompressionService(AmazonS3 amazonS3,
+                                     S3RepositoryService s3RepositoryService,
+                                     CompressionProperties props,
+                                     S3BucketProperties s3BucketProperties,
+                                     KapresoftProjectProperties projectConf) {
+        this.amazonS3 = amazonS3;
+        this.s3RepositoryService = s3RepositoryService;
+        this.props = props;
+        this.s3Bucket = s3BucketProperties.getS3Bucket();
+        this.manifestFile = projectConf.getManifestFile();
+        this.excludedFiles = Set.of(projectConf.getBuildInfoFile(), manifestFile);
+    }
+
+    @Nullable
+    @Override
+    public String getCompressibleContentType(@NonNull String key) {
+        String name = key.substring(key.lastIndexOf('/') + 1);
+        if (excludedFiles.contains(name)) {
+            return null;
+        }
+        int dot = name.lastIndexOf('.');
+        return dot < 0 ? null : CONTENT_TYPES.get(name.substring(dot + 1).toLowerCase(Locale.ROOT));
+    }
+
+    @NonNull
+    @Override
+    public Optional<byte[]> compress(@NonNull byte[] content) {
+        if (content.length < props.getMinSize()) {
+            return Optional.empty();
+        }
+        byte[] compressed = Gzip.compress(content, props.getLevel());
+        long maxSize = (long) content.length * (100 - props.getMinSavingsPercent()) / 100;
+        return compressed.length <= maxSize ? Optional.of(compressed) : Optional.empty();
+    }
+
+    @NonNull
+    @Override
+    public String toCacheControl(@Nullable String existing) {
+        String cacheControl = StringUtils.hasText(props.getCacheControl()) ? props.getCacheControl() : existing;
+        if (!StringUtils.hasText(cacheControl)) {
+            return NO_TRANSFORM;
+        }
+        // Proxies must not decode or re-encode the pre-compressed content
+        return cacheControl.contains(NO_TRANSFORM) ? cacheControl : cacheControl + ", " + NO_TRANSFORM;
+    }
+
+    @NonNull
+    @Override
+    public TransferReport recompress(@NonNull String keyPath, int concurrency, boolean dryRun) {
+        final String prefix = keyPath.endsWith("/") ? keyPath : keyPath + "/";
+        final String location = "s3://%s/%s".formatted(s3Bucket.name(), prefix);
+        final TransferReport report = new TransferReport(location, location, dryRun);
+        final Map<String, BuildManifest.Entry> updated = new ConcurrentHashMap<>();
+        final long start = System.nanoTime();
+        log.info("Compressing {}{}", location, dryRun ? " (dry run)" : "");
+
+        try (BoundedExecutor executor = new BoundedExecutor("recompress", concurrency);
+             Stream<S3ObjectSummary> objects = s3RepositoryService.stream(() -> new ListObjectsV2Request()
+                     .withBucketName(s3Bucket.name()).withPrefix(prefix))) {
+            Iterator<S3ObjectSummary> it = objects.iterator();
+            while (it.hasNext()) {
+                final S3ObjectSummary s3o = it.next();
+                final String relativeKey = S3ListingMergeJoin.relativeKey(s3o, prefix);
+                final String contentType = getCompressibleContentType(relativeKey);
+                if (contentType == null) {
+                    continue;
+                }
+                if (s3o.getSize() < props.getMinSize()) {
+                    report.addSkipped(s3o.getSize());
+                    continue;
+                }
+                boolean accepted = executor.execute(() -> {
+                    try {
+                        recompress(s3o, relativeKey, contentType, dryRun, report).ifPresent(e -> updated.put(relativeKey, e));
+                    } catch (IOException | RuntimeException e) {
+                        log.error("Failed to compress {}", s3o.getKey(), e);
+                        report.addFailure(relativeKey, e.getMessage());
+                    }
+                });
+                if (!accepted) {
+                    report.setAborted(true);
+                    break;
+                }
+            }
+            executor.awaitCompletion();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            report.setAborted(true);
+        }
+
+        if (!updated.isEmpty()) {
+            updateManifest(prefix, updated, report);
+        }
+        report.setElapsed(Duration.ofNanos(System.nanoTime() - start));
+        return report;
+    }
+
+    /**
+     * @return Optional<BuildManifest.Entry> The manifest entry of the compressed object, if it was replaced
+     */
+    private Optional<BuildManifest.Entry> recompress(S3ObjectSummary s3o, String relativeKey, String contentType,
+                                                     boolean dryRun, TransferReport report) throws IOException {
+        final String eTag = S3ListingMergeJoin.normalizeETag(s3o.getETag());
+        final byte[] content;
+        final ObjectMetadata metadata;
+        try (S3Object object = amazonS3.getObject(new GetObjectRequest(s3o.getBucketName(), s3o.getKey())
+                .withMatchingETagConstraint(eTag))) {
+            if (object == null) {
+                report.addFailure(relativeKey, "changed while compressing");
+                return Optional.empty();
+            }
+            metadata = object.getObjectMetadata();
+            if (StringUtils.hasText(metadata.getContentEncoding()) && !"identity".equals(metadata.getContentEncoding())) {
+                object.getObjectContent().abort();
+                report.addSkipped(s3o.getSize());
+                return Optional.empty();
+            }
+            content = IOUtils.toByteArray(object.getObjectContent());
+        }
+        final Optional<byte[]> compressed = compress(content);
+        if (compressed.isEmpty()) {
+            report.addSkipped(s3o.getSize());
+            return Optional.empty();
+        }
+        final byte[] gzip = compressed.get();
+        if (!dryRun) {
+            amazonS3.putObject(new PutObjectRequest(s3o.getBucketName(), s3o.getKey(), new ByteArrayInputStream(gzip),
+                    toCompressedMetadata(metadata, contentType, gzip)));
+        }
+        report.addTransferred(gzip.length);
+        report.addSaved(content.length - gzip.length);
+        return dryRun ? Optional.empty() : Optional.of(new BuildManifest.Entry(md5Hex(gzip), gzip.length, relativeKey));
+    }
+
+    private ObjectMetadata toCompressedMetadata(ObjectMetadata source, String contentType, byte[] gzip) {
+        ObjectMetadata metadata = new ObjectMetadata();
+        String existingType = source.getContentType();
+        metadata.setContentType(existingType == null || GENERIC_CONTENT_TYPES.contains(existingType) ? contentType : existingType);
+        metadata.setContentEncoding(Gzip.CONTENT_ENCODING);
+        metadata.setCacheControl(toCacheControl(source.getCacheControl()));
+        metadata.setContentDisposition(source.getContentDisposition());
+        metadata.setContentLanguage(source.getContentLanguage());
+        metadata.setUserMetadata(source.getUserMetadata());
+        metadata.setContentLength(gzip.length);
+        metadata.setContentMD5(Base64.getEncoder().encodeToString(md5(gzip)));
+        return metadata;
+    }
+
+    /**
+     * The compressed objects are already in place, so a manifest that cannot be updated fails the report: until
+     * it is, {@code verify} reports the compressed objects as mismatched. The client retries transient errors.
+     */
+    private void updateManifest(String prefix, Map<String, BuildManifest.Entry> updated, TransferReport report) {
+        final String key = prefix + manifestFile;
+        final Map<String, BuildManifest.Entry> entries = new TreeMap<>(S3KeyComparator.INSTANCE);
+        try {
+            try (S3Object object = amazonS3.getObject(s3Bucket.name(), key);
+                 BufferedReader reader = new BufferedReader(new InputStreamReader(object.getObjectContent(), StandardCharsets.UTF_8))) {
+                entries.putAll(BuildManifest.parse(reader));
+            }
+            entries.putAll(updated);
+            amazonS3.putObject(s3Bucket.name(), key,
+                    BuildManifest.format("%s (compressed %d files)".formatted(prefix, updated.size()), entries.values()));
+        } catch (AmazonS3Exception e) {
+            if (e.getStatusCode() == 404) {
+                log.info("No manifest to update: s3://{}/{}", s3Bucket.name(), key);
+                return;
+            }
+            failManifest(key, updated, report, e);
+        } catch (IOException | RuntimeException e) {
+            failManifest(key, updated, report, e);
+        }
+    }
+
+    private void failManifest(String key, Map<String, BuildManifest.Entry> updated, TransferReport report, Exception e) {
+        log.error("Failed to update the manifest s3://{}/{}; it no longer matches the {} compressed objects",
+                s3Bucket.name(), key, updated.size(), e);
+        report.addFailure(manifestFile, "not updated for %d compressed objects: %s".formatted(updated.size(), e.getMessage()));
+    }
+
+    private static String md5Hex(byte[] content) {
+        return HexFormat.of().formatHex(md5(content));
+    }
+
+    private static byte[] md5(byte[] content) {
+        try {
+            return MessageDigest.getInstance("MD5").digest(content);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
@@ -0,0 +1,272 @@
+package com.kapresoft.devops.shell.service;
+
+import jakarta.validation.ValidationException;
+import lombok.extern.log4j.Log4j2;
+
+import com.kapresoft.devops.shell.config.JobProperties;
+import com.kapresoft.devops.shell.pojo.JobInfo;
+import com.kapresoft.devops.shell.pojo.JobInfo.State;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.lang.NonNull;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Jobs run on a fixed pool of {@code max-concurrent} threads, so that all jobs together share one limit;
+ * the AWS request limits are shared with the foreground commands as well. A job is cancelled by interrupting
+ * its thread, which ends the listing and read loops of the command at their next remote call.
+ */
+@Log4j2
+@Service
+public class DefaultJobService implements JobService, DisposableBean {
+
+    private final ObjectProvider<CommandDispatcher> dispatcher;
+    private final int maxOutputChars;
+    private final ExecutorService executor;
+    private final AtomicInteger ids = new AtomicInteger();
+    private final Map<Integer, Job> jobs = new ConcurrentSkipListMap<>();
+
+    /**
+     * @param dispatcher Looked up lazily, as the commands it dispatches to include the job commands
+     * @param props      The job settings
+     */
+    public DefaultJobService(ObjectProvider<CommandDispatcher> dispatcher, JobProperties props) {
+        this.dispatcher = dispatcher;
+        this.maxOutputChars = props.getMaxOutputChars();
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("job-");
+        threadFactory.setDaemon(true);
+        this.executor = Executors.newFixedThreadPool(props.getMaxConcurrent(), threadFactory);
+    }
+
+    @NonNull
+    @Override
+    public JobInfo submit(@NonNull String commandLine) {
+        Job job = new Job(ids.incrementAndGet(), commandLine, new JobOutput(maxOutputChars));
+        jobs.put(job.id, job);
+        job.future = executor.submit(() -> run(job));
+        log.debug("Job {} submitted: {}", job.id, commandLine);
+        return job.toInfo();
+    }
+
+    private void run(Job job) {
+        synchronized (job) {
+            if (job.state != State.QUEUED) {
+                return;
+            }
+            job.state = State.RUNNING;
+            job.startedAt = Instant.now();
+        }
+        State state = State.FAILED;
+        try {
+            int exitCode = dispatcher.getObject().dispatch(job.commandLine, new PrintWriter(job.output, true));
+            state = exitCode == CommandDispatcher.EXIT_OK ? State.DONE : State.FAILED;
+        } catch (RuntimeException e) {
+            log.debug("Job {} failed", job.id, e);
+        } finally {
+            // Cancelled takes precedence over the error the interrupt caused
+            job.finish(Thread.interrupted() || job.cancelled ? State.CANCELLED : state);
+        }
+    }
+
+    @NonNull
+    @Override
+    public List<JobInfo> list() {
+        return jobs.values().stream().map(Job::toInfo).toList();
+    }
+
+    @NonNull
+    @Override
+    public Optional<JobInfo> get(int id) {
+        return Optional.ofNullable(jobs.get(id)).map(Job::toInfo);
+    }
+
+    @Override
+    public long readOutput(int id, long offset, @NonNull PrintWriter out) {
+        return getOrThrow(id).output.read(offset, out);
+    }
+
+    @NonNull
+    @Override
+    public JobInfo await(int id, @NonNull Duration timeout) throws InterruptedException {
+        Job job = getOrThrow(id);
+        job.done.await(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        return job.toInfo();
+    }
+
+    @NonNull
+    @Override
+    public JobInfo cancel(int id) {
+        Job job = getOrThrow(id);
+        synchronized (job) {
+            if (job.state.isFinished()) {
+                forget(id);
+                return job.toInfo();
+            }
+            job.cancelled = true;
+            if (job.state == State.QUEUED) {
+                job.finish(State.CANCELLED);
+            }
+        }
+        job.future.cancel(true);
+        return job.toInfo();
+    }
+
+    @Override
+    public void forget(int id) {
+        jobs.computeIfPresent(id, (k, job) -> job.state.isFinished() ? null : job);
+    }
+
+    @NonNull
+    @Override
+    public List<JobInfo> reportFinished() {
+        final List<JobInfo> finished = new ArrayList<>();
+        for (Job job : jobs.values()) {
+            if (job.markReported()) {
+                finished.add(job.toInfo());
+            }
+        }
+        return finished;
+    }
+
+    private Job getOrThrow(int id) {
+        Job job = jobs.get(id);
+        if (job == null) {
+            throw new ValidationException("No such job: %d. See 'jobs'".formatted(id));
+        }
+        return job;
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    private static class Job {
+
+        final int id;
+        final String commandLine;
+        final JobOutput output;
+        final Instant submittedAt = Instant.now();
+        final CountDownLatch done = new CountDownLatch(1);
+        volatile State state = State.QUEUED;
+        volatile boolean cancelled;
+        boolean reported;
+        volatile Instant startedAt;
+        volatile Instant finishedAt;
+        volatile Future<?> future;
+
+        Job(int id, String commandLine, JobOutput output) {
+            this.id = id;
+            this.commandLine = commandLine;
+            this.output = output;
+        }
+
+        synchronized void finish(State state) {
+            this.state = state;
+            this.finishedAt = Instant.now();
+            done.countDown();
+        }
+
+        /**
+         * @return boolean True if the job has finished and this is the first call since
+         */
+        synchronized boolean markReported() {
+            if (!state.isFinished() || reported) {
+                return false;
+            }
+            reported = true;
+            return true;
+        }
+
+        JobInfo toInfo() {
+            return JobInfo.builder()
+                    .id(id)
+                    .commandLine(commandLine)
+                    .state(state)
+                    .submittedAt(submittedAt)
+                    .startedAt(startedAt)
+                    .finishedAt(finishedAt)
+                    .outputLines(output.getLines())
+                    .lastLine(output.getLastLine())
+                    .build();
+        }
+    }
+
+    /**
+     * The output of a job, of which the last {@code maxChars} are kept. Offsets count all characters written,
+     * including the dropped ones.
+     */
+    static class JobOutput extends Writer {
+
+        private final int maxChars;
+        private final StringBuilder buffer = new StringBuilder();
+        private long dropped;
+        private long lines;
+
+        JobOutput(int maxChars) {
+            this.maxChars = maxChars;
+        }
+
+        @Override
+        public synchronized void write(char[] chars, int off, int len) {
+            for (int i = off; i < off + len; i++) {
+                if (chars[i] == '\n') {
+                    lines++;
+                }
+            }
+            buffer.append(chars, off, len);
+            int excess = buffer.length() - maxChars;
+            if (excess > 0) {
+                buffer.delete(0, excess);
+                dropped += excess;
+            }
+        }
+
+        synchronized long read(long offset, PrintWriter out) {
+            int from = (int) Math.max(offset - dropped, 0);
+            if (from < buffer.length()) {
+                out.append(buffer, from, buffer.length());
+            }
+            return dropped + buffer.length();
+        }
+
+        synchronized long getLines() {
+            return lines;
+        }
+
+        synchronized String getLastLine() {
+            int end = buffer.length();
+            if (end > 0 && buffer.charAt(end - 1) == '\n') {
+                end--;
+            }
+            int start = buffer.lastIndexOf("\n", end - 1) + 1;
+            return buffer.substring(start, end).strip();
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
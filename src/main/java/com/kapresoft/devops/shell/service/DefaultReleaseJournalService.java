@@ -0,0 +1,152 @@
+package com.kapresoft.devops.shell.service;
+
+import lombok.extern.log4j.Log4j2;
+
+import com.amazonaws.SdkClientException;
+import com.amazonaws.services.cloudfront.model.DistributionConfig;
+import com.amazonaws.services.cloudfront.model.Origin;
+import com.amazonaws.services.s3.AmazonS3;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.kapresoft.devops.shell.config.JournalProperties;
+import com.kapresoft.devops.shell.config.S3BucketProperties;
+import com.kapresoft.devops.shell.pojo.ReleaseJournalEntry;
+import com.kapresoft.devops.shell.pojo.S3Bucket;
+
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+@Log4j2
+@Service
+public class DefaultReleaseJournalService implements ReleaseJournalService {
+
+    private final ObjectMapper objectMapper;
+    private final AmazonS3 amazonS3;
+    private final S3Bucket s3Bucket;
+    private final Path file;
+    private final String s3Key;
+
+    public DefaultReleaseJournalService(ObjectMapper objectMapper, AmazonS3 amazonS3, S3BucketProperties s3BucketProperties,
+                                        JournalProperties props) {
+        this.objectMapper = objectMapper;
+        this.amazonS3 = amazonS3;
+        this.s3Bucket = s3BucketProperties.getS3Bucket();
+        this.file = Path.of(props.getFile());
+        this.s3Key = props.getS3Key();
+    }
+
+    @NonNull
+    @Override
+    public synchronized ReleaseJournalEntry record(@NonNull String command, @NonNull String distributionId,
+                                                   @NonNull String oldOriginPath, @NonNull DistributionConfig config,
+                                                   @NonNull String eTag) {
+        final ReleaseJournalEntry entry = ReleaseJournalEntry.builder()
+                .timestamp(Instant.now().toString())
+                .user(System.getProperty("user.name"))
+                .command(command)
+                .distributionId(distributionId)
+                .oldOriginPath(oldOriginPath)
+                .newOriginPath(config.getOrigins().getItems().stream().findFirst().map(Origin::getOriginPath).orElse(""))
+                .eTag(eTag)
+                .distributionConfig(toJsonOrNull(config))
+                .build();
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            Files.writeString(file, toJson(entry) + System.lineSeparator(), StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            log.warn("Failed to write the release journal {}: {}", file, e.getMessage());
+            return entry;
+        }
+        if (StringUtils.hasLength(s3Key)) {
+            try {
+                amazonS3.putObject(s3Bucket.name(), s3Key, file.toFile());
+            } catch (SdkClientException e) {
+                log.warn("Failed to copy the release journal to s3://{}/{}: {}", s3Bucket.name(), s3Key, e.getMessage());
+            }
+        }
+        return entry;
+    }
+
+    @NonNull
+    @Override
+    public synchronized List<ReleaseJournalEntry> history(@NonNull String distributionId, int limit) {
+        if (!Files.exists(file)) {
+            return List.of();
+        }
+        final List<String> lines;
+        try {
+            lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read the release journal %s".formatted(file), e);
+        }
+        final List<ReleaseJournalEntry> entries = new ArrayList<>();
+        for (int i = lines.size() - 1; i >= 0 && entries.size() < limit; i--) {
+            String line = lines.get(i);
+            if (!StringUtils.hasText(line)) {
+                continue;
+            }
+            try {
+                ReleaseJournalEntry entry = objectMapper.readValue(line, ReleaseJournalEntry.class);
+                if (distributionId.equals(entry.distributionId())) {
+                    entries.add(entry);
+                }
+            } catch (JsonProcessingException e) {
+                log.warn("Skipped line {} of the release journal {}: {}", i + 1, file, e.getOriginalMessage());
+            }
+        }
+        return entries;
+    }
+
+    @NonNull
+    @Override
+    public Optional<DistributionConfig> getDistributionConfig(@NonNull ReleaseJournalEntry entry) {
+        if (!StringUtils.hasLength(entry.distributionConfig())) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(objectMapper.readerFor(DistributionConfig.class)
+                    .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                    .readValue(entry.distributionConfig()));
+        } catch (IOException | RuntimeException e) {
+            log.debug("Distribution config of the journal entry of {} not readable: {}", entry.timestamp(), e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    @NonNull
+    @Override
+    public Path getFile() {
+        return file;
+    }
+
+    private String toJsonOrNull(DistributionConfig config) {
+        try {
+            return toJson(config);
+        } catch (JsonProcessingException e) {
+            log.warn("Distribution config not recorded: {}", e.getOriginalMessage());
+            return null;
+        }
+    }
+
+    private String toJson(Object value) throws JsonProcessingException {
+        return objectMapper.writer().without(SerializationFeature.INDENT_OUTPUT).writeValueAsString(value);
+    }
+}
@@ -0,0 +1,203 @@
+package com.kapresoft.devops.shell.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.ListObjectsV2Request;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.kapresoft.devops.shell.config.ProjectRegistry;
+import com.kapresoft.devops.shell.config.ReplicationProperties;
+import com.kapresoft.devops.shell.config.S3BucketProperties;
+import com.kapresoft.devops.shell.pojo.BucketQueryResult;
+import com.kapresoft.devops.shell.pojo.ReplicaBucket;
+import com.kapresoft.devops.shell.util.aws.AmazonS3ClientCache;
+import com.kapresoft.devops.shell.util.aws.S3ObjectSummaryIterator;
+
+import org.springframework.lang.NonNull;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import static java.util.Optional.ofNullable;
+
+@Log4j2
+@Service
+public class DefaultReplicaService implements ReplicaService {
+
+    private static final String SITE_PREFIX = "site/";
+    /**
+     * Only this many keys are kept per difference type for display
+     */
+    private static final int MAX_KEYS = 20;
+
+    private final AmazonS3 amazonS3;
+    private final AmazonS3ClientCache clientCache;
+    private final ProjectRegistry projectRegistry;
+    private final List<ReplicaBucket> buckets;
+    private final ExecutorService executor;
+
+    private record ObjectInfo(long size, String eTag) {
+    }
+
+    public DefaultReplicaService(AmazonS3 amazonS3,
+                                 AmazonS3ClientCache clientCache,
+                                 ProjectRegistry projectRegistry,
+                                 S3BucketProperties s3BucketProperties,
+                                 ReplicationProperties props) {
+        this.amazonS3 = amazonS3;
+        this.clientCache = clientCache;
+        this.projectRegistry = projectRegistry;
+        final List<ReplicaBucket> all = new ArrayList<>();
+        all.add(new ReplicaBucket(s3BucketProperties.getS3Bucket(), props.getPrimaryRegion(), props.getTimeout(), true));
+        for (ReplicationProperties.Replica r : props.getReplicas()) {
+            all.add(new ReplicaBucket(S3BucketProperties.createBucket(r.bucket())
+                    .orElseThrow(() -> new IllegalStateException("Replica bucket is empty")),
+                    r.region(), ofNullable(r.timeout()).orElse(props.getTimeout()), false));
+        }
+        this.buckets = List.copyOf(all);
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("replica-");
+        threadFactory.setDaemon(true);
+        this.executor = Executors.newCachedThreadPool(threadFactory);
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    @NonNull
+    @Override
+    public List<ReplicaBucket> getBuckets() {
+        return buckets;
+    }
+
+    @NonNull
+    @Override
+    public List<BucketQueryResult<Map<String, Date>>> listBuilds() {
+        return queryAll(b -> {
+            final Map<String, Date> builds = new HashMap<>();
+            try (Stream<S3ObjectSummary> objects = list(b, SITE_PREFIX)) {
+                objects.filter(s3o -> projectRegistry.isBuildInfoKey(s3o.getKey()))
+                        .forEach(s3o -> builds.put(s3o.getKey().substring(0, s3o.getKey().lastIndexOf('/')), s3o.getLastModified()));
+            }
+            return builds;
+        });
+    }
+
+    @NonNull
+    @Override
+    public List<BucketQueryResult<Comparison>> verify(@NonNull String keyPath) {
+        final String prefix = keyPath.endsWith("/") ? keyPath : keyPath + "/";
+        final List<BucketQueryResult<Map<String, ObjectInfo>>> listings = queryAll(b -> {
+            final Map<String, ObjectInfo> objects = new HashMap<>();
+            try (Stream<S3ObjectSummary> stream = list(b, prefix)) {
+                stream.forEach(s3o -> objects.put(s3o.getKey(), new ObjectInfo(s3o.getSize(), s3o.getETag())));
+            }
+            return objects;
+        });
+        final Map<String, ObjectInfo> primary = listings.get(0).value();
+        final List<BucketQueryResult<Comparison>> results = new ArrayList<>(listings.size());
+        for (BucketQueryResult<Map<String, ObjectInfo>> listing : listings) {
+            Comparison comparison = null;
+            if (listing.isOk()) {
+                comparison = primary == null
+                        ? Comparison.unknown(listing.value().size())
+                        : compare(primary, listing.value());
+            }
+            results.add(new BucketQueryResult<>(listing.bucket(), listing.status(), listing.error(), listing.elapsed(), comparison));
+        }
+        return results;
+    }
+
+    private static Comparison compare(Map<String, ObjectInfo> primary, Map<String, ObjectInfo> replica) {
+        final List<String> missing = new ArrayList<>();
+        final List<String> mismatched = new ArrayList<>();
+        final List<String> extra = new ArrayList<>();
+        primary.forEach((key, expected) -> {
+            ObjectInfo actual = replica.get(key);
+            if (actual == null) {
+                missing.add(key);
+            } else if (actual.size() != expected.size() || !Objects.equals(actual.eTag(), expected.eTag())) {
+                mismatched.add(key);
+            }
+        });
+        replica.keySet().stream().filter(key -> !primary.containsKey(key)).forEach(extra::add);
+        return new Comparison(replica.size(), true, firstKeys(missing), firstKeys(mismatched), firstKeys(extra));
+    }
+
+    private static List<String> firstKeys(List<String> keys) {
+        Collections.sort(keys);
+        return keys.size() <= MAX_KEYS ? keys : new ArrayList<>(keys.subList(0, MAX_KEYS));
+    }
+
+    private Stream<S3ObjectSummary> list(ReplicaBucket b, String prefix) {
+        final AmazonS3 client = b.primary() ? amazonS3 : clientCache.get(b.region());
+        // Bounds each page request as well, since a cancelled task does not interrupt a blocked request
+        final int timeoutMillis = (int) Math.min(b.timeout().toMillis(), Integer.MAX_VALUE);
+        return S3ObjectSummaryIterator.stream(client, () -> new ListObjectsV2Request()
+                .withBucketName(b.bucket().name())
+                .withPrefix(prefix)
+                .withSdkClientExecutionTimeout(timeoutMillis));
+    }
+
+    /**
+     * Sends the query to all buckets at once and waits for each one until its own deadline.
+     */
+    private <T> List<BucketQueryResult<T>> queryAll(Function<ReplicaBucket, T> query) {
+        final long start = System.nanoTime();
+        final List<CompletableFuture<T>> futures = new ArrayList<>(buckets.size());
+        final long[] finished = new long[buckets.size()];
+        for (int i = 0; i < buckets.size(); i++) {
+            final ReplicaBucket b = buckets.get(i);
+            final int index = i;
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                T value = query.apply(b);
+                finished[index] = System.nanoTime();
+                return value;
+            }, executor));
+        }
+        final List<BucketQueryResult<T>> results = new ArrayList<>(buckets.size());
+        for (int i = 0; i < buckets.size(); i++) {
+            final ReplicaBucket b = buckets.get(i);
+            final CompletableFuture<T> future = futures.get(i);
+            final long remaining = start + b.timeout().toNanos() - System.nanoTime();
+            try {
+                T value = future.get(Math.max(remaining, 0), TimeUnit.NANOSECONDS);
+                results.add(new BucketQueryResult<>(b, BucketQueryResult.Status.OK, null,
+                        Duration.ofNanos(finished[i] - start), value));
+            } catch (TimeoutException e) {
+                future.cancel(true);
+                log.debug("No answer from {} after {}", b, b.timeout());
+                results.add(new BucketQueryResult<>(b, BucketQueryResult.Status.TIMEOUT,
+                        "no answer after %s ms".formatted(b.timeout().toMillis()), b.timeout(), null));
+            } catch (ExecutionException e) {
+                log.debug("Query failed: {}", b, e.getCause());
+                results.add(new BucketQueryResult<>(b, BucketQueryResult.Status.FAILED, e.getCause().getMessage(),
+                        Duration.ofNanos(System.nanoTime() - start), null));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.forEach(f -> f.cancel(true));
+                throw new IllegalStateException("Interrupted while querying the buckets", e);
+            }
+        }
+        return results;
+    }
+
+}
@@ -0,0 +1,75 @@
+package com.kapresoft.devops.shell.service;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.S3ObjectInputStream;
+import com.kapresoft.devops.shell.config.HedgingProperties;
+import com.kapresoft.devops.shell.util.concurrent.Hedger;
+
+
+import org.apache.commons.io.IOUtils;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+
+@Service
+public class DefaultS3ReadService implements S3ReadService, DisposableBean {
+
+    private final AmazonS3 amazonS3;
+    @Nullable
+    private final Hedger hedger;
+
+    public DefaultS3ReadService(AmazonS3 amazonS3, HedgingProperties props) {
+        this.amazonS3 = amazonS3;
+        this.hedger = props.isEnabled()
+                ? new Hedger("s3-hedge", props.getPercentile(), props.getMinDelay(), props.getBudgetPercent() / 100, props.getWindow())
+                : null;
+    }
+
+    @Override
+    @NonNull
+    public String readText(@NonNull String bucketName, @NonNull String key) throws IOException {
+        if (hedger == null) {
+            return get(bucketName, key);
+        }
+        try {
+            return hedger.call(() -> get(bucketName, key));
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while reading " + key);
+        }
+    }
+
+    private String get(String bucketName, String key) throws IOException {
+        try (S3ObjectInputStream is = amazonS3.getObject(bucketName, key).getObjectContent()) {
+            return IOUtils.toString(is, StandardCharsets.UTF_8);
+        }
+    }
+
+    @Override
+    @NonNull
+    public Optional<Hedger.Stats> getHedgeStats() {
+        return Optional.ofNullable(hedger).map(Hedger::stats);
+    }
+
+    @Override
+    public void destroy() {
+        if (hedger != null) {
+            hedger.close();
+        }
+    }
+}
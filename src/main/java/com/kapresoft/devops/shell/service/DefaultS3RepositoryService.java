@@ -5,6 +5,7 @@ import lombok.Getter;
 import lombok.extern.log4j.Log4j2;
 
 import com.amazonaws.SdkClientException;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.model.CopyObjectRequest;
 import com.amazonaws.services.s3.model.ListObjectsV2Request;
@@ -14,14 +15,20 @@ import com.amazonaws.services.s3.model.S3Object;
 import com.amazonaws.services.s3.model.S3ObjectSummary;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kapresoft.devops.shell.config.KapresoftProjectProperties;
+import com.kapresoft.devops.shell.config.ProjectRegistry;
 import com.kapresoft.devops.shell.config.S3BucketProperties;
 import com.kapresoft.devops.shell.converter.http.message.BuildInfoConverter;
+import com.kapresoft.devops.shell.converter.http.message.URIToBuildInfoDetailsConverter;
 import com.kapresoft.devops.shell.decorator.BuildInfoCLIOutputDecorator;
 import com.kapresoft.devops.shell.exception.service.NonUniqueResultException;
 import com.kapresoft.devops.shell.pojo.BuildInfoDetails;
 import com.kapresoft.devops.shell.pojo.S3Bucket;
+import com.kapresoft.devops.shell.pojo.S3Query;
+import com.kapresoft.devops.shell.util.aws.S3CommonPrefixIterator;
+import com.kapresoft.devops.shell.util.aws.S3ObjectSummaryIterator;
+import com.kapresoft.devops.shell.util.concurrent.Cancellation;
 
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.convert.ConversionService;
 import org.springframework.core.convert.TypeDescriptor;
 import org.springframework.lang.NonNull;
@@ -34,6 +41,7 @@ import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
@@ -46,7 +54,6 @@ import static java.util.Optional.*;
 @Repository
 public class DefaultS3RepositoryService implements S3RepositoryService {
 
-    private static final String BUILD_INFO_FILE_NAME = "build.yml";
     private static final String SITE_PATH_NAME = "site";
 
     @Nonnull
@@ -59,28 +66,28 @@ public class DefaultS3RepositoryService implements S3RepositoryService {
     @NonNull
     private final ObjectMapper objectMapper;
     @NonNull
-    private final URI cdnURI;
+    private final ProjectRegistry projectRegistry;
     @NonNull
-    private final String buildInfoFile;
+    private final URIToBuildInfoDetailsConverter uriToBuildInfoDetailsConverter;
 
     public DefaultS3RepositoryService(@NonNull AmazonS3 amazonS3,
                                       @NonNull S3BucketProperties s3BucketProperties,
                                       @NonNull ConversionService conversionService,
+                                      @NonNull URIToBuildInfoDetailsConverter uriToBuildInfoDetailsConverter,
                                       @NonNull ObjectMapper objectMapper,
-                                      @NonNull @Value("${spring.application.code-build-project.kapresoft-articles.cdn}") URI cdnURL,
-                                      @NonNull @Value("${spring.application.code-build-project.kapresoft-articles.build-info-file:build.yml}") String buildInfoFile) {
+                                      @NonNull ProjectRegistry projectRegistry) {
         this.amazonS3 = amazonS3;
         this.s3Bucket = s3BucketProperties.getS3Bucket();
         this.conversionService = conversionService;
         this.objectMapper = objectMapper;
-        this.cdnURI = cdnURL;
-        this.buildInfoFile = buildInfoFile;
+        this.projectRegistry = projectRegistry;
+        this.uriToBuildInfoDetailsConverter = uriToBuildInfoDetailsConverter;
     }
 
     @NonNull
     @Override
     public URI getCdnURI() {
-        return cdnURI;
+        return projectRegistry.getDefault().getCdnURI();
     }
 
     // I don't think this is needed: updateReleaseInfo
@@ -114,17 +121,31 @@ public class DefaultS3RepositoryService implements S3RepositoryService {
         }
     }
 
-    /**
-     * Might be deleted in the future
-     */
-    @Deprecated
     @NonNull
     @Override
     public Optional<BuildInfoDetails> getLiveBuildInfo() {
-        final URI buildInfoUri = UriComponentsBuilder.fromUri(cdnURI)
-                .path(buildInfoFile).build()
+        return ofNullable(conversionService.convert(getLiveBuildInfoURI(projectRegistry.getDefault()), BuildInfoDetails.class));
+    }
+
+    @NonNull
+    @Override
+    public CompletableFuture<Optional<BuildInfoDetails>> fetchLiveBuildInfo() {
+        return fetchLiveBuildInfo(projectRegistry.getDefault());
+    }
+
+    @NonNull
+    @Override
+    public CompletableFuture<Optional<BuildInfoDetails>> fetchLiveBuildInfo(@NonNull KapresoftProjectProperties project) {
+        return uriToBuildInfoDetailsConverter.fetch(getLiveBuildInfoURI(project))
+                .map(Optional::of)
+                .defaultIfEmpty(empty())
+                .toFuture();
+    }
+
+    private static URI getLiveBuildInfoURI(KapresoftProjectProperties project) {
+        return UriComponentsBuilder.fromUri(project.getCdnURI())
+                .path(project.getBuildInfoFile()).build()
                 .toUri();
-        return ofNullable(conversionService.convert(buildInfoUri, BuildInfoDetails.class));
     }
 
     @Override
@@ -141,14 +162,64 @@ public class DefaultS3RepositoryService implements S3RepositoryService {
     @NonNull
     @Override
     public Optional<S3ObjectSummary> find(@NonNull Predicate<S3ObjectSummary> predicate, @NonNull Supplier<ListObjectsV2Request> requestSupplier) {
-        final List<S3ObjectSummary> results = findAll(predicate, requestSupplier);
-        if (results.size() == 1) {
-            return of(results.get(0));
+        try (Stream<S3ObjectSummary> objects = stream(requestSupplier)) {
+            return unique(objects.filter(predicate));
+        }
+    }
+
+    @NonNull
+    @Override
+    public Optional<S3ObjectSummary> find(@NonNull S3Query query) {
+        try (Stream<S3ObjectSummary> objects = stream(query)) {
+            return unique(objects);
         }
+    }
+
+    private static Optional<S3ObjectSummary> unique(Stream<S3ObjectSummary> matches) {
+        // A second match decides it; the rest of the listing is not fetched
+        final List<S3ObjectSummary> results = matches.limit(2).toList();
         if (results.size() > 1) {
             throw new NonUniqueResultException("S3ObjectSummary");
         }
-        return empty();
+        return results.stream().findFirst();
+    }
+
+    @NonNull
+    @Override
+    public List<S3ObjectSummary> findAll(@NonNull S3Query query) {
+        try (Stream<S3ObjectSummary> objects = stream(query)) {
+            return objects.toList();
+        }
+    }
+
+    @NonNull
+    @Override
+    public Stream<S3ObjectSummary> stream(@NonNull S3Query query) {
+        if (query.isExactKey()) {
+            return head(query.getKey()).filter(query::matches).stream();
+        }
+        Stream<S3ObjectSummary> matches = stream(() -> query.toRequest(s3Bucket.name())).filter(query::matches);
+        return query.getLimit() > 0 ? matches.limit(query.getLimit()) : matches;
+    }
+
+    private Optional<S3ObjectSummary> head(String key) {
+        final ObjectMetadata metadata;
+        try {
+            metadata = amazonS3.getObjectMetadata(s3Bucket.name(), key);
+        } catch (AmazonS3Exception e) {
+            if (e.getStatusCode() == 404) {
+                return empty();
+            }
+            throw e;
+        }
+        S3ObjectSummary s3o = new S3ObjectSummary();
+        s3o.setBucketName(s3Bucket.name());
+        s3o.setKey(key);
+        s3o.setETag(metadata.getETag());
+        s3o.setSize(metadata.getContentLength());
+        s3o.setLastModified(metadata.getLastModified());
+        s3o.setStorageClass(metadata.getStorageClass());
+        return of(s3o);
     }
 
     @NonNull
@@ -173,6 +244,7 @@ public class DefaultS3RepositoryService implements S3RepositoryService {
 
         ListObjectsV2Result response;
         do {
+            Cancellation.throwIfInterrupted("Listing of %s".formatted(request.getPrefix()));
             response = amazonS3.listObjectsV2(request);
             Stream<S3ObjectSummary> localStream = response.getObjectSummaries().stream().filter(predicate);
             streamConsumer.accept(localStream);
@@ -182,12 +254,70 @@ public class DefaultS3RepositoryService implements S3RepositoryService {
         } while (response.isTruncated());
     }
 
+    @NonNull
+    @Override
+    public Stream<S3ObjectSummary> stream(@NonNull Supplier<ListObjectsV2Request> requestSupplier) {
+        return S3ObjectSummaryIterator.stream(amazonS3, requestSupplier);
+    }
+
+    @NonNull
+    @Override
+    public Stream<String> streamDirectories(@NonNull String prefix) {
+        return S3CommonPrefixIterator.stream(amazonS3, s3Bucket.name(), prefix);
+    }
+
+    @NonNull
+    @Override
+    public Stream<String> streamBuildVersions() {
+        String sitePrefix = SITE_PATH_NAME + S3CommonPrefixIterator.DELIMITER;
+        // site/{build-version}/
+        return streamDirectories(sitePrefix)
+                .map(dir -> dir.substring(sitePrefix.length(), dir.length() - 1));
+    }
+
+    @NonNull
+    @Override
+    public Stream<String> streamBuildKeyPaths(@NonNull String buildVersion) {
+        // site/{build-version}/{project-name}/
+        return streamDirectories("%s/%s/".formatted(SITE_PATH_NAME, buildVersion))
+                .map(dir -> dir.substring(0, dir.length() - 1));
+    }
+
+    @NonNull
+    @Override
+    public Optional<BuildInfoDetails> findBuild(@NonNull String buildVersion) {
+        return find(S3Query.builder()
+                .prefix("%s/%s/".formatted(SITE_PATH_NAME, buildVersion))
+                .filter(s3o -> projectRegistry.isBuildInfoKey(s3o.getKey()))
+                .build())
+                .flatMap(this::toBuildInfo);
+    }
+
+    @NonNull
+    @Override
+    public Optional<BuildInfoDetails> findBuild(@NonNull String buildVersion, @NonNull KapresoftProjectProperties project) {
+        return find(S3Query.builder()
+                .prefix("%s/%s/".formatted(SITE_PATH_NAME, buildVersion))
+                .suffix("/" + project.getBuildInfoFile())
+                .filter(s3o -> projectRegistry.forKey(s3o.getKey()) == project)
+                .build())
+                .flatMap(this::toBuildInfo);
+    }
+
+    @NonNull
+    @Override
+    public Stream<BuildInfoDetails> streamBuilds() {
+        return stream(() -> new ListObjectsV2Request().withBucketName(s3Bucket.name()).withPrefix(SITE_PATH_NAME))
+                .filter(s3o -> projectRegistry.isBuildInfoKey(s3o.getKey()))
+                .flatMap(s3o -> toBuildInfo(s3o).stream());
+    }
+
     @Override
     @SuppressWarnings("unchecked")
     public List<BuildInfoDetails> findAllBuilds() {
 
         final List<S3ObjectSummary> sites = findAll(
-                s3 -> s3.getKey().endsWith(BUILD_INFO_FILE_NAME), () -> new ListObjectsV2Request()
+                s3 -> projectRegistry.isBuildInfoKey(s3.getKey()), () -> new ListObjectsV2Request()
                         .withBucketName(s3Bucket.name()).withPrefix(SITE_PATH_NAME));
         if (sites.isEmpty()) {
             return emptyList();
@@ -206,7 +336,7 @@ public class DefaultS3RepositoryService implements S3RepositoryService {
     @SuppressWarnings("unchecked")
     public List<BuildInfoCLIOutputDecorator> findAllBuildsAsDecorators(Consumer<BuildInfoCLIOutputDecorator> consumer) {
         final List<S3ObjectSummary> sites = findAll(
-                s3 -> s3.getKey().endsWith(BUILD_INFO_FILE_NAME), () -> new ListObjectsV2Request()
+                s3 -> projectRegistry.isBuildInfoKey(s3.getKey()), () -> new ListObjectsV2Request()
                         .withBucketName(s3Bucket.name()).withPrefix(SITE_PATH_NAME));
         if (sites.isEmpty()) {
             return emptyList();
@@ -238,7 +368,7 @@ public class DefaultS3RepositoryService implements S3RepositoryService {
     @NonNull
     @Override
     public Optional<BuildInfoDetails> toBuildInfo(S3ObjectSummary summary) {
-        //BuildInfoDetails buildInfo = null;
+        Cancellation.throwIfInterrupted("Read of %s".formatted(summary.getKey()));
         return ofNullable(conversionService.convert(summary, BuildInfoDetails.class));
     }
 }
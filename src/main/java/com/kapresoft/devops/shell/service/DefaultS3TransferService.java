@@ -0,0 +1,498 @@
+package com.kapresoft.devops.shell.service;
+
+import lombok.extern.log4j.Log4j2;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CopyObjectRequest;
+import com.amazonaws.services.s3.model.CopyPartRequest;
+import com.amazonaws.services.s3.model.CopyPartResult;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.ListObjectsV2Request;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PartETag;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.amazonaws.services.s3.transfer.TransferManager;
+import com.amazonaws.services.s3.transfer.TransferManagerBuilder;
+import com.amazonaws.services.s3.transfer.Upload;
+import com.kapresoft.devops.shell.config.KapresoftProjectProperties;
+import com.kapresoft.devops.shell.config.S3BucketProperties;
+import com.kapresoft.devops.shell.converter.http.message.BuildInfoConverter;
+import com.kapresoft.devops.shell.converter.http.message.BuildInfoToYamlTextConverter;
+import com.kapresoft.devops.shell.pojo.BuildDiffEntry;
+import com.kapresoft.devops.shell.pojo.BuildDiffEntry.Change;
+import com.kapresoft.devops.shell.pojo.BuildInfo;
+import com.kapresoft.devops.shell.pojo.BuildManifest;
+import com.kapresoft.devops.shell.pojo.DeployOptions;
+import com.kapresoft.devops.shell.pojo.S3Bucket;
+import com.kapresoft.devops.shell.pojo.S3Location;
+import com.kapresoft.devops.shell.pojo.TransferReport;
+import com.kapresoft.devops.shell.util.ByteUnits;
+import com.kapresoft.devops.shell.util.Gzip;
+import com.kapresoft.devops.shell.util.aws.ETagCalculator;
+import com.kapresoft.devops.shell.util.aws.S3KeyComparator;
+import com.kapresoft.devops.shell.util.aws.S3ListingMergeJoin;
+import com.kapresoft.devops.shell.util.concurrent.BoundedExecutor;
+
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static com.kapresoft.devops.shell.util.aws.S3ListingMergeJoin.normalizeETag;
+
+@Log4j2
+@Service
+public class DefaultS3TransferService implements S3TransferService {
+
+    /**
+     * Larger objects are copied in parts; a single CopyObject is limited to 5 GB
+     */
+    static final long MULTIPART_THRESHOLD = 256L * 1024 * 1024;
+    static final long PART_SIZE = 128L * 1024 * 1024;
+    /**
+     * User metadata recording the ETag of the source object when the copy gets a different ETag,
+     * i.e. for multipart sources, so that a later run can still tell the copy is up-to-date
+     */
+    static final String SOURCE_ETAG_METADATA = "source-etag";
+    private static final long PROGRESS_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private final AmazonS3 amazonS3;
+    private final S3RepositoryService s3RepositoryService;
+    private final CompressionService compressionService;
+    private final S3Bucket s3Bucket;
+    private final KapresoftProjectProperties projectConf;
+    private final String buildInfoFile;
+
+    public DefaultS3TransferService(AmazonS3 amazonS3,
+                                    S3RepositoryService s3RepositoryService,
+                                    CompressionService compressionService,
+                                    S3BucketProperties s3BucketProperties,
+                                    KapresoftProjectProperties projectConf) {
+        this.amazonS3 = amazonS3;
+        this.s3RepositoryService = s3RepositoryService;
+        this.compressionService = compressionService;
+        this.s3Bucket = s3BucketProperties.getS3Bucket();
+        this.projectConf = projectConf;
+        this.buildInfoFile = projectConf.getBuildInfoFile();
+    }
+
+    @NonNull
+    @Override
+    public TransferReport promote(@NonNull String keyPath, @NonNull S3Location target, int concurrency, boolean dryRun) {
+        final String sourcePrefix = keyPath.endsWith("/") ? keyPath : keyPath + "/";
+        final String targetPrefix = target.prefix().isEmpty() ? sourcePrefix : target.prefix();
+        final S3Bucket targetBucket = target.bucket();
+        final TransferReport report = new TransferReport("s3://%s/%s".formatted(s3Bucket.name(), sourcePrefix),
+                "s3://%s/%s".formatted(targetBucket.name(), targetPrefix), dryRun);
+        final long start = System.nanoTime();
+        final AtomicLong lastProgress = new AtomicLong(start);
+        final AtomicReference<BuildDiffEntry> buildInfoEntry = new AtomicReference<>();
+        log.info("Promoting {} to {}{}", report.getSource(), report.getTarget(), dryRun ? " (dry run)" : "");
+
+        try (BoundedExecutor executor = new BoundedExecutor("promote", concurrency);
+             Stream<S3ObjectSummary> existing = s3RepositoryService.stream(() -> new ListObjectsV2Request()
+                     .withBucketName(targetBucket.name()).withPrefix(targetPrefix));
+             Stream<S3ObjectSummary> objects = s3RepositoryService.stream(() -> new ListObjectsV2Request()
+                     .withBucketName(s3Bucket.name()).withPrefix(sourcePrefix))) {
+            // Joined as target -> source, so ADDED and CHANGED are the objects to copy
+            S3ListingMergeJoin.join(targetPrefix, existing.iterator(), sourcePrefix, objects.iterator(), e -> {
+                if (e.change() == Change.UNCHANGED) {
+                    report.addSkipped(e.toSize());
+                } else if (e.change() != Change.REMOVED) {
+                    if (e.relativeKey().equals(buildInfoFile)) {
+                        buildInfoEntry.set(e);
+                    } else {
+                        submit(executor, () -> transfer(e, targetBucket, targetPrefix, dryRun, report));
+                    }
+                }
+                long now = System.nanoTime();
+                long last = lastProgress.get();
+                if (now - last > PROGRESS_INTERVAL_NANOS && lastProgress.compareAndSet(last, now)) {
+                    log.info("Promote: {}, {}", report.toProgress(),
+                            ByteUnits.throughput(report.getTransferredBytes(), Duration.ofNanos(now - start)));
+                }
+            });
+            executor.awaitCompletion();
+        } catch (CancellationException e) {
+            report.setAborted(true);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            report.setAborted(true);
+        }
+
+        BuildDiffEntry buildInfo = buildInfoEntry.get();
+        if (buildInfo != null) {
+            if (report.isSuccessful()) {
+                transfer(buildInfo, targetBucket, targetPrefix, dryRun, report);
+            } else {
+                log.warn("Skipped {}; the target build is incomplete", buildInfoFile);
+            }
+        }
+        report.setElapsed(Duration.ofNanos(System.nanoTime() - start));
+        return report;
+    }
+
+    @NonNull
+    @Override
+    public TransferReport deploy(@NonNull Path localDir, @NonNull DeployOptions options) {
+        final KapresoftProjectProperties project = project(options);
+        final String keyPath = BuildInfoConverter.KEY_PATH_FMT.formatted(options.getVersion(), project.getName());
+        final String prefix = keyPath + "/";
+        final TransferReport report = new TransferReport(localDir.toString(),
+                "s3://%s/%s".formatted(s3Bucket.name(), prefix), options.isDryRun());
+        final long start = System.nanoTime();
+        log.info("Deploying {} to {}{}", report.getSource(), report.getTarget(), options.isDryRun() ? " (dry run)" : "");
+
+        final Map<String, LocalFile> local = hash(localDir, options);
+        log.info("Hashed {} files in {} ms", local.size(), Duration.ofNanos(System.nanoTime() - start).toMillis());
+
+        final Map<String, S3ObjectSummary> remote = new HashMap<>();
+        try (Stream<S3ObjectSummary> objects = s3RepositoryService.stream(() -> new ListObjectsV2Request()
+                .withBucketName(s3Bucket.name()).withPrefix(prefix))) {
+            objects.forEach(s3o -> remote.put(S3ListingMergeJoin.relativeKey(s3o, prefix), s3o));
+        }
+
+        // The manager's threads also complete multipart uploads by waiting on their parts, so it gets
+        // twice as many threads as files in flight to always leave room for the parts
+        final CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("deploy-");
+        threadFactory.setDaemon(true);
+        final TransferManager transferManager = TransferManagerBuilder.standard()
+                .withS3Client(amazonS3)
+                .withExecutorFactory(() -> Executors.newFixedThreadPool(options.getConcurrency() * 2, threadFactory))
+                .withMultipartUploadThreshold(options.getPartSize())
+                .withMinimumUploadPartSize(options.getPartSize())
+                .build();
+        final Deque<PendingUpload> inFlight = new ArrayDeque<>();
+        long lastProgress = start;
+        try {
+            for (Map.Entry<String, LocalFile> e : local.entrySet()) {
+                final LocalFile file = e.getValue();
+                final ETagCalculator.Digest digest = file.digest();
+                final S3ObjectSummary existing = remote.get(e.getKey());
+                if (existing != null && existing.getSize() == digest.size()
+                        && digest.eTag().equals(normalizeETag(existing.getETag()))) {
+                    report.addSkipped(digest.size());
+                    continue;
+                }
+                if (options.isDryRun()) {
+                    report.addTransferred(digest.size());
+                    report.addSaved(file.savedBytes());
+                    continue;
+                }
+                while (inFlight.size() >= options.getConcurrency()) {
+                    await(inFlight.poll(), report);
+                }
+                try {
+                    Upload upload = transferManager.upload(toPutObjectRequest(prefix + e.getKey(), file));
+                    inFlight.add(new PendingUpload(e.getKey(), digest.size(), file.savedBytes(), upload));
+                } catch (RuntimeException ex) {
+                    log.error("Failed to upload {}", e.getKey(), ex);
+                    report.addFailure(e.getKey(), ex.getMessage());
+                }
+
+                long now = System.nanoTime();
+                if (now - lastProgress > PROGRESS_INTERVAL_NANOS) {
+                    lastProgress = now;
+                    log.info("Deploy: {}, {}", report.toProgress(),
+                            ByteUnits.throughput(report.getTransferredBytes(), Duration.ofNanos(now - start)));
+                }
+            }
+            while (!inFlight.isEmpty()) {
+                await(inFlight.poll(), report);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            report.setAborted(true);
+            inFlight.forEach(p -> p.upload().abort());
+        } finally {
+            transferManager.shutdownNow(false);
+        }
+
+        if (report.isSuccessful() && !options.isDryRun()) {
+            amazonS3.putObject(s3Bucket.name(), prefix + project.getManifestFile(), toManifest(options, local));
+            amazonS3.putObject(s3Bucket.name(), prefix + project.getBuildInfoFile(), toBuildInfoText(options));
+        } else if (!report.isSuccessful()) {
+            log.warn("Skipped {}; the build is incomplete", project.getBuildInfoFile());
+        }
+        report.setElapsed(Duration.ofNanos(System.nanoTime() - start));
+        return report;
+    }
+
+    /**
+     * @param file        The local file
+     * @param digest      The digest of the uploaded content
+     * @param contentType The content type of compressed content; null when uploaded as-is
+     * @param savedBytes  The bytes saved by compressing
+     */
+    private record LocalFile(Path file, ETagCalculator.Digest digest, @Nullable String contentType, long savedBytes) {
+
+        boolean isCompressed() {
+            return contentType != null;
+        }
+    }
+
+    private record PendingUpload(String relativeKey, long size, long savedBytes, Upload upload) {
+    }
+
+    /**
+     * Compressed files are compressed again at upload time instead of being held in memory;
+     * the compression is deterministic so the content matches the hashed one.
+     */
+    private PutObjectRequest toPutObjectRequest(String key, LocalFile file) {
+        if (!file.isCompressed()) {
+            return new PutObjectRequest(s3Bucket.name(), key, file.file().toFile());
+        }
+        final byte[] gzip = compressionService.compress(readAllBytes(file.file()))
+                .orElseThrow(() -> new IllegalStateException("%s changed during the deployment".formatted(file.file())));
+        final ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentType(file.contentType());
+        metadata.setContentEncoding(Gzip.CONTENT_ENCODING);
+        metadata.setCacheControl(compressionService.toCacheControl(null));
+        metadata.setContentLength(gzip.length);
+        return new PutObjectRequest(s3Bucket.name(), key, new ByteArrayInputStream(gzip), metadata);
+    }
+
+    private static void await(PendingUpload pending, TransferReport report) throws InterruptedException {
+        try {
+            pending.upload().waitForCompletion();
+            report.addTransferred(pending.size());
+            report.addSaved(pending.savedBytes());
+        } catch (RuntimeException e) {
+            log.error("Failed to upload {}", pending.relativeKey(), e);
+            report.addFailure(pending.relativeKey(), e.getMessage());
+        }
+    }
+
+    /**
+     * Hashes, and compresses if enabled, the files on a dedicated fork-join pool; the work is CPU bound
+     * once the pages are mapped.
+     * @return Map<String, LocalFile> The files by relative key, in key order
+     */
+    private Map<String, LocalFile> hash(Path localDir, DeployOptions options) {
+        final List<Path> files;
+        try (Stream<Path> walk = Files.walk(localDir)) {
+            files = walk.filter(Files::isRegularFile).toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to list %s".formatted(localDir), e);
+        }
+        final ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        try {
+            Map<String, LocalFile> digests = pool.submit(() -> files.parallelStream()
+                    .collect(Collectors.toConcurrentMap(f -> toRelativeKey(localDir, f), f -> toLocalFile(f, options)))).get();
+            Map<String, LocalFile> sorted = new TreeMap<>(S3KeyComparator.INSTANCE);
+            sorted.putAll(digests);
+            for (String generated : List.of(project(options).getBuildInfoFile(), project(options).getManifestFile())) {
+                if (sorted.remove(generated) != null) {
+                    log.warn("Ignored the local {}; it is generated by the deployment", generated);
+                }
+            }
+            return sorted;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException u) {
+                throw u;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Deploy interrupted");
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private LocalFile toLocalFile(Path file, DeployOptions options) {
+        final String contentType = options.isGzip() ? compressionService.getCompressibleContentType(file.toString()) : null;
+        if (contentType != null) {
+            byte[] content = readAllBytes(file);
+            Optional<byte[]> gzip = compressionService.compress(content);
+            if (gzip.isPresent()) {
+                ETagCalculator.Digest digest = ETagCalculator.compute(gzip.get(), options.getPartSize());
+                return new LocalFile(file, digest, contentType, content.length - digest.size());
+            }
+        }
+        try {
+            return new LocalFile(file, ETagCalculator.compute(file, options.getPartSize()), null, 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read %s".formatted(file), e);
+        }
+    }
+
+    private static byte[] readAllBytes(Path file) {
+        try {
+            return Files.readAllBytes(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read %s".formatted(file), e);
+        }
+    }
+
+    private static String toRelativeKey(Path localDir, Path file) {
+        return localDir.relativize(file).toString().replace(File.separatorChar, '/');
+    }
+
+    private KapresoftProjectProperties project(DeployOptions options) {
+        return options.getProject() != null ? options.getProject() : projectConf;
+    }
+
+    private String toManifest(DeployOptions options, Map<String, LocalFile> local) {
+        return BuildManifest.format("%s:%s".formatted(project(options).getName(), options.getVersion()), local.entrySet().stream()
+                .map(e -> new BuildManifest.Entry(e.getValue().digest().md5(), e.getValue().digest().size(), e.getKey()))
+                .toList());
+    }
+
+    private String toBuildInfoText(DeployOptions options) {
+        final Date buildDate = new Date();
+        return BuildInfoToYamlTextConverter.toText(BuildInfo.builder()
+                .id("%s:%s".formatted(project(options).getName(), options.getVersion()))
+                .date(BuildInfoToYamlTextConverter.formatDate(buildDate, BuildInfoToYamlTextConverter.BUILD_ZONE))
+                .buildDate(buildDate)
+                .commitHash(options.getCommitHash())
+                .buildNumber(options.getVersion())
+                .deployKey(BuildInfoConverter.KEY_PATH_FMT.formatted(options.getVersion(), options.getCommitHash()))
+                .build());
+    }
+
+    private static void submit(BoundedExecutor executor, Runnable task) {
+        try {
+            if (!executor.execute(task)) {
+                throw new CancellationException("Promote cancelled");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            executor.cancel();
+            throw new CancellationException("Promote interrupted");
+        }
+    }
+
+    private void transfer(BuildDiffEntry e, S3Bucket targetBucket, String targetPrefix, boolean dryRun, TransferReport report) {
+        final S3ObjectSummary source = e.to();
+        final String targetKey = targetPrefix + e.relativeKey();
+        try {
+            if (e.change() == Change.CHANGED && isCopyOf(e.from(), source)) {
+                report.addSkipped(source.getSize());
+                return;
+            }
+            if (!dryRun) {
+                if (source.getSize() > MULTIPART_THRESHOLD) {
+                    copyMultipart(source, targetBucket.name(), targetKey);
+                } else {
+                    copy(source, targetBucket.name(), targetKey);
+                }
+            }
+            report.addTransferred(source.getSize());
+        } catch (RuntimeException ex) {
+            log.error("Failed to copy {} to s3://{}/{}", source.getKey(), targetBucket.name(), targetKey, ex);
+            report.addFailure(e.relativeKey(), ex.getMessage());
+        }
+    }
+
+    /**
+     * The ETags differ when the target was copied in parts or from a multipart source; the
+     * source ETag recorded at copy time tells whether it still has the same content.
+     */
+    private boolean isCopyOf(S3ObjectSummary target, S3ObjectSummary source) {
+        if (target.getSize() != source.getSize()) {
+            return false;
+        }
+        ObjectMetadata metadata = amazonS3.getObjectMetadata(target.getBucketName(), target.getKey());
+        return Objects.equals(metadata.getUserMetaDataOf(SOURCE_ETAG_METADATA), normalizeETag(source.getETag()));
+    }
+
+    private void copy(S3ObjectSummary source, String targetBucket, String targetKey) {
+        final String eTag = normalizeETag(source.getETag());
+        CopyObjectRequest request = new CopyObjectRequest(source.getBucketName(), source.getKey(), targetBucket, targetKey)
+                .withMatchingETagConstraint(eTag);
+        if (isMultipartETag(eTag)) {
+            // A single-part copy gets a plain MD5 ETag; replacing the metadata requires all of it
+            ObjectMetadata metadata = amazonS3.getObjectMetadata(source.getBucketName(), source.getKey());
+            request.setNewObjectMetadata(toCopyMetadata(metadata, eTag));
+        }
+        if (amazonS3.copyObject(request) == null) {
+            throw new IllegalStateException("The source changed during the copy");
+        }
+    }
+
+    private void copyMultipart(S3ObjectSummary source, String targetBucket, String targetKey) {
+        final String eTag = normalizeETag(source.getETag());
+        final ObjectMetadata metadata = amazonS3.getObjectMetadata(source.getBucketName(), source.getKey());
+        final String uploadId = amazonS3.initiateMultipartUpload(
+                new InitiateMultipartUploadRequest(targetBucket, targetKey, toCopyMetadata(metadata, eTag))).getUploadId();
+        try {
+            final long size = source.getSize();
+            final List<PartETag> parts = new ArrayList<>();
+            int partNumber = 1;
+            for (long position = 0; position < size; position += PART_SIZE) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new IllegalStateException("Copy interrupted");
+                }
+                CopyPartResult part = amazonS3.copyPart(new CopyPartRequest()
+                        .withSourceBucketName(source.getBucketName())
+                        .withSourceKey(source.getKey())
+                        .withDestinationBucketName(targetBucket)
+                        .withDestinationKey(targetKey)
+                        .withUploadId(uploadId)
+                        .withPartNumber(partNumber++)
+                        .withFirstByte(position)
+                        .withLastByte(Math.min(position + PART_SIZE, size) - 1)
+                        .withMatchingETagConstraint(eTag));
+                if (part == null) {
+                    throw new IllegalStateException("The source changed during the copy");
+                }
+                parts.add(part.getPartETag());
+            }
+            amazonS3.completeMultipartUpload(new CompleteMultipartUploadRequest(targetBucket, targetKey, uploadId, parts));
+        } catch (RuntimeException e) {
+            amazonS3.abortMultipartUpload(new AbortMultipartUploadRequest(targetBucket, targetKey, uploadId));
+            throw e;
+        }
+    }
+
+    @NonNull
+    private static ObjectMetadata toCopyMetadata(ObjectMetadata source, @Nullable String sourceETag) {
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentType(source.getContentType());
+        metadata.setCacheControl(source.getCacheControl());
+        metadata.setContentEncoding(source.getContentEncoding());
+        metadata.setContentDisposition(source.getContentDisposition());
+        metadata.setContentLanguage(source.getContentLanguage());
+        metadata.setUserMetadata(source.getUserMetadata());
+        if (sourceETag != null) {
+            metadata.addUserMetadata(SOURCE_ETAG_METADATA, sourceETag);
+        }
+        return metadata;
+    }
+
+    private static boolean isMultipartETag(@Nullable String eTag) {
+        return eTag != null && eTag.contains("-");
+    }
+
+}
@@ -0,0 +1,91 @@
+package com.kapresoft.devops.shell.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kapresoft.devops.shell.config.TraceProperties;
+import com.kapresoft.devops.shell.util.trace.OtlpTraceWriter;
+import com.kapresoft.devops.shell.util.trace.TraceReport;
+import com.kapresoft.devops.shell.util.trace.Tracer;
+
+import lombok.extern.log4j.Log4j2;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+@Log4j2
+@Service
+public class DefaultTraceService implements TraceService {
+
+    private final Tracer tracer;
+    private final OtlpTraceWriter otlpWriter;
+    @Nullable
+    private volatile Path otlpFile;
+
+    public DefaultTraceService(Tracer tracer, TraceProperties props, ObjectMapper objectMapper,
+                               @Value("${spring.application.version}") String serviceName) {
+        this.tracer = tracer;
+        this.otlpWriter = new OtlpTraceWriter(objectMapper, serviceName);
+        this.otlpFile = StringUtils.hasLength(props.getOtlpFile()) ? Path.of(props.getOtlpFile()) : null;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return tracer.isEnabled();
+    }
+
+    @Override
+    public void enable(@Nullable Path otlpFile) {
+        if (otlpFile != null) {
+            this.otlpFile = otlpFile;
+        }
+        tracer.setEnabled(true);
+    }
+
+    @Override
+    public void disable() {
+        tracer.setEnabled(false);
+    }
+
+    @Override
+    @NonNull
+    public Optional<Path> getOtlpFile() {
+        return Optional.ofNullable(otlpFile);
+    }
+
+    @Override
+    public void begin() {
+        tracer.begin();
+    }
+
+    @Override
+    @NonNull
+    public List<String> finish() {
+        return tracer.take()
+                .map(trace -> {
+                    Path file = otlpFile;
+                    if (file != null) {
+                        try {
+                            otlpWriter.append(trace, file);
+                        } catch (Exception e) {
+                            log.warn("Failed to write trace {} to {}: {}", trace.traceId(), file, e.getMessage());
+                        }
+                    }
+                    return TraceReport.render(trace);
+                })
+                .orElse(List.of());
+    }
+
+    @Override
+    @NonNull
+    public List<String> getLast() {
+        return Optional.ofNullable(tracer.getLast())
+                .map(TraceReport::render)
+                .orElse(List.of());
+    }
+}
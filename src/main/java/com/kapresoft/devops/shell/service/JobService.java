@@ -0,0 +1,75 @@
+package com.kapresoft.devops.shell.service;
+
+import com.kapresoft.devops.shell.pojo.JobInfo;
+
+import org.springframework.lang.NonNull;
+
+import java.io.PrintWriter;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+public interface JobService {
+
+    /**
+     * Runs a command in the background. Its output is kept with the job instead of being printed.
+     * @param commandLine The command line, i.e. {@code ls --fresh}
+     * @return JobInfo The job, queued or running
+     */
+    @NonNull
+    JobInfo submit(@NonNull String commandLine);
+
+    /**
+     * @return List<JobInfo> The jobs, oldest first; finished jobs are kept until forgotten
+     */
+    @NonNull
+    List<JobInfo> list();
+
+    /**
+     * @param id The job id
+     * @return Optional<JobInfo> The job, unless it was forgotten
+     */
+    @NonNull
+    Optional<JobInfo> get(int id);
+
+    /**
+     * @param id     The job id
+     * @param offset The offset returned by the previous call; 0 at first
+     * @param out    Receives the output written since {@code offset}, if still kept
+     * @return long The offset to read from next
+     */
+    long readOutput(int id, long offset, @NonNull PrintWriter out);
+
+    /**
+     * @param id      The job id
+     * @param timeout The longest to wait
+     * @return JobInfo The job, finished unless the timeout elapsed first
+     * @throws InterruptedException If interrupted while waiting
+     */
+    @NonNull
+    JobInfo await(int id, @NonNull Duration timeout) throws InterruptedException;
+
+    /**
+     * Interrupts the job; its listing and read loops stop at their next remote call. A job that has already
+     * finished is forgotten instead.
+     * @param id The job id
+     * @return JobInfo The job
+     */
+    @NonNull
+    JobInfo cancel(int id);
+
+    /**
+     * Forgets a finished job and its output, i.e. once {@code fg} has shown them.
+     * @param id The job id
+     */
+    void forget(int id);
+
+    /**
+     * Marks the jobs that finished since the last call as reported; they are kept, with their output, until
+     * forgotten.
+     * @return List<JobInfo> The jobs that finished since the last call
+     */
+    @NonNull
+    List<JobInfo> reportFinished();
+
+}
@@ -0,0 +1,48 @@
+package com.kapresoft.devops.shell.service;
+
+import com.amazonaws.services.cloudfront.model.DistributionConfig;
+import com.kapresoft.devops.shell.pojo.ReleaseJournalEntry;
+
+import org.springframework.lang.NonNull;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+public interface ReleaseJournalService {
+
+    /**
+     * Appends an entry to the local journal, then copies the journal to the bucket if configured. A failed
+     * write or copy is logged rather than thrown, since the change it records has already been made.
+     *
+     * @param command        The command that made the change: release, update-path or rollback
+     * @param distributionId The distribution ID
+     * @param oldOriginPath  The origin path before the change
+     * @param config         The distribution config after the change
+     * @param eTag           The ETag returned by the update
+     * @return ReleaseJournalEntry The recorded entry
+     */
+    @NonNull
+    ReleaseJournalEntry record(@NonNull String command, @NonNull String distributionId, @NonNull String oldOriginPath,
+                               @NonNull DistributionConfig config, @NonNull String eTag);
+
+    /**
+     * @param distributionId The distribution ID
+     * @param limit          The maximum number of entries
+     * @return List<ReleaseJournalEntry> The entries of the distribution, newest first
+     */
+    @NonNull
+    List<ReleaseJournalEntry> history(@NonNull String distributionId, int limit);
+
+    /**
+     * @param entry A journal entry
+     * @return Optional<DistributionConfig> The distribution config recorded with the entry; empty if it cannot be
+     * read. Only send it back to CloudFront with the ETag of the entry, which rejects it once the config changed.
+     */
+    @NonNull
+    Optional<DistributionConfig> getDistributionConfig(@NonNull ReleaseJournalEntry entry);
+
+    @NonNull
+    Path getFile();
+
+}
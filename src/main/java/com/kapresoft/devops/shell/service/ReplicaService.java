@@ -0,0 +1,62 @@
+package com.kapresoft.devops.shell.service;
+
+import com.kapresoft.devops.shell.pojo.BucketQueryResult;
+import com.kapresoft.devops.shell.pojo.ReplicaBucket;
+
+import org.springframework.lang.NonNull;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Queries the primary bucket and its replicas concurrently. Each bucket has its own timeout, so a slow
+ * region is reported as timed out without holding back the answers of the others.
+ */
+public interface ReplicaService {
+
+    /**
+     * @return List<ReplicaBucket> The primary bucket first, then the replicas
+     */
+    @NonNull
+    List<ReplicaBucket> getBuckets();
+
+    /**
+     * Lists the build info files of every bucket; their content is not fetched.
+     * @return List<BucketQueryResult<Map<String, Date>>> The last modified date of each build by key path, per bucket
+     */
+    @NonNull
+    List<BucketQueryResult<Map<String, Date>>> listBuilds();
+
+    /**
+     * Lists a build in every bucket and compares the replicas with the primary bucket by key, size and ETag.
+     * @param keyPath The build key path, i.e. site/{build-version}/{project-name}
+     * @return List<BucketQueryResult<Comparison>> The comparison per bucket; the primary bucket compares with itself,
+     * and the replicas are not compared if it fails
+     */
+    @NonNull
+    List<BucketQueryResult<Comparison>> verify(@NonNull String keyPath);
+
+    /**
+     * @param objects    The number of objects in the bucket
+     * @param compared   False if the primary bucket could not be listed, so the differences are unknown
+     * @param missing    Keys of the primary bucket missing in the bucket
+     * @param mismatched Keys whose size or ETag differ from the primary bucket
+     * @param extra      Keys not in the primary bucket
+     */
+    record Comparison(int objects, boolean compared, List<String> missing, List<String> mismatched, List<String> extra) {
+
+        /**
+         * @param objects The number of objects in the bucket
+         * @return Comparison A bucket that could not be compared with the primary bucket
+         */
+        public static Comparison unknown(int objects) {
+            return new Comparison(objects, false, List.of(), List.of(), List.of());
+        }
+
+        public boolean isInSync() {
+            return compared && missing.isEmpty() && mismatched.isEmpty() && extra.isEmpty();
+        }
+    }
+
+}
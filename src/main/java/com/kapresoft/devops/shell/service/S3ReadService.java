@@ -0,0 +1,30 @@
+package com.kapresoft.devops.shell.service;
+
+import com.kapresoft.devops.shell.util.concurrent.Hedger;
+
+import org.springframework.lang.NonNull;
+
+import java.io.IOException;
+import java.util.Optional;
+
+public interface S3ReadService {
+
+    /**
+     * Reads a small text object, i.e. a build info file. When hedging is enabled, a GET slower than
+     * usual is duplicated and the first response is used.
+     *
+     * @param bucketName The bucket name
+     * @param key        The object key
+     * @return String The object content as UTF-8
+     * @throws IOException If the content could not be read
+     */
+    @NonNull
+    String readText(@NonNull String bucketName, @NonNull String key) throws IOException;
+
+    /**
+     * @return Optional<Hedger.Stats> The hedge and win rates; empty if hedging is disabled
+     */
+    @NonNull
+    Optional<Hedger.Stats> getHedgeStats();
+
+}
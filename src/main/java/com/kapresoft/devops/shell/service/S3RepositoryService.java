@@ -3,8 +3,11 @@ package com.kapresoft.devops.shell.service;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.model.ListObjectsV2Request;
 import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.kapresoft.devops.shell.config.KapresoftProjectProperties;
 import com.kapresoft.devops.shell.decorator.BuildInfoCLIOutputDecorator;
+import com.kapresoft.devops.shell.exception.service.NonUniqueResultException;
 import com.kapresoft.devops.shell.pojo.BuildInfoDetails;
+import com.kapresoft.devops.shell.pojo.S3Query;
 
 import org.springframework.lang.NonNull;
 import org.springframework.lang.Nullable;
@@ -12,6 +15,7 @@ import org.springframework.lang.Nullable;
 import java.net.URI;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
@@ -32,16 +36,61 @@ public interface S3RepositoryService {
     @Deprecated
     void updateReleaseInfo(@NonNull BuildInfoDetails buildInfo);
 
+    /**
+     * @return Optional<BuildInfoDetails> The build info served by the CDN
+     */
     @NonNull
     Optional<BuildInfoDetails> getLiveBuildInfo();
 
+    /**
+     * Non-blocking variant of {@link #getLiveBuildInfo()}, so that the CDN request can overlap with S3 calls.
+     * @return CompletableFuture<Optional<BuildInfoDetails>> Completes exceptionally if the CDN request fails
+     */
+    @NonNull
+    CompletableFuture<Optional<BuildInfoDetails>> fetchLiveBuildInfo();
+
+    /**
+     * @param project The project whose CDN is requested
+     * @return CompletableFuture<Optional<BuildInfoDetails>> Completes exceptionally if the CDN request fails
+     */
+    @NonNull
+    CompletableFuture<Optional<BuildInfoDetails>> fetchLiveBuildInfo(@NonNull KapresoftProjectProperties project);
+
     BuildInfoCLIOutputDecorator toBuildInfoDecorator(S3ObjectSummary summary, String text, BuildInfoDetails buildInfoLive);
 
     Optional<BuildInfoDetails> toBuildInfo(S3ObjectSummary summary);
 
+    /**
+     * Stops listing at the second match, which is enough to know the match is not unique.
+     * @throws NonUniqueResultException If more than one object matches
+     */
     @NonNull
     Optional<S3ObjectSummary> find(@NonNull Predicate<S3ObjectSummary> predicate, @NonNull Supplier<ListObjectsV2Request> requestSupplier);
 
+    /**
+     * @param query The query, in the configured bucket
+     * @return Optional<S3ObjectSummary> The only match, if any; listing stops at the second match
+     * @throws NonUniqueResultException If more than one object matches
+     */
+    @NonNull
+    Optional<S3ObjectSummary> find(@NonNull S3Query query);
+
+    /**
+     * @param query The query, in the configured bucket
+     * @return List<S3ObjectSummary> The matches in key order, up to the limit of the query
+     */
+    @NonNull
+    List<S3ObjectSummary> findAll(@NonNull S3Query query);
+
+    /**
+     * The query is compiled into the narrowest ListObjectsV2 request, or a HEAD request for an exact key.
+     * Pages are fetched lazily, and no further page is requested once the limit of the query is reached.
+     * @param query The query, in the configured bucket
+     * @return Stream<S3ObjectSummary> The matches in key order
+     */
+    @NonNull
+    Stream<S3ObjectSummary> stream(@NonNull S3Query query);
+
     @NonNull
     List<S3ObjectSummary> findAll(@NonNull Predicate<S3ObjectSummary> predicate,
                                   @NonNull Supplier<ListObjectsV2Request> requestSupplier);
@@ -50,8 +99,64 @@ public interface S3RepositoryService {
                  @NonNull Supplier<ListObjectsV2Request> requestSupplier,
                  @NonNull Consumer<Stream<S3ObjectSummary>> streamConsumer);
 
+    /**
+     * Unlike {@link #findAll(Predicate, Supplier, Consumer)}, pages are fetched lazily as the stream is consumed.
+     * @param requestSupplier Supplies a fresh request per page
+     * @return Stream<S3ObjectSummary> The objects in listing order
+     */
+    @NonNull
+    Stream<S3ObjectSummary> stream(@NonNull Supplier<ListObjectsV2Request> requestSupplier);
+
+    /**
+     * Lists one level of the bucket hierarchy: the "directories" directly below a prefix, without listing the
+     * objects beneath them. Pages are fetched lazily as the stream is consumed.
+     * @param prefix The parent directory, ending with "/", i.e. site/
+     * @return Stream<String> The child directories, each ending with "/", i.e. site/{build-version}/
+     */
+    @NonNull
+    Stream<String> streamDirectories(@NonNull String prefix);
+
+    /**
+     * Lists the version directories under {@code site/}: one request per 1000 builds, rather than per 1000 objects.
+     * @return Stream<String> The build versions, in key order
+     */
+    @NonNull
+    Stream<String> streamBuildVersions();
+
+    /**
+     * @param buildVersion The build version
+     * @return Stream<String> The key paths of the version's project directories, i.e. site/{build-version}/{project-name}
+     */
+    @NonNull
+    Stream<String> streamBuildKeyPaths(@NonNull String buildVersion);
+
+    /**
+     * Looks up the build info file under {@code site/{buildVersion}/} only, instead of the whole site prefix.
+     * @param buildVersion The build version, i.e. "2c2eba60-7f8f-40df-b99c-95db50e7b3a7"
+     * @return Optional<BuildInfoDetails> The build, if found
+     */
+    @NonNull
+    Optional<BuildInfoDetails> findBuild(@NonNull String buildVersion);
+
+    /**
+     * @param buildVersion The build version
+     * @param project      The project the build belongs to
+     * @return Optional<BuildInfoDetails> The build of the project, if found
+     */
+    @NonNull
+    Optional<BuildInfoDetails> findBuild(@NonNull String buildVersion, @NonNull KapresoftProjectProperties project);
+
     List<BuildInfoDetails> findAllBuilds();
 
+    /**
+     * Unlike {@link #findAllBuilds()}, builds are produced one at a time as the stream is consumed, in
+     * listing order; each build info file is fetched only when its build is reached. A single listing
+     * covers the builds of all projects.
+     * @return Stream<BuildInfoDetails> The builds; must be closed
+     */
+    @NonNull
+    Stream<BuildInfoDetails> streamBuilds();
+
     /**
      * @see #findAllBuildsAsDecorators(Consumer)
      * @return java.util.List<BuildInfoCLIOutputDecorator> The found builds.
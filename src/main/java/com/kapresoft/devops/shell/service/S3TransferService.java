@@ -0,0 +1,41 @@
+package com.kapresoft.devops.shell.service;
+
+import com.kapresoft.devops.shell.pojo.DeployOptions;
+import com.kapresoft.devops.shell.pojo.S3Location;
+import com.kapresoft.devops.shell.pojo.TransferReport;
+
+import org.springframework.lang.NonNull;
+
+import java.nio.file.Path;
+
+public interface S3TransferService {
+
+    /**
+     * Copies a build server-side, without downloading it. Objects whose content is already at the target
+     * are skipped, so an interrupted promotion resumes where it stopped when run again. The build info
+     * file is copied last, once everything else is in place, so that the target build is only listed
+     * when it is complete.
+     *
+     * @param keyPath     The source build key path in the configured bucket, i.e. site/{build-version}/{project-name}
+     * @param target      The target bucket and prefix; an empty prefix keeps the source key path
+     * @param concurrency The maximum number of objects copied at once
+     * @param dryRun      Only report what would be copied
+     * @return TransferReport The copied, skipped and failed objects
+     */
+    @NonNull
+    TransferReport promote(@NonNull String keyPath, @NonNull S3Location target, int concurrency, boolean dryRun);
+
+    /**
+     * Uploads a local build to {@code site/{version}/{project-name}/} in the configured bucket. Local files are
+     * hashed to the ETag they would get with the configured part size and only new or changed files are
+     * uploaded. The manifest and the build info file are generated and uploaded last, once all files are
+     * in place.
+     *
+     * @param localDir The build output directory
+     * @param options  The version, commit and upload settings
+     * @return TransferReport The uploaded, skipped and failed files
+     */
+    @NonNull
+    TransferReport deploy(@NonNull Path localDir, @NonNull DeployOptions options);
+
+}
@@ -0,0 +1,47 @@
+package com.kapresoft.devops.shell.service;
+
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+public interface TraceService {
+
+    boolean isEnabled();
+
+    /**
+     * Records the remote calls of each following command.
+     * @param otlpFile Also append traces to this file as OTLP/JSON; {@code null} keeps the current file
+     */
+    void enable(@Nullable Path otlpFile);
+
+    void disable();
+
+    /**
+     * @return Optional<Path> The file traces are appended to
+     */
+    @NonNull
+    Optional<Path> getOtlpFile();
+
+    /**
+     * Opens the trace of the command about to run on this thread. Calls on other threads, other than those the
+     * command starts, are not part of it.
+     */
+    void begin();
+
+    /**
+     * Ends the trace of the command that just ran and writes it to the OTLP file, if any.
+     * @return List<String> The span tree and findings; empty if nothing was traced
+     */
+    @NonNull
+    List<String> finish();
+
+    /**
+     * @return List<String> The span tree and findings of the last traced command; empty if none
+     */
+    @NonNull
+    List<String> getLast();
+
+}
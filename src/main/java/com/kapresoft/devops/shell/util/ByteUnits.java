@@ -0,0 +1,57 @@
+package com.kapresoft.devops.shell.util;
+
+import org.springframework.lang.NonNull;
+
+import java.time.Duration;
+import java.util.Locale;
+
+public final class ByteUnits {
+
+    private static final String[] UNITS = {"B", "KB", "MB", "GB", "TB"};
+
+    private ByteUnits() {
+    }
+
+    /**
+     * @param bytes The byte count
+     * @return String i.e. "512 B", "1.5 MB"
+     */
+    @NonNull
+    public static String format(long bytes) {
+        double value = Math.abs(bytes);
+        int unit = 0;
+        while (value >= 1024 && unit < UNITS.length - 1) {
+            value /= 1024;
+            unit++;
+        }
+        String sign = bytes < 0 ? "-" : "";
+        if (unit == 0) {
+            return "%s%d %s".formatted(sign, (long) value, UNITS[unit]);
+        }
+        return String.format(Locale.ROOT, "%s%.1f %s", sign, value, UNITS[unit]);
+    }
+
+    /**
+     * @param bytes   The bytes transferred
+     * @param elapsed The elapsed time
+     * @return String i.e. "12.5 MB/s"
+     */
+    @NonNull
+    public static String throughput(long bytes, @NonNull Duration elapsed) {
+        return format((long) (bytes / seconds(elapsed))) + "/s";
+    }
+
+    /**
+     * @param count   The number of items processed
+     * @param elapsed The elapsed time
+     * @return double The items per second
+     */
+    public static double rate(long count, @NonNull Duration elapsed) {
+        return count / seconds(elapsed);
+    }
+
+    private static double seconds(Duration elapsed) {
+        return Math.max(elapsed.toNanos(), 1_000_000L) / 1_000_000_000.0;
+    }
+
+}
@@ -0,0 +1,43 @@
+package com.kapresoft.devops.shell.util;
+
+import org.springframework.lang.NonNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPOutputStream;
+
+public final class Gzip {
+
+    public static final String CONTENT_ENCODING = "gzip";
+
+    private Gzip() {
+    }
+
+    /**
+     * The gzip header carries no file name or modification time, so the same content always compresses
+     * to the same bytes, and the same ETag, on a given JVM. Objects that did not change are not re-uploaded.
+     * @param content The content
+     * @param level   The deflate level, 1 to 9
+     * @return byte[] The gzip content
+     */
+    @NonNull
+    public static byte[] compress(@NonNull byte[] content, int level) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(content.length / 3 + 64);
+        try (GZIPOutputStream gzip = new LevelGZIPOutputStream(out, level)) {
+            gzip.write(content);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static class LevelGZIPOutputStream extends GZIPOutputStream {
+
+        LevelGZIPOutputStream(ByteArrayOutputStream out, int level) throws IOException {
+            super(out, 64 * 1024);
+            def.setLevel(level);
+        }
+    }
+
+}
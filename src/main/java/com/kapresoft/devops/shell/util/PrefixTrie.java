@@ -0,0 +1,136 @@
+package com.kapresoft.devops.shell.util;
+
+import org.springframework.lang.NonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * A set of strings that can be looked up by prefix, in sorted order. Not thread-safe.
+ */
+public class PrefixTrie {
+
+    private static final class Node {
+        private final TreeMap<Character, Node> children = new TreeMap<>();
+        private boolean terminal;
+        /**
+         * The number of words at or below this node
+         */
+        private int count;
+    }
+
+    private final Node root = new Node();
+
+    /**
+     * @param word The word to add
+     * @return boolean True if the word was not already present
+     */
+    public boolean add(@NonNull String word) {
+        if (contains(word)) {
+            return false;
+        }
+        Node node = root;
+        node.count++;
+        for (int i = 0; i < word.length(); i++) {
+            node = node.children.computeIfAbsent(word.charAt(i), c -> new Node());
+            node.count++;
+        }
+        node.terminal = true;
+        return true;
+    }
+
+    public boolean contains(@NonNull String word) {
+        Node node = find(word);
+        return node != null && node.terminal;
+    }
+
+    public void clear() {
+        root.children.clear();
+        root.terminal = false;
+        root.count = 0;
+    }
+
+    public int size() {
+        return root.count;
+    }
+
+    /**
+     * @param prefix The prefix
+     * @return int The number of words starting with {@code prefix}
+     */
+    public int count(@NonNull String prefix) {
+        Node node = find(prefix);
+        return node == null ? 0 : node.count;
+    }
+
+    /**
+     * @param prefix The prefix
+     * @param limit  The maximum number of words returned
+     * @return List<String> The words starting with {@code prefix}, in sorted order
+     */
+    @NonNull
+    public List<String> complete(@NonNull String prefix, int limit) {
+        final List<String> words = new ArrayList<>(Math.min(limit, 64));
+        Node node = find(prefix);
+        if (node != null) {
+            collect(node, new StringBuilder(prefix), words, limit);
+        }
+        return words;
+    }
+
+    /**
+     * Resolves an abbreviated word, git-style.
+     * @param prefix The prefix
+     * @return Optional<String> The word itself if present, otherwise the only word starting with {@code prefix};
+     * empty if there are none or several
+     */
+    @NonNull
+    public Optional<String> resolve(@NonNull String prefix) {
+        Node node = find(prefix);
+        if (node == null) {
+            return Optional.empty();
+        }
+        if (node.terminal) {
+            return Optional.of(prefix);
+        }
+        if (node.count != 1) {
+            return Optional.empty();
+        }
+        StringBuilder b = new StringBuilder(prefix);
+        while (!node.terminal) {
+            Map.Entry<Character, Node> only = node.children.firstEntry();
+            b.append(only.getKey());
+            node = only.getValue();
+        }
+        return Optional.of(b.toString());
+    }
+
+    private Node find(String prefix) {
+        Node node = root;
+        for (int i = 0; i < prefix.length() && node != null; i++) {
+            node = node.children.get(prefix.charAt(i));
+        }
+        return node;
+    }
+
+    private static void collect(Node node, StringBuilder b, List<String> words, int limit) {
+        if (words.size() >= limit) {
+            return;
+        }
+        if (node.terminal) {
+            words.add(b.toString());
+        }
+        for (Map.Entry<Character, Node> child : node.children.entrySet()) {
+            if (words.size() >= limit) {
+                return;
+            }
+            b.append(child.getKey());
+            collect(child.getValue(), b, words, limit);
+            b.setLength(b.length() - 1);
+        }
+    }
+
+}
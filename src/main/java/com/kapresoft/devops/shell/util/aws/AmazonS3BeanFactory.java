@@ -1,5 +1,6 @@
 package com.kapresoft.devops.shell.util.aws;
 
+import com.amazonaws.handlers.RequestHandler2;
 import com.amazonaws.regions.Regions;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.AmazonS3ClientBuilder;
@@ -17,13 +18,15 @@ public class AmazonS3BeanFactory extends AbstractFactoryBean<AmazonS3> {
      * Defaults to {@code Regions.US_EAST_1}
      */
     private final Regions region;
+    private final RequestHandler2[] requestHandlers;
 
     public AmazonS3BeanFactory() {
         this(null);
     }
 
-    public AmazonS3BeanFactory(@Nullable Regions region) {
+    public AmazonS3BeanFactory(@Nullable Regions region, RequestHandler2... requestHandlers) {
         this.region = ofNullable(region).orElse(Regions.US_EAST_1);
+        this.requestHandlers = requestHandlers;
     }
 
     @Override
@@ -36,6 +39,7 @@ public class AmazonS3BeanFactory extends AbstractFactoryBean<AmazonS3> {
     protected AmazonS3 createInstance() {
         return AmazonS3ClientBuilder.standard()
                 .withRegion(region)
+                .withRequestHandlers(requestHandlers)
                 .build();
     }
 }
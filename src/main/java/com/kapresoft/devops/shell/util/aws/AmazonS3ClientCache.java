@@ -0,0 +1,44 @@
+package com.kapresoft.devops.shell.util.aws;
+
+import com.amazonaws.handlers.RequestHandler2;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.AmazonS3ClientBuilder;
+
+import org.springframework.lang.NonNull;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * One S3 client per region, created on first use. Clients are thread-safe and hold a connection pool,
+ * so they are shared rather than created per request.
+ */
+public class AmazonS3ClientCache {
+
+    private final Map<String, AmazonS3> clients = new ConcurrentHashMap<>();
+    private final RequestHandler2[] requestHandlers;
+
+    /**
+     * @param requestHandlers Handlers added to each client
+     */
+    public AmazonS3ClientCache(RequestHandler2... requestHandlers) {
+        this.requestHandlers = requestHandlers;
+    }
+
+    /**
+     * @param region The region, i.e. eu-west-1
+     * @return AmazonS3 The client of the region
+     */
+    @NonNull
+    public AmazonS3 get(@NonNull String region) {
+        return clients.computeIfAbsent(region, r -> AmazonS3ClientBuilder.standard()
+                .withRegion(r)
+                .withRequestHandlers(requestHandlers)
+                .build());
+    }
+
+    public void shutdown() {
+        clients.values().forEach(AmazonS3::shutdown);
+        clients.clear();
+    }
+}
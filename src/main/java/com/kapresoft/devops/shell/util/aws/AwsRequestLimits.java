@@ -0,0 +1,32 @@
+package com.kapresoft.devops.shell.util.aws;
+
+import com.kapresoft.devops.shell.util.concurrent.AdaptiveLimiter;
+
+import lombok.Getter;
+
+import org.springframework.lang.NonNull;
+
+import java.util.List;
+
+/**
+ * The request limiters shared by the AWS clients: S3 requests are limited apart from CloudFront API
+ * requests, as each service throttles on its own.
+ */
+@Getter
+public class AwsRequestLimits {
+
+    @NonNull
+    private final AdaptiveLimiter s3;
+    @NonNull
+    private final AdaptiveLimiter cloudFront;
+
+    public AwsRequestLimits(@NonNull AdaptiveLimiter s3, @NonNull AdaptiveLimiter cloudFront) {
+        this.s3 = s3;
+        this.cloudFront = cloudFront;
+    }
+
+    @NonNull
+    public List<AdaptiveLimiter.Snapshot> snapshots() {
+        return List.of(s3.snapshot(), cloudFront.snapshot());
+    }
+}
@@ -0,0 +1,97 @@
+package com.kapresoft.devops.shell.util.aws;
+
+import com.amazonaws.AbortedException;
+import com.amazonaws.Request;
+import com.amazonaws.Response;
+import com.amazonaws.SdkBaseException;
+import com.amazonaws.handlers.HandlerAfterAttemptContext;
+import com.amazonaws.handlers.HandlerBeforeAttemptContext;
+import com.amazonaws.handlers.HandlerContextKey;
+import com.amazonaws.handlers.RequestHandler2;
+import com.amazonaws.retry.RetryUtils;
+import com.kapresoft.devops.shell.util.concurrent.AdaptiveLimiter;
+
+import lombok.RequiredArgsConstructor;
+
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Holds a permit of the limiter during each attempt of a request, retries included, and reports
+ * throttling errors to it. The SDK retries throttled requests with backoff as before; the limiter
+ * keeps the next requests from being throttled as well. Uploads and copies take as long as their payload
+ * does, so only throttling lowers the limit for them; other requests are compared with the usual latency of
+ * their operation.
+ */
+@RequiredArgsConstructor
+public class ConcurrencyLimitingRequestHandler extends RequestHandler2 {
+
+    /**
+     * The start of the attempt holding a permit; reset once the permit is released
+     */
+    private static final HandlerContextKey<AtomicLong> PERMIT = new HandlerContextKey<>("ConcurrencyPermit");
+    /**
+     * The operations whose latency depends on the payload size
+     */
+    private static final Set<String> PAYLOAD_SIZED = Set.of("PutObject", "UploadPart", "CopyObject", "CopyPart");
+
+    @NonNull
+    private final AdaptiveLimiter limiter;
+
+    @Override
+    public void beforeAttempt(HandlerBeforeAttemptContext context) {
+        // A permit still held here belongs to an attempt that ended without afterAttempt
+        release(context.getRequest(), AdaptiveLimiter.Outcome.IGNORED);
+        try {
+            limiter.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AbortedException("Interrupted while waiting for a %s request slot".formatted(limiter.getName()), e);
+        }
+        context.getRequest().addHandlerContext(PERMIT, new AtomicLong(System.nanoTime()));
+    }
+
+    @Override
+    public void afterAttempt(HandlerAfterAttemptContext context) {
+        Exception e = context.getException();
+        AdaptiveLimiter.Outcome outcome;
+        if (e == null) {
+            outcome = AdaptiveLimiter.Outcome.SUCCESS;
+        } else if (e instanceof SdkBaseException sdk && RetryUtils.isThrottlingException(sdk)) {
+            outcome = AdaptiveLimiter.Outcome.THROTTLED;
+        } else {
+            outcome = AdaptiveLimiter.Outcome.IGNORED;
+        }
+        release(context.getRequest(), outcome);
+    }
+
+    /**
+     * Releases the permit if the request ended without {@link #afterAttempt}, i.e. when signing failed.
+     */
+    @Override
+    public void afterError(Request<?> request, Response<?> response, Exception e) {
+        release(request, AdaptiveLimiter.Outcome.IGNORED);
+    }
+
+    private void release(Request<?> request, AdaptiveLimiter.Outcome outcome) {
+        AtomicLong permit = request.getHandlerContext(PERMIT);
+        long start = permit == null ? 0 : permit.getAndSet(0);
+        if (start != 0) {
+            limiter.release(outcome, latencyOperation(request), System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * @return String The operation name; null if the latency of the operation depends on the payload size
+     */
+    @Nullable
+    private static String latencyOperation(Request<?> request) {
+        String operation = Optional.ofNullable(request.getHandlerContext(HandlerContextKey.OPERATION_NAME))
+                .orElseGet(() -> request.getOriginalRequest().getClass().getSimpleName().replaceFirst("Request$", ""));
+        return PAYLOAD_SIZED.contains(operation) ? null : operation;
+    }
+}
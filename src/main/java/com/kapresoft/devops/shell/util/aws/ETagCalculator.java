@@ -0,0 +1,117 @@
+package com.kapresoft.devops.shell.util.aws;
+
+import org.springframework.lang.NonNull;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Computes the ETag S3 assigns to a file uploaded with a given part size, so that local files can be
+ * compared with the listing without downloading. Files up to the part size are uploaded in a single
+ * request and their ETag is the MD5 of the content; larger files get the MD5 of the concatenated
+ * part MD5s, followed by '-' and the number of parts.
+ * <p>
+ * Files are read through memory mapping, one part at a time, and the MD5 of the whole content is
+ * computed in the same pass. Content prepared in memory, i.e. compressed, is hashed the same way.
+ */
+public final class ETagCalculator {
+
+    /**
+     * The largest part size that can be mapped at once
+     */
+    public static final long MAX_PART_SIZE = Integer.MAX_VALUE;
+
+    private ETagCalculator() {
+    }
+
+    /**
+     * @param md5  The hex MD5 of the whole content
+     * @param eTag The ETag, without quotes
+     * @param size The content length
+     */
+    public record Digest(String md5, String eTag, long size) {
+
+        public boolean isMultipart() {
+            return eTag.contains("-");
+        }
+    }
+
+    /**
+     * @param file     The file
+     * @param partSize The multipart upload part size; also the largest single-part upload
+     * @return Digest The MD5 and ETag
+     * @throws IOException If the file cannot be read
+     */
+    @NonNull
+    public static Digest compute(@NonNull Path file, long partSize) throws IOException {
+        checkPartSize(partSize);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return compute(channel.size(), partSize,
+                    (position, length) -> channel.map(FileChannel.MapMode.READ_ONLY, position, length));
+        }
+    }
+
+    /**
+     * @param content  The content, i.e. compressed in memory before the upload
+     * @param partSize The multipart upload part size; also the largest single-part upload
+     * @return Digest The MD5 and ETag
+     */
+    @NonNull
+    public static Digest compute(@NonNull byte[] content, long partSize) {
+        checkPartSize(partSize);
+        final ByteBuffer buffer = ByteBuffer.wrap(content);
+        try {
+            return compute(content.length, partSize, (position, length) -> buffer.slice((int) position, (int) length));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface PartReader {
+        ByteBuffer read(long position, long length) throws IOException;
+    }
+
+    private static Digest compute(long size, long partSize, PartReader reader) throws IOException {
+        final MessageDigest whole = md5();
+        if (size <= partSize) {
+            whole.update(reader.read(0, size));
+            String md5 = HexFormat.of().formatHex(whole.digest());
+            return new Digest(md5, md5, size);
+        }
+        final MessageDigest part = md5();
+        final MessageDigest parts = md5();
+        int partCount = 0;
+        for (long position = 0; position < size; position += partSize) {
+            ByteBuffer buffer = reader.read(position, Math.min(partSize, size - position));
+            whole.update(buffer.duplicate());
+            part.update(buffer);
+            parts.update(part.digest());
+            partCount++;
+        }
+        String eTag = "%s-%d".formatted(HexFormat.of().formatHex(parts.digest()), partCount);
+        return new Digest(HexFormat.of().formatHex(whole.digest()), eTag, size);
+    }
+
+    private static void checkPartSize(long partSize) {
+        if (partSize <= 0 || partSize > MAX_PART_SIZE) {
+            throw new IllegalArgumentException("Invalid part size: %d".formatted(partSize));
+        }
+    }
+
+    private static MessageDigest md5() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
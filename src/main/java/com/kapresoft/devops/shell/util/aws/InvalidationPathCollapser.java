@@ -0,0 +1,226 @@
+package com.kapresoft.devops.shell.util.aws;
+
+import com.kapresoft.devops.shell.pojo.BuildDiffEntry;
+import com.kapresoft.devops.shell.pojo.BuildDiffEntry.Change;
+
+import org.springframework.lang.NonNull;
+import org.springframework.web.util.UriUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+
+/**
+ * Turns the changed keys of a build comparison into a small set of CloudFront invalidation paths.
+ * <p>
+ * Exact paths are preferred. When there are more than {@code maxPaths}, whole directories are replaced
+ * by a wildcard, choosing the directories that save the most paths while invalidating the fewest
+ * unchanged files. If the result still does not fit within {@code maxPaths} and {@code maxWildcards},
+ * the whole distribution is invalidated with {@link #ALL_PATHS}.
+ *
+ * @see <a href="https://docs.aws.amazon.com/AmazonCloudFront/latest/DeveloperGuide/cloudfront-limits.html#limits-invalidations">CloudFront invalidation quotas</a>
+ */
+public class InvalidationPathCollapser implements Consumer<BuildDiffEntry> {
+
+    /**
+     * File invalidation requests in progress, per distribution
+     */
+    public static final int MAX_PATHS = 3000;
+    /**
+     * Wildcard invalidation requests in progress, per distribution
+     */
+    public static final int MAX_WILDCARDS = 15;
+    public static final String ALL_PATHS = "/*";
+
+    private static final String INDEX_DOCUMENT = "index.html";
+    private static final String ROOT = "";
+
+    private final int maxPaths;
+    private final int maxWildcards;
+    /**
+     * Beyond this many changed paths, collapsing is not attempted and everything is invalidated
+     */
+    private final int maxChangedPaths;
+
+    private final Map<String, Dir> dirs = new HashMap<>();
+    private final Set<String> paths = new HashSet<>();
+    private boolean overflow;
+
+    public InvalidationPathCollapser() {
+        this(MAX_PATHS, MAX_WILDCARDS);
+    }
+
+    public InvalidationPathCollapser(int maxPaths, int maxWildcards) {
+        this.maxPaths = maxPaths;
+        this.maxWildcards = maxWildcards;
+        this.maxChangedPaths = maxPaths * 100;
+        dirs.put(ROOT, new Dir(ROOT, null));
+    }
+
+    @Override
+    public void accept(@NonNull BuildDiffEntry entry) {
+        final String key = entry.relativeKey();
+        final boolean changed = entry.change() != Change.UNCHANGED;
+        final Dir dir = dirOf(key);
+        for (Dir d = dir; d != null; d = d.parent) {
+            d.total++;
+            if (changed) {
+                d.changed++;
+            }
+        }
+        if (!changed || overflow) {
+            return;
+        }
+        addPath(dir, "/" + key);
+        // The directory URL serves the same index document
+        if (key.equals(INDEX_DOCUMENT) || key.endsWith("/" + INDEX_DOCUMENT)) {
+            addPath(dir, "/" + dir.path);
+        }
+    }
+
+    /**
+     * @return List<String> The URL-encoded invalidation paths, sorted; empty if nothing changed
+     */
+    @NonNull
+    public List<String> collapse() {
+        if (overflow) {
+            return List.of(ALL_PATHS);
+        }
+        final Set<Dir> collapsed = new HashSet<>();
+        while (count(dirs.get(ROOT), collapsed) > maxPaths) {
+            Dir best = null;
+            double bestScore = 0;
+            for (Dir d : dirs.values()) {
+                if (d.parent == null || isCovered(d, collapsed)) {
+                    continue;
+                }
+                int covered = count(d, collapsed);
+                int wildcardsAfter = collapsed.size() - wildcards(d, collapsed) + 1;
+                if (covered <= 1 || wildcardsAfter > maxWildcards) {
+                    continue;
+                }
+                long unchanged = d.total - d.changed;
+                double score = (covered - 1) / (1.0 + unchanged);
+                if (score > bestScore) {
+                    best = d;
+                    bestScore = score;
+                }
+            }
+            if (best == null) {
+                return List.of(ALL_PATHS);
+            }
+            final Dir dir = best;
+            collapsed.removeIf(c -> isAncestor(dir, c));
+            collapsed.add(dir);
+        }
+
+        final Set<String> result = new TreeSet<>();
+        collapsed.forEach(d -> result.add("/" + d.path + "*"));
+        for (String p : paths) {
+            if (!isCovered(dirOf(p.substring(1)), collapsed)) {
+                result.add(p);
+            }
+        }
+        final List<String> encoded = new ArrayList<>(result.size());
+        result.forEach(p -> encoded.add(UriUtils.encodePath(p, StandardCharsets.UTF_8)));
+        return encoded;
+    }
+
+    private void addPath(Dir dir, String path) {
+        if (paths.add(path)) {
+            dir.exact++;
+        }
+        if (paths.size() > maxChangedPaths) {
+            overflow = true;
+            paths.clear();
+        }
+    }
+
+    /**
+     * @param key A relative key, i.e. {@code docs/api/index.html}, or a directory ending with a slash
+     * @return Dir The directory holding the key, i.e. {@code docs/api/}
+     */
+    private Dir dirOf(String key) {
+        int slash = key.lastIndexOf('/');
+        String path = slash < 0 ? ROOT : key.substring(0, slash + 1);
+        Dir dir = dirs.get(path);
+        if (dir == null) {
+            dir = new Dir(path, dirOf(path.substring(0, path.length() - 1)));
+            dirs.put(path, dir);
+        }
+        return dir;
+    }
+
+    /**
+     * @return int The number of paths needed for {@code dir} and everything below it
+     */
+    private int count(Dir dir, Set<Dir> collapsed) {
+        if (collapsed.contains(dir)) {
+            return 1;
+        }
+        int n = dir.exact;
+        for (Dir child : dir.children) {
+            n += count(child, collapsed);
+        }
+        return n;
+    }
+
+    private int wildcards(Dir dir, Set<Dir> collapsed) {
+        if (collapsed.contains(dir)) {
+            return 1;
+        }
+        int n = 0;
+        for (Dir child : dir.children) {
+            n += wildcards(child, collapsed);
+        }
+        return n;
+    }
+
+    private static boolean isCovered(Dir dir, Set<Dir> collapsed) {
+        for (Dir d = dir; d != null; d = d.parent) {
+            if (collapsed.contains(d)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isAncestor(Dir ancestor, Dir dir) {
+        for (Dir d = dir; d != null; d = d.parent) {
+            if (d == ancestor) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static class Dir {
+        private final String path;
+        private final Dir parent;
+        private final List<Dir> children = new ArrayList<>();
+        /**
+         * Changed paths directly in this directory
+         */
+        private int exact;
+        /**
+         * Files below this directory, in either build
+         */
+        private long total;
+        private long changed;
+
+        private Dir(String path, Dir parent) {
+            this.path = path;
+            this.parent = parent;
+            if (parent != null) {
+                parent.children.add(this);
+            }
+        }
+    }
+
+}
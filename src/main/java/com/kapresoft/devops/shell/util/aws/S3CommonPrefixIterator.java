@@ -0,0 +1,93 @@
+package com.kapresoft.devops.shell.util.aws;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.ListObjectsV2Request;
+import com.amazonaws.services.s3.model.ListObjectsV2Result;
+import com.kapresoft.devops.shell.util.concurrent.Cancellation;
+
+import org.springframework.lang.NonNull;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Iterates over the "directories" one level below a prefix, i.e. the CommonPrefixes of a ListObjectsV2 listing
+ * with a delimiter. S3 rolls up every key below a directory into a single entry, so listing {@code site/}
+ * costs one request per 1000 builds rather than per 1000 objects. Like {@link S3ObjectSummaryIterator}, the
+ * next page is only requested once the current one has been consumed.
+ */
+public class S3CommonPrefixIterator implements Iterator<String> {
+
+    public static final String DELIMITER = "/";
+
+    private final AmazonS3 amazonS3;
+    private final Supplier<ListObjectsV2Request> requestSupplier;
+
+    private Iterator<String> page = Collections.emptyIterator();
+    private String continuationToken;
+    private boolean lastPage;
+
+    public S3CommonPrefixIterator(@NonNull AmazonS3 amazonS3, @NonNull Supplier<ListObjectsV2Request> requestSupplier) {
+        this.amazonS3 = amazonS3;
+        this.requestSupplier = requestSupplier;
+    }
+
+    /**
+     * @param amazonS3 The client
+     * @param bucket   The bucket
+     * @param prefix   The parent directory, ending with {@value #DELIMITER}, i.e. site/
+     * @return Stream<String> The child directories, each ending with {@value #DELIMITER}, in key order
+     */
+    @NonNull
+    public static Stream<String> stream(@NonNull AmazonS3 amazonS3, @NonNull String bucket, @NonNull String prefix) {
+        return stream(amazonS3, () -> new ListObjectsV2Request()
+                .withBucketName(bucket).withPrefix(prefix).withDelimiter(DELIMITER));
+    }
+
+    @NonNull
+    public static Stream<String> stream(@NonNull AmazonS3 amazonS3, @NonNull Supplier<ListObjectsV2Request> requestSupplier) {
+        var iterator = new S3CommonPrefixIterator(amazonS3, requestSupplier);
+        var spliterator = Spliterators.spliteratorUnknownSize(iterator,
+                Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.DISTINCT);
+        return StreamSupport.stream(spliterator, false);
+    }
+
+    @Override
+    public boolean hasNext() {
+        // A page may hold only leaf objects and no prefixes
+        while (!page.hasNext() && !lastPage) {
+            fetchNextPage();
+        }
+        return page.hasNext();
+    }
+
+    @Override
+    public String next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return page.next();
+    }
+
+    private void fetchNextPage() {
+        ListObjectsV2Request request = requestSupplier.get();
+        Cancellation.throwIfInterrupted("Listing of %s".formatted(request.getPrefix()));
+        if (request.getDelimiter() == null) {
+            request.withDelimiter(DELIMITER);
+        }
+        if (continuationToken != null) {
+            request.withContinuationToken(continuationToken);
+        }
+        ListObjectsV2Result response = amazonS3.listObjectsV2(request);
+        page = response.getCommonPrefixes().iterator();
+        continuationToken = response.getNextContinuationToken();
+        lastPage = !response.isTruncated();
+    }
+
+}
@@ -0,0 +1,33 @@
+package com.kapresoft.devops.shell.util.aws;
+
+import java.util.Comparator;
+
+/**
+ * Orders keys the way S3 lists them: by the binary value of their UTF-8 encoding.
+ * Comparing by code point yields the same order without encoding each key; {@link String#compareTo}
+ * does not, since it compares UTF-16 units and sorts supplementary characters before U+E000..U+FFFF.
+ */
+public final class S3KeyComparator implements Comparator<String> {
+
+    public static final S3KeyComparator INSTANCE = new S3KeyComparator();
+
+    private S3KeyComparator() {
+    }
+
+    @Override
+    public int compare(String k1, String k2) {
+        int i1 = 0;
+        int i2 = 0;
+        while (i1 < k1.length() && i2 < k2.length()) {
+            int c1 = k1.codePointAt(i1);
+            int c2 = k2.codePointAt(i2);
+            if (c1 != c2) {
+                return Integer.compare(c1, c2);
+            }
+            i1 += Character.charCount(c1);
+            i2 += Character.charCount(c2);
+        }
+        return Integer.compare(k1.length() - i1, k2.length() - i2);
+    }
+
+}
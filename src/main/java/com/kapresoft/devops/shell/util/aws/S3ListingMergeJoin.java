@@ -0,0 +1,89 @@
+package com.kapresoft.devops.shell.util.aws;
+
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.kapresoft.devops.shell.pojo.BuildDiffEntry;
+import com.kapresoft.devops.shell.pojo.BuildDiffEntry.Change;
+import com.kapresoft.devops.shell.pojo.BuildDiffSummary;
+
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Compares two S3 listings in a single pass. Both listings must be sorted the way S3 returns
+ * them (see {@link S3KeyComparator}); only the current object of each side is held in memory.
+ * Objects are matched on their key relative to the listing prefix and compared by ETag and size.
+ */
+public final class S3ListingMergeJoin {
+
+    private S3ListingMergeJoin() {
+    }
+
+    @NonNull
+    public static BuildDiffSummary join(@NonNull String fromPrefix, @NonNull Iterator<S3ObjectSummary> from,
+                                        @NonNull String toPrefix, @NonNull Iterator<S3ObjectSummary> to,
+                                        @NonNull Consumer<BuildDiffEntry> consumer) {
+        final BuildDiffSummary summary = new BuildDiffSummary(fromPrefix, toPrefix);
+        S3ObjectSummary a = nextOrNull(from);
+        S3ObjectSummary b = nextOrNull(to);
+        while (a != null || b != null) {
+            final BuildDiffEntry entry;
+            int cmp = compare(a, fromPrefix, b, toPrefix);
+            if (cmp < 0) {
+                entry = new BuildDiffEntry(Change.REMOVED, relativeKey(a, fromPrefix), a, null);
+                a = nextOrNull(from);
+            } else if (cmp > 0) {
+                entry = new BuildDiffEntry(Change.ADDED, relativeKey(b, toPrefix), null, b);
+                b = nextOrNull(to);
+            } else {
+                Change change = isSameContent(a, b) ? Change.UNCHANGED : Change.CHANGED;
+                entry = new BuildDiffEntry(change, relativeKey(b, toPrefix), a, b);
+                a = nextOrNull(from);
+                b = nextOrNull(to);
+            }
+            summary.add(entry);
+            consumer.accept(entry);
+        }
+        return summary;
+    }
+
+    public static boolean isSameContent(@NonNull S3ObjectSummary a, @NonNull S3ObjectSummary b) {
+        return a.getSize() == b.getSize() && Objects.equals(normalizeETag(a.getETag()), normalizeETag(b.getETag()));
+    }
+
+    @Nullable
+    public static String normalizeETag(@Nullable String eTag) {
+        if (eTag == null) {
+            return null;
+        }
+        return eTag.replace("\"", "");
+    }
+
+    @NonNull
+    public static String relativeKey(@NonNull S3ObjectSummary s3o, @NonNull String prefix) {
+        String key = s3o.getKey();
+        return key.startsWith(prefix) ? key.substring(prefix.length()) : key;
+    }
+
+    /**
+     * An exhausted side always sorts last so that the remaining side is drained.
+     */
+    private static int compare(@Nullable S3ObjectSummary a, String fromPrefix, @Nullable S3ObjectSummary b, String toPrefix) {
+        if (a == null) {
+            return 1;
+        }
+        if (b == null) {
+            return -1;
+        }
+        return S3KeyComparator.INSTANCE.compare(relativeKey(a, fromPrefix), relativeKey(b, toPrefix));
+    }
+
+    @Nullable
+    private static S3ObjectSummary nextOrNull(Iterator<S3ObjectSummary> it) {
+        return it.hasNext() ? it.next() : null;
+    }
+
+}
@@ -0,0 +1,74 @@
+package com.kapresoft.devops.shell.util.aws;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.ListObjectsV2Request;
+import com.amazonaws.services.s3.model.ListObjectsV2Result;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.kapresoft.devops.shell.util.concurrent.Cancellation;
+
+import org.springframework.lang.NonNull;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Iterates over a ListObjectsV2 listing one page at a time. The next page is only requested
+ * once the current one has been consumed, so at most one page (1000 keys) is held in memory.
+ * Keys are returned in the order S3 lists them, i.e. lexicographic by UTF-8 bytes.
+ */
+public class S3ObjectSummaryIterator implements Iterator<S3ObjectSummary> {
+
+    private final AmazonS3 amazonS3;
+    private final Supplier<ListObjectsV2Request> requestSupplier;
+
+    private Iterator<S3ObjectSummary> page = Collections.emptyIterator();
+    private String continuationToken;
+    private boolean lastPage;
+
+    public S3ObjectSummaryIterator(@NonNull AmazonS3 amazonS3, @NonNull Supplier<ListObjectsV2Request> requestSupplier) {
+        this.amazonS3 = amazonS3;
+        this.requestSupplier = requestSupplier;
+    }
+
+    @NonNull
+    public static Stream<S3ObjectSummary> stream(@NonNull AmazonS3 amazonS3, @NonNull Supplier<ListObjectsV2Request> requestSupplier) {
+        var iterator = new S3ObjectSummaryIterator(amazonS3, requestSupplier);
+        var spliterator = Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false);
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!page.hasNext() && !lastPage) {
+            fetchNextPage();
+        }
+        return page.hasNext();
+    }
+
+    @Override
+    public S3ObjectSummary next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return page.next();
+    }
+
+    private void fetchNextPage() {
+        ListObjectsV2Request request = requestSupplier.get();
+        Cancellation.throwIfInterrupted("Listing of %s".formatted(request.getPrefix()));
+        if (continuationToken != null) {
+            request.withContinuationToken(continuationToken);
+        }
+        ListObjectsV2Result response = amazonS3.listObjectsV2(request);
+        page = response.getObjectSummaries().iterator();
+        continuationToken = response.getNextContinuationToken();
+        lastPage = !response.isTruncated();
+    }
+
+}
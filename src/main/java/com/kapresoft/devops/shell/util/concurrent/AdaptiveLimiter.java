@@ -0,0 +1,191 @@
+package com.kapresoft.devops.shell.util.concurrent;
+
+import lombok.Getter;
+
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Limits the requests in flight to a service, adjusting the limit to what the service accepts (AIMD): each
+ * successful request raises the limit by {@code 1/limit}, about one more request per round trip, while a
+ * throttled request halves it and a request much slower than usual lowers it by a tenth. Decreases are at
+ * most once per {@link #DECREASE_INTERVAL}, since the requests in flight when the service pushes back all
+ * see it. A request is compared with the usual latency of its own operation only, as a listing page and a
+ * HEAD request take different times even when the service is idle.
+ */
+public class AdaptiveLimiter {
+
+    public enum Outcome {
+        SUCCESS,
+        /**
+         * The service asked to slow down, i.e. S3 503 SlowDown or a CloudFront Throttling error
+         */
+        THROTTLED,
+        /**
+         * Failed for another reason; the limit is not changed
+         */
+        IGNORED
+    }
+
+    /**
+     * @param name         The limiter name
+     * @param limit        The current limit, rounded down
+     * @param inFlight     The requests in flight
+     * @param waiting      The callers waiting for a permit
+     * @param peakInFlight The most requests in flight at once
+     * @param requests     The requests completed
+     * @param throttles    The requests throttled
+     * @param latency      The smoothed latency of successful requests of all operations
+     */
+    public record Snapshot(String name, int limit, int inFlight, int waiting, int peakInFlight,
+                           long requests, long throttles, Duration latency) {
+    }
+
+    static final Duration DECREASE_INTERVAL = Duration.ofSeconds(1);
+    private static final double THROTTLE_DECREASE = 0.5;
+    private static final double LATENCY_DECREASE = 0.9;
+    /**
+     * Weight of a new sample in the smoothed latency
+     */
+    private static final double LATENCY_SMOOTHING = 0.05;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+
+    @Getter
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double latencyTolerance;
+    private double limit;
+    private int inFlight;
+    private int waiting;
+    private int peakInFlight;
+    private long requests;
+    private long throttles;
+    private double latencyNanos;
+    /**
+     * The smoothed latency of successful requests by operation
+     */
+    private final Map<String, Double> operationLatencyNanos = new HashMap<>();
+    private long lastDecrease;
+
+    /**
+     * @param name             The limiter name
+     * @param initialLimit     The limit to start with
+     * @param minLimit         The limit is not lowered below this
+     * @param maxLimit         The limit is not raised above this
+     * @param latencyTolerance A success this many times slower than the smoothed latency lowers the limit;
+     *                         0 only reacts to throttling
+     */
+    public AdaptiveLimiter(@NonNull String name, int initialLimit, int minLimit, int maxLimit, double latencyTolerance) {
+        this.name = name;
+        this.minLimit = Math.max(minLimit, 1);
+        this.maxLimit = Math.max(maxLimit, this.minLimit);
+        this.limit = Math.min(Math.max(initialLimit, this.minLimit), this.maxLimit);
+        this.latencyTolerance = latencyTolerance;
+        this.lastDecrease = System.nanoTime() - DECREASE_INTERVAL.toNanos();
+    }
+
+    /**
+     * Blocks until a request may start. Every acquire must be followed by one {@link #release(Outcome, String, long)}.
+     * @throws InterruptedException If interrupted while waiting
+     */
+    public void acquire() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            waiting++;
+            try {
+                while (inFlight >= (int) limit) {
+                    available.await();
+                }
+            } finally {
+                waiting--;
+            }
+            inFlight++;
+            peakInFlight = Math.max(peakInFlight, inFlight);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Releases a request compared with the latency of all requests, as if all were of one operation.
+     * @param outcome      How the request ended
+     * @param elapsedNanos The request latency
+     */
+    public void release(@NonNull Outcome outcome, long elapsedNanos) {
+        release(outcome, "", elapsedNanos);
+    }
+
+    /**
+     * @param outcome      How the request ended
+     * @param operation    The operation, i.e. HeadObject; null if its latency depends on the payload size, i.e.
+     *                     PutObject, and tells nothing of the load of the service
+     * @param elapsedNanos The request latency
+     */
+    public void release(@NonNull Outcome outcome, @Nullable String operation, long elapsedNanos) {
+        lock.lock();
+        try {
+            inFlight--;
+            requests++;
+            switch (outcome) {
+                case SUCCESS -> onSuccess(operation, elapsedNanos);
+                case THROTTLED -> {
+                    throttles++;
+                    decrease(THROTTLE_DECREASE);
+                }
+                case IGNORED -> {
+                }
+            }
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void onSuccess(@Nullable String operation, long elapsedNanos) {
+        latencyNanos = smooth(latencyNanos, elapsedNanos);
+        boolean slow = false;
+        if (operation != null) {
+            double usual = operationLatencyNanos.getOrDefault(operation, (double) elapsedNanos);
+            slow = latencyTolerance > 0 && elapsedNanos > usual * latencyTolerance;
+            operationLatencyNanos.put(operation, smooth(usual, elapsedNanos));
+        }
+        if (slow) {
+            decrease(LATENCY_DECREASE);
+        } else if (inFlight + 1 >= (int) limit) {
+            // Only raise the limit when it is in use, or it grows without bound while idle
+            limit = Math.min(maxLimit, limit + 1 / limit);
+        }
+    }
+
+    private static double smooth(double average, long sample) {
+        return average == 0 ? sample : average + (sample - average) * LATENCY_SMOOTHING;
+    }
+
+    private void decrease(double factor) {
+        long now = System.nanoTime();
+        if (now - lastDecrease >= DECREASE_INTERVAL.toNanos()) {
+            limit = Math.max(minLimit, limit * factor);
+            lastDecrease = now;
+        }
+    }
+
+    @NonNull
+    public Snapshot snapshot() {
+        lock.lock();
+        try {
+            return new Snapshot(name, (int) limit, inFlight, waiting, peakInFlight, requests, throttles,
+                    Duration.ofNanos((long) latencyNanos));
+        } finally {
+            lock.unlock();
+        }
+    }
+}
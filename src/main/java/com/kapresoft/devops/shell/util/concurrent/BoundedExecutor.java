@@ -0,0 +1,91 @@
+package com.kapresoft.devops.shell.util.concurrent;
+
+import org.springframework.lang.NonNull;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs tasks on a fixed number of threads while limiting how many are queued, so that a producer
+ * such as an S3 listing cannot run ahead of the workers and fill the memory with pending tasks.
+ * {@link #cancel()} stops the queued tasks and interrupts the running ones, for fail-fast processing.
+ */
+public class BoundedExecutor implements AutoCloseable {
+
+    private static final long POLL_MILLIS = 100;
+
+    private final ExecutorService executor;
+    private final Semaphore permits;
+    private volatile boolean cancelled;
+
+    public BoundedExecutor(@NonNull String threadNamePrefix, int concurrency) {
+        int threads = Math.max(concurrency, 1);
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory(threadNamePrefix + "-");
+        threadFactory.setDaemon(true);
+        this.executor = Executors.newFixedThreadPool(threads, threadFactory);
+        this.permits = new Semaphore(threads * 2);
+    }
+
+    /**
+     * Blocks while the queue is full.
+     * @param task The task
+     * @return boolean false if the executor was cancelled and the task was not accepted
+     * @throws InterruptedException If interrupted while waiting for room in the queue
+     */
+    public boolean execute(@NonNull Runnable task) throws InterruptedException {
+        while (!permits.tryAcquire(POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+            if (executor.isShutdown()) {
+                return false;
+            }
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    permits.release();
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            permits.release();
+            return false;
+        }
+    }
+
+    /**
+     * Discards the queued tasks and interrupts the running ones.
+     */
+    public void cancel() {
+        cancelled = true;
+        executor.shutdownNow();
+    }
+
+    /**
+     * @return boolean True once {@link #cancel()} was called; the running tasks stop at their next interrupt check
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Stops accepting tasks and waits until the accepted ones have finished.
+     * @throws InterruptedException If interrupted while waiting
+     */
+    public void awaitCompletion() throws InterruptedException {
+        executor.shutdown();
+        while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+            // keep waiting; the tasks are bounded by their own timeouts
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+}
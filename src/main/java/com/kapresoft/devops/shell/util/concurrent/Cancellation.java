@@ -0,0 +1,26 @@
+package com.kapresoft.devops.shell.util.concurrent;
+
+import org.springframework.lang.NonNull;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * Long loops over remote calls, such as listing pages or build info reads, check between calls whether their
+ * thread was interrupted, which is how a cancelled background job or a closed {@link TaskScope} stops them.
+ */
+public final class Cancellation {
+
+    private Cancellation() {
+    }
+
+    /**
+     * Leaves the interrupt flag set, so that the caller's own waits also end promptly.
+     * @param operation What is cancelled, for the message, i.e. "Listing of site/"
+     * @throws CancellationException If the current thread was interrupted
+     */
+    public static void throwIfInterrupted(@NonNull String operation) {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("%s cancelled".formatted(operation));
+        }
+    }
+}
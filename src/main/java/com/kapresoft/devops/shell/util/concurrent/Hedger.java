@@ -0,0 +1,199 @@
+package com.kapresoft.devops.shell.util.concurrent;
+
+import org.springframework.lang.NonNull;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs a call and, if it has not returned by the given percentile of the recent latencies, runs a duplicate;
+ * the first result wins and the other call is cancelled. Hedging is only worth it for idempotent calls whose
+ * latency is dominated by a few slow responses, such as GETs of small S3 objects.
+ * <p>
+ * Hedges are paid from a budget that earns {@code budgetRatio} of a hedge per call, up to {@link #MAX_BUDGET},
+ * so that a slow service does not see its load doubled.
+ */
+public class Hedger implements AutoCloseable {
+
+    /**
+     * @param calls     The calls made
+     * @param hedged    The calls that were duplicated
+     * @param hedgeWins The calls won by the duplicate
+     * @param denied    The calls that were slow but not duplicated, for lack of budget
+     * @param delay     The current hedge delay
+     */
+    public record Stats(long calls, long hedged, long hedgeWins, long denied, Duration delay) {
+
+        public double hedgeRate() {
+            return calls == 0 ? 0 : (double) hedged / calls;
+        }
+
+        public double winRate() {
+            return hedged == 0 ? 0 : (double) hedgeWins / hedged;
+        }
+    }
+
+    static final double MAX_BUDGET = 10;
+    /**
+     * No hedging until this many latencies are known
+     */
+    static final int MIN_SAMPLES = 20;
+
+    private final ExecutorService executor;
+    private final LatencyWindow latencies;
+    private final double percentile;
+    private final long minDelayNanos;
+    private final double budgetRatio;
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong hedged = new AtomicLong();
+    private final AtomicLong hedgeWins = new AtomicLong();
+    private final AtomicLong denied = new AtomicLong();
+    private double budget;
+
+    /**
+     * @param name        The thread name prefix
+     * @param percentile  The latency percentile after which a call is duplicated, i.e. 95
+     * @param minDelay    A call is never duplicated sooner than this
+     * @param budgetRatio The share of calls that may be duplicated, i.e. 0.05
+     * @param window      The number of recent latencies tracked
+     */
+    public Hedger(@NonNull String name, double percentile, @NonNull Duration minDelay, double budgetRatio, int window) {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory(name + "-");
+        threadFactory.setDaemon(true);
+        this.executor = Executors.newCachedThreadPool(threadFactory);
+        this.latencies = new LatencyWindow(window);
+        this.percentile = percentile;
+        this.minDelayNanos = minDelay.toNanos();
+        this.budgetRatio = budgetRatio;
+    }
+
+    /**
+     * @param call An idempotent call
+     * @return T The result of the call or of its duplicate, whichever is first
+     * @throws ExecutionException   If both calls failed, or the call failed and was not duplicated
+     * @throws InterruptedException If interrupted while waiting
+     */
+    public <T> T call(@NonNull Callable<T> call) throws ExecutionException, InterruptedException {
+        calls.incrementAndGet();
+        earn();
+        CompletionService<T> completion = new ExecutorCompletionService<>(executor);
+        Future<T> primary = completion.submit(timed(call));
+        Future<T> hedge = null;
+        try {
+            Future<T> done = completion.poll(delayNanos(), TimeUnit.NANOSECONDS);
+            if (done == null) {
+                if (spend()) {
+                    hedged.incrementAndGet();
+                    hedge = completion.submit(timed(call));
+                } else {
+                    denied.incrementAndGet();
+                }
+                done = completion.take();
+            }
+            try {
+                T result = done.get();
+                if (done == hedge) {
+                    hedgeWins.incrementAndGet();
+                }
+                return result;
+            } catch (ExecutionException e) {
+                if (hedge == null) {
+                    throw e;
+                }
+                // One of the two failed; the other decides
+                Future<T> other = completion.take();
+                T result = other.get();
+                if (other == hedge) {
+                    hedgeWins.incrementAndGet();
+                }
+                return result;
+            }
+        } finally {
+            primary.cancel(true);
+            if (hedge != null) {
+                hedge.cancel(true);
+            }
+        }
+    }
+
+    private <T> Callable<T> timed(Callable<T> call) {
+        return () -> {
+            long start = System.nanoTime();
+            T result = call.call();
+            latencies.add(System.nanoTime() - start);
+            return result;
+        };
+    }
+
+    long delayNanos() {
+        if (latencies.size() < MIN_SAMPLES) {
+            return Long.MAX_VALUE;
+        }
+        return Math.max(minDelayNanos, latencies.percentile(percentile));
+    }
+
+    private synchronized void earn() {
+        budget = Math.min(MAX_BUDGET, budget + budgetRatio);
+    }
+
+    private synchronized boolean spend() {
+        if (budget < 1) {
+            return false;
+        }
+        budget--;
+        return true;
+    }
+
+    @NonNull
+    public Stats stats() {
+        long delay = delayNanos();
+        return new Stats(calls.get(), hedged.get(), hedgeWins.get(), denied.get(),
+                delay == Long.MAX_VALUE ? Duration.ZERO : Duration.ofNanos(delay));
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * The last {@code size} latencies, in nanoseconds.
+     */
+    static class LatencyWindow {
+
+        private final long[] samples;
+        private int next;
+        private int size;
+
+        LatencyWindow(int size) {
+            this.samples = new long[Math.max(size, 1)];
+        }
+
+        synchronized void add(long nanos) {
+            samples[next] = nanos;
+            next = (next + 1) % samples.length;
+            size = Math.min(size + 1, samples.length);
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        synchronized long percentile(double percentile) {
+            long[] sorted = Arrays.copyOf(samples, size);
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(percentile / 100 * size) - 1;
+            return sorted[Math.min(Math.max(index, 0), size - 1)];
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.kapresoft.devops.shell.util.concurrent;
+
+import org.springframework.lang.NonNull;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs the independent calls of a command concurrently, so that the command takes as long as its slowest call
+ * rather than the sum of them. The first call to fail cancels all other calls still running, whatever their fork
+ * order, and {@link #join()} and {@link Subtask#get()} throw its exception, unwrapped. A command whose error
+ * order matters forks the call whose failure is to be reported later so that it returns the failure instead of
+ * throwing it. Closing the scope cancels the calls still running.
+ * <pre>{@code
+ * try (TaskScope scope = new TaskScope("release")) {
+ *     Subtask<BuildInfoDetails> build = scope.fork(() -> findBuild(version));
+ *     Subtask<GetDistributionConfigResult> config = scope.fork(() -> getDistributionConfig(distID));
+ *     scope.join();
+ *     ...
+ * }
+ * }</pre>
+ */
+public class TaskScope implements AutoCloseable {
+
+    private final ExecutorService executor;
+    private final List<FutureTask<?>> tasks = new CopyOnWriteArrayList<>();
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    /**
+     * The result of a forked call.
+     */
+    public static final class Subtask<T> {
+
+        private final TaskScope scope;
+        private final FutureTask<T> task;
+
+        private Subtask(TaskScope scope, FutureTask<T> task) {
+            this.scope = scope;
+            this.task = task;
+        }
+
+        /**
+         * Waits for the call, if needed. May be called by another call of the scope.
+         * @return T The result of the call
+         * @throws Exception The exception of the first call of the scope that failed
+         */
+        public T get() throws Exception {
+            try {
+                return task.get();
+            } catch (ExecutionException | CancellationException e) {
+                scope.throwFailure();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * @param name The thread name prefix
+     */
+    public TaskScope(@NonNull String name) {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory(name + "-");
+        threadFactory.setDaemon(true);
+        this.executor = Executors.newCachedThreadPool(threadFactory);
+    }
+
+    /**
+     * @param call A call independent of the other calls of the scope
+     * @return Subtask<T> Its result once it completes
+     */
+    @NonNull
+    public <T> Subtask<T> fork(@NonNull Callable<T> call) {
+        final int index = tasks.size();
+        FutureTask<T> task = new FutureTask<>(() -> {
+            try {
+                return call.call();
+            } catch (Exception | Error e) {
+                if (failure.compareAndSet(null, e)) {
+                    for (int i = 0; i < tasks.size(); i++) {
+                        if (i != index) {
+                            tasks.get(i).cancel(true);
+                        }
+                    }
+                }
+                throw e;
+            }
+        });
+        tasks.add(task);
+        if (failure.get() != null) {
+            // A call already failed; this one is not started
+            task.cancel(false);
+        }
+        executor.execute(task);
+        return new Subtask<>(this, task);
+    }
+
+    /**
+     * Waits for all forked calls.
+     * @throws Exception The exception of the first call that failed
+     */
+    public void join() throws Exception {
+        for (FutureTask<?> task : tasks) {
+            try {
+                task.get();
+            } catch (CancellationException | ExecutionException e) {
+                // Reported as the first failure below
+            }
+        }
+        throwFailure();
+    }
+
+    private void throwFailure() throws Exception {
+        Throwable e = failure.get();
+        if (e instanceof Error error) {
+            throw error;
+        }
+        if (e != null) {
+            throw (Exception) e;
+        }
+    }
+
+    private void cancelAll() {
+        tasks.forEach(t -> t.cancel(true));
+    }
+
+    @Override
+    public void close() {
+        cancelAll();
+        executor.shutdownNow();
+    }
+}
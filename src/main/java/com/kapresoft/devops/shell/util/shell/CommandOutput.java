@@ -0,0 +1,64 @@
+package com.kapresoft.devops.shell.util.shell;
+
+import org.jline.terminal.Terminal;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.lang.NonNull;
+
+import java.io.PrintWriter;
+import java.util.concurrent.Callable;
+
+/**
+ * Where commands write output they stream rather than return. That is the terminal of the shell, unless the
+ * command runs for a daemon client, whose output is redirected to the client's connection.
+ */
+public class CommandOutput {
+
+    private final ObjectProvider<Terminal> terminal;
+    private final ThreadLocal<PrintWriter> redirect = new ThreadLocal<>();
+
+    /**
+     * @param terminal The shell terminal; looked up lazily, as a daemon may run without one
+     */
+    public CommandOutput(@NonNull ObjectProvider<Terminal> terminal) {
+        this.terminal = terminal;
+    }
+
+    /**
+     * @return PrintWriter The output of the command running on this thread
+     */
+    @NonNull
+    public PrintWriter writer() {
+        PrintWriter out = redirect.get();
+        return out != null ? out : terminal.getObject().writer();
+    }
+
+    /**
+     * @return boolean True if the output of the command running on this thread can no longer be written, i.e.
+     * the daemon client disconnected; the terminal of the shell never is
+     */
+    public boolean isClosed() {
+        PrintWriter out = redirect.get();
+        return out != null && out.checkError();
+    }
+
+    /**
+     * @param out  The writer the output of the call goes to
+     * @param call A command, run on this thread
+     * @return T The result of the call
+     * @throws Exception The exception of the call
+     */
+    public <T> T redirect(@NonNull PrintWriter out, @NonNull Callable<T> call) throws Exception {
+        PrintWriter previous = redirect.get();
+        redirect.set(out);
+        try {
+            return call.call();
+        } finally {
+            out.flush();
+            if (previous == null) {
+                redirect.remove();
+            } else {
+                redirect.set(previous);
+            }
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.kapresoft.devops.shell.util.trace;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
+
+import org.springframework.lang.NonNull;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Appends traces to a file as OTLP/JSON {@code ExportTraceServiceRequest} objects, one per line, which the
+ * OpenTelemetry collector file receiver and most trace viewers import as is.
+ */
+@RequiredArgsConstructor
+public class OtlpTraceWriter {
+
+    private static final int KIND_INTERNAL = 1;
+    private static final int KIND_CLIENT = 3;
+    private static final int STATUS_ERROR = 2;
+
+    @NonNull
+    private final ObjectMapper objectMapper;
+    @NonNull
+    private final String serviceName;
+
+    @SneakyThrows
+    public void append(@NonNull Tracer.Trace trace, @NonNull Path file) {
+        String line = objectMapper.writer()
+                .without(SerializationFeature.INDENT_OUTPUT)
+                .writeValueAsString(toOtlp(trace)) + System.lineSeparator();
+        Files.writeString(file, line, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    @NonNull
+    Map<String, Object> toOtlp(@NonNull Tracer.Trace trace) {
+        List<Map<String, Object>> spans = new ArrayList<>();
+        collect(trace.traceId(), trace.root(), spans);
+        return Map.of("resourceSpans", List.of(Map.of(
+                "resource", Map.of("attributes", List.of(attribute("service.name", serviceName))),
+                "scopeSpans", List.of(Map.of(
+                        "scope", Map.of("name", Tracer.class.getName()),
+                        "spans", spans)))));
+    }
+
+    private void collect(String traceId, Span span, List<Map<String, Object>> spans) {
+        long startNanos = span.getStart().getEpochSecond() * 1_000_000_000L + span.getStart().getNano();
+        Map<String, Object> otlp = new LinkedHashMap<>();
+        otlp.put("traceId", traceId);
+        otlp.put("spanId", span.getId());
+        if (span.getParent() != null) {
+            otlp.put("parentSpanId", span.getParent().getId());
+        }
+        otlp.put("name", span.getName());
+        otlp.put("kind", span.getKind() == Span.Kind.CLIENT ? KIND_CLIENT : KIND_INTERNAL);
+        // 64-bit integers are strings in OTLP/JSON
+        otlp.put("startTimeUnixNano", String.valueOf(startNanos));
+        otlp.put("endTimeUnixNano", String.valueOf(startNanos + span.getDuration().toNanos()));
+        List<Map<String, Object>> attributes = new ArrayList<>();
+        span.getAttributes().forEach((k, v) -> attributes.add(attribute(k, v)));
+        if (span.getBytes() >= 0) {
+            attributes.add(attribute("http.response_content_length", span.getBytes()));
+        }
+        if (span.getRequestId() != null) {
+            attributes.add(attribute("aws.request_id", span.getRequestId()));
+        }
+        attributes.add(attribute("thread.name", span.getThread()));
+        otlp.put("attributes", attributes);
+        if (span.getError() != null) {
+            otlp.put("status", Map.of("code", STATUS_ERROR, "message", span.getError()));
+        }
+        spans.add(otlp);
+        span.getChildren().forEach(child -> collect(traceId, child, spans));
+    }
+
+    private static Map<String, Object> attribute(String key, Object value) {
+        Object typed = value instanceof Long l ? Map.of("intValue", String.valueOf(l)) : Map.of("stringValue", String.valueOf(value));
+        return Map.of("key", key, "value", typed);
+    }
+}
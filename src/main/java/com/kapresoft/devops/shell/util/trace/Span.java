@@ -0,0 +1,119 @@
+package com.kapresoft.devops.shell.util.trace;
+
+import lombok.Getter;
+
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A timed operation of a command: a remote call, or a step that groups remote calls. Remote calls started on
+ * worker threads are attached to the root span of the command, since their logical parent is not known there.
+ */
+@Getter
+public class Span implements AutoCloseable {
+
+    public enum Kind {
+        /**
+         * A step of the command
+         */
+        INTERNAL,
+        /**
+         * A remote call
+         */
+        CLIENT
+    }
+
+    private final Tracer tracer;
+    private final String id;
+    @Nullable
+    private final Span parent;
+    private final String name;
+    private final Kind kind;
+    private final String thread;
+    private final Instant start;
+    private final long startNanos;
+    private final List<Span> children = Collections.synchronizedList(new ArrayList<>());
+    private final Map<String, String> attributes = Collections.synchronizedMap(new LinkedHashMap<>());
+    private volatile long endNanos;
+    private volatile long bytes = -1;
+    private volatile String requestId;
+    private volatile String error;
+
+    Span(@NonNull Tracer tracer, @NonNull String id, @Nullable Span parent, @NonNull String name, @NonNull Kind kind) {
+        this.tracer = tracer;
+        this.id = id;
+        this.parent = parent;
+        this.name = name;
+        this.kind = kind;
+        this.thread = Thread.currentThread().getName();
+        this.start = Instant.now();
+        this.startNanos = System.nanoTime();
+        if (parent != null) {
+            parent.children.add(this);
+        }
+    }
+
+    public Span bytes(long bytes) {
+        this.bytes = bytes;
+        return this;
+    }
+
+    public Span requestId(@Nullable String requestId) {
+        this.requestId = requestId;
+        return this;
+    }
+
+    public Span attribute(@NonNull String key, @Nullable Object value) {
+        if (value != null) {
+            attributes.put(key, String.valueOf(value));
+        }
+        return this;
+    }
+
+    public Span error(@Nullable String error) {
+        this.error = error;
+        return this;
+    }
+
+    public boolean isEnded() {
+        return endNanos != 0;
+    }
+
+    /**
+     * @return Duration The span duration; up to now if the span has not ended
+     */
+    @NonNull
+    public Duration getDuration() {
+        return Duration.ofNanos((isEnded() ? endNanos : System.nanoTime()) - startNanos);
+    }
+
+    @NonNull
+    public List<Span> getChildren() {
+        synchronized (children) {
+            return List.copyOf(children);
+        }
+    }
+
+    @NonNull
+    public Map<String, String> getAttributes() {
+        synchronized (attributes) {
+            return Map.copyOf(attributes);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (!isEnded()) {
+            endNanos = System.nanoTime();
+            tracer.ended(this);
+        }
+    }
+}
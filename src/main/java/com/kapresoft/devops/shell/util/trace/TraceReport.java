@@ -0,0 +1,133 @@
+package com.kapresoft.devops.shell.util.trace;
+
+import com.kapresoft.devops.shell.util.ByteUnits;
+
+import org.springframework.lang.NonNull;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static java.lang.String.format;
+
+/**
+ * Renders a trace as an indented span tree, followed by the call patterns worth a look: the same remote call
+ * repeated per listed item (N+1), and remote calls made one after the other that could have overlapped.
+ */
+public final class TraceReport {
+
+    /**
+     * Repeating the same remote call this often under one span is reported
+     */
+    static final int REPEATED_CALLS = 5;
+    /**
+     * Consecutive remote calls that do not overlap are reported from this length
+     */
+    static final int SERIAL_CALLS = 3;
+    static final Duration SERIAL_MIN_DURATION = Duration.ofMillis(100);
+
+    private TraceReport() {
+    }
+
+    @NonNull
+    public static List<String> render(@NonNull Tracer.Trace trace) {
+        List<String> lines = new ArrayList<>();
+        lines.add(format("trace %s", trace.traceId()));
+        render(trace.root(), 0, lines);
+        List<String> findings = findings(trace.root());
+        if (!findings.isEmpty()) {
+            lines.add("");
+            findings.forEach(f -> lines.add("  ! " + f));
+        }
+        return lines;
+    }
+
+    private static void render(Span span, int depth, List<String> lines) {
+        String name = "  ".repeat(depth + 1) + span.getName();
+        StringBuilder line = new StringBuilder(format("%-44s %8d ms", name, span.getDuration().toMillis()));
+        if (span.getBytes() >= 0) {
+            line.append(format(" %10s", ByteUnits.format(span.getBytes())));
+        }
+        if (span.getRequestId() != null) {
+            line.append("  id=").append(span.getRequestId());
+        }
+        if (span.getError() != null) {
+            line.append("  error=").append(span.getError());
+        }
+        lines.add(line.toString());
+        span.getChildren().stream()
+                .sorted(Comparator.comparingLong(Span::getStartNanos))
+                .forEach(child -> render(child, depth + 1, lines));
+    }
+
+    /**
+     * @param root The root span
+     * @return List<String> The N+1 patterns and serial chains of remote calls, per parent span
+     */
+    @NonNull
+    static List<String> findings(@NonNull Span root) {
+        List<String> findings = new ArrayList<>();
+        collectFindings(root, findings);
+        return findings;
+    }
+
+    private static void collectFindings(Span span, List<String> findings) {
+        List<Span> calls = span.getChildren().stream()
+                .filter(s -> s.getKind() == Span.Kind.CLIENT)
+                .sorted(Comparator.comparingLong(Span::getStartNanos))
+                .toList();
+        Map<String, List<Span>> byOperation = calls.stream()
+                .collect(Collectors.groupingBy(Span::getName, LinkedHashMap::new, Collectors.toList()));
+        byOperation.forEach((operation, same) -> {
+            if (same.size() < REPEATED_CALLS) {
+                return;
+            }
+            calls.stream()
+                    .filter(s -> s.getName().startsWith("List") && !s.getName().equals(operation))
+                    .filter(s -> s.getStartNanos() < same.get(0).getStartNanos())
+                    .findFirst()
+                    .ifPresentOrElse(
+                            listing -> findings.add(format("N+1: %d %s calls after %s under %s",
+                                    same.size(), operation, listing.getName(), span.getName())),
+                            () -> findings.add(format("repeated: %d %s calls under %s",
+                                    same.size(), operation, span.getName())));
+        });
+        serialChains(calls).forEach(chain -> findings.add(format("serial: %d calls one after the other under %s, %d ms: %s",
+                chain.size(), span.getName(), chainDuration(chain).toMillis(),
+                chain.stream().map(Span::getName).collect(Collectors.joining(" -> ")))));
+        span.getChildren().forEach(child -> collectFindings(child, findings));
+    }
+
+    /**
+     * @param calls Sibling remote calls in start order
+     * @return List<List<Span>> The runs of calls that each started after the previous one ended
+     */
+    static List<List<Span>> serialChains(List<Span> calls) {
+        List<List<Span>> chains = new ArrayList<>();
+        List<Span> chain = new ArrayList<>();
+        for (Span call : calls) {
+            if (!chain.isEmpty() && call.getStartNanos() < chain.get(chain.size() - 1).getStartNanos()
+                    + chain.get(chain.size() - 1).getDuration().toNanos()) {
+                addChain(chains, chain);
+                chain = new ArrayList<>();
+            }
+            chain.add(call);
+        }
+        addChain(chains, chain);
+        return chains;
+    }
+
+    private static void addChain(List<List<Span>> chains, List<Span> chain) {
+        if (chain.size() >= SERIAL_CALLS && chainDuration(chain).compareTo(SERIAL_MIN_DURATION) >= 0) {
+            chains.add(chain);
+        }
+    }
+
+    private static Duration chainDuration(List<Span> chain) {
+        return chain.stream().map(Span::getDuration).reduce(Duration.ZERO, Duration::plus);
+    }
+}
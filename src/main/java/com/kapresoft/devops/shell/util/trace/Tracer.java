@@ -0,0 +1,154 @@
+package com.kapresoft.devops.shell.util.trace;
+
+import lombok.Getter;
+
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Records the spans of a command while tracing is on. The command runner opens the trace with {@link #begin()} on
+ * the thread that runs the command, and takes it with {@link #take()} once the command is done. Threads the
+ * command starts share its trace; spans on any other thread, such as a background refresh, are not recorded.
+ * A pooled thread keeps the trace of the command that started it, which records nothing once it was taken.
+ * When tracing is off, {@link #span(String)} returns a no-op span and nothing is recorded.
+ */
+public class Tracer {
+
+    private static final HexFormat HEX = HexFormat.of();
+
+    private final ThreadLocal<Span> current = new ThreadLocal<>();
+    private final InheritableThreadLocal<Context> context = new InheritableThreadLocal<>();
+    @Getter
+    private volatile boolean enabled;
+    @Getter
+    @Nullable
+    private volatile Trace last;
+
+    /**
+     * @param traceId The trace ID, 32 hex digits
+     * @param root    The span of the command
+     */
+    public record Trace(String traceId, Span root) {
+    }
+
+    /**
+     * The trace of one command; started with its first span, so that the root span starts with the first call
+     */
+    private final class Context {
+
+        private Trace trace;
+        private boolean closed;
+
+        @Nullable
+        synchronized Trace start() {
+            if (trace == null && !closed) {
+                trace = new Trace(randomId(16), new Span(Tracer.this, randomId(8), null, "command", Span.Kind.INTERNAL));
+            }
+            return closed ? null : trace;
+        }
+
+        @Nullable
+        synchronized Trace close() {
+            closed = true;
+            return trace;
+        }
+
+        synchronized boolean isOpen() {
+            return !closed;
+        }
+    }
+
+    public Tracer(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * @return boolean True if the spans started on this thread are recorded
+     */
+    public boolean isRecording() {
+        Context c = context.get();
+        return enabled && c != null && c.isOpen();
+    }
+
+    /**
+     * Opens the trace of the command about to run on this thread, in place of any trace the thread had.
+     */
+    public void begin() {
+        context.set(new Context());
+        current.remove();
+    }
+
+    /**
+     * Starts a span as a child of the span current on this thread, or of the command root span. Close it to end it.
+     * @param name The operation name
+     * @return Span The span, current on this thread until closed
+     */
+    @NonNull
+    public Span span(@NonNull String name) {
+        return start(name, Span.Kind.INTERNAL, true);
+    }
+
+    /**
+     * Starts a span for a remote call. Unlike {@link #span(String)}, it does not become the current span, since
+     * the call may end on another thread.
+     * @param name The operation name, i.e. ListObjectsV2
+     * @return Span The span; closing it ends it
+     */
+    @NonNull
+    public Span remoteCall(@NonNull String name) {
+        return start(name, Span.Kind.CLIENT, false);
+    }
+
+    private Span start(String name, Span.Kind kind, boolean makeCurrent) {
+        Context c = context.get();
+        Trace trace = enabled && c != null ? c.start() : null;
+        if (trace == null) {
+            return new Span(this, "", null, name, kind);
+        }
+        Span parent = Optional.ofNullable(current.get()).filter(s -> !s.isEnded()).orElse(trace.root());
+        Span span = new Span(this, randomId(8), parent, name, kind);
+        if (makeCurrent) {
+            current.set(span);
+        }
+        return span;
+    }
+
+    void ended(Span span) {
+        if (current.get() == span) {
+            current.set(span.getParent());
+        }
+    }
+
+    /**
+     * Ends the trace of this thread; the threads that share it record nothing more.
+     * @return Optional<Trace> The trace, if tracing is on and any span was recorded since {@link #begin()}
+     */
+    @NonNull
+    public Optional<Trace> take() {
+        Context c = context.get();
+        context.remove();
+        current.remove();
+        Trace trace = c == null ? null : c.close();
+        if (trace == null || !enabled) {
+            return Optional.empty();
+        }
+        // The root span ends with its last child rather than when the user types the next command
+        trace.root().close();
+        last = trace;
+        return Optional.of(trace);
+    }
+
+    private static String randomId(int bytes) {
+        byte[] id = new byte[bytes];
+        ThreadLocalRandom.current().nextBytes(id);
+        return HEX.formatHex(id);
+    }
+}
@@ -0,0 +1,42 @@
+package com.kapresoft.devops.shell.util.trace;
+
+import lombok.RequiredArgsConstructor;
+
+import org.springframework.lang.NonNull;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Records a span per HTTP request made through the CDN, with the CloudFront request ID of the response.
+ */
+@RequiredArgsConstructor
+public class TracingExchangeFilter implements ExchangeFilterFunction {
+
+    @NonNull
+    private final Tracer tracer;
+
+    @Override
+    @NonNull
+    public Mono<ClientResponse> filter(@NonNull ClientRequest request, @NonNull ExchangeFunction next) {
+        if (!tracer.isRecording()) {
+            return next.exchange(request);
+        }
+        return Mono.defer(() -> {
+            Span span = tracer.remoteCall("HTTP " + request.method().name())
+                    .attribute("http.method", request.method().name())
+                    .attribute("http.url", request.url());
+            return next.exchange(request)
+                    .doOnNext(response -> {
+                        span.attribute("http.status_code", response.statusCode().value())
+                                .requestId(response.headers().asHttpHeaders().getFirst("x-amz-cf-id"));
+                        response.headers().contentLength().ifPresent(span::bytes);
+                    })
+                    .doOnError(e -> span.error(e.getMessage()))
+                    .doFinally(signal -> span.close());
+        });
+    }
+}
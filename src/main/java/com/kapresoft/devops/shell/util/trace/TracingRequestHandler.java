@@ -0,0 +1,76 @@
+package com.kapresoft.devops.shell.util.trace;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.Request;
+import com.amazonaws.Response;
+import com.amazonaws.handlers.HandlerContextKey;
+import com.amazonaws.handlers.RequestHandler2;
+import com.amazonaws.http.HttpResponse;
+
+import lombok.RequiredArgsConstructor;
+
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Records a span per AWS SDK call, i.e. each {@code ListObjectsV2} page, {@code GetObject} or
+ * {@code CreateInvalidation}, with the response size and the request ID for support cases.
+ */
+@RequiredArgsConstructor
+public class TracingRequestHandler extends RequestHandler2 {
+
+    private static final HandlerContextKey<Span> SPAN = new HandlerContextKey<>("TraceSpan");
+
+    @NonNull
+    private final Tracer tracer;
+
+    @Override
+    public void beforeRequest(Request<?> request) {
+        if (!tracer.isRecording()) {
+            return;
+        }
+        String operation = Optional.ofNullable(request.getHandlerContext(HandlerContextKey.OPERATION_NAME))
+                .orElseGet(() -> request.getOriginalRequest().getClass().getSimpleName().replaceFirst("Request$", ""));
+        Span span = tracer.remoteCall(operation)
+                .attribute("rpc.service", request.getServiceName())
+                .attribute("http.method", request.getHttpMethod())
+                .attribute("http.url", request.getEndpoint() + "/" + request.getResourcePath());
+        request.addHandlerContext(SPAN, span);
+    }
+
+    @Override
+    public void afterResponse(Request<?> request, Response<?> response) {
+        end(request, response == null ? null : response.getHttpResponse(), null);
+    }
+
+    @Override
+    public void afterError(Request<?> request, Response<?> response, Exception e) {
+        String requestId = e instanceof AmazonServiceException ase ? ase.getRequestId() : null;
+        Span span = end(request, response == null ? null : response.getHttpResponse(), e.getMessage());
+        if (span != null && span.getRequestId() == null) {
+            span.requestId(requestId);
+        }
+    }
+
+    @Nullable
+    private Span end(Request<?> request, @Nullable HttpResponse httpResponse, @Nullable String error) {
+        Span span = request.getHandlerContext(SPAN);
+        if (span == null) {
+            return null;
+        }
+        if (httpResponse != null) {
+            Map<String, String> headers = httpResponse.getHeaders();
+            span.attribute("http.status_code", httpResponse.getStatusCode())
+                    .requestId(Optional.ofNullable(headers.get("x-amz-request-id"))
+                            .orElse(headers.get("x-amzn-RequestId")));
+            Optional.ofNullable(headers.get("Content-Length"))
+                    .map(Long::parseLong)
+                    .ifPresent(span::bytes);
+        }
+        span.error(error).close();
+        return span;
+    }
+}
@@ -0,0 +1,53 @@
+package com.kapresoft.devops.shell.cmd;
+
+import com.kapresoft.devops.shell.config.JobProperties;
+import com.kapresoft.devops.shell.pojo.JobInfo.State;
+import com.kapresoft.devops.shell.service.CommandDispatcher;
+import com.kapresoft.devops.shell.service.DefaultJobService;
+import com.kapresoft.devops.shell.util.shell.CommandOutput;
+
+import org.jline.terminal.Terminal;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JobCommandsTest {
+
+    private final CommandDispatcher dispatcher = (line, out) -> {
+        out.println("output of " + line);
+        return CommandDispatcher.EXIT_OK;
+    };
+    private final DefaultJobService jobService = new DefaultJobService(
+            new StaticListableBeanFactory(Map.of("dispatcher", dispatcher)).getBeanProvider(CommandDispatcher.class),
+            new JobProperties(1, 4096));
+    private final CommandOutput commandOutput = new CommandOutput(new StaticListableBeanFactory().getBeanProvider(Terminal.class));
+    private final JobCommands commands = new JobCommands(jobService, commandOutput);
+
+    @AfterEach
+    void tearDown() {
+        jobService.destroy();
+    }
+
+    @Test
+    void fg_ShouldShowAJobReportedAsFinished() throws Exception {
+        commands.bg(new String[]{"ls", "--fresh"});
+        assertThat(jobService.await(1, Duration.ofSeconds(5)).getState()).isEqualTo(State.DONE);
+        // The prompt reports the finished job before the user gets to fg
+        assertThat(jobService.reportFinished()).hasSize(1);
+        assertThat(commands.jobs()).contains("[1] DONE", "ls --fresh");
+
+        StringWriter output = new StringWriter();
+        String status = commandOutput.redirect(new PrintWriter(output), () -> commands.fg(1));
+
+        assertThat(output.toString()).contains("output of ls --fresh");
+        assertThat(status).startsWith("[1] DONE after");
+        assertThat(jobService.list()).isEmpty();
+    }
+}
@@ -0,0 +1,49 @@
+package com.kapresoft.devops.shell.config;
+
+import jakarta.validation.ValidationException;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ProjectRegistryTest {
+
+    private final ProjectRegistry registry = createRegistry();
+
+    private static ProjectRegistry createRegistry() {
+        Map<String, ProjectsProperties.Project> projects = new LinkedHashMap<>();
+        projects.put("articles", new ProjectsProperties.Project("Kapresoft-Articles", "build.yml",
+                URI.create("https://articles.cloudfront.net"), "build-manifest.txt", ""));
+        projects.put("docs", new ProjectsProperties.Project("Kapresoft-Docs", "info.yml",
+                URI.create("https://docs.cloudfront.net"), "build-manifest.txt", "E2DOCS"));
+        return new ProjectRegistry(new ProjectsProperties(projects, "docs"), new S3BucketProperties("s3://kapresoft/"));
+    }
+
+    @Test
+    void get_ShouldMatchKeyOrName() {
+        assertThat(registry.get("").getId()).isEqualTo("docs");
+        assertThat(registry.get("articles").getName()).isEqualTo("Kapresoft-Articles");
+        assertThat(registry.get("kapresoft-docs").getId()).isEqualTo("docs");
+        assertThatThrownBy(() -> registry.get("blog")).isInstanceOf(ValidationException.class);
+    }
+
+    @Test
+    void forKey_ShouldSplitByProjectName() {
+        assertThat(registry.forKey("site/2e641ee8/Kapresoft-Articles/build.yml").getId()).isEqualTo("articles");
+        assertThat(registry.forKey("site/2e641ee8/Kapresoft-Docs/info.yml").getId()).isEqualTo("docs");
+        assertThat(registry.forKey("site/2e641ee8/63b48b92/build.yml").getId()).isEqualTo("docs");
+    }
+
+    @Test
+    void isBuildInfoKey_ShouldMatchAnyProjectFile() {
+        assertThat(registry.isBuildInfoKey("site/2e641ee8/Kapresoft-Articles/build.yml")).isTrue();
+        assertThat(registry.isBuildInfoKey("site/2e641ee8/Kapresoft-Docs/info.yml")).isTrue();
+        assertThat(registry.isBuildInfoKey("site/2e641ee8/Kapresoft-Docs/index.html")).isFalse();
+    }
+
+}
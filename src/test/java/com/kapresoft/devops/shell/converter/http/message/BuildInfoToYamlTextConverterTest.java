@@ -0,0 +1,41 @@
+package com.kapresoft.devops.shell.converter.http.message;
+
+import com.kapresoft.devops.shell.pojo.BuildInfo;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.ZoneId;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BuildInfoToYamlTextConverterTest {
+
+    private final BuildInfoToYamlTextConverter converter = new BuildInfoToYamlTextConverter();
+
+    @Test
+    void convert() {
+        Date buildDate = new Date(1704406322L * 1000L);
+        BuildInfo buildInfo = BuildInfo.builder()
+                .id("Kapresoft-Articles:b9ed4a9e-cc0f-4612-9f18-30f065a6543a")
+                .date(BuildInfoToYamlTextConverter.formatDate(buildDate, ZoneId.of("America/Los_Angeles")))
+                .buildDate(buildDate)
+                .commitHash("31df8236bd2ee88ebad66601c48f7c895461af9a")
+                .buildNumber("b9ed4a9e-cc0f-4612-9f18-30f065a6543a")
+                .deployKey("site/b9ed4a9e-cc0f-4612-9f18-30f065a6543a/31df8236bd2ee88ebad66601c48f7c895461af9a")
+                .build();
+
+        String yamlText = converter.convert(buildInfo);
+
+        assertThat(yamlText).contains("date: Thu Jan 4 14:12:02 PST 2024 America/Los_Angeles")
+                .contains("date-long: 1704406322");
+        BuildInfo b = YamlTextToBuildInfoConverter.fromText(yamlText);
+        assertThat(b.getId()).as("id").isEqualTo(buildInfo.getId());
+        assertThat(b.getDate()).as("date").isEqualTo(buildInfo.getDate());
+        assertThat(b.getBuildDate()).as("date-long").isEqualTo(buildDate);
+        assertThat(b.getCommitHash()).as("commit-hash").isEqualTo(buildInfo.getCommitHash());
+        assertThat(b.getBuildNumber()).as("build-number").isEqualTo(buildInfo.getBuildNumber());
+        assertThat(b.getDeployKey()).as("deploy-key").isEqualTo(buildInfo.getDeployKey());
+    }
+
+}
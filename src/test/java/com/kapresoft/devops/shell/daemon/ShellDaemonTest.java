@@ -0,0 +1,156 @@
+package com.kapresoft.devops.shell.daemon;
+
+import com.kapresoft.devops.shell.config.DaemonProperties;
+import com.kapresoft.devops.shell.service.CommandDispatcher;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ShellDaemonTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void serve_ShouldRelayOutputAndExitCode_ThenStopWhenIdle() throws Exception {
+        Path socket = dir.resolve("shell.sock");
+        CommandDispatcher dispatcher = (line, out) -> {
+            if (line.startsWith("fail")) {
+                out.println("Error: failed");
+                return CommandDispatcher.EXIT_ERROR;
+            }
+            out.println("streamed");
+            out.println(line);
+            return CommandDispatcher.EXIT_OK;
+        };
+        ShellDaemon daemon = new ShellDaemon(new DaemonProperties(true, socket.toString(), Duration.ofMillis(500), 2),
+                dispatcher, null);
+
+        CompletableFuture<Void> serving = CompletableFuture.runAsync(() -> {
+            try {
+                daemon.serve(socket);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        awaitListening(socket);
+
+        assertThat(send(socket, "ls --format json")).containsExactly("streamed", "ls --format json", ShellDaemon.EXIT_MARKER + "0");
+        assertThat(send(socket, "fail")).containsExactly("Error: failed", ShellDaemon.EXIT_MARKER + "1");
+
+        serving.get(5, TimeUnit.SECONDS);
+        assertThat(socket).doesNotExist();
+    }
+
+    @Test
+    void serve_ShouldCancelTheCommandOfADisconnectedClient() throws Exception {
+        // The directory does not exist yet, and is created private
+        Path socket = dir.resolve("private/shell.sock");
+        CountDownLatch cancelled = new CountDownLatch(1);
+        CommandDispatcher dispatcher = (line, out) -> {
+            out.println("watching");
+            try {
+                // Like a watch with no timeout, which reports each build that lands
+                while (true) {
+                    Thread.sleep(20);
+                    out.println("build");
+                }
+            } catch (InterruptedException e) {
+                cancelled.countDown();
+            }
+            return CommandDispatcher.EXIT_ERROR;
+        };
+        ShellDaemon daemon = new ShellDaemon(new DaemonProperties(true, socket.toString(), Duration.ofMillis(500), 2),
+                dispatcher, null);
+        CompletableFuture<Void> serving = CompletableFuture.runAsync(() -> {
+            try {
+                daemon.serve(socket);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        awaitListening(socket);
+        assertThat(PosixFilePermissions.toString(Files.getPosixFilePermissions(socket.getParent()))).isEqualTo("rwx------");
+
+        try (SocketChannel client = SocketChannel.open(UnixDomainSocketAddress.of(socket))) {
+            client.write(ByteBuffer.wrap("watch-builds\n".getBytes(StandardCharsets.UTF_8)));
+            BufferedReader in = new BufferedReader(new InputStreamReader(Channels.newInputStream(client), StandardCharsets.UTF_8));
+            assertThat(in.readLine()).isEqualTo("watching");
+        }
+
+        assertThat(cancelled.await(5, TimeUnit.SECONDS)).isTrue();
+        serving.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void serve_ShouldRunTheCommandOfAClientThatClosedItsInput() throws Exception {
+        Path socket = dir.resolve("shell.sock");
+        CommandDispatcher dispatcher = (line, out) -> {
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                out.println("cancelled");
+                return CommandDispatcher.EXIT_ERROR;
+            }
+            out.println("done");
+            return CommandDispatcher.EXIT_OK;
+        };
+        ShellDaemon daemon = new ShellDaemon(new DaemonProperties(true, socket.toString(), Duration.ofMillis(500), 2),
+                dispatcher, null);
+        CompletableFuture<Void> serving = CompletableFuture.runAsync(() -> {
+            try {
+                daemon.serve(socket);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        awaitListening(socket);
+
+        // Like printf ... | nc -U, which shuts down its output once stdin ends and then reads until the daemon closes
+        try (SocketChannel client = SocketChannel.open(UnixDomainSocketAddress.of(socket))) {
+            client.write(ByteBuffer.wrap("verify 2e6\n".getBytes(StandardCharsets.UTF_8)));
+            client.shutdownOutput();
+            BufferedReader in = new BufferedReader(new InputStreamReader(Channels.newInputStream(client), StandardCharsets.UTF_8));
+            assertThat(in.lines().toList()).containsExactly("done", ShellDaemon.EXIT_MARKER + "0");
+        }
+
+        serving.get(5, TimeUnit.SECONDS);
+    }
+
+    private static void awaitListening(Path socket) throws InterruptedException {
+        while (true) {
+            try (SocketChannel probe = SocketChannel.open(UnixDomainSocketAddress.of(socket))) {
+                return;
+            } catch (IOException e) {
+                Thread.sleep(10);
+            }
+        }
+    }
+
+    private static List<String> send(Path socket, String line) throws IOException {
+        try (SocketChannel client = SocketChannel.open(UnixDomainSocketAddress.of(socket))) {
+            client.write(ByteBuffer.wrap((line + "\n").getBytes(StandardCharsets.UTF_8)));
+            BufferedReader in = new BufferedReader(new InputStreamReader(Channels.newInputStream(client), StandardCharsets.UTF_8));
+            return in.lines().toList();
+        }
+    }
+}
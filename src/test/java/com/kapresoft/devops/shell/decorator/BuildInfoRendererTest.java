@@ -0,0 +1,143 @@
+package com.kapresoft.devops.shell.decorator;
+
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.kapresoft.devops.shell.config.KapresoftProjectProperties;
+import com.kapresoft.devops.shell.pojo.BuildInfo;
+import com.kapresoft.devops.shell.pojo.BuildInfoDetails;
+import com.kapresoft.devops.shell.pojo.S3Bucket;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.ansi.AnsiColor;
+import org.springframework.boot.ansi.AnsiOutput;
+import org.springframework.shell.style.FigureSettings;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BuildInfoRendererTest {
+
+    private final KapresoftProjectProperties projectConf = new KapresoftProjectProperties("kapresoft-articles",
+            "Kapresoft-Articles", "build.yml", URI.create("https://d3prd97h59cxec.cloudfront.net"), "build-manifest.txt", "",
+            new S3Bucket("s3://kapresoft/", "kapresoft"));
+
+    @BeforeEach
+    void setUp() {
+        AnsiOutput.setEnabled(AnsiOutput.Enabled.NEVER);
+    }
+
+    @AfterEach
+    void tearDown() {
+        AnsiOutput.setEnabled(AnsiOutput.Enabled.DETECT);
+    }
+
+    @Test
+    void renderTable_ShouldAlignColumnsAndMarkLive() throws IOException {
+        BuildInfoDetails a = build("a", "31df8236bd2ee88ebad66601c48f7c895461af9a");
+        BuildInfoDetails b = build("76430603-5232", "63b48b92");
+        StringBuilder out = new StringBuilder();
+
+        BuildInfoRenderer.current().renderTable(List.of(a, b), x -> x == b, out);
+
+        String[] lines = out.toString().split("\n");
+        assertThat(lines).hasSize(3);
+        assertThat(lines[0]).isEqualTo("   VERSION        BUILD-DATE    COMMIT");
+        assertThat(lines[1]).isEqualTo("   a              Undetermined  31df8236bd2e");
+        assertThat(lines[2]).isEqualTo(" %s 76430603-5232  Undetermined  63b48b92".formatted(BuildInfoRenderer.figures().tick()));
+    }
+
+    @Test
+    void renderTable_ShouldShowDatesInTheBuildZone() throws IOException {
+        TimeZone defaultZone = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone("Asia/Tokyo"));
+        try {
+            BuildInfoDetails dated = build("a", "31df8236bd2ee88ebad66601c48f7c895461af9a", new Date(1704659441000L));
+            StringBuilder out = new StringBuilder();
+
+            BuildInfoRenderer.current().renderTable(List.of(dated), x -> false, out);
+
+            assertThat(out.toString().split("\n")[1]).isEqualTo("   a        2024-01-07 12:30 PST  31df8236bd2e");
+        } finally {
+            TimeZone.setDefault(defaultZone);
+        }
+    }
+
+    @Test
+    void render_ShouldMatchDecorator() throws IOException {
+        BuildInfoDetails a = build("a", "31df8236bd2ee88ebad66601c48f7c895461af9a");
+        BuildInfoDetails dated = build("76430603-5232", "63b48b92", new Date(1704659441000L));
+
+        for (AnsiOutput.Enabled enabled : List.of(AnsiOutput.Enabled.NEVER, AnsiOutput.Enabled.ALWAYS)) {
+            AnsiOutput.setEnabled(enabled);
+            for (BuildInfoDetails b : List.of(a, dated)) {
+                for (boolean live : new boolean[]{false, true}) {
+                    StringBuilder out = new StringBuilder();
+
+                    BuildInfoRenderer.current().render(b, live, out);
+
+                    BuildInfoCLIOutputDecorator decorator = BuildInfoCLIOutputDecorator.builder()
+                            .summary(new S3ObjectSummary()).buildInfo(b).live(live).build();
+                    assertThat(out.toString()).isEqualTo(decorator.toString());
+                    // With ANSI, the decorator used to write an empty color sequence for builds that are not live
+                    if (enabled == AnsiOutput.Enabled.NEVER || live) {
+                        assertThat(out.toString()).isEqualTo(decoratorLayout(b, live));
+                    }
+                }
+            }
+        }
+        AnsiOutput.setEnabled(AnsiOutput.Enabled.NEVER);
+        StringBuilder out = new StringBuilder();
+        BuildInfoRenderer.current().render(a, false, out);
+        assertThat(out.toString()).isEqualTo("""
+                %1$s%1$s Build-Version: a
+                  %2$s Git-Hash             : 31df8236bd2ee88ebad66601c48f7c895461af9a   Build-Date             : Undetermined
+                  %2$s S3-URI               : s3://kapresoft/site/a/Kapresoft-Articles
+                """.formatted(BuildInfoRenderer.figures().rightPointingQuotation(), BuildInfoRenderer.figures().righwardsArror()));
+    }
+
+    /**
+     * @return String The layout the decorator rendered with {@link AnsiOutput} before the renderer took it over
+     */
+    private static String decoratorLayout(BuildInfoDetails b, boolean live) {
+        FigureSettings fs = BuildInfoRenderer.figures();
+        String liveText = live ? AnsiOutput.toString(AnsiColor.BRIGHT_GREEN, " %s [LIVE]".formatted(fs.tick())) : "";
+        String header = "%s: %s%s%s".formatted(
+                AnsiOutput.toString(AnsiColor.BRIGHT_BLUE, fs.rightPointingQuotation() + fs.rightPointingQuotation() + " Build-Version"),
+                b.getVersion(), b.getBuildInfo().isManualBuild() ? " (Local Build)" : "",
+                AnsiOutput.toString(AnsiColor.BRIGHT_GREEN, liveText));
+        String buildDate = b.getBuildDate() == null ? "Undetermined" : b.getBuildDate().toString();
+        return """
+                %s
+                %s %s
+                %s
+                """.formatted(header,
+                "  %-23s: %s".formatted(fs.righwardsArror() + " " + AnsiOutput.toString(AnsiColor.YELLOW, "Git-Hash"), b.getCommitHash()),
+                "  %-23s: %s".formatted(AnsiOutput.toString(AnsiColor.YELLOW, "Build-Date"), buildDate),
+                "  %-23s: %s".formatted(fs.righwardsArror() + " " + AnsiOutput.toString(AnsiColor.YELLOW, "S3-URI"), b.getS3URI()));
+    }
+
+    private BuildInfoDetails build(String version, String commitHash) {
+        return build(version, commitHash, null);
+    }
+
+    private BuildInfoDetails build(String version, String commitHash, Date buildDate) {
+        String keyPath = "site/%s/Kapresoft-Articles".formatted(version);
+        return BuildInfoDetails.builder()
+                .projectConfig(projectConf)
+                .buildInfo(BuildInfo.builder().id("Kapresoft-Articles:" + version).date("").commitHash(commitHash)
+                        .buildDate(buildDate).build())
+                .version(version)
+                .keyPath(keyPath)
+                .cdnPath("/" + keyPath)
+                .s3URI(URI.create("s3://kapresoft/" + keyPath))
+                .buildInfoFileURI(URI.create("https://d3prd97h59cxec.cloudfront.net/build.yml"))
+                .build();
+    }
+
+}
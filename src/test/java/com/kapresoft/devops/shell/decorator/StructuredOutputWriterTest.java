@@ -0,0 +1,77 @@
+package com.kapresoft.devops.shell.decorator;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.kapresoft.devops.shell.opt.OutputFormat;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StructuredOutputWriterTest {
+
+    private static final List<String> COLUMNS = List.of("version", "live", "build-date");
+    private static final Date BUILD_DATE = new Date(1704406322000L);
+
+    @Test
+    void write_Ndjson_ShouldWriteOneObjectPerLine() throws IOException {
+        assertThat(write(OutputFormat.NDJSON)).isEqualTo("""
+                {"version":"a","live":true,"build-date":"2024-01-04T22:12:02Z"}
+                {"version":"b\\tc","live":false,"build-date":null}
+                """);
+    }
+
+    @Test
+    void write_Json_ShouldWriteArray() throws IOException {
+        assertThat(write(OutputFormat.JSON)).isEqualTo("""
+                [{"version":"a","live":true,"build-date":"2024-01-04T22:12:02Z"},\
+                {"version":"b\\tc","live":false,"build-date":null}]
+                """);
+    }
+
+    @Test
+    void write_Tsv_ShouldWriteHeaderAndEscapeTabs() throws IOException {
+        assertThat(write(OutputFormat.TSV)).isEqualTo("""
+                version\tlive\tbuild-date
+                a\ttrue\t2024-01-04T22:12:02Z
+                b c\tfalse\t
+                """);
+    }
+
+    @Test
+    void write_ShouldWriteCollectionsAsArrays() throws IOException {
+        List<String> columns = List.of("dist-id", "domain-aliases");
+        StringWriter json = new StringWriter();
+        StringWriter tsv = new StringWriter();
+
+        try (StructuredOutputWriter jsonWriter = new StructuredOutputWriter(OutputFormat.NDJSON, json, new JsonFactory(), columns);
+             StructuredOutputWriter tsvWriter = new StructuredOutputWriter(OutputFormat.TSV, tsv, new JsonFactory(), columns)) {
+            jsonWriter.write("E2QWRUHAPOMQZL", List.of("kapresoft.com", "www.kapresoft.com"));
+            jsonWriter.write("E3ABCDEF", List.of());
+            tsvWriter.write("E2QWRUHAPOMQZL", List.of("kapresoft.com", "www.kapresoft.com"));
+        }
+
+        assertThat(json).hasToString("""
+                {"dist-id":"E2QWRUHAPOMQZL","domain-aliases":["kapresoft.com","www.kapresoft.com"]}
+                {"dist-id":"E3ABCDEF","domain-aliases":[]}
+                """);
+        assertThat(tsv).hasToString("""
+                dist-id\tdomain-aliases
+                E2QWRUHAPOMQZL\tkapresoft.com,www.kapresoft.com
+                """);
+    }
+
+    private static String write(OutputFormat format) throws IOException {
+        StringWriter out = new StringWriter();
+        try (StructuredOutputWriter writer = new StructuredOutputWriter(format, out, new JsonFactory(), COLUMNS)) {
+            writer.write("a", true, BUILD_DATE);
+            writer.write("b\tc", false, null);
+        }
+        return out.toString();
+    }
+
+}
@@ -0,0 +1,122 @@
+package com.kapresoft.devops.shell.pojo;
+
+import com.kapresoft.devops.shell.config.KapresoftProjectProperties;
+import com.kapresoft.devops.shell.converter.http.message.BuildInfoConverter;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BuildCatalogTest {
+
+    private static final int BUILDS = 50_000;
+
+    private final KapresoftProjectProperties projectConf = new KapresoftProjectProperties("kapresoft-articles",
+            "Kapresoft-Articles", "build.yml", URI.create("https://d3prd97h59cxec.cloudfront.net"), "build-manifest.txt", "",
+            new S3Bucket("s3://kapresoft/", "kapresoft"));
+    private final BuildInfoConverter<String, BuildInfoDetails> converter = s -> null;
+
+    private BuildInfoDetails build(long i) {
+        UUID version = new UUID(i * 31, i);
+        String yaml = """
+                id: "Kapresoft-Articles:%s"
+                date: "Sun Jan 07 12:30:41 PST 2024"
+                date-long: %d
+                commit-hash: "%040x"
+                build-number: "%d"
+                deploy-key: "prod"
+                """.formatted(version, 1704659441L + i, i, i);
+        return converter.toBuildInfoDetails(yaml, null, projectConf).orElseThrow();
+    }
+
+    @Test
+    void get_ShouldRestoreBuild() {
+        BuildCatalog catalog = new BuildCatalog();
+        BuildInfoDetails build = build(42);
+
+        int row = catalog.add(build);
+
+        assertThat(catalog.get(row)).isEqualTo(build);
+        assertThat(catalog.getVersion(row)).isEqualTo(build.getVersion());
+        assertThat(catalog.getLastModified(row)).isEqualTo(build.getLastModified().getTime());
+    }
+
+    @Test
+    void add_ShouldKeepIrregularBuildAsIs() {
+        BuildCatalog catalog = new BuildCatalog();
+        BuildInfo info = BuildInfo.builder().id("Kapresoft-Articles:manual-2024").date("today").commitHash("abc")
+                .buildNumber("manual").manualBuild(true).lastModified(new Date(0)).build();
+        BuildInfoDetails manual = BuildInfoDetails.builder().projectConfig(projectConf).buildInfo(info)
+                .version("manual-2024/Kapresoft-Articles").keyPath("site/manual-2024/Kapresoft-Articles")
+                .cdnPath("/site/manual-2024/Kapresoft-Articles").s3URI(URI.create("s3://kapresoft/site/manual-2024/Kapresoft-Articles"))
+                .buildInfoFileURI(URI.create("https://d3prd97h59cxec.cloudfront.net/build.yml")).build();
+
+        int row = catalog.add(manual);
+        BuildCatalog copy = new BuildCatalog();
+        copy.add(catalog, row);
+
+        assertThat(catalog.get(row)).isSameAs(manual);
+        assertThat(copy.get(0)).isSameAs(manual);
+    }
+
+    @Test
+    void add_ShouldRetainAFractionOfTheHeapOfTheBuilds() throws InterruptedException {
+        BuildInfoDetails template = build(1);
+
+        long before = usedHeapAfterGc();
+        List<BuildInfoDetails> builds = new ArrayList<>(BUILDS);
+        for (long i = 0; i < BUILDS; i++) {
+            builds.add(build(template, i));
+        }
+        long bytesPerObject = (usedHeapAfterGc() - before) / BUILDS;
+        builds = null;
+
+        before = usedHeapAfterGc();
+        BuildCatalog catalog = new BuildCatalog();
+        for (long i = 0; i < BUILDS; i++) {
+            catalog.add(build(template, i));
+        }
+        long bytesPerBuild = (usedHeapAfterGc() - before) / BUILDS;
+
+        BuildCatalog copy = new BuildCatalog();
+        for (int row = 0; row < catalog.size(); row++) {
+            copy.add(catalog, row);
+        }
+        assertThat(copy.asList().get(BUILDS - 1)).isEqualTo(build(template, BUILDS - 1));
+        assertThat(bytesPerBuild).isLessThan(256).isLessThan(bytesPerObject / 4);
+    }
+
+    /**
+     * @return BuildInfoDetails A build with its own strings, like one read from the bucket
+     */
+    private BuildInfoDetails build(BuildInfoDetails template, long i) {
+        UUID version = new UUID(i * 31, i);
+        BuildInfo info = template.getBuildInfo().toBuilder()
+                .id("Kapresoft-Articles:" + version)
+                .date(new Date(1704659441000L + i * 1000).toString())
+                .buildNumber(Long.toString(i))
+                .build();
+        String keyPath = "site/%s/Kapresoft-Articles".formatted(version);
+        return BuildInfoDetails.builder().projectConfig(projectConf).buildInfo(info)
+                .version(version.toString()).keyPath(keyPath).cdnPath("/" + keyPath)
+                .s3URI(URI.create("s3://kapresoft/" + keyPath)).buildInfoFileURI(template.getBuildInfoFileURI())
+                .build();
+    }
+
+    private static long usedHeapAfterGc() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            Thread.sleep(20);
+            used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+        }
+        return used;
+    }
+}
@@ -0,0 +1,53 @@
+package com.kapresoft.devops.shell.pojo;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BuildManifestTest {
+
+    private static Map<String, BuildManifest.Entry> parse(String content) throws IOException {
+        return BuildManifest.parse(new BufferedReader(new StringReader(content)));
+    }
+
+    @Test
+    void parse_ShouldSkipCommentsAndBlankLines() throws IOException {
+        Map<String, BuildManifest.Entry> entries = parse("""
+                # Kapresoft-Articles:2e641ee8-9226-45d4-ab8c-7850e731d675
+
+                9e107d9d372bb6826bd81d3542a419d6 5120 index.html
+                - 1048576 img/my cover.png
+                """);
+
+        assertThat(entries).containsOnlyKeys("index.html", "img/my cover.png");
+        assertThat(entries.get("index.html")).isEqualTo(new BuildManifest.Entry("9e107d9d372bb6826bd81d3542a419d6", 5120, "index.html"));
+        assertThat(entries.get("img/my cover.png").md5()).isNull();
+    }
+
+    @Test
+    void parse_ShouldRejectMalformedLines() {
+        assertThatThrownBy(() -> parse("9e107d9d372bb6826bd81d3542a419d6 index.html"))
+                .isInstanceOf(IOException.class).hasMessageContaining("line 1");
+        assertThatThrownBy(() -> parse("# header\n- big index.html"))
+                .isInstanceOf(IOException.class).hasMessageContaining("size on line 2");
+    }
+
+    @Test
+    void format_ShouldParseBack() throws IOException {
+        List<BuildManifest.Entry> entries = List.of(
+                new BuildManifest.Entry("9e107d9d372bb6826bd81d3542a419d6", 5120, "index.html"),
+                new BuildManifest.Entry(null, 0, "empty.txt"));
+
+        String content = BuildManifest.format("Kapresoft-Articles:2e641ee8", entries);
+
+        assertThat(content).startsWith("# Kapresoft-Articles:2e641ee8\n").contains("- 0 empty.txt\n");
+        assertThat(parse(content).values()).containsExactlyInAnyOrderElementsOf(entries);
+    }
+}
@@ -0,0 +1,29 @@
+package com.kapresoft.devops.shell.pojo;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class S3LocationTest {
+
+    @Test
+    void parse_ShouldSplitBucketAndPrefix() {
+        S3Location location = S3Location.parse(" s3://Kapresoft-Prod/site/2e641ee8 ");
+
+        assertThat(location.bucket().name()).isEqualTo("kapresoft-prod");
+        assertThat(location.prefix()).isEqualTo("site/2e641ee8/");
+        assertThat(location).hasToString("s3://kapresoft-prod/site/2e641ee8/");
+    }
+
+    @Test
+    void parse_ShouldAcceptABucketOnly() {
+        assertThat(S3Location.parse("s3://kapresoft").prefix()).isEmpty();
+        assertThat(S3Location.parse("s3://kapresoft/").prefix()).isEmpty();
+        assertThat(S3Location.parse("s3://kapresoft/").bucket().name()).isEqualTo("kapresoft");
+    }
+
+    @Test
+    void parse_ShouldLeaveTheBucketNullWhenEmpty() {
+        assertThat(S3Location.parse("").bucket()).isNull();
+    }
+}
@@ -0,0 +1,88 @@
+package com.kapresoft.devops.shell.pojo;
+
+import com.amazonaws.services.s3.model.ListObjectsV2Request;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class S3QueryTest {
+
+    @Test
+    void toRequest_ShouldPushDownPrefixStartAfterAndLimit() {
+        ListObjectsV2Request request = S3Query.builder()
+                .prefix("site/a/")
+                .startAfter("site/a/Kapresoft-Articles/index.html")
+                .limit(5)
+                .build()
+                .toRequest("kapresoft");
+
+        assertThat(request.getBucketName()).isEqualTo("kapresoft");
+        assertThat(request.getPrefix()).isEqualTo("site/a/");
+        assertThat(request.getStartAfter()).isEqualTo("site/a/Kapresoft-Articles/index.html");
+        assertThat(request.getMaxKeys()).isEqualTo(5);
+    }
+
+    @Test
+    void toRequest_ClientSideConditions_ShouldNotLimitPageSize() {
+        ListObjectsV2Request request = S3Query.builder()
+                .prefix("site/")
+                .suffix("/build.yml")
+                .startAfter("robots.txt")
+                .limit(1)
+                .build()
+                .toRequest("kapresoft");
+
+        assertThat(request.getMaxKeys()).as("maxKeys").isNull();
+        assertThat(request.getStartAfter()).as("startAfter before the prefix").isNull();
+    }
+
+    @Test
+    void startAfter_ShouldFollowTheListingOrderOfNonAsciiKeys() {
+        // S3 lists by UTF-8 bytes: U+FF21 (EF BC A1) sorts before U+1F600 (F0 9F 98 80), unlike in UTF-16
+        S3Query query = S3Query.builder().prefix("site/").startAfter("site/a/\uFF21.html").build();
+
+        assertThat(query.matches(s3o("site/a/\uD83D\uDE00.html", "2024-01-15T00:00:00Z"))).isTrue();
+        assertThat(query.matches(s3o("site/a/\uFF21.html", "2024-01-15T00:00:00Z"))).isFalse();
+        assertThat(query.matches(s3o("site/a/z.html", "2024-01-15T00:00:00Z"))).isFalse();
+        assertThat(S3Query.builder().prefix("site/\uD83D\uDE00/").startAfter("site/\uFF21").build()
+                .toRequest("kapresoft").getStartAfter()).as("startAfter before the prefix").isNull();
+        assertThat(S3Query.builder().prefix("site/\uFF21/").startAfter("site/\uFF21/\uD83D\uDE00").build()
+                .toRequest("kapresoft").getStartAfter()).isEqualTo("site/\uFF21/\uD83D\uDE00");
+    }
+
+    @Test
+    void matches() {
+        S3Query query = S3Query.builder()
+                .prefix("site/")
+                .suffix("/build.yml")
+                .modifiedFrom(Instant.parse("2024-01-01T00:00:00Z"))
+                .modifiedBefore(Instant.parse("2024-02-01T00:00:00Z"))
+                .build();
+
+        assertThat(query.matches(s3o("site/a/Kapresoft-Articles/build.yml", "2024-01-15T00:00:00Z"))).isTrue();
+        assertThat(query.matches(s3o("site/a/Kapresoft-Articles/index.html", "2024-01-15T00:00:00Z"))).isFalse();
+        assertThat(query.matches(s3o("site/a/Kapresoft-Articles/build.yml", "2024-02-01T00:00:00Z"))).isFalse();
+        assertThat(query.matches(s3o("other/build.yml", "2024-01-15T00:00:00Z"))).isFalse();
+    }
+
+    @Test
+    void matches_ExactKey() {
+        S3Query query = S3Query.builder().key("site/a/Kapresoft-Articles/build.yml").build();
+
+        assertThat(query.isExactKey()).isTrue();
+        assertThat(query.matches(s3o("site/a/Kapresoft-Articles/build.yml", "2024-01-15T00:00:00Z"))).isTrue();
+        assertThat(query.matches(s3o("site/a/Kapresoft-Articles/build.yml.bak", "2024-01-15T00:00:00Z"))).isFalse();
+    }
+
+    private static S3ObjectSummary s3o(String key, String lastModified) {
+        S3ObjectSummary s3o = new S3ObjectSummary();
+        s3o.setKey(key);
+        s3o.setLastModified(Date.from(Instant.parse(lastModified)));
+        return s3o;
+    }
+}
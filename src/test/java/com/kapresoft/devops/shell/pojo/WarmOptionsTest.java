@@ -0,0 +1,37 @@
+package com.kapresoft.devops.shell.pojo;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WarmOptionsTest {
+
+    @Test
+    void parseHeaders_ShouldSplitOnSemicolons() {
+        HttpHeaders headers = WarmOptions.parseHeaders(" Accept-Encoding: gzip, br ; User-Agent: cdn-warm;Accept-Encoding:identity");
+
+        assertThat(headers.get("Accept-Encoding")).containsExactly("gzip, br", "identity");
+        assertThat(headers.getFirst("User-Agent")).isEqualTo("cdn-warm");
+    }
+
+    @Test
+    void parseHeaders_ShouldSkipMalformedHeaders() {
+        assertThat(WarmOptions.parseHeaders("no-colon; : empty-name;;")).isEmpty();
+        assertThat(WarmOptions.parseHeaders(null)).isEmpty();
+        assertThat(WarmOptions.parseHeaders("Referer: https://kapresoft.com/").get("Referer"))
+                .isEqualTo(List.of("https://kapresoft.com/"));
+    }
+
+    @Test
+    void builder_ShouldKeepLimitsInRange() {
+        WarmOptions options = WarmOptions.builder().concurrency(0).ratePerSecond(-5)
+                .headers(new HttpHeaders()).timeout(Duration.ofSeconds(10)).build();
+
+        assertThat(options.getConcurrency()).isEqualTo(1);
+        assertThat(options.getRatePerSecond()).isZero();
+    }
+}
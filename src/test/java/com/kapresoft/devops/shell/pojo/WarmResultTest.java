@@ -0,0 +1,43 @@
+package com.kapresoft.devops.shell.pojo;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WarmResultTest {
+
+    private static final URI URL = URI.create("https://d3prd97h59cxec.cloudfront.net/");
+
+    @Test
+    void cacheStatus_ShouldBeTheFirstWordOfXCache() {
+        WarmResult refreshHit = new WarmResult(URL, 200, 12, 1024, "RefreshHit from cloudfront", null);
+
+        assertThat(refreshHit.cacheStatus()).isEqualTo("RefreshHit");
+        assertThat(refreshHit.isHit()).isTrue();
+        assertThat(refreshHit.isMiss()).isFalse();
+        assertThat(refreshHit.isFailed()).isFalse();
+    }
+
+    @Test
+    void isMiss_ShouldIgnoreCase() {
+        WarmResult miss = new WarmResult(URL, 200, 80, 1024, "Miss from cloudfront", null);
+
+        assertThat(miss.isMiss()).isTrue();
+        assertThat(miss.isHit()).isFalse();
+        assertThat(new WarmResult(URL, 200, 80, 1024, "MISS", null).cacheStatus()).isEqualTo("MISS");
+    }
+
+    @Test
+    void isFailed_ShouldHoldForErrorsAndErrorStatuses() {
+        WarmResult notFound = new WarmResult(URL, 404, 30, 0, "Error from cloudfront", null);
+        WarmResult timedOut = new WarmResult(URL, 0, 10_000, 0, null, "TimeoutException: Did not observe any item");
+
+        assertThat(notFound.isFailed()).isTrue();
+        assertThat(timedOut.isFailed()).isTrue();
+        assertThat(timedOut.cacheStatus()).isEqualTo("-");
+        assertThat(timedOut.isHit()).isFalse();
+        assertThat(timedOut.isMiss()).isFalse();
+    }
+}
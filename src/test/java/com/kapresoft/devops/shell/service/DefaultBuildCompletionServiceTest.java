@@ -0,0 +1,164 @@
+package com.kapresoft.devops.shell.service;
+
+import jakarta.validation.ValidationException;
+
+import com.amazonaws.services.s3.AbstractAmazonS3;
+import com.amazonaws.services.s3.model.ListObjectsV2Request;
+import com.amazonaws.services.s3.model.ListObjectsV2Result;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.kapresoft.devops.shell.config.ProjectRegistry;
+import com.kapresoft.devops.shell.config.ProjectsProperties;
+import com.kapresoft.devops.shell.config.S3BucketProperties;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DefaultBuildCompletionServiceTest {
+
+    private static final String V1 = "2e641ee8-9226-45d4-ab8c-7850e731d675";
+    private static final String V2 = "2e6ffa01-63b4-4b92-8d0e-1f0c2a7f4c11";
+    private static final String V3 = "63b48b92-4d2a-4f3e-9a51-0e8f6c1d2b7a";
+
+    private final Set<String> keys = new ConcurrentSkipListSet<>();
+    private DefaultBuildCompletionService completionService;
+
+    @BeforeEach
+    void setUp() {
+        Map<String, ProjectsProperties.Project> projects = new LinkedHashMap<>();
+        projects.put("articles", new ProjectsProperties.Project("Kapresoft-Articles", "build.yml",
+                URI.create("https://articles.cloudfront.net"), "build-manifest.txt", ""));
+        projects.put("docs", new ProjectsProperties.Project("Kapresoft-Docs", "build.yml",
+                URI.create("https://docs.cloudfront.net"), "build-manifest.txt", ""));
+        S3BucketProperties bucket = new S3BucketProperties("s3://kapresoft/");
+        ProjectRegistry registry = new ProjectRegistry(new ProjectsProperties(projects, "articles"), bucket);
+
+        S3RepositoryService repository = mock(S3RepositoryService.class);
+        when(repository.stream(any(Supplier.class))).thenAnswer(i -> List.copyOf(keys).stream().map(key -> {
+            S3ObjectSummary s3o = new S3ObjectSummary();
+            s3o.setKey(key);
+            return s3o;
+        }));
+        completionService = new DefaultBuildCompletionService(new FakeS3(), repository, mock(BuildIndexService.class),
+                bucket, registry);
+
+        upload(V1, "Kapresoft-Articles");
+        upload(V3, "Kapresoft-Articles");
+        upload(V3, "Kapresoft-Docs");
+    }
+
+    @AfterEach
+    void tearDown() {
+        completionService.stop();
+    }
+
+    private void upload(String version, String projectName) {
+        keys.add("site/%s/%s/index.html".formatted(version, projectName));
+        keys.add("site/%s/%s/build.yml".formatted(version, projectName));
+    }
+
+    @Test
+    void resolveVersion_ShouldExpandUniquePrefixes() {
+        assertThat(completionService.resolveVersion("2e6")).isEqualTo(V1);
+        assertThat(completionService.resolveVersion(V3)).isEqualTo(V3);
+        assertThat(completionService.resolveVersion("ffff")).isEqualTo("ffff");
+        assertThat(completionService.resolveVersion("2e6", true)).isEqualTo(V1);
+    }
+
+    @Test
+    void resolveVersion_ShouldRejectAmbiguousPrefixes() {
+        upload(V2, "Kapresoft-Articles");
+
+        assertThatThrownBy(() -> completionService.resolveVersion("2e6"))
+                .isInstanceOf(ValidationException.class)
+                .hasMessage("Ambiguous build version '2e6' matches 2 builds: %s, %s".formatted(V1, V2));
+        assertThatThrownBy(() -> completionService.resolveVersion("2e6", true))
+                .isInstanceOf(ValidationException.class)
+                .hasMessageStartingWith("Ambiguous build version '2e6' matches 2 builds");
+        assertThat(completionService.resolveVersion("2e64", true)).isEqualTo(V1);
+    }
+
+    @Test
+    void resolveVersion_ShouldSeeBuildsUploadedAfterTheIndexWasLoaded() {
+        assertThat(completionService.resolveVersion("2e6")).isEqualTo(V1);
+        upload(V2, "Kapresoft-Articles");
+
+        // The index is kept for minutes, so the prefix still expands to the older build
+        assertThat(completionService.resolveVersion("2e6")).isEqualTo(V1);
+        assertThatThrownBy(() -> completionService.resolveVersion("2e6", true))
+                .isInstanceOf(ValidationException.class);
+        assertThatThrownBy(() -> completionService.resolveKeyPath("site/2e6", true))
+                .isInstanceOf(ValidationException.class)
+                .hasMessage("Ambiguous site path 'site/2e6' matches 2 builds: site/%s, site/%s".formatted(V1, V2));
+    }
+
+    @Test
+    void resolveKeyPath_ShouldListDownToTheProject() {
+        assertThat(completionService.resolveKeyPath("site/2e6", true)).isEqualTo("site/%s/Kapresoft-Articles".formatted(V1));
+        assertThat(completionService.resolveKeyPath("site/%s/Kapresoft-D".formatted(V3), true))
+                .isEqualTo("site/%s/Kapresoft-Docs".formatted(V3));
+        assertThat(completionService.resolveKeyPath("site/ffff", true)).isEqualTo("site/ffff");
+        assertThatThrownBy(() -> completionService.resolveKeyPath("site/63b", true))
+                .isInstanceOf(ValidationException.class)
+                .hasMessageContaining("matches 2 builds");
+        assertThatThrownBy(() -> completionService.resolveKeyPath("site/63b"))
+                .isInstanceOf(ValidationException.class)
+                .hasMessageContaining("matches 2 builds");
+    }
+
+    @Test
+    void resolveKeyPath_ShouldKeepATwoLevelBuildPath() {
+        keys.add("site/build-2024-Jan-16/build.yml");
+        keys.add("site/build-2024-Jan-16/css/site.css");
+        keys.add("site/build-2024-Jan-16/img/logo.png");
+        keys.add("site/release-7/build.yml");
+        keys.add("site/release-7/css/site.css");
+
+        assertThat(completionService.resolveKeyPath("site/build-2024-Jan-16", true)).isEqualTo("site/build-2024-Jan-16");
+        assertThat(completionService.resolveKeyPath("site/rel", true)).isEqualTo("site/release-7");
+        keys.remove("site/build-2024-Jan-16/build.yml");
+        assertThat(completionService.resolveKeyPath("site/build-2024-Jan-16", true)).isEqualTo("site/build-2024-Jan-16");
+    }
+
+    /**
+     * Lists the keys like S3 does with a delimiter, on a single page.
+     */
+    private class FakeS3 extends AbstractAmazonS3 {
+
+        @Override
+        public ListObjectsV2Result listObjectsV2(ListObjectsV2Request request) {
+            final Set<String> dirs = new TreeSet<>();
+            final ListObjectsV2Result result = new ListObjectsV2Result();
+            for (String key : keys) {
+                if (!key.startsWith(request.getPrefix())) {
+                    continue;
+                }
+                int end = key.indexOf(request.getDelimiter(), request.getPrefix().length());
+                if (end < 0) {
+                    S3ObjectSummary s3o = new S3ObjectSummary();
+                    s3o.setKey(key);
+                    result.getObjectSummaries().add(s3o);
+                } else {
+                    dirs.add(key.substring(0, end + 1));
+                }
+            }
+            result.setCommonPrefixes(List.copyOf(dirs));
+            return result;
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.kapresoft.devops.shell.service;
+
+import jakarta.validation.ValidationException;
+
+import com.amazonaws.services.cloudfront.model.DistributionConfig;
+import com.amazonaws.services.cloudfront.model.GetDistributionConfigResult;
+import com.amazonaws.services.cloudfront.model.Origin;
+import com.amazonaws.services.cloudfront.model.Origins;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.kapresoft.devops.shell.config.IndexRefreshProperties;
+import com.kapresoft.devops.shell.config.KapresoftProjectProperties;
+import com.kapresoft.devops.shell.config.ProjectRegistry;
+import com.kapresoft.devops.shell.config.ProjectsProperties;
+import com.kapresoft.devops.shell.config.S3BucketProperties;
+import com.kapresoft.devops.shell.pojo.BuildIndexSnapshot;
+import com.kapresoft.devops.shell.pojo.BuildInfo;
+import com.kapresoft.devops.shell.pojo.BuildInfoDetails;
+import com.kapresoft.devops.shell.pojo.DistributionConfigData;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DefaultBuildIndexServiceTest {
+
+    private static final String V1 = "2e641ee8-9226-45d4-ab8c-7850e731d675";
+    private static final String V2 = "2e6ffa01-63b4-4b92-8d0e-1f0c2a7f4c11";
+    private static final String V3 = "63b48b92-4d2a-4f3e-9a51-0e8f6c1d2b7a";
+
+    /**
+     * The ETag of each build info file in the bucket by key
+     */
+    private final Map<String, String> eTags = new TreeMap<>();
+    private final Map<String, Long> lastModified = new TreeMap<>();
+    private final AtomicInteger fetches = new AtomicInteger();
+    private final S3BucketProperties bucket = new S3BucketProperties("s3://kapresoft/");
+    private ProjectRegistry registry;
+    private S3RepositoryService repository;
+    private CDNService cdnService;
+
+    @BeforeEach
+    void setUp() {
+        registry = new ProjectRegistry(new ProjectsProperties(Map.of("articles", new ProjectsProperties.Project(
+                "Kapresoft-Articles", "build.yml", URI.create("https://articles.cloudfront.net"), "build-manifest.txt",
+                "E2ARTICLES")), "articles"), bucket);
+        KapresoftProjectProperties project = registry.get("articles");
+
+        repository = mock(S3RepositoryService.class);
+        when(repository.stream(any(Supplier.class))).thenAnswer(i -> List.copyOf(eTags.entrySet()).stream().map(e -> {
+            S3ObjectSummary s3o = new S3ObjectSummary();
+            s3o.setKey(e.getKey());
+            s3o.setETag(e.getValue());
+            return s3o;
+        }));
+        when(repository.toBuildInfo(any())).thenAnswer(i -> {
+            fetches.incrementAndGet();
+            String key = i.getArgument(0, S3ObjectSummary.class).getKey();
+            return Optional.of(build(project, key.split("/")[1], lastModified.get(key)));
+        });
+
+        cdnService = mock(CDNService.class);
+        Origin origin = new Origin().withOriginPath("/site/%s/Kapresoft-Articles".formatted(V1));
+        when(cdnService.getDistributionConfig("E2ARTICLES")).thenReturn(new DistributionConfigData("E2ARTICLES",
+                new GetDistributionConfigResult().withDistributionConfig(new DistributionConfig()
+                        .withOrigins(new Origins().withItems(origin).withQuantity(1)))));
+    }
+
+    private DefaultBuildIndexService indexService(boolean enabled, Duration interval) {
+        return new DefaultBuildIndexService(repository, cdnService,
+                new IndexRefreshProperties(enabled, interval, Duration.ZERO, Duration.ofMinutes(15)), bucket, registry);
+    }
+
+    private void upload(String version, String eTag, long modified) {
+        String key = "site/%s/Kapresoft-Articles/build.yml".formatted(version);
+        eTags.put(key, eTag);
+        lastModified.put(key, modified);
+    }
+
+    @Test
+    void refresh_ShouldFetchOnlyNewOrChangedBuildInfoFiles() {
+        DefaultBuildIndexService indexService = indexService(true, Duration.ofMinutes(1));
+        upload(V2, "etag-2", 2000);
+        upload(V1, "etag-1", 1000);
+
+        BuildIndexSnapshot first = indexService.refresh();
+
+        assertThat(first.fetched()).isEqualTo(2);
+        assertThat(first.builds()).extracting(BuildInfoDetails::getVersion).containsExactly(V1, V2);
+        assertThat(first.getLiveS3Key("articles")).isEqualTo("site/%s/Kapresoft-Articles".formatted(V1));
+
+        BuildIndexSnapshot unchanged = indexService.refresh();
+
+        assertThat(unchanged.fetched()).isZero();
+        assertThat(unchanged.builds()).extracting(BuildInfoDetails::getVersion).containsExactly(V1, V2);
+        assertThat(fetches).hasValue(2);
+
+        upload(V2, "etag-2b", 2000);
+        upload(V3, "etag-3", 3000);
+        BuildIndexSnapshot changed = indexService.refresh();
+
+        assertThat(changed.fetched()).isEqualTo(2);
+        assertThat(changed.builds()).extracting(BuildInfoDetails::getVersion).containsExactly(V1, V2, V3);
+        assertThat(fetches).hasValue(4);
+        assertThat(indexService.getSnapshot()).containsSame(changed);
+        assertThat(indexService.getLastError()).isNull();
+    }
+
+    @Test
+    void refresh_ShouldDropDeletedBuilds() {
+        DefaultBuildIndexService indexService = indexService(true, Duration.ofMinutes(1));
+        upload(V1, "etag-1", 1000);
+        upload(V2, "etag-2", 2000);
+        indexService.refresh();
+
+        eTags.remove("site/%s/Kapresoft-Articles/build.yml".formatted(V1));
+
+        assertThat(indexService.refresh().builds()).extracting(BuildInfoDetails::getVersion).containsExactly(V2);
+    }
+
+    @Test
+    void refresh_ShouldRefuseWhenDisabled() {
+        DefaultBuildIndexService indexService = indexService(false, Duration.ofMinutes(1));
+        upload(V1, "etag-1", 1000);
+
+        assertThatThrownBy(indexService::refresh)
+                .isInstanceOf(ValidationException.class)
+                .hasMessageContaining("spring.application.index-refresh.enabled");
+        assertThat(indexService.getSnapshot()).isEmpty();
+        assertThat(fetches).hasValue(0);
+    }
+
+    @Test
+    void getCurrentSnapshot_ShouldBeEmptyOnceOlderThanTheInterval() throws InterruptedException {
+        DefaultBuildIndexService indexService = indexService(true, Duration.ofMillis(200));
+        upload(V1, "etag-1", 1000);
+
+        assertThat(indexService.getCurrentSnapshot()).isEmpty();
+
+        BuildIndexSnapshot snapshot = indexService.refresh();
+
+        assertThat(indexService.getCurrentSnapshot()).containsSame(snapshot);
+
+        Thread.sleep(500 + snapshot.duration().toMillis());
+
+        assertThat(indexService.getCurrentSnapshot()).isEmpty();
+        assertThat(indexService.getSnapshot()).containsSame(snapshot);
+    }
+
+    private static BuildInfoDetails build(KapresoftProjectProperties project, String version, long modified) {
+        String keyPath = "site/%s/Kapresoft-Articles".formatted(version);
+        return BuildInfoDetails.builder()
+                .projectConfig(project)
+                .buildInfo(BuildInfo.builder().id("Kapresoft-Articles:" + version).date("")
+                        .commitHash("%040x".formatted(modified)).buildNumber(Long.toString(modified))
+                        .lastModified(new Date(modified)).build())
+                .version(version)
+                .keyPath(keyPath)
+                .cdnPath("/" + keyPath)
+                .s3URI(URI.create("s3://kapresoft/" + keyPath))
+                .buildInfoFileURI(URI.create("https://articles.cloudfront.net/build.yml"))
+                .build();
+    }
+
+}
@@ -0,0 +1,169 @@
+package com.kapresoft.devops.shell.service;
+
+import com.amazonaws.services.s3.AbstractAmazonS3;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.kapresoft.devops.shell.config.KapresoftProjectProperties;
+import com.kapresoft.devops.shell.config.S3BucketProperties;
+import com.kapresoft.devops.shell.pojo.BuildManifest;
+import com.kapresoft.devops.shell.pojo.VerificationIssue;
+import com.kapresoft.devops.shell.pojo.VerificationIssue.Type;
+import com.kapresoft.devops.shell.pojo.VerificationReport;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DefaultBuildVerificationServiceTest {
+
+    private static final String KEY_PATH = "site/2e641ee8/Kapresoft-Articles";
+    private static final String PREFIX = KEY_PATH + "/";
+    private static final String MANIFEST = "build-manifest.txt";
+
+    private final FakeS3 s3 = new FakeS3();
+    private final List<S3ObjectSummary> listing = new ArrayList<>();
+    private final List<BuildManifest.Entry> manifest = new ArrayList<>();
+
+    private VerificationReport verify() {
+        s3.put(PREFIX + MANIFEST, BuildManifest.format("Kapresoft-Articles:2e641ee8", manifest));
+        listing.add(summary(MANIFEST, 0, "ignored"));
+        S3RepositoryService repository = mock(S3RepositoryService.class);
+        when(repository.stream(any(Supplier.class))).thenAnswer(i -> listing.stream());
+        KapresoftProjectProperties project = new KapresoftProjectProperties("articles", "Kapresoft-Articles", "build.yml",
+                URI.create("https://articles.cloudfront.net"), MANIFEST, "", new S3BucketProperties("s3://kapresoft/").getS3Bucket());
+        return new DefaultBuildVerificationService(s3, repository, new S3BucketProperties("s3://kapresoft/"), project)
+                .verify(KEY_PATH, 2, false);
+    }
+
+    private void upload(String relativeKey, String content, String eTag) {
+        s3.put(PREFIX + relativeKey, content);
+        listing.add(summary(relativeKey, content.length(), eTag));
+    }
+
+    private static S3ObjectSummary summary(String relativeKey, long size, String eTag) {
+        S3ObjectSummary s3o = new S3ObjectSummary();
+        s3o.setBucketName("kapresoft");
+        s3o.setKey(PREFIX + relativeKey);
+        s3o.setSize(size);
+        s3o.setETag("\"%s\"".formatted(eTag));
+        return s3o;
+    }
+
+    @Test
+    void verify_ShouldAcceptMatchingObjects() {
+        manifest.add(new BuildManifest.Entry(md5("<html/>"), 7, "index.html"));
+        manifest.add(new BuildManifest.Entry(md5("body {}"), 7, "site.css"));
+        upload("index.html", "<html/>", md5("<html/>"));
+        // A multipart ETag is not an MD5; the object is downloaded
+        upload("site.css", "body {}", "0123-2");
+
+        VerificationReport report = verify();
+
+        assertThat(report.isValid()).isTrue();
+        assertThat(report.getChecked()).isEqualTo(2);
+        assertThat(report.getDownloadedBytes()).isEqualTo(7);
+        assertThat(report.getIssues()).isEmpty();
+    }
+
+    @Test
+    void verify_ShouldReportMismatchedObjects() {
+        manifest.add(new BuildManifest.Entry(md5("<html/>"), 7, "index.html"));
+        manifest.add(new BuildManifest.Entry(md5("body {}"), 7, "site.css"));
+        manifest.add(new BuildManifest.Entry(null, 10, "app.js"));
+        upload("index.html", "<html/>", md5("<body>"));
+        upload("site.css", "div {}}", "0123-2");
+        upload("app.js", "x", "0123");
+
+        VerificationReport report = verify();
+
+        assertThat(report.isValid()).isFalse();
+        assertThat(report.getIssues()).extracting(VerificationIssue::type, VerificationIssue::relativeKey)
+                .containsExactlyInAnyOrder(
+                        tuple(Type.MISMATCHED, "index.html"),
+                        tuple(Type.MISMATCHED, "site.css"),
+                        tuple(Type.TRUNCATED, "app.js"));
+    }
+
+    @Test
+    void verify_ShouldReportMissingAndUnexpectedObjects() {
+        manifest.add(new BuildManifest.Entry(null, 7, "index.html"));
+        manifest.add(new BuildManifest.Entry(null, 3, "404.html"));
+        upload("index.html", "<html/>", md5("<html/>"));
+        upload("debug.log", "x", md5("x"));
+
+        VerificationReport report = verify();
+
+        assertThat(report.isValid()).isFalse();
+        assertThat(report.count(Type.MISSING)).isEqualTo(1);
+        assertThat(report.count(Type.UNEXPECTED)).isEqualTo(1);
+        assertThat(report.getIssues()).extracting(VerificationIssue::relativeKey).containsExactlyInAnyOrder("404.html", "debug.log");
+    }
+
+    @Test
+    void verify_ShouldReportUnreadableObjects() {
+        manifest.add(new BuildManifest.Entry(md5("body {}"), 7, "site.css"));
+        listing.add(summary("site.css", 7, "0123-2"));
+        s3.failures.put(PREFIX + "site.css", new AmazonS3Exception("Access Denied"));
+
+        VerificationReport report = verify();
+
+        assertThat(report.isValid()).isFalse();
+        assertThat(report.getSkipped()).isZero();
+        assertThat(report.getIssues()).singleElement().satisfies(issue -> {
+            assertThat(issue.type()).isEqualTo(Type.MISMATCHED);
+            assertThat(issue.detail()).startsWith("unreadable: Access Denied");
+        });
+    }
+
+    private static String md5(String content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("MD5").digest(content.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class FakeS3 extends AbstractAmazonS3 {
+
+        final Map<String, String> objects = new HashMap<>();
+        final Map<String, RuntimeException> failures = new HashMap<>();
+
+        void put(String key, String content) {
+            objects.put(key, content);
+        }
+
+        @Override
+        public S3Object getObject(String bucketName, String key) {
+            if (failures.containsKey(key)) {
+                throw failures.get(key);
+            }
+            String content = objects.get(key);
+            if (content == null) {
+                AmazonS3Exception e = new AmazonS3Exception("Not Found");
+                e.setStatusCode(404);
+                throw e;
+            }
+            S3Object s3Object = new S3Object();
+            s3Object.setKey(key);
+            s3Object.setObjectContent(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+            return s3Object;
+        }
+    }
+}
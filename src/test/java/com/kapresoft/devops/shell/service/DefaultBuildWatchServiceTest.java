@@ -0,0 +1,137 @@
+package com.kapresoft.devops.shell.service;
+
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.kapresoft.devops.shell.config.KapresoftProjectProperties;
+import com.kapresoft.devops.shell.config.ProjectRegistry;
+import com.kapresoft.devops.shell.config.ProjectsProperties;
+import com.kapresoft.devops.shell.config.S3BucketProperties;
+import com.kapresoft.devops.shell.pojo.BuildInfo;
+import com.kapresoft.devops.shell.pojo.BuildInfoDetails;
+import com.kapresoft.devops.shell.pojo.S3Query;
+import com.kapresoft.devops.shell.pojo.WatchOptions;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DefaultBuildWatchServiceTest {
+
+    private static final String V1 = "2e641ee8-9226-45d4-ab8c-7850e731d675";
+    private static final String V2 = "63b48b92-4d2a-4f3e-9a51-0e8f6c1d2b7a";
+
+    /**
+     * The LastModified of each object in the bucket by key
+     */
+    private final Map<String, Date> objects = new ConcurrentSkipListMap<>();
+    private final WatchOptions options = WatchOptions.builder().minInterval(Duration.ofMillis(10))
+            .maxInterval(Duration.ofMillis(20)).timeout(Duration.ofSeconds(10)).maxBuilds(2).build();
+    private DefaultBuildWatchService watchService;
+
+    @BeforeEach
+    void setUp() {
+        Map<String, ProjectsProperties.Project> projects = new LinkedHashMap<>();
+        projects.put("articles", new ProjectsProperties.Project("Kapresoft-Articles", "build.yml",
+                URI.create("https://articles.cloudfront.net"), "build-manifest.txt", ""));
+        projects.put("docs", new ProjectsProperties.Project("Kapresoft-Docs", "build.yml",
+                URI.create("https://docs.cloudfront.net"), "build-manifest.txt", ""));
+        S3BucketProperties bucket = new S3BucketProperties("s3://kapresoft/");
+        ProjectRegistry registry = new ProjectRegistry(new ProjectsProperties(projects, "articles"), bucket);
+
+        S3RepositoryService repository = mock(S3RepositoryService.class);
+        when(repository.stream(any(Supplier.class))).thenAnswer(i -> List.copyOf(objects.keySet()).stream().map(this::summary));
+        when(repository.streamDirectories(anyString())).thenAnswer(i -> {
+            String prefix = i.getArgument(0);
+            return objects.keySet().stream()
+                    .filter(key -> key.startsWith(prefix) && key.indexOf('/', prefix.length()) > 0)
+                    .map(key -> key.substring(0, key.indexOf('/', prefix.length()) + 1))
+                    .distinct();
+        });
+        when(repository.find(any(S3Query.class))).thenAnswer(i -> {
+            String key = i.getArgument(0, S3Query.class).getKey();
+            return objects.containsKey(key) ? Optional.of(summary(key)) : Optional.empty();
+        });
+        when(repository.toBuildInfo(any())).thenAnswer(i ->
+                Optional.of(build(registry, i.getArgument(0, S3ObjectSummary.class).getKey())));
+        watchService = new DefaultBuildWatchService(repository, bucket, registry);
+    }
+
+    private S3ObjectSummary summary(String key) {
+        S3ObjectSummary s3o = new S3ObjectSummary();
+        s3o.setKey(key);
+        s3o.setLastModified(objects.get(key));
+        return s3o;
+    }
+
+    private void upload(String version, String projectName, String file, Instant modified) {
+        objects.put("site/%s/%s/%s".formatted(version, projectName, file), Date.from(modified));
+    }
+
+    @Test
+    void watch_ShouldReportEachProjectOfAVersionDirectory() throws InterruptedException {
+        upload(V1, "Kapresoft-Articles", "index.html", Instant.now());
+        upload(V1, "Kapresoft-Docs", "index.html", Instant.now());
+        CompletableFuture.runAsync(() -> upload(V1, "Kapresoft-Articles", "build.yml", Instant.now()),
+                CompletableFuture.delayedExecutor(50, TimeUnit.MILLISECONDS));
+        final List<String> reported = new ArrayList<>();
+
+        int count = watchService.watch(options, b -> {
+            reported.add(b.getKeyPath());
+            // The second project lands after the version directory has a build
+            upload(V1, "Kapresoft-Docs", "build.yml", Instant.now());
+        });
+
+        assertThat(count).isEqualTo(2);
+        assertThat(reported).containsExactly("site/%s/Kapresoft-Articles".formatted(V1), "site/%s/Kapresoft-Docs".formatted(V1));
+    }
+
+    @Test
+    void watch_ShouldReportTheProjectsOfARecentDeployThatLandAfterTheWatchStarts() throws InterruptedException {
+        upload(V1, "Kapresoft-Articles", "build.yml", Instant.now().minus(Duration.ofMinutes(1)));
+        upload(V1, "Kapresoft-Docs", "index.html", Instant.now());
+        upload(V2, "Kapresoft-Articles", "build.yml", Instant.now().minus(Duration.ofDays(1)));
+        CompletableFuture.runAsync(() -> upload(V1, "Kapresoft-Docs", "build.yml", Instant.now()),
+                CompletableFuture.delayedExecutor(50, TimeUnit.MILLISECONDS));
+        final List<String> reported = new ArrayList<>();
+
+        int count = watchService.watch(WatchOptions.builder().minInterval(Duration.ofMillis(10))
+                .maxInterval(Duration.ofMillis(20)).timeout(Duration.ofMillis(500)).build(), b -> reported.add(b.getKeyPath()));
+
+        assertThat(count).isEqualTo(1);
+        assertThat(reported).containsExactly("site/%s/Kapresoft-Docs".formatted(V1));
+    }
+
+    private static BuildInfoDetails build(ProjectRegistry registry, String key) {
+        KapresoftProjectProperties project = registry.forKey(key);
+        String version = key.split("/")[1];
+        String keyPath = "site/%s/%s".formatted(version, project.getName());
+        return BuildInfoDetails.builder()
+                .projectConfig(project)
+                .buildInfo(BuildInfo.builder().id(project.getName() + ":" + version).date("").build())
+                .version(version)
+                .keyPath(keyPath)
+                .cdnPath("/" + keyPath)
+                .s3URI(URI.create("s3://kapresoft/" + keyPath))
+                .buildInfoFileURI(project.getCdnURI().resolve("/build.yml"))
+                .build();
+    }
+
+}
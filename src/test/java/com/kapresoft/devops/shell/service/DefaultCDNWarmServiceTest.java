@@ -0,0 +1,127 @@
+package com.kapresoft.devops.shell.service;
+
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.kapresoft.devops.shell.config.KapresoftProjectProperties;
+import com.kapresoft.devops.shell.config.S3BucketProperties;
+import com.kapresoft.devops.shell.pojo.S3Bucket;
+import com.kapresoft.devops.shell.pojo.WarmOptions;
+import com.kapresoft.devops.shell.pojo.WarmResult;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DefaultCDNWarmServiceTest {
+
+    private static final String KEY_PATH = "site/2e641ee8-9226-45d4-ab8c-7850e731d675/Kapresoft-Articles";
+
+    private final S3BucketProperties bucket = new S3BucketProperties("s3://kapresoft/");
+    private final KapresoftProjectProperties projectConf = new KapresoftProjectProperties("kapresoft-articles",
+            "Kapresoft-Articles", "build.yml", URI.create("https://d3prd97h59cxec.cloudfront.net"), "build-manifest.txt", "",
+            new S3Bucket("s3://kapresoft/", "kapresoft"));
+    private final S3RepositoryService repository = mock(S3RepositoryService.class);
+    private final Queue<ClientRequest> requests = new ConcurrentLinkedQueue<>();
+
+    private DefaultCDNWarmService warmService(WebClient webClient) {
+        return new DefaultCDNWarmService(webClient, repository, bucket);
+    }
+
+    private void listing(String... relativeKeys) {
+        when(repository.stream(any(Supplier.class))).thenAnswer(i -> List.of(relativeKeys).stream().map(k -> {
+            S3ObjectSummary s3o = new S3ObjectSummary();
+            s3o.setKey(KEY_PATH + "/" + k);
+            return s3o;
+        }));
+    }
+
+    @Test
+    void toBuildURLs_ShouldAddTheDirectoryOfEachIndexDocument() {
+        listing("index.html", "app.js", "docs/api/index.html", "docs/guide.html", "img/logo.png", "style.css");
+
+        List<URI> urls = warmService(WebClient.create()).toBuildURLs(KEY_PATH, 100, projectConf);
+
+        assertThat(urls).extracting(URI::getPath).containsExactly(
+                "/", "/index.html", "/docs/guide.html", "/docs/api/", "/docs/api/index.html",
+                "/app.js", "/style.css", "/img/logo.png");
+        assertThat(urls.get(0)).hasToString("https://d3prd97h59cxec.cloudfront.net/");
+    }
+
+    @Test
+    void toBuildURLs_ShouldKeepThePagesFirstWithinTheLimit() {
+        listing("app.js", "about/index.html", "index.html");
+
+        assertThat(warmService(WebClient.create()).toBuildURLs(KEY_PATH, 3, projectConf)).extracting(URI::getPath)
+                .containsExactly("/", "/index.html", "/about/");
+    }
+
+    @Test
+    void toURLs_ShouldSkipCommentsAndKeepAbsoluteURLs() {
+        List<URI> urls = warmService(WebClient.create()).toURLs(List.of(
+                "# top pages", "", " /about/ , 1200", "https://example.com/a%20b"), projectConf);
+
+        assertThat(urls).containsExactly(URI.create("https://d3prd97h59cxec.cloudfront.net/about/"),
+                URI.create("https://example.com/a%20b"));
+    }
+
+    @Test
+    void warm_ShouldRecordStatusBytesAndCacheStatus() {
+        WebClient webClient = WebClient.builder().exchangeFunction(request -> {
+            requests.add(request);
+            if (request.url().getPath().equals("/missing")) {
+                return Mono.just(ClientResponse.create(HttpStatus.NOT_FOUND).header("X-Cache", "Error from cloudfront").build());
+            }
+            return Mono.just(ClientResponse.create(HttpStatus.OK).header("X-Cache", "Hit from cloudfront").body("hello").build());
+        }).build();
+        WarmOptions options = WarmOptions.builder().concurrency(2).headers(WarmOptions.parseHeaders(WarmOptions.DEFAULT_HEADERS))
+                .timeout(Duration.ofSeconds(5)).build();
+
+        List<WarmResult> results = warmService(webClient).warm(List.of(URI.create("https://cdn.test/"),
+                URI.create("https://cdn.test/missing")), options);
+
+        assertThat(results).hasSize(2);
+        WarmResult hit = results.stream().filter(r -> r.uri().getPath().equals("/")).findFirst().orElseThrow();
+        assertThat(hit.status()).isEqualTo(200);
+        assertThat(hit.bytes()).isEqualTo(5);
+        assertThat(hit.isHit()).isTrue();
+        WarmResult missing = results.stream().filter(r -> r.uri().getPath().equals("/missing")).findFirst().orElseThrow();
+        assertThat(missing.isFailed()).isTrue();
+        assertThat(missing.cacheStatus()).isEqualTo("Error");
+        assertThat(requests).allSatisfy(r ->
+                assertThat(r.headers().getFirst("Accept-Encoding")).isEqualTo("gzip, deflate, br"));
+    }
+
+    @Test
+    void warm_ShouldRecordTheErrorOfAFailedRequest() {
+        WebClient webClient = WebClient.builder()
+                .exchangeFunction(request -> Mono.error(new IOException("Connection reset")))
+                .build();
+        WarmOptions options = WarmOptions.builder().concurrency(1).headers(WarmOptions.parseHeaders(null))
+                .timeout(Duration.ofSeconds(5)).build();
+
+        List<WarmResult> results = warmService(webClient).warm(List.of(URI.create("https://cdn.test/")), options);
+
+        assertThat(results).singleElement().satisfies(r -> {
+            assertThat(r.status()).isZero();
+            assertThat(r.isFailed()).isTrue();
+            assertThat(r.error()).contains("Connection reset");
+            assertThat(r.cacheStatus()).isEqualTo("-");
+        });
+    }
+}
@@ -0,0 +1,209 @@
+package com.kapresoft.devops.shell.service;
+
+import com.amazonaws.services.s3.AbstractAmazonS3;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.model.PutObjectResult;
+import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.kapresoft.devops.shell.config.CompressionProperties;
+import com.kapresoft.devops.shell.config.KapresoftProjectProperties;
+import com.kapresoft.devops.shell.config.S3BucketProperties;
+import com.kapresoft.devops.shell.pojo.BuildManifest;
+import com.kapresoft.devops.shell.pojo.TransferReport;
+import com.kapresoft.devops.shell.util.Gzip;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DefaultCompressionServiceTest {
+
+    private static final String PREFIX = "site/2e641ee8/Kapresoft-Articles/";
+    private static final String MANIFEST = "build-manifest.txt";
+    private static final String HTML = "<p>kapresoft</p>\n".repeat(200);
+
+    private final FakeS3 s3 = new FakeS3();
+    private final List<S3ObjectSummary> listing = new ArrayList<>();
+    private DefaultCompressionService compressionService;
+
+    @BeforeEach
+    void setUp() {
+        S3RepositoryService repository = mock(S3RepositoryService.class);
+        when(repository.stream(any(Supplier.class))).thenAnswer(i -> listing.stream());
+        S3BucketProperties bucket = new S3BucketProperties("s3://kapresoft/");
+        KapresoftProjectProperties project = new KapresoftProjectProperties("articles", "Kapresoft-Articles", "build.yml",
+                URI.create("https://articles.cloudfront.net"), MANIFEST, "", bucket.getS3Bucket());
+        compressionService = new DefaultCompressionService(s3, repository, new CompressionProperties(1024, 10, 9, "max-age=60"),
+                bucket, project);
+    }
+
+    private void upload(String relativeKey, String content, String contentEncoding) {
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentType("binary/octet-stream");
+        metadata.setContentEncoding(contentEncoding);
+        s3.put(PREFIX + relativeKey, content.getBytes(StandardCharsets.UTF_8), metadata);
+        S3ObjectSummary s3o = new S3ObjectSummary();
+        s3o.setBucketName("kapresoft");
+        s3o.setKey(PREFIX + relativeKey);
+        s3o.setSize(content.length());
+        s3o.setETag("etag-" + relativeKey);
+        listing.add(s3o);
+    }
+
+    @Test
+    void getCompressibleContentType_ShouldMatchTextAssetsOnly() {
+        assertThat(compressionService.getCompressibleContentType(PREFIX + "index.HTML")).isEqualTo("text/html; charset=utf-8");
+        assertThat(compressionService.getCompressibleContentType("img/logo.svg")).isEqualTo("image/svg+xml");
+        assertThat(compressionService.getCompressibleContentType("img/cover.png")).isNull();
+        assertThat(compressionService.getCompressibleContentType(PREFIX + MANIFEST)).isNull();
+        assertThat(compressionService.getCompressibleContentType("LICENSE")).isNull();
+    }
+
+    @Test
+    void compress_ShouldRequireMinSizeAndSavings() {
+        assertThat(compressionService.compress("<p/>".getBytes(StandardCharsets.UTF_8))).isEmpty();
+        assertThat(compressionService.compress(HTML.getBytes(StandardCharsets.UTF_8)))
+                .hasValueSatisfying(gzip -> assertThat(gzip.length).isLessThan(HTML.length() / 10));
+    }
+
+    @Test
+    void toCacheControl_ShouldAddNoTransform() {
+        assertThat(compressionService.toCacheControl("max-age=3600")).isEqualTo("max-age=60, no-transform");
+    }
+
+    @Test
+    void recompress_ShouldReplaceObjectsAndUpdateTheManifest() throws IOException {
+        upload("index.html", HTML, null);
+        upload("app.js", HTML, Gzip.CONTENT_ENCODING);
+        upload("img/cover.png", "png", null);
+        upload(MANIFEST, BuildManifest.format("Kapresoft-Articles:2e641ee8", List.of(
+                new BuildManifest.Entry(null, HTML.length(), "index.html"),
+                new BuildManifest.Entry(null, 3, "img/cover.png"))), null);
+
+        TransferReport report = compressionService.recompress(PREFIX, 2, false);
+
+        assertThat(report.isSuccessful()).isTrue();
+        assertThat(report.getTransferred()).isEqualTo(1);
+        assertThat(report.getSkipped()).isEqualTo(1);
+        byte[] gzip = s3.content(PREFIX + "index.html");
+        assertThat(s3.metadata(PREFIX + "index.html").getContentEncoding()).isEqualTo(Gzip.CONTENT_ENCODING);
+        assertThat(s3.metadata(PREFIX + "index.html").getContentType()).isEqualTo("text/html; charset=utf-8");
+        Map<String, BuildManifest.Entry> manifest = BuildManifest.parse(new BufferedReader(new StringReader(
+                new String(s3.content(PREFIX + MANIFEST), StandardCharsets.UTF_8))));
+        assertThat(manifest.get("index.html").size()).isEqualTo(gzip.length);
+        assertThat(manifest.get("img/cover.png").size()).isEqualTo(3);
+    }
+
+    @Test
+    void recompress_ShouldCountRuntimeFailures() {
+        upload("index.html", HTML, null);
+        upload("site.css", HTML, null);
+        s3.failingGet = PREFIX + "site.css";
+
+        TransferReport report = compressionService.recompress(PREFIX, 1, false);
+
+        assertThat(report.getTransferred()).isEqualTo(1);
+        assertThat(report.getFailed()).isEqualTo(1);
+        assertThat(report.getFailureMessages()).allMatch(m -> m.startsWith("site.css: "));
+    }
+
+    @Test
+    void recompress_ShouldFailWhenTheManifestCannotBeUpdated() {
+        upload("index.html", HTML, null);
+        upload(MANIFEST, BuildManifest.format("Kapresoft-Articles:2e641ee8", List.of(
+                new BuildManifest.Entry(null, HTML.length(), "index.html"))), null);
+        s3.failingPut = PREFIX + MANIFEST;
+
+        TransferReport report = compressionService.recompress(PREFIX, 1, false);
+
+        assertThat(report.isSuccessful()).isFalse();
+        assertThat(report.getTransferred()).isEqualTo(1);
+        assertThat(report.getFailureMessages()).hasSize(1)
+                .allMatch(m -> m.startsWith(MANIFEST + ": not updated for 1 compressed objects"));
+    }
+
+    private static class FakeS3 extends AbstractAmazonS3 {
+
+        private final Map<String, byte[]> contents = new ConcurrentHashMap<>();
+        private final Map<String, ObjectMetadata> metadata = new ConcurrentHashMap<>();
+        volatile String failingGet;
+        volatile String failingPut;
+
+        void put(String key, byte[] content, ObjectMetadata objectMetadata) {
+            contents.put(key, content);
+            metadata.put(key, objectMetadata);
+        }
+
+        byte[] content(String key) {
+            return contents.get(key);
+        }
+
+        ObjectMetadata metadata(String key) {
+            return metadata.get(key);
+        }
+
+        @Override
+        public S3Object getObject(GetObjectRequest request) {
+            return getObject(request.getBucketName(), request.getKey());
+        }
+
+        @Override
+        public S3Object getObject(String bucketName, String key) {
+            if (key.equals(failingGet)) {
+                throw new AmazonS3Exception("Slow Down");
+            }
+            if (!contents.containsKey(key)) {
+                AmazonS3Exception e = new AmazonS3Exception("Not Found");
+                e.setStatusCode(404);
+                throw e;
+            }
+            S3Object object = new S3Object();
+            object.setKey(key);
+            object.setObjectMetadata(metadata.get(key));
+            object.setObjectContent(new ByteArrayInputStream(contents.get(key)));
+            return object;
+        }
+
+        @Override
+        public PutObjectResult putObject(PutObjectRequest request) {
+            if (request.getKey().equals(failingPut)) {
+                throw new AmazonS3Exception("Internal Error");
+            }
+            try {
+                put(request.getKey(), request.getInputStream().readAllBytes(), request.getMetadata());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return new PutObjectResult();
+        }
+
+        @Override
+        public PutObjectResult putObject(String bucketName, String key, String content) {
+            if (key.equals(failingPut)) {
+                throw new AmazonS3Exception("Internal Error");
+            }
+            put(key, content.getBytes(StandardCharsets.UTF_8), new ObjectMetadata());
+            return new PutObjectResult();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.kapresoft.devops.shell.service;
+
+import com.kapresoft.devops.shell.config.JobProperties;
+import com.kapresoft.devops.shell.pojo.JobInfo;
+import com.kapresoft.devops.shell.pojo.JobInfo.State;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DefaultJobServiceTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final CommandDispatcher dispatcher = (line, out) -> {
+        out.println("started " + line);
+        if (line.startsWith("block")) {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                out.println("Error: interrupted");
+                return CommandDispatcher.EXIT_ERROR;
+            }
+        }
+        return line.startsWith("fail") ? CommandDispatcher.EXIT_ERROR : CommandDispatcher.EXIT_OK;
+    };
+    private final DefaultJobService jobService = new DefaultJobService(
+            new StaticListableBeanFactory(Map.of("dispatcher", dispatcher)).getBeanProvider(CommandDispatcher.class),
+            new JobProperties(1, 4096));
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        jobService.destroy();
+    }
+
+    @Test
+    void submit_ShouldQueueBeyondTheSharedLimit() throws InterruptedException {
+        JobInfo first = jobService.submit("block 1");
+        JobInfo second = jobService.submit("ls");
+
+        assertThat(jobService.await(second.getId(), Duration.ofMillis(100)).getState()).isEqualTo(State.QUEUED);
+        release.countDown();
+
+        assertThat(jobService.await(first.getId(), TIMEOUT).getState()).isEqualTo(State.DONE);
+        JobInfo done = jobService.await(second.getId(), TIMEOUT);
+        assertThat(done.getState()).isEqualTo(State.DONE);
+        assertThat(done.getLastLine()).isEqualTo("started ls");
+        assertThat(jobService.reportFinished()).extracting(JobInfo::getId).containsExactly(first.getId(), second.getId());
+        assertThat(jobService.reportFinished()).isEmpty();
+        assertThat(jobService.list()).extracting(JobInfo::getId).containsExactly(first.getId(), second.getId());
+    }
+
+    @Test
+    void forget_ShouldKeepFinishedJobsUntilCalled() throws InterruptedException {
+        JobInfo job = jobService.submit("ls");
+        assertThat(jobService.await(job.getId(), TIMEOUT).getState()).isEqualTo(State.DONE);
+        assertThat(jobService.reportFinished()).hasSize(1);
+
+        StringWriter output = new StringWriter();
+        jobService.readOutput(job.getId(), 0, new PrintWriter(output, true));
+        assertThat(output.toString()).contains("started ls");
+
+        jobService.forget(job.getId());
+        assertThat(jobService.get(job.getId())).isEmpty();
+    }
+
+    @Test
+    void cancel_ShouldInterruptTheRunningJob() throws InterruptedException {
+        JobInfo job = jobService.submit("block");
+        while (jobService.await(job.getId(), Duration.ofMillis(10)).getState() == State.QUEUED) {
+            Thread.onSpinWait();
+        }
+
+        jobService.cancel(job.getId());
+
+        JobInfo cancelled = jobService.await(job.getId(), TIMEOUT);
+        assertThat(cancelled.getState()).isEqualTo(State.CANCELLED);
+        StringWriter output = new StringWriter();
+        jobService.readOutput(job.getId(), 0, new PrintWriter(output, true));
+        assertThat(output.toString()).contains("started block", "Error: interrupted");
+    }
+
+    @Test
+    void jobOutput_ShouldKeepTheLastCharsAndCountOffsets() throws IOException {
+        DefaultJobService.JobOutput output = new DefaultJobService.JobOutput(8);
+        output.write("line 1\nline 2\n");
+
+        StringWriter read = new StringWriter();
+        long next = output.read(0, new PrintWriter(read, true));
+
+        assertThat(read.toString()).isEqualTo("\nline 2\n");
+        assertThat(next).isEqualTo(14);
+        assertThat(output.getLines()).isEqualTo(2);
+        assertThat(output.getLastLine()).isEqualTo("line 2");
+        assertThat(output.read(next, new PrintWriter(new StringWriter()))).isEqualTo(14);
+    }
+}
@@ -0,0 +1,138 @@
+package com.kapresoft.devops.shell.service;
+
+import com.amazonaws.services.cloudfront.model.Aliases;
+import com.amazonaws.services.cloudfront.model.AllowedMethods;
+import com.amazonaws.services.cloudfront.model.CacheBehavior;
+import com.amazonaws.services.cloudfront.model.CacheBehaviors;
+import com.amazonaws.services.cloudfront.model.CachedMethods;
+import com.amazonaws.services.cloudfront.model.CustomErrorResponse;
+import com.amazonaws.services.cloudfront.model.CustomErrorResponses;
+import com.amazonaws.services.cloudfront.model.CustomHeaders;
+import com.amazonaws.services.cloudfront.model.DefaultCacheBehavior;
+import com.amazonaws.services.cloudfront.model.DistributionConfig;
+import com.amazonaws.services.cloudfront.model.GeoRestriction;
+import com.amazonaws.services.cloudfront.model.LoggingConfig;
+import com.amazonaws.services.cloudfront.model.Origin;
+import com.amazonaws.services.cloudfront.model.OriginCustomHeader;
+import com.amazonaws.services.cloudfront.model.Origins;
+import com.amazonaws.services.cloudfront.model.Restrictions;
+import com.amazonaws.services.cloudfront.model.S3OriginConfig;
+import com.amazonaws.services.cloudfront.model.ViewerCertificate;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kapresoft.devops.shell.config.JournalProperties;
+import com.kapresoft.devops.shell.config.S3BucketProperties;
+import com.kapresoft.devops.shell.pojo.ReleaseJournalEntry;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DefaultReleaseJournalServiceTest {
+
+    @TempDir
+    Path dir;
+
+    private DefaultReleaseJournalService journal() {
+        return new DefaultReleaseJournalService(new ObjectMapper(), null, new S3BucketProperties("s3://kapresoft/"),
+                new JournalProperties(dir.resolve("journal/release-journal.ndjson").toString(), ""));
+    }
+
+    private static DistributionConfig config(String originPath) {
+        return new DistributionConfig()
+                .withComment("kapresoft")
+                .withEnabled(true)
+                .withOrigins(new Origins().withQuantity(1).withItems(new Origin().withId("s3").withOriginPath(originPath)));
+    }
+
+    @Test
+    void history_ShouldReturnEntriesOfDistributionNewestFirst() {
+        DefaultReleaseJournalService journal = journal();
+        journal.record("release", "E1", "/site/a/Kapresoft-Articles", config("/site/b/Kapresoft-Articles"), "ETAG1");
+        journal.record("release", "E2", "/site/x/Kapresoft-Docs", config("/site/y/Kapresoft-Docs"), "ETAG2");
+        journal.record("update-path", "E1", "/site/b/Kapresoft-Articles", config("/site/c/Kapresoft-Articles"), "ETAG3");
+
+        List<ReleaseJournalEntry> history = journal().history("E1", 10);
+
+        assertThat(history).extracting(ReleaseJournalEntry::eTag).containsExactly("ETAG3", "ETAG1");
+        assertThat(history.get(1).oldOriginPath()).isEqualTo("/site/a/Kapresoft-Articles");
+        assertThat(history.get(0).newOriginPath()).isEqualTo("/site/c/Kapresoft-Articles");
+    }
+
+    @Test
+    void getDistributionConfig_ShouldRestoreRecordedConfig() {
+        DefaultReleaseJournalService journal = journal();
+        ReleaseJournalEntry entry = journal.record("release", "E1", "", config("/site/b/Kapresoft-Articles"), "ETAG1");
+
+        assertThat(journal.getDistributionConfig(entry)).hasValueSatisfying(c -> {
+            assertThat(c.getComment()).isEqualTo("kapresoft");
+            assertThat(c.getOrigins().getItems()).extracting(Origin::getOriginPath).containsExactly("/site/b/Kapresoft-Articles");
+        });
+    }
+
+    @Test
+    void getDistributionConfig_ShouldRoundTripFullyPopulatedConfig() {
+        DistributionConfig config = new DistributionConfig()
+                .withCallerReference("kapresoft-2023")
+                .withAliases(new Aliases().withQuantity(2).withItems("kapresoft.com", "www.kapresoft.com"))
+                .withDefaultRootObject("index.html")
+                .withOrigins(new Origins().withQuantity(1).withItems(new Origin()
+                        .withId("s3")
+                        .withDomainName("kapresoft.s3.amazonaws.com")
+                        .withOriginPath("/site/b/Kapresoft-Articles")
+                        .withConnectionAttempts(3)
+                        .withConnectionTimeout(10)
+                        .withCustomHeaders(new CustomHeaders().withQuantity(1).withItems(
+                                new OriginCustomHeader().withHeaderName("X-Origin").withHeaderValue("cdn")))
+                        .withS3OriginConfig(new S3OriginConfig().withOriginAccessIdentity(""))))
+                .withDefaultCacheBehavior(new DefaultCacheBehavior()
+                        .withTargetOriginId("s3")
+                        .withViewerProtocolPolicy("redirect-to-https")
+                        .withAllowedMethods(new AllowedMethods().withQuantity(2).withItems("GET", "HEAD")
+                                .withCachedMethods(new CachedMethods().withQuantity(2).withItems("GET", "HEAD")))
+                        .withCompress(true)
+                        .withCachePolicyId("658327ea-f89d-4fab-a63d-7e88639e58f6"))
+                .withCacheBehaviors(new CacheBehaviors().withQuantity(1).withItems(new CacheBehavior()
+                        .withPathPattern("/api/*")
+                        .withTargetOriginId("s3")
+                        .withViewerProtocolPolicy("https-only")
+                        .withCompress(false)
+                        .withCachePolicyId("4135ea2d-6df8-44a3-9df3-4b5a84be39ad")))
+                .withCustomErrorResponses(new CustomErrorResponses().withQuantity(1).withItems(new CustomErrorResponse()
+                        .withErrorCode(404).withResponseCode("200").withResponsePagePath("/index.html").withErrorCachingMinTTL(10L)))
+                .withComment("kapresoft")
+                .withLogging(new LoggingConfig().withEnabled(true).withIncludeCookies(false)
+                        .withBucket("logs.s3.amazonaws.com").withPrefix("cdn/"))
+                .withPriceClass("PriceClass_100")
+                .withEnabled(true)
+                .withViewerCertificate(new ViewerCertificate().withACMCertificateArn("arn:aws:acm:us-east-1:1:certificate/1")
+                        .withSSLSupportMethod("sni-only").withMinimumProtocolVersion("TLSv1.2_2021"))
+                .withRestrictions(new Restrictions().withGeoRestriction(new GeoRestriction()
+                        .withRestrictionType("none").withQuantity(0)))
+                .withWebACLId("")
+                .withHttpVersion("http2")
+                .withIsIPV6Enabled(true);
+        DefaultReleaseJournalService journal = journal();
+        ReleaseJournalEntry entry = journal.record("release", "E1", "/site/a/Kapresoft-Articles", config, "ETAG1");
+
+        assertThat(journal().history("E1", 1)).singleElement()
+                .satisfies(e -> assertThat(journal.getDistributionConfig(e)).hasValue(config));
+        assertThat(entry.newOriginPath()).isEqualTo("/site/b/Kapresoft-Articles");
+    }
+
+    @Test
+    void record_ShouldNotThrowIfTheJournalCannotBeWritten() throws Exception {
+        // The parent of the journal file is a file
+        Files.writeString(dir.resolve("journal"), "");
+
+        ReleaseJournalEntry entry = journal().record("release", "E1", "/site/a/Kapresoft-Articles",
+                config("/site/b/Kapresoft-Articles"), "ETAG1");
+
+        assertThat(entry.eTag()).isEqualTo("ETAG1");
+        assertThat(journal().history("E1", 10)).isEmpty();
+    }
+}
@@ -0,0 +1,117 @@
+package com.kapresoft.devops.shell.service;
+
+import com.amazonaws.services.s3.AbstractAmazonS3;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.amazonaws.services.s3.model.ListObjectsV2Request;
+import com.amazonaws.services.s3.model.ListObjectsV2Result;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.kapresoft.devops.shell.config.ProjectRegistry;
+import com.kapresoft.devops.shell.config.ProjectsProperties;
+import com.kapresoft.devops.shell.config.ReplicationProperties;
+import com.kapresoft.devops.shell.config.S3BucketProperties;
+import com.kapresoft.devops.shell.pojo.BucketQueryResult;
+import com.kapresoft.devops.shell.util.aws.AmazonS3ClientCache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DefaultReplicaServiceTest {
+
+    private static final String KEY_PATH = "site/2e641ee8/Kapresoft-Articles";
+
+    private final FakeS3 primary = new FakeS3();
+    private final FakeS3 replica = new FakeS3();
+    private final DefaultReplicaService replicaService = createReplicaService();
+
+    private DefaultReplicaService createReplicaService() {
+        AmazonS3ClientCache clientCache = mock(AmazonS3ClientCache.class);
+        when(clientCache.get("eu-west-1")).thenReturn(replica);
+        ProjectRegistry registry = new ProjectRegistry(new ProjectsProperties(Map.of("articles",
+                new ProjectsProperties.Project("Kapresoft-Articles", "build.yml", URI.create("https://articles.cloudfront.net"),
+                        "build-manifest.txt", "")), "articles"), new S3BucketProperties("s3://kapresoft/"));
+        return new DefaultReplicaService(primary, clientCache, registry, new S3BucketProperties("s3://kapresoft/"),
+                new ReplicationProperties("us-east-1", Duration.ofSeconds(5),
+                        List.of(new ReplicationProperties.Replica("s3://kapresoft-eu/", "eu-west-1", null))));
+    }
+
+    @AfterEach
+    void tearDown() {
+        replicaService.stop();
+    }
+
+    @Test
+    void verify_ShouldCompareTheReplicasWithThePrimary() {
+        primary.put("index.html", 100, "a");
+        primary.put("site.css", 20, "b");
+        primary.put("app.js", 30, "c");
+        replica.put("index.html", 100, "a");
+        replica.put("site.css", 20, "changed");
+        replica.put("old.js", 10, "d");
+
+        List<BucketQueryResult<ReplicaService.Comparison>> results = replicaService.verify(KEY_PATH);
+
+        assertThat(results).hasSize(2);
+        assertThat(results.get(0).value().isInSync()).isTrue();
+        ReplicaService.Comparison c = results.get(1).value();
+        assertThat(c.compared()).isTrue();
+        assertThat(c.isInSync()).isFalse();
+        assertThat(c.objects()).isEqualTo(3);
+        assertThat(c.missing()).containsExactly(KEY_PATH + "/app.js");
+        assertThat(c.mismatched()).containsExactly(KEY_PATH + "/site.css");
+        assertThat(c.extra()).containsExactly(KEY_PATH + "/old.js");
+    }
+
+    @Test
+    void verify_ShouldNotReportInSyncIfThePrimaryCannotBeListed() {
+        primary.failure = new AmazonS3Exception("Access Denied");
+        replica.put("index.html", 100, "a");
+
+        List<BucketQueryResult<ReplicaService.Comparison>> results = replicaService.verify(KEY_PATH);
+
+        assertThat(results.get(0).status()).isEqualTo(BucketQueryResult.Status.FAILED);
+        assertThat(results.get(0).error()).startsWith("Access Denied");
+        BucketQueryResult<ReplicaService.Comparison> r = results.get(1);
+        assertThat(r.isOk()).isTrue();
+        assertThat(r.value().compared()).isFalse();
+        assertThat(r.value().isInSync()).isFalse();
+        assertThat(r.value().objects()).isEqualTo(1);
+    }
+
+    /**
+     * One bucket, listed on a single page.
+     */
+    private static class FakeS3 extends AbstractAmazonS3 {
+
+        private final Map<String, S3ObjectSummary> objects = new TreeMap<>();
+        volatile RuntimeException failure;
+
+        synchronized void put(String relativeKey, long size, String eTag) {
+            S3ObjectSummary s3o = new S3ObjectSummary();
+            s3o.setKey(KEY_PATH + "/" + relativeKey);
+            s3o.setSize(size);
+            s3o.setETag(eTag);
+            objects.put(s3o.getKey(), s3o);
+        }
+
+        @Override
+        public synchronized ListObjectsV2Result listObjectsV2(ListObjectsV2Request request) {
+            if (failure != null) {
+                throw failure;
+            }
+            ListObjectsV2Result result = new ListObjectsV2Result();
+            objects.values().stream().filter(s3o -> s3o.getKey().startsWith(request.getPrefix()))
+                    .forEach(result.getObjectSummaries()::add);
+            return result;
+        }
+    }
+}
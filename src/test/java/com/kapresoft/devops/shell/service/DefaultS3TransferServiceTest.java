@@ -0,0 +1,147 @@
+package com.kapresoft.devops.shell.service;
+
+import com.amazonaws.services.s3.AbstractAmazonS3;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.amazonaws.services.s3.model.CopyObjectRequest;
+import com.amazonaws.services.s3.model.CopyObjectResult;
+import com.amazonaws.services.s3.model.ListObjectsV2Request;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.kapresoft.devops.shell.config.KapresoftProjectProperties;
+import com.kapresoft.devops.shell.config.S3BucketProperties;
+import com.kapresoft.devops.shell.pojo.DeployOptions;
+import com.kapresoft.devops.shell.pojo.S3Location;
+import com.kapresoft.devops.shell.pojo.TransferReport;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DefaultS3TransferServiceTest {
+
+    private static final String KEY_PATH = "site/2e641ee8/Kapresoft-Articles";
+    private static final String PREFIX = KEY_PATH + "/";
+
+    @TempDir
+    Path dir;
+
+    private final FakeS3 s3 = new FakeS3();
+    /**
+     * The listings by bucket and prefix, in key order
+     */
+    private final Map<String, List<S3ObjectSummary>> listings = new HashMap<>();
+    private DefaultS3TransferService transferService;
+
+    @BeforeEach
+    void setUp() {
+        S3RepositoryService repository = mock(S3RepositoryService.class);
+        when(repository.stream(any(Supplier.class))).thenAnswer(i -> {
+            ListObjectsV2Request request = ((Supplier<ListObjectsV2Request>) i.getArgument(0)).get();
+            return listings.getOrDefault(request.getBucketName() + "/" + request.getPrefix(), List.of()).stream();
+        });
+        S3BucketProperties bucket = new S3BucketProperties("s3://kapresoft/");
+        KapresoftProjectProperties project = new KapresoftProjectProperties("articles", "Kapresoft-Articles", "build.yml",
+                URI.create("https://articles.cloudfront.net"), "build-manifest.txt", "", bucket.getS3Bucket());
+        transferService = new DefaultS3TransferService(s3, repository, mock(CompressionService.class), bucket, project);
+    }
+
+    private void list(String bucket, String relativeKey, String content) {
+        S3ObjectSummary s3o = new S3ObjectSummary();
+        s3o.setBucketName(bucket);
+        s3o.setKey(PREFIX + relativeKey);
+        s3o.setSize(content.length());
+        s3o.setETag("\"%s\"".formatted(md5(content)));
+        listings.computeIfAbsent(bucket + "/" + PREFIX, k -> new ArrayList<>()).add(s3o);
+    }
+
+    @Test
+    void promote_ShouldSkipObjectsAlreadyCopied() {
+        list("kapresoft", "build.yml", "id: 2e641ee8");
+        list("kapresoft", "index.html", "<html/>");
+        list("kapresoft", "site.css", "body {}");
+        // Left by an earlier, interrupted promote
+        list("kapresoft-prod", "index.html", "<html/>");
+
+        TransferReport report = transferService.promote(KEY_PATH, S3Location.parse("s3://kapresoft-prod"), 2, false);
+
+        assertThat(report.isSuccessful()).isTrue();
+        assertThat(report.getSkipped()).isEqualTo(1);
+        assertThat(report.getTransferred()).isEqualTo(2);
+        // The build info file is copied last, once the build is complete
+        assertThat(s3.copied).containsExactly(PREFIX + "site.css", PREFIX + "build.yml");
+    }
+
+    @Test
+    void promote_ShouldCountRuntimeFailuresAndKeepTheBuildInfo() {
+        list("kapresoft", "build.yml", "id: 2e641ee8");
+        list("kapresoft", "index.html", "<html/>");
+        list("kapresoft", "site.css", "body {}");
+        s3.failing = PREFIX + "site.css";
+
+        TransferReport report = transferService.promote(KEY_PATH, S3Location.parse("s3://kapresoft-prod"), 1, false);
+
+        assertThat(report.isSuccessful()).isFalse();
+        assertThat(report.getFailed()).isEqualTo(1);
+        assertThat(report.getFailureMessages()).hasSize(1).allMatch(m -> m.startsWith("site.css: Access Denied"));
+        assertThat(s3.copied).containsExactly(PREFIX + "index.html");
+    }
+
+    @Test
+    void deploy_ShouldResumeByComparingETags() throws IOException {
+        Files.writeString(dir.resolve("index.html"), "<html/>");
+        Files.writeString(dir.resolve("site.css"), "body {}");
+        Files.createDirectories(dir.resolve("img"));
+        Files.writeString(dir.resolve("img/logo.svg"), "<svg/>");
+        list("kapresoft", "index.html", "<html/>");
+        list("kapresoft", "site.css", "body { }");
+
+        TransferReport report = transferService.deploy(dir, DeployOptions.builder()
+                .version("2e641ee8").commitHash("31df8236").concurrency(2).partSize(DeployOptions.MIN_PART_SIZE)
+                .dryRun(true).build());
+
+        assertThat(report.getSkipped()).isEqualTo(1);
+        assertThat(report.getTransferred()).isEqualTo(2);
+        assertThat(report.getTransferredBytes()).isEqualTo("body {}".length() + "<svg/>".length());
+    }
+
+    private static String md5(String content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("MD5").digest(content.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class FakeS3 extends AbstractAmazonS3 {
+
+        final List<String> copied = new ArrayList<>();
+        volatile String failing;
+
+        @Override
+        public synchronized CopyObjectResult copyObject(CopyObjectRequest request) {
+            if (request.getSourceKey().equals(failing)) {
+                throw new AmazonS3Exception("Access Denied");
+            }
+            copied.add(request.getDestinationKey());
+            return new CopyObjectResult();
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.kapresoft.devops.shell.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GzipTest {
+
+    private final byte[] content = "<html><body>%s</body></html>".formatted("<p>Hello</p>".repeat(200))
+            .getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void compress_ShouldBeDeterministic() {
+        assertThat(Gzip.compress(content, 9)).isEqualTo(Gzip.compress(content, 9));
+    }
+
+    @Test
+    void compress_ShouldRoundTrip() throws IOException {
+        byte[] gzip = Gzip.compress(content, 9);
+
+        assertThat(gzip.length).isLessThan(content.length / 10);
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip))) {
+            assertThat(in.readAllBytes()).isEqualTo(content);
+        }
+    }
+
+}
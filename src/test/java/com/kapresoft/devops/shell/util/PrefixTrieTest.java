@@ -0,0 +1,44 @@
+package com.kapresoft.devops.shell.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PrefixTrieTest {
+
+    private final PrefixTrie trie = new PrefixTrie();
+
+    @BeforeEach
+    void setUp() {
+        trie.add("2e641ee8-9226-45d4-ab8c-7850e731d675");
+        trie.add("2e6f0000-1111-2222-3333-444444444444");
+        trie.add("76430603-5232-4722-ab25-74d975af8199");
+        trie.add("live");
+    }
+
+    @Test
+    void add_ShouldIgnoreDuplicates() {
+        assertThat(trie.add("live")).isFalse();
+        assertThat(trie.size()).isEqualTo(4);
+        assertThat(trie.count("2e6")).isEqualTo(2);
+    }
+
+    @Test
+    void complete_ShouldReturnSortedMatches() {
+        assertThat(trie.complete("2e6", 10)).containsExactly(
+                "2e641ee8-9226-45d4-ab8c-7850e731d675", "2e6f0000-1111-2222-3333-444444444444");
+        assertThat(trie.complete("", 2)).hasSize(2);
+        assertThat(trie.complete("x", 10)).isEmpty();
+    }
+
+    @Test
+    void resolve_ShouldAcceptUniquePrefixesOnly() {
+        assertThat(trie.resolve("7")).contains("76430603-5232-4722-ab25-74d975af8199");
+        assertThat(trie.resolve("2e64")).contains("2e641ee8-9226-45d4-ab8c-7850e731d675");
+        assertThat(trie.resolve("2e6")).isEmpty();
+        assertThat(trie.resolve("live")).contains("live");
+        assertThat(trie.resolve("x")).isEmpty();
+    }
+
+}
@@ -0,0 +1,77 @@
+package com.kapresoft.devops.shell.util.aws;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.AmazonWebServiceRequest;
+import com.amazonaws.DefaultRequest;
+import com.amazonaws.Request;
+import com.amazonaws.handlers.HandlerAfterAttemptContext;
+import com.amazonaws.handlers.HandlerBeforeAttemptContext;
+import com.amazonaws.handlers.HandlerContextKey;
+import com.amazonaws.services.s3.model.GetObjectMetadataRequest;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.kapresoft.devops.shell.util.concurrent.AdaptiveLimiter;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConcurrencyLimitingRequestHandlerTest {
+
+    private final AdaptiveLimiter limiter = new AdaptiveLimiter("s3", 10, 1, 128, 4);
+    private final ConcurrencyLimitingRequestHandler handler = new ConcurrencyLimitingRequestHandler(limiter);
+
+    @Test
+    void afterAttempt_ShouldNotLowerLimitOnSlowUpload() throws InterruptedException {
+        attempt(request(new GetObjectMetadataRequest("kapresoft", "site/a/build.yml"), "HeadObject"), 0, null);
+        attempt(request(new PutObjectRequest("kapresoft", "site/a/app.js", new File("app.js")), "PutObject"), 50, null);
+
+        assertThat(limiter.snapshot().limit()).isEqualTo(10);
+        assertThat(limiter.snapshot().inFlight()).isZero();
+    }
+
+    @Test
+    void afterAttempt_ShouldLowerLimitOnSlowRequestOfTheSameOperation() throws InterruptedException {
+        attempt(request(new GetObjectMetadataRequest("kapresoft", "site/a/build.yml"), "HeadObject"), 0, null);
+        attempt(request(new GetObjectMetadataRequest("kapresoft", "site/b/build.yml"), "HeadObject"), 50, null);
+
+        assertThat(limiter.snapshot().limit()).isEqualTo(9);
+    }
+
+    @Test
+    void afterAttempt_ShouldHalveLimitOnThrottledUpload() throws InterruptedException {
+        AmazonServiceException slowDown = new AmazonServiceException("Please reduce your request rate.");
+        slowDown.setErrorCode("SlowDown");
+        slowDown.setStatusCode(503);
+
+        attempt(request(new PutObjectRequest("kapresoft", "site/a/app.js", new File("app.js")), "PutObject"), 0, slowDown);
+
+        assertThat(limiter.snapshot().limit()).isEqualTo(5);
+        assertThat(limiter.snapshot().throttles()).isEqualTo(1);
+    }
+
+    @Test
+    void afterError_ShouldReleasePermitOfAnAttemptWithoutAfterAttempt() {
+        Request<?> request = request(new GetObjectMetadataRequest("kapresoft", "site/a/build.yml"), "HeadObject");
+        handler.beforeAttempt(HandlerBeforeAttemptContext.builder().withRequest(request).build());
+
+        handler.afterError(request, null, new IllegalStateException("Signing failed"));
+        handler.afterError(request, null, new IllegalStateException("Signing failed"));
+
+        assertThat(limiter.snapshot().inFlight()).isZero();
+        assertThat(limiter.snapshot().requests()).isEqualTo(1);
+    }
+
+    private void attempt(Request<?> request, long millis, Exception e) throws InterruptedException {
+        handler.beforeAttempt(HandlerBeforeAttemptContext.builder().withRequest(request).build());
+        Thread.sleep(millis);
+        handler.afterAttempt(HandlerAfterAttemptContext.builder().withRequest(request).withException(e).build());
+    }
+
+    private static Request<?> request(AmazonWebServiceRequest original, String operation) {
+        Request<?> request = new DefaultRequest<>(original, "Amazon S3");
+        request.addHandlerContext(HandlerContextKey.OPERATION_NAME, operation);
+        return request;
+    }
+}
@@ -0,0 +1,48 @@
+package com.kapresoft.devops.shell.util.aws;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ETagCalculatorTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void compute_SinglePart_ShouldBeMd5() throws IOException {
+        Path file = Files.writeString(tempDir.resolve("a.txt"), "abc", StandardCharsets.UTF_8);
+
+        ETagCalculator.Digest digest = ETagCalculator.compute(file, 8);
+
+        assertThat(digest.md5()).isEqualTo("900150983cd24fb0d6963f7d28e17f72");
+        assertThat(digest.eTag()).isEqualTo(digest.md5());
+        assertThat(digest.size()).isEqualTo(3);
+        assertThat(digest.isMultipart()).isFalse();
+    }
+
+    @Test
+    void compute_Multipart_ShouldBeMd5OfPartMd5s() throws IOException, NoSuchAlgorithmException {
+        Path file = Files.writeString(tempDir.resolve("b.txt"), "abcdefghij", StandardCharsets.UTF_8);
+
+        ETagCalculator.Digest digest = ETagCalculator.compute(file, 4);
+
+        MessageDigest parts = MessageDigest.getInstance("MD5");
+        for (String part : new String[]{"abcd", "efgh", "ij"}) {
+            parts.update(MessageDigest.getInstance("MD5").digest(part.getBytes(StandardCharsets.UTF_8)));
+        }
+        assertThat(digest.eTag()).isEqualTo(HexFormat.of().formatHex(parts.digest()) + "-3");
+        assertThat(digest.md5()).isEqualTo("a925576942e94b2ef57a066101b48876");
+        assertThat(digest.isMultipart()).isTrue();
+    }
+
+}
@@ -0,0 +1,59 @@
+package com.kapresoft.devops.shell.util.aws;
+
+import com.kapresoft.devops.shell.pojo.BuildDiffEntry;
+import com.kapresoft.devops.shell.pojo.BuildDiffEntry.Change;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InvalidationPathCollapserTest {
+
+    @Test
+    void collapse_FewChanges_ShouldUseExactPaths() {
+        var collapser = new InvalidationPathCollapser();
+        collapser.accept(entry(Change.CHANGED, "index.html"));
+        collapser.accept(entry(Change.ADDED, "docs/a b.html"));
+        collapser.accept(entry(Change.UNCHANGED, "css/main.css"));
+
+        assertThat(collapser.collapse())
+                .containsExactly("/", "/docs/a%20b.html", "/index.html");
+    }
+
+    @Test
+    void collapse_NoChanges_ShouldBeEmpty() {
+        var collapser = new InvalidationPathCollapser();
+        collapser.accept(entry(Change.UNCHANGED, "index.html"));
+
+        assertThat(collapser.collapse()).isEmpty();
+    }
+
+    @Test
+    void collapse_TooManyPaths_ShouldUseWildcardForFullyChangedDirectory() {
+        var collapser = new InvalidationPathCollapser(3, 1);
+        for (int i = 0; i < 10; i++) {
+            collapser.accept(entry(Change.CHANGED, "img/%d.png".formatted(i)));
+            collapser.accept(entry(Change.UNCHANGED, "docs/%d.css".formatted(i)));
+        }
+        collapser.accept(entry(Change.CHANGED, "docs/0.html"));
+        collapser.accept(entry(Change.CHANGED, "docs/1.html"));
+
+        assertThat(collapser.collapse())
+                .containsExactly("/docs/0.html", "/docs/1.html", "/img/*");
+    }
+
+    @Test
+    void collapse_WildcardLimitExceeded_ShouldInvalidateAll() {
+        var collapser = new InvalidationPathCollapser(3, 0);
+        for (int i = 0; i < 10; i++) {
+            collapser.accept(entry(Change.REMOVED, "img/%d.png".formatted(i)));
+        }
+
+        assertThat(collapser.collapse()).containsExactly(InvalidationPathCollapser.ALL_PATHS);
+    }
+
+    private static BuildDiffEntry entry(Change change, String relativeKey) {
+        return new BuildDiffEntry(change, relativeKey, null, null);
+    }
+
+}
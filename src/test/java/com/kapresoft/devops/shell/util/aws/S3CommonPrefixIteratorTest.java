@@ -0,0 +1,62 @@
+package com.kapresoft.devops.shell.util.aws;
+
+import com.amazonaws.services.s3.AbstractAmazonS3;
+import com.amazonaws.services.s3.model.ListObjectsV2Request;
+import com.amazonaws.services.s3.model.ListObjectsV2Result;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class S3CommonPrefixIteratorTest {
+
+    @Test
+    void stream_ShouldFollowContinuationTokens() {
+        var s3 = new PagedS3(
+                page("t1", "site/a/", "site/b/"),
+                // A page of leaf objects only
+                page("t2"),
+                page(null, "site/c/"));
+
+        List<String> dirs = S3CommonPrefixIterator.stream(s3, "bucket", "site/").toList();
+
+        assertThat(dirs).containsExactly("site/a/", "site/b/", "site/c/");
+        assertThat(s3.requests).extracting(ListObjectsV2Request::getDelimiter).containsOnly("/");
+        assertThat(s3.requests).extracting(ListObjectsV2Request::getContinuationToken).containsExactly(null, "t1", "t2");
+    }
+
+    @Test
+    void stream_ShouldFetchPagesLazily() {
+        var s3 = new PagedS3(page("t1", "site/a/"), page(null, "site/b/"));
+
+        assertThat(S3CommonPrefixIterator.stream(s3, "bucket", "site/").findFirst()).hasValue("site/a/");
+        assertThat(s3.requests).hasSize(1);
+    }
+
+    private static ListObjectsV2Result page(String nextToken, String... prefixes) {
+        var result = new ListObjectsV2Result();
+        result.setCommonPrefixes(List.of(prefixes));
+        result.setNextContinuationToken(nextToken);
+        result.setTruncated(nextToken != null);
+        return result;
+    }
+
+    private static class PagedS3 extends AbstractAmazonS3 {
+
+        final List<ListObjectsV2Request> requests = new ArrayList<>();
+        private final List<ListObjectsV2Result> pages;
+
+        PagedS3(ListObjectsV2Result... pages) {
+            this.pages = List.of(pages);
+        }
+
+        @Override
+        public ListObjectsV2Result listObjectsV2(ListObjectsV2Request request) {
+            requests.add(request);
+            return pages.get(requests.size() - 1);
+        }
+    }
+}
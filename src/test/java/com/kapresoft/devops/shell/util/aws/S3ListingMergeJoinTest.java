@@ -0,0 +1,90 @@
+package com.kapresoft.devops.shell.util.aws;
+
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.kapresoft.devops.shell.pojo.BuildDiffEntry;
+import com.kapresoft.devops.shell.pojo.BuildDiffEntry.Change;
+import com.kapresoft.devops.shell.pojo.BuildDiffSummary;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class S3ListingMergeJoinTest {
+
+    private static final String FROM = "site/a/Kapresoft-Articles/";
+    private static final String TO = "site/b/Kapresoft-Articles/";
+
+    @Test
+    void join() {
+        var from = Stream.of(
+                s3o(FROM + "css/main.css", "e1", 100),
+                s3o(FROM + "index.html", "e2", 200),
+                s3o(FROM + "old.html", "e3", 300));
+        var to = Stream.of(
+                s3o(TO + "css/main.css", "e1", 100),
+                s3o(TO + "docs/new.html", "e4", 50),
+                s3o(TO + "index.html", "e5", 210));
+
+        List<BuildDiffEntry> entries = new ArrayList<>();
+        BuildDiffSummary summary = S3ListingMergeJoin.join(FROM, from.iterator(), TO, to.iterator(), entries::add);
+
+        assertThat(entries).extracting(BuildDiffEntry::relativeKey)
+                .containsExactly("css/main.css", "docs/new.html", "index.html", "old.html");
+        assertThat(entries).extracting(BuildDiffEntry::change)
+                .containsExactly(Change.UNCHANGED, Change.ADDED, Change.CHANGED, Change.REMOVED);
+        assertThat(summary.getAdded()).as("added").isEqualTo(1);
+        assertThat(summary.getAddedBytes()).as("addedBytes").isEqualTo(50);
+        assertThat(summary.getRemoved()).as("removed").isEqualTo(1);
+        assertThat(summary.getRemovedBytes()).as("removedBytes").isEqualTo(300);
+        assertThat(summary.getChanged()).as("changed").isEqualTo(1);
+        assertThat(summary.getChangedBytes()).as("changedBytes").isEqualTo(210);
+        assertThat(summary.getUnchanged()).as("unchanged").isEqualTo(1);
+        assertThat(summary.getFromTotalBytes()).as("fromTotalBytes").isEqualTo(600);
+        assertThat(summary.getToTotalBytes()).as("toTotalBytes").isEqualTo(360);
+    }
+
+    @Test
+    void join_OneSideEmpty_ShouldDrainOtherSide() {
+        var to = Stream.of(s3o(TO + "a.html", "e1", 1), s3o(TO + "b.html", "e2", 2));
+
+        BuildDiffSummary summary = S3ListingMergeJoin.join(FROM, Stream.<S3ObjectSummary>empty().iterator(),
+                TO, to.iterator(), e -> {});
+
+        assertThat(summary.getAdded()).as("added").isEqualTo(2);
+        assertThat(summary.hasChanges()).as("hasChanges").isTrue();
+    }
+
+    @Test
+    void join_QuotedETag_ShouldBeUnchanged() {
+        var from = Stream.of(s3o(FROM + "a.html", "\"e1\"", 1));
+        var to = Stream.of(s3o(TO + "a.html", "e1", 1));
+
+        BuildDiffSummary summary = S3ListingMergeJoin.join(FROM, from.iterator(), TO, to.iterator(), e -> {});
+
+        assertThat(summary.hasChanges()).as("hasChanges").isFalse();
+    }
+
+    @Test
+    void keyComparator_ShouldMatchUtf8ByteOrder() {
+        // U+FF5E (3 UTF-8 bytes: EF BD 9E) sorts before U+1F600 (4 bytes: F0 9F 98 80) in S3,
+        // although its UTF-16 unit is greater than the high surrogate of U+1F600.
+        String fullwidth = "\uFF5E";
+        String emoji = new String(Character.toChars(0x1F600));
+        assertThat(fullwidth.compareTo(emoji)).isPositive();
+        assertThat(S3KeyComparator.INSTANCE.compare(fullwidth, emoji)).isNegative();
+        assertThat(S3KeyComparator.INSTANCE.compare("a", "ab")).isNegative();
+    }
+
+    private static S3ObjectSummary s3o(String key, String eTag, long size) {
+        S3ObjectSummary s3o = new S3ObjectSummary();
+        s3o.setKey(key);
+        s3o.setETag(eTag);
+        s3o.setSize(size);
+        return s3o;
+    }
+
+}
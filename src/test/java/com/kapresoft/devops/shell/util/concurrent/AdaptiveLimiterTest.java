@@ -0,0 +1,71 @@
+package com.kapresoft.devops.shell.util.concurrent;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveLimiterTest {
+
+    private static final long LATENCY = 10_000_000;
+
+    @Test
+    void release_ShouldHalveLimitOnThrottle() throws InterruptedException {
+        AdaptiveLimiter limiter = new AdaptiveLimiter("s3", 16, 1, 128, 0);
+
+        limiter.acquire();
+        limiter.release(AdaptiveLimiter.Outcome.THROTTLED, LATENCY);
+        limiter.acquire();
+        limiter.release(AdaptiveLimiter.Outcome.THROTTLED, LATENCY);
+
+        // the second throttle falls in the same decrease interval
+        assertThat(limiter.snapshot().limit()).isEqualTo(8);
+        assertThat(limiter.snapshot().throttles()).isEqualTo(2);
+    }
+
+    @Test
+    void release_ShouldRaiseLimitWhenInUse() throws InterruptedException {
+        AdaptiveLimiter limiter = new AdaptiveLimiter("cloudfront", 2, 1, 3, 0);
+
+        for (int i = 0; i < 10; i++) {
+            limiter.acquire();
+            limiter.acquire();
+            limiter.release(AdaptiveLimiter.Outcome.SUCCESS, LATENCY);
+            limiter.release(AdaptiveLimiter.Outcome.SUCCESS, LATENCY);
+        }
+
+        assertThat(limiter.snapshot().limit()).isEqualTo(3);
+        assertThat(limiter.snapshot().inFlight()).isZero();
+        assertThat(limiter.snapshot().peakInFlight()).isEqualTo(2);
+    }
+
+    @Test
+    void release_ShouldLowerLimitOnSlowResponse() throws InterruptedException {
+        AdaptiveLimiter limiter = new AdaptiveLimiter("s3", 10, 1, 128, 4);
+
+        limiter.acquire();
+        limiter.release(AdaptiveLimiter.Outcome.SUCCESS, LATENCY);
+        limiter.acquire();
+        limiter.release(AdaptiveLimiter.Outcome.SUCCESS, LATENCY * 10);
+
+        assertThat(limiter.snapshot().limit()).isEqualTo(9);
+    }
+
+    @Test
+    void release_ShouldCompareLatencyWithTheSameOperationOnly() throws InterruptedException {
+        AdaptiveLimiter limiter = new AdaptiveLimiter("s3", 10, 1, 128, 4);
+
+        limiter.acquire();
+        limiter.release(AdaptiveLimiter.Outcome.SUCCESS, "HeadObject", LATENCY);
+        limiter.acquire();
+        limiter.release(AdaptiveLimiter.Outcome.SUCCESS, "ListObjectsV2", LATENCY * 10);
+        limiter.acquire();
+        limiter.release(AdaptiveLimiter.Outcome.SUCCESS, null, LATENCY * 100);
+
+        assertThat(limiter.snapshot().limit()).isEqualTo(10);
+
+        limiter.acquire();
+        limiter.release(AdaptiveLimiter.Outcome.SUCCESS, "HeadObject", LATENCY * 10);
+
+        assertThat(limiter.snapshot().limit()).isEqualTo(9);
+    }
+}
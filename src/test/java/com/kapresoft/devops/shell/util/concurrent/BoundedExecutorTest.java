@@ -0,0 +1,62 @@
+package com.kapresoft.devops.shell.util.concurrent;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BoundedExecutorTest {
+
+    @Test
+    void execute_ShouldRunAllTasksWithinTheConcurrency() throws InterruptedException {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        AtomicInteger done = new AtomicInteger();
+
+        try (BoundedExecutor executor = new BoundedExecutor("test-bounded", 2)) {
+            for (int i = 0; i < 20; i++) {
+                assertThat(executor.execute(() -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    try {
+                        Thread.sleep(5);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    running.decrementAndGet();
+                    done.incrementAndGet();
+                })).isTrue();
+            }
+            executor.awaitCompletion();
+        }
+
+        assertThat(done).hasValue(20);
+        assertThat(maxRunning.get()).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void cancel_ShouldInterruptRunningTasksAndRefuseNewOnes() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+
+        try (BoundedExecutor executor = new BoundedExecutor("test-bounded", 1)) {
+            executor.execute(() -> {
+                started.countDown();
+                try {
+                    Thread.sleep(10_000);
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                }
+            });
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+            executor.cancel();
+
+            assertThat(executor.isCancelled()).isTrue();
+            assertThat(interrupted.await(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(executor.execute(() -> { })).isFalse();
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.kapresoft.devops.shell.util.concurrent;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HedgerTest {
+
+    private final Hedger hedger = new Hedger("test-hedge", 50, Duration.ofMillis(1), 1, 100);
+
+    @AfterEach
+    void tearDown() {
+        hedger.close();
+    }
+
+    @Test
+    void call_ShouldNotHedgeBeforeLatenciesAreKnown() throws Exception {
+        assertThat(hedger.call(() -> "build.yml")).isEqualTo("build.yml");
+
+        assertThat(hedger.stats().hedged()).isZero();
+        assertThat(hedger.delayNanos()).isEqualTo(Long.MAX_VALUE);
+    }
+
+    @Test
+    void call_ShouldReturnHedgeWhenFirstCallIsSlow() throws Exception {
+        for (int i = 0; i < Hedger.MIN_SAMPLES; i++) {
+            hedger.call(() -> "fast");
+        }
+        AtomicInteger attempt = new AtomicInteger();
+
+        String result = hedger.call(() -> {
+            if (attempt.getAndIncrement() == 0) {
+                Thread.sleep(10_000);
+                return "slow";
+            }
+            return "hedge";
+        });
+
+        assertThat(result).isEqualTo("hedge");
+        assertThat(hedger.stats().hedged()).isEqualTo(1);
+    }
+
+    @Test
+    void latencyWindow_ShouldKeepRecentSamples() {
+        Hedger.LatencyWindow window = new Hedger.LatencyWindow(4);
+        for (long nanos = 1; nanos <= 6; nanos++) {
+            window.add(nanos);
+        }
+
+        assertThat(window.size()).isEqualTo(4);
+        assertThat(window.percentile(50)).isEqualTo(4);
+        assertThat(window.percentile(100)).isEqualTo(6);
+    }
+}
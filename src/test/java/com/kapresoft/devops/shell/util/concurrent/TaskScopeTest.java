@@ -0,0 +1,91 @@
+package com.kapresoft.devops.shell.util.concurrent;
+
+import jakarta.validation.ValidationException;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TaskScopeTest {
+
+    @Test
+    void join_ShouldRunCallsConcurrently() throws Exception {
+        CountDownLatch started = new CountDownLatch(2);
+        try (TaskScope scope = new TaskScope("test")) {
+            TaskScope.Subtask<Boolean> a = scope.fork(() -> {
+                started.countDown();
+                return started.await(5, TimeUnit.SECONDS);
+            });
+            TaskScope.Subtask<Boolean> b = scope.fork(() -> {
+                started.countDown();
+                return started.await(5, TimeUnit.SECONDS);
+            });
+            scope.join();
+
+            assertThat(a.get()).isTrue();
+            assertThat(b.get()).isTrue();
+        }
+    }
+
+    @Test
+    void join_ShouldThrowTheFailureAndCancelTheCallsForkedAfterIt() {
+        CountDownLatch never = new CountDownLatch(1);
+        try (TaskScope scope = new TaskScope("test")) {
+            scope.fork(() -> {
+                throw new ValidationException("Invalid build version: 2e64");
+            });
+            TaskScope.Subtask<Boolean> slow = scope.fork(() -> never.await(30, TimeUnit.SECONDS));
+
+            assertThatThrownBy(scope::join)
+                    .isInstanceOf(ValidationException.class)
+                    .hasMessage("Invalid build version: 2e64");
+            assertThatThrownBy(slow::get).isInstanceOf(ValidationException.class);
+        }
+    }
+
+    @Test
+    void join_ShouldThrowTheFirstFailureAndCancelTheCallsForkedBeforeIt() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch cancelled = new CountDownLatch(1);
+        try (TaskScope scope = new TaskScope("test")) {
+            TaskScope.Subtask<Object> slow = scope.fork(() -> {
+                started.countDown();
+                try {
+                    Thread.sleep(30_000);
+                } catch (InterruptedException e) {
+                    cancelled.countDown();
+                    throw e;
+                }
+                throw new ValidationException("Invalid build version: 2e64");
+            });
+            scope.fork(() -> {
+                started.await(5, TimeUnit.SECONDS);
+                throw new IllegalStateException("Distribution not found");
+            });
+
+            assertThatThrownBy(scope::join)
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessage("Distribution not found");
+            assertThatThrownBy(slow::get).hasMessage("Distribution not found");
+            assertThat(cancelled.await(5, TimeUnit.SECONDS)).isTrue();
+        }
+    }
+
+    @Test
+    void get_ShouldReturnTheResultOfCallsThatCompletedBeforeAFailure() throws Exception {
+        try (TaskScope scope = new TaskScope("test")) {
+            TaskScope.Subtask<String> build = scope.fork(() -> "site/2e641ee8");
+            scope.fork(() -> {
+                build.get();
+                throw new IllegalStateException("Distribution not found");
+            });
+
+            assertThatThrownBy(scope::join).hasMessage("Distribution not found");
+            assertThat(build.get()).isEqualTo("site/2e641ee8");
+        }
+    }
+}
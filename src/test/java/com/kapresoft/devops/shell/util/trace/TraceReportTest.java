@@ -0,0 +1,49 @@
+package com.kapresoft.devops.shell.util.trace;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TraceReportTest {
+
+    private final Tracer tracer = new Tracer(true);
+
+    @Test
+    void findings_ShouldReportCallPerListedItem() {
+        tracer.begin();
+        try (Span release = tracer.span("release")) {
+            tracer.remoteCall("ListObjectsV2").close();
+            for (int i = 0; i < TraceReport.REPEATED_CALLS; i++) {
+                tracer.remoteCall("GetObject").close();
+            }
+        }
+        Tracer.Trace trace = tracer.take().orElseThrow();
+
+        assertThat(trace.root().getChildren()).hasSize(1);
+        assertThat(TraceReport.findings(trace.root()))
+                .contains("N+1: 5 GetObject calls after ListObjectsV2 under release");
+    }
+
+    @Test
+    void serialChains_ShouldSplitOnOverlap() {
+        Span a = tracer.remoteCall("GetDistributionConfig");
+        Span b = tracer.remoteCall("ListObjectsV2");
+        a.close();
+        b.close();
+        Span c = tracer.remoteCall("GetObject");
+        c.close();
+
+        // b started before a ended, so the only serial run is b -> c, too short to report
+        assertThat(TraceReport.serialChains(List.of(a, b, c))).isEmpty();
+    }
+
+    @Test
+    void take_ShouldRecordNothingWhenDisabled() {
+        tracer.setEnabled(false);
+        tracer.remoteCall("GetObject").close();
+
+        assertThat(tracer.take()).isEmpty();
+    }
+}
@@ -0,0 +1,71 @@
+package com.kapresoft.devops.shell.util.trace;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TracerTest {
+
+    private final Tracer tracer = new Tracer(true);
+
+    @Test
+    void take_ShouldRecordNothingWithoutBegin() {
+        tracer.remoteCall("ListObjectsV2").close();
+
+        assertThat(tracer.isRecording()).isFalse();
+        assertThat(tracer.take()).isEmpty();
+    }
+
+    @Test
+    void take_ShouldIncludeTheThreadsStartedByTheCommand() throws Exception {
+        tracer.begin();
+        try (Span ls = tracer.span("ls")) {
+            Thread worker = new Thread(() -> tracer.remoteCall("GetDistributionConfig").close(), "ls-1");
+            worker.start();
+            worker.join();
+            tracer.remoteCall("ListObjectsV2").close();
+        }
+        Tracer.Trace trace = tracer.take().orElseThrow();
+
+        assertThat(trace.root().getChildren()).extracting(Span::getName).containsExactly("ls", "GetDistributionConfig");
+        assertThat(trace.root().getChildren().get(0).getChildren()).extracting(Span::getName).containsExactly("ListObjectsV2");
+        assertThat(trace.root().getChildren().get(1).getThread()).isEqualTo("ls-1");
+    }
+
+    @Test
+    void take_ShouldExcludeBackgroundThreads() throws Exception {
+        ExecutorService background = Executors.newSingleThreadExecutor(r -> new Thread(r, "index-refresh-1"));
+        try {
+            background.submit(() -> { }).get();
+            tracer.begin();
+            background.submit(() -> tracer.remoteCall("ListObjectsV2").close()).get();
+            tracer.remoteCall("GetObject").close();
+
+            Tracer.Trace trace = tracer.take().orElseThrow();
+            assertThat(trace.root().getChildren()).extracting(Span::getName).containsExactly("GetObject");
+        } finally {
+            background.shutdownNow();
+        }
+    }
+
+    @Test
+    void take_ShouldEndTheTraceForThePooledThreadsOfTheCommand() throws Exception {
+        ExecutorService pool;
+        tracer.begin();
+        pool = Executors.newSingleThreadExecutor();
+        try {
+            pool.submit(() -> tracer.remoteCall("GetObject").close()).get();
+            assertThat(tracer.take()).hasValueSatisfying(trace -> assertThat(trace.root().getChildren()).hasSize(1));
+
+            tracer.begin();
+            pool.submit(() -> tracer.remoteCall("GetObject").close()).get();
+            assertThat(pool.submit(tracer::isRecording).get()).isFalse();
+            assertThat(tracer.take()).isEmpty();
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}